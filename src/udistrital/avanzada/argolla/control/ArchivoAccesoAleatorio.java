@@ -2,21 +2,70 @@ package udistrital.avanzada.argolla.control;
 
 import udistrital.avanzada.argolla.modelo.Equipo;
 import udistrital.avanzada.argolla.modelo.Jugador;
-import java.io.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * Clase para manejar la persistencia de equipos y jugadores usando archivos de acceso aleatorio.
  * Implementa el principio de responsabilidad única (SRP) al manejar únicamente
  * las operaciones de archivos de acceso aleatorio.
  * 
+ * Los archivos se mantienen abiertos y proyectados en memoria durante toda
+ * la vida de la instancia; se liberan con {@link #cerrar()}.
+ * 
+ * Cada archivo de datos tiene un índice hash en disco (equipos.idx y
+ * jugadores.idx) que asocia el nombre con la ranura del registro. Guardar un
+ * nombre existente actualiza su registro en lugar de duplicarlo, y buscar o
+ * eliminar por nombre lee un único registro.
+ * 
+ * Además se mantiene en memoria un índice secundario de equipo a jugadores,
+ * que permite leer la plantilla de un equipo sin recorrer el archivo.
+ * 
+ * Las operaciones de guardar y eliminar se anotan en un diario de escritura
+ * anticipada (diario.log) antes de aplicarse, y son durables al llamar a
+ * {@link #confirmar()}. En cada punto de control se fuerzan a disco los
+ * archivos de datos y el diario se vacía. Como las páginas proyectadas
+ * pueden llegar al disco antes que el diario, el primer cambio tras un punto
+ * de control fuerza antes una marca en el diario. Si al iniciar el diario no
+ * está vacío, la ejecución anterior no terminó en un punto de control: se
+ * rehacen las listas de libres, los conteos y los índices a partir de las
+ * ranuras y se reproducen las operaciones confirmadas.
+ * 
+ * Cada registro lleva un CRC32C. Al iniciar se verifican en paralelo todos
+ * los registros y los dañados se copian a un archivo de cuarentena
+ * (equipos.dat.cuarentena o jugadores.dat.cuarentena) y se retiran de uso.
+ * 
+ * Un compactador en segundo plano reescribe de forma contigua los archivos
+ * con demasiadas ranuras libres y reconstruye sus índices.
+ * 
+ * Los equipos y jugadores leídos por nombre o por equipo se conservan ya
+ * decodificados en una caché por ranura ({@link CacheRegistros}), cuyo
+ * tamaño se indica al construir la instancia; {@link GameManager} usa
+ * tamanoCacheRegistros de configuracion.properties.
+ * 
+ * El acceso se coordina con un {@link CerrojoArchivos} sobre bloqueo.lck:
+ * las búsquedas y cargas se leen de forma optimista sin bloquear a otros
+ * lectores, y las operaciones que modifican los datos tienen un único
+ * escritor a la vez, tanto entre hilos como entre procesos que comparten el
+ * directorio (por ejemplo, la interfaz gráfica y un marcador sin interfaz).
+ * 
  * @author Sansantax, And_Gar03
  * @version 3.0
  */
-public class ArchivoAccesoAleatorio {
+public final class ArchivoAccesoAleatorio {
     
     /** Tamaño fijo para cada registro de equipo en bytes */
     private static final int TAMANO_REGISTRO_EQUIPO = 256;
@@ -24,20 +73,135 @@ public class ArchivoAccesoAleatorio {
     /** Tamaño fijo para cada registro de jugador en bytes */
     private static final int TAMANO_REGISTRO_JUGADOR = 128;
     
-    /** Archivo de acceso aleatorio para equipos */
-    private static final String ARCHIVO_EQUIPOS = "Specs/data/equipos.dat";
+    /** Directorio por defecto de los archivos de datos */
+    static final String DIRECTORIO_DATOS = "Specs/data";
+    
+    /** Nombre del archivo de acceso aleatorio para equipos */
+    private static final String ARCHIVO_EQUIPOS = "equipos.dat";
+    
+    /** Nombre del archivo de acceso aleatorio para jugadores */
+    private static final String ARCHIVO_JUGADORES = "jugadores.dat";
+    
+    /** Nombre del índice por nombre de equipos */
+    private static final String INDICE_EQUIPOS = "equipos.idx";
+    
+    /** Nombre del índice por nombre de jugadores */
+    private static final String INDICE_JUGADORES = "jugadores.idx";
+    
+    /** Nombre del diario de escritura anticipada */
+    private static final String ARCHIVO_DIARIO = "diario.log";
+    
+    /** Nombre del archivo de bloqueo compartido entre procesos */
+    private static final String ARCHIVO_BLOQUEO = "bloqueo.lck";
+    
+    /** Tamaño del diario a partir del cual se hace un punto de control al confirmar */
+    private static final long TAMANO_PUNTO_CONTROL = 1024 * 1024;
+    
+    /** Registros por archivo en la caché de registros decodificados, si no se indica otro tamaño */
+    private static final int TAMANO_CACHE_PREDETERMINADO = 1024;
     
-    /** Archivo de acceso aleatorio para jugadores */
-    private static final String ARCHIVO_JUGADORES = "Specs/data/jugadores.dat";
+    /** Número mínimo de ranuras para considerar compactar un archivo */
+    private static final int RANURAS_MINIMAS_COMPACTACION = 1024;
     
-    /** Separador de campos */
+    /** Operación del diario: guardar un registro de equipo */
+    private static final byte OPERACION_GUARDAR_EQUIPO = 1;
+    
+    /** Operación del diario: guardar un registro de jugador */
+    private static final byte OPERACION_GUARDAR_JUGADOR = 2;
+    
+    /** Operación del diario: eliminar un equipo por nombre */
+    private static final byte OPERACION_ELIMINAR_EQUIPO = 3;
+    
+    /** Operación del diario: eliminar un jugador por nombre */
+    private static final byte OPERACION_ELIMINAR_JUGADOR = 4;
+    
+    /** Separador de campos del formato de texto anterior */
     private static final String SEPARADOR = "|";
     
+    /** Directorio donde se guardan los archivos */
+    private final String directorio;
+    
+    /** Archivo de registros de equipos */
+    private final ArchivoRegistros archivoEquipos;
+    
+    /** Archivo de registros de jugadores */
+    private final ArchivoRegistros archivoJugadores;
+    
+    /** Codificador de los registros de equipos */
+    private final CodificadorRegistros codificadorEquipos;
+    
+    /** Codificador de los registros de jugadores */
+    private final CodificadorRegistros codificadorJugadores;
+    
+    /** Índice por nombre de los equipos */
+    private final IndiceHash indiceEquipos;
+    
+    /** Índice por nombre de los jugadores */
+    private final IndiceHash indiceJugadores;
+    
+    /** Índice secundario de ranuras de jugadores por equipo */
+    private final IndiceJugadoresPorEquipo jugadoresPorEquipo;
+    
+    /** Caché de equipos decodificados por ranura */
+    private final CacheRegistros<EquipoGuardado> cacheEquipos;
+    
+    /** Caché de jugadores decodificados por ranura */
+    private final CacheRegistros<JugadorGuardado> cacheJugadores;
+    
+    /** Diario de escritura anticipada */
+    private final DiarioEscritura diario;
+    
+    /** Cerrojo de lectores concurrentes y escritor único */
+    private final CerrojoArchivos cerrojo;
+    
+    /** Hilo que compacta los archivos periódicamente, null si no está activo (protegido por el monitor de la instancia) */
+    private ScheduledExecutorService compactador;
+    
+    /** Indica si ya se verificó que los índices correspondan a los datos */
+    private boolean indicesVerificados;
+    
     /**
-     * Constructor que crea los directorios necesarios.
+     * Constructor que crea los directorios necesarios en el directorio de
+     * datos por defecto, con la caché del tamaño predeterminado.
      */
     public ArchivoAccesoAleatorio() {
+        this(DIRECTORIO_DATOS);
+    }
+    
+    /**
+     * Constructor que usa un directorio de datos específico.
+     * 
+     * @param directorio Directorio donde se guardan los archivos
+     */
+    public ArchivoAccesoAleatorio(String directorio) {
+        this(directorio, TAMANO_CACHE_PREDETERMINADO);
+    }
+    
+    /**
+     * Constructor que usa un directorio de datos y un tamaño de caché específicos.
+     * 
+     * @param directorio Directorio donde se guardan los archivos
+     * @param tamanoCache Registros por archivo en la caché; 0 la deshabilita
+     */
+    public ArchivoAccesoAleatorio(String directorio, int tamanoCache) {
+        this.directorio = directorio;
+        this.archivoEquipos = new ArchivoRegistros(
+            Paths.get(directorio, ARCHIVO_EQUIPOS).toString(), TAMANO_REGISTRO_EQUIPO, this::migrarEquipo);
+        this.archivoJugadores = new ArchivoRegistros(
+            Paths.get(directorio, ARCHIVO_JUGADORES).toString(), TAMANO_REGISTRO_JUGADOR, this::migrarJugador);
+        this.codificadorEquipos = new CodificadorRegistros(archivoEquipos.getTamanoContenido());
+        this.codificadorJugadores = new CodificadorRegistros(archivoJugadores.getTamanoContenido());
+        this.indiceEquipos = new IndiceHash(Paths.get(directorio, INDICE_EQUIPOS).toString());
+        this.indiceJugadores = new IndiceHash(Paths.get(directorio, INDICE_JUGADORES).toString());
+        this.jugadoresPorEquipo = new IndiceJugadoresPorEquipo();
+        this.cacheEquipos = new CacheRegistros<>(tamanoCache);
+        this.cacheJugadores = new CacheRegistros<>(tamanoCache);
+        this.diario = new DiarioEscritura(Paths.get(directorio, ARCHIVO_DIARIO).toString());
+        this.cerrojo = new CerrojoArchivos(Paths.get(directorio, ARCHIVO_BLOQUEO).toString(), this::prepararArchivos);
+        this.indicesVerificados = false;
         crearDirectoriosNecesarios();
+        verificarIntegridad();
+        conEscritura(this::recuperarDiario, false);
     }
     
     /**
@@ -45,14 +209,142 @@ public class ArchivoAccesoAleatorio {
      */
     private void crearDirectoriosNecesarios() {
         try {
-            Files.createDirectories(Paths.get("Specs/data"));
+            Files.createDirectories(Paths.get(directorio));
         } catch (IOException e) {
             // En caso de error, se continúa sin los directorios
         }
     }
     
     /**
-     * Guarda un equipo en el archivo de acceso aleatorio.
+     * Reproduce las operaciones que quedaron en el diario si la ejecución
+     * anterior terminó sin un punto de control. Antes se rehacen las listas
+     * de libres, los conteos y los índices, porque solo parte de las páginas
+     * proyectadas pudo llegar al disco.
+     * 
+     * @return true si no había operaciones o se reprodujeron
+     * @throws IOException Si hay error de E/S; se continúa con los datos
+     *                     tal como quedaron en los archivos
+     */
+    private boolean recuperarDiario() throws IOException {
+        if (diario.getTamano() == 0) {
+            return true;
+        }
+        
+        archivoEquipos.reparar();
+        archivoJugadores.reparar();
+        reconstruirIndice(archivoEquipos, indiceEquipos, codificadorEquipos);
+        reconstruirIndice(archivoJugadores, indiceJugadores, codificadorJugadores);
+        indicesVerificados = true;
+        diario.reproducir(this::aplicarOperacion);
+        puntoDeControl();
+        return true;
+    }
+    
+    /**
+     * Abre los archivos antes de la primera operación, tras cerrarlos y cada
+     * vez que otro proceso escribió en el directorio. En ese caso se vuelven
+     * a proyectar porque el otro proceso pudo agrandarlos o reemplazarlos al
+     * compactar, y el índice por equipo y las cachés en memoria se descartan. Si quedaban
+     * operaciones propias sin escribir al diario, se hace un punto de control
+     * para que no queden después de las del otro proceso.
+     * 
+     * @param cambiosExternos true si otro proceso escribió desde la última operación
+     * @throws IOException Si hay error de E/S
+     */
+    private void prepararArchivos(boolean cambiosExternos) throws IOException {
+        archivoEquipos.reabrir();
+        archivoJugadores.reabrir();
+        indiceEquipos.reabrir();
+        indiceJugadores.reabrir();
+        if (cambiosExternos) {
+            jugadoresPorEquipo.invalidar();
+            cacheEquipos.vaciar();
+            cacheJugadores.vaciar();
+            if (diario.tienePendientes()) {
+                puntoDeControl();
+            }
+        }
+        asegurarIndices();
+    }
+    
+    /**
+     * Ejecuta una lectura con el cerrojo de lectores concurrentes. La lectura
+     * puede repetirse si se cruza con una escritura, por lo que no debe
+     * modificar estado compartido.
+     * 
+     * @param <T> Tipo del resultado
+     * @param lectura Lectura a ejecutar
+     * @param valorError Valor a retornar si hay error de E/S
+     * @return Resultado de la lectura
+     */
+    private <T> T conLectura(CerrojoArchivos.Operacion<T> lectura, T valorError) {
+        try {
+            return cerrojo.leer(lectura);
+        } catch (IOException e) {
+            return valorError;
+        }
+    }
+    
+    /**
+     * Ejecuta una operación como escritor único.
+     * 
+     * @param <T> Tipo del resultado
+     * @param escritura Operación a ejecutar
+     * @param valorError Valor a retornar si hay error de E/S
+     * @return Resultado de la operación
+     */
+    private <T> T conEscritura(CerrojoArchivos.Operacion<T> escritura, T valorError) {
+        try {
+            return cerrojo.escribir(escritura);
+        } catch (IOException e) {
+            return valorError;
+        }
+    }
+    
+    /**
+     * Verifica el CRC de todos los registros de ambos archivos y pone en
+     * cuarentena los dañados. Si se retiró alguno, los índices del archivo
+     * afectado se reconstruyen.
+     * 
+     * @return Número de registros puestos en cuarentena, -1 si hubo error de E/S
+     */
+    public int verificarIntegridad() {
+        return conEscritura(() -> {
+            int equipos = verificarArchivo(archivoEquipos, indiceEquipos, codificadorEquipos);
+            int jugadores = verificarArchivo(archivoJugadores, indiceJugadores, codificadorJugadores);
+            if (jugadores > 0) {
+                jugadoresPorEquipo.invalidar();
+            }
+            return equipos + jugadores;
+        }, -1);
+    }
+    
+    /**
+     * Verifica un archivo de datos y pone en cuarentena sus registros dañados.
+     * 
+     * @param archivo Archivo de registros
+     * @param indice Índice del archivo
+     * @param codificador Codificador del archivo
+     * @return Número de registros puestos en cuarentena
+     * @throws IOException Si hay error de E/S
+     */
+    private int verificarArchivo(ArchivoRegistros archivo, IndiceHash indice,
+                                 CodificadorRegistros codificador) throws IOException {
+        int[] danadas = archivo.verificar();
+        if (danadas.length > 0) {
+            diario.marcarCambios();
+        }
+        int retirados = archivo.ponerEnCuarentena(danadas);
+        if (retirados > 0) {
+            reconstruirIndice(archivo, indice, codificador);
+            cacheDe(archivo).vaciar();
+        }
+        return retirados;
+    }
+    
+    /**
+     * Guarda un equipo en el archivo de acceso aleatorio. Si ya existe un
+     * equipo con el mismo nombre, su registro se actualiza.
      * 
      * @param equipo Equipo a guardar
      * @return true si se guardó exitosamente, false en caso contrario
@@ -62,28 +354,41 @@ public class ArchivoAccesoAleatorio {
             return false;
         }
         
-        try (RandomAccessFile raf = new RandomAccessFile(ARCHIVO_EQUIPOS, "rw")) {
-            // Buscar un espacio disponible o agregar al final
-            long posicion = buscarEspacioDisponible(raf);
-            
-            // Mover al inicio del registro
-            raf.seek(posicion * TAMANO_REGISTRO_EQUIPO);
-            
-            // Escribir los datos del equipo
-            String registro = formatearEquipo(equipo);
-            raf.writeUTF(registro);
-            
-            // Completar el registro hasta el tamaño fijo
-            int bytesEscritos = registro.getBytes("UTF-8").length;
-            while (bytesEscritos < TAMANO_REGISTRO_EQUIPO - 2) { // -2 por el prefijo de longitud de UTF
-                raf.writeByte(0);
-                bytesEscritos++;
-            }
-            
+        return conEscritura(() -> {
+            ByteBuffer registro = codificadorEquipos.codificarEquipo(equipo);
+            diario.registrar(OPERACION_GUARDAR_EQUIPO, registro);
+            aplicarOperacion(OPERACION_GUARDAR_EQUIPO, registro);
             return true;
-        } catch (IOException e) {
-            return false;
+        }, false);
+    }
+    
+    /**
+     * Busca un equipo por nombre leyendo únicamente su registro.
+     * 
+     * @param nombre Nombre del equipo
+     * @return Equipo encontrado, null si no existe
+     */
+    public Equipo buscarEquipo(String nombre) {
+        if (nombre == null) {
+            return null;
         }
+        
+        EquipoGuardado equipo = conLectura(() -> {
+            int ranura = buscarRanura(archivoEquipos, indiceEquipos, codificadorEquipos, nombre);
+            return ranura < 0 ? null : leerRanura(archivoEquipos, cacheEquipos, ranura,
+                (datos, posicion) -> new EquipoGuardado(codificadorEquipos.decodificarEquipo(datos, posicion)));
+        }, null);
+        return equipo == null ? null : equipo.crear();
+    }
+    
+    /**
+     * Elimina el registro de un equipo. Los jugadores del equipo no se eliminan.
+     * 
+     * @param nombre Nombre del equipo
+     * @return true si se eliminó, false si no existía o hubo error
+     */
+    public boolean eliminarEquipo(String nombre) {
+        return nombre != null && conEscritura(() -> eliminarYRegistrar(OPERACION_ELIMINAR_EQUIPO, nombre), false);
     }
     
     /**
@@ -92,36 +397,14 @@ public class ArchivoAccesoAleatorio {
      * @return Lista de equipos cargados
      */
     public List<Equipo> cargarEquipos() {
-        List<Equipo> equipos = new ArrayList<>();
-        
-        try (RandomAccessFile raf = new RandomAccessFile(ARCHIVO_EQUIPOS, "r")) {
-            long longitud = raf.length();
-            int numeroRegistros = (int) (longitud / TAMANO_REGISTRO_EQUIPO);
-            
-            for (int i = 0; i < numeroRegistros; i++) {
-                raf.seek(i * TAMANO_REGISTRO_EQUIPO);
-                
-                try {
-                    String registro = raf.readUTF();
-                    if (!registro.trim().isEmpty()) {
-                        Equipo equipo = parsearEquipo(registro);
-                        if (equipo != null) {
-                            equipos.add(equipo);
-                        }
-                    }
-                } catch (EOFException e) {
-                    break; // Fin del archivo
-                }
-            }
-        } catch (IOException e) {
-            // Archivo no existe o error de lectura, retorna lista vacía
-        }
-        
-        return equipos;
+        // Archivo no existe o error de lectura, retorna lista vacía
+        return conLectura(() -> archivoEquipos.leerRegistros(codificadorEquipos::decodificarEquipo),
+                          new ArrayList<>());
     }
     
     /**
-     * Guarda un jugador en el archivo de acceso aleatorio.
+     * Guarda un jugador en el archivo de acceso aleatorio. Si ya existe un
+     * jugador con el mismo nombre, su registro se actualiza.
      * 
      * @param jugador Jugador a guardar
      * @param nombreEquipo Nombre del equipo al que pertenece
@@ -132,110 +415,491 @@ public class ArchivoAccesoAleatorio {
             return false;
         }
         
-        try (RandomAccessFile raf = new RandomAccessFile(ARCHIVO_JUGADORES, "rw")) {
-            // Buscar un espacio disponible o agregar al final
-            long posicion = buscarEspacioDisponible(raf);
-            
-            // Mover al inicio del registro
-            raf.seek(posicion * TAMANO_REGISTRO_JUGADOR);
-            
-            // Escribir los datos del jugador
-            String registro = formatearJugador(jugador, nombreEquipo);
-            raf.writeUTF(registro);
-            
-            // Completar el registro hasta el tamaño fijo
-            int bytesEscritos = registro.getBytes("UTF-8").length;
-            while (bytesEscritos < TAMANO_REGISTRO_JUGADOR - 2) { // -2 por el prefijo de longitud de UTF
-                raf.writeByte(0);
-                bytesEscritos++;
+        return conEscritura(() -> {
+            ByteBuffer registro = codificadorJugadores.codificarJugador(jugador, nombreEquipo);
+            diario.registrar(OPERACION_GUARDAR_JUGADOR, registro);
+            aplicarOperacion(OPERACION_GUARDAR_JUGADOR, registro);
+            return true;
+        }, false);
+    }
+    
+    /**
+     * Busca un jugador por nombre leyendo únicamente su registro.
+     * 
+     * @param nombre Nombre del jugador
+     * @return Jugador encontrado, null si no existe
+     */
+    public Jugador buscarJugador(String nombre) {
+        if (nombre == null) {
+            return null;
+        }
+        
+        JugadorGuardado jugador = conLectura(() -> {
+            int ranura = buscarRanura(archivoJugadores, indiceJugadores, codificadorJugadores, nombre);
+            return ranura < 0 ? null : leerJugador(ranura);
+        }, null);
+        return jugador == null ? null : jugador.crear();
+    }
+    
+    /**
+     * Elimina el registro de un jugador.
+     * 
+     * @param nombre Nombre del jugador
+     * @return true si se eliminó, false si no existía o hubo error
+     */
+    public boolean eliminarJugador(String nombre) {
+        return nombre != null && conEscritura(() -> eliminarYRegistrar(OPERACION_ELIMINAR_JUGADOR, nombre), false);
+    }
+    
+    /**
+     * Si el registro existe, anota su eliminación en el diario y luego lo elimina.
+     * 
+     * @param operacion Operación de eliminación del diario
+     * @param nombre Nombre del registro
+     * @return true si se eliminó, false si no existía o hubo error
+     */
+    private boolean eliminarYRegistrar(byte operacion, String nombre) {
+        try {
+            boolean esEquipo = operacion == OPERACION_ELIMINAR_EQUIPO;
+            int ranura = esEquipo ? buscarRanura(archivoEquipos, indiceEquipos, codificadorEquipos, nombre)
+                                  : buscarRanura(archivoJugadores, indiceJugadores, codificadorJugadores, nombre);
+            if (ranura < 0) {
+                return false;
+            }
+            ByteBuffer datos = ByteBuffer.wrap(nombre.getBytes(StandardCharsets.UTF_8));
+            diario.registrar(operacion, datos);
+            return aplicarOperacion(operacion, datos);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Aplica una operación del diario a los archivos de datos y sus índices.
+     * Las operaciones son idempotentes, por lo que reproducir el diario más
+     * de una vez deja el mismo resultado.
+     * 
+     * @param operacion Tipo de operación
+     * @param datos Registro codificado o nombre en UTF-8, según la operación
+     * @return true si la operación modificó los datos
+     * @throws IOException Si hay error de E/S
+     */
+    private boolean aplicarOperacion(byte operacion, ByteBuffer datos) throws IOException {
+        diario.marcarCambios();
+        switch (operacion) {
+            case OPERACION_GUARDAR_EQUIPO:
+                cacheEquipos.quitar(guardarRegistro(archivoEquipos, indiceEquipos, codificadorEquipos,
+                                    codificadorEquipos.decodificarNombre(datos, datos.position()), datos));
+                return true;
+            case OPERACION_GUARDAR_JUGADOR:
+                String nombre = codificadorJugadores.decodificarNombre(datos, datos.position());
+                String nombreEquipo = codificadorJugadores.decodificarEquipoDeJugador(datos, datos.position());
+                int ranura = guardarRegistro(archivoJugadores, indiceJugadores, codificadorJugadores, nombre, datos);
+                cacheJugadores.quitar(ranura);
+                jugadoresPorEquipo.asignar(ranura, nombreEquipo);
+                return true;
+            case OPERACION_ELIMINAR_EQUIPO:
+                int equipoLiberado = eliminarRegistro(archivoEquipos, indiceEquipos, codificadorEquipos,
+                                                      StandardCharsets.UTF_8.decode(datos.duplicate()).toString());
+                cacheEquipos.quitar(equipoLiberado);
+                return equipoLiberado >= 0;
+            case OPERACION_ELIMINAR_JUGADOR:
+                int liberada = eliminarRegistro(archivoJugadores, indiceJugadores, codificadorJugadores,
+                                                StandardCharsets.UTF_8.decode(datos.duplicate()).toString());
+                cacheJugadores.quitar(liberada);
+                jugadoresPorEquipo.quitar(liberada);
+                return liberada >= 0;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Hace durables todas las operaciones de guardar y eliminar realizadas
+     * hasta ahora, escribiéndolas juntas al diario con un único forzado a
+     * disco. Si el diario creció lo suficiente, se hace además un punto de control.
+     * 
+     * @return true si se confirmó exitosamente, false en caso contrario
+     */
+    public boolean confirmar() {
+        return conEscritura(() -> {
+            diario.confirmar();
+            if (diario.getTamano() >= TAMANO_PUNTO_CONTROL) {
+                puntoDeControl();
+            }
+            return true;
+        }, false);
+    }
+    
+    /**
+     * Confirma las operaciones pendientes, hace un punto de control y
+     * ejecuta una operación mientras ningún otro escritor modifica los
+     * archivos, por ejemplo para copiarlos con los datos completos en disco.
+     *
+     * @param <T> Tipo del resultado
+     * @param operacion Operación a ejecutar
+     * @param valorError Valor a retornar si hay error de E/S
+     * @return Resultado de la operación
+     */
+    public <T> T conDatosSincronizados(CerrojoArchivos.Operacion<T> operacion, T valorError) {
+        return conEscritura(() -> {
+            diario.confirmar();
+            puntoDeControl();
+            return operacion.ejecutar();
+        }, valorError);
+    }
+
+    /**
+     * Fuerza a disco los archivos de datos y sus índices y luego vacía el
+     * diario, ya que sus operaciones quedaron aplicadas.
+     * 
+     * @throws IOException Si hay error de E/S
+     */
+    private void puntoDeControl() throws IOException {
+        archivoEquipos.sincronizar();
+        archivoJugadores.sincronizar();
+        indiceEquipos.sincronizar();
+        indiceJugadores.sincronizar();
+        diario.vaciar();
+    }
+    
+    /**
+     * Guarda la plantilla completa de forma incremental: actualiza o agrega
+     * cada equipo y jugador, elimina los registros que ya no forman parte de
+     * la plantilla y confirma todo con una sola escritura al diario. A
+     * diferencia de {@link #guardarTodo(List, boolean)}, una falla durante el
+     * guardado no deja los archivos a medio reescribir.
+     * 
+     * @param equipos Equipos a guardar, cada uno con sus jugadores
+     * @return true si se guardaron y confirmaron todos, false en caso contrario
+     */
+    public boolean guardarPlantilla(List<Equipo> equipos) {
+        return conEscritura(() -> guardarPlantilla(equipos, false), false);
+    }
+    
+    /**
+     * Guarda solo los equipos y jugadores marcados como modificados,
+     * escribiéndolos sobre sus ranuras existentes. Si los conteos de la
+     * cabecera no coinciden con la plantilla (hay registros sobrantes o
+     * faltantes), se eliminan los sobrantes y, si aún no coinciden, se
+     * guarda la plantilla completa. Al confirmar, las marcas se limpian.
+     * 
+     * @param equipos Equipos a guardar, cada uno con sus jugadores
+     * @return true si se guardaron y confirmaron todos, false en caso contrario
+     */
+    public boolean guardarCambios(List<Equipo> equipos) {
+        return conEscritura(() -> guardarPlantilla(equipos, true), false);
+    }
+    
+    /**
+     * Guarda la plantilla a través del diario y limpia las marcas de
+     * modificado si todo se confirmó.
+     * 
+     * @param equipos Equipos a guardar, cada uno con sus jugadores
+     * @param soloModificados true para escribir solo los registros modificados
+     * @return true si se guardaron y confirmaron todos, false en caso contrario
+     */
+    private boolean guardarPlantilla(List<Equipo> equipos, boolean soloModificados) {
+        if (equipos == null) {
+            return false;
+        }
+        
+        boolean exito = guardarEntidades(equipos, soloModificados);
+        if (!coincidenConteos(equipos)) {
+            exito &= eliminarAusentes(equipos);
+            if (soloModificados && !coincidenConteos(equipos)) {
+                exito &= guardarEntidades(equipos, false);
+            }
+        }
+        
+        if (!confirmar() || !exito) {
+            return false;
+        }
+        
+        for (Equipo equipo : equipos) {
+            equipo.marcarComoGuardado();
+            equipo.getJugadores().forEach(Jugador::marcarComoGuardado);
+        }
+        return true;
+    }
+    
+    /**
+     * Guarda los equipos y jugadores de la plantilla sin confirmar.
+     * 
+     * @param equipos Equipos a guardar
+     * @param soloModificados true para omitir los que no están modificados
+     * @return true si todos los registros se guardaron
+     */
+    private boolean guardarEntidades(List<Equipo> equipos, boolean soloModificados) {
+        boolean exito = true;
+        for (Equipo equipo : equipos) {
+            if (equipo == null) {
+                exito = false;
+                continue;
+            }
+            if ((!soloModificados || equipo.estaModificado()) && !guardarEquipo(equipo)) {
+                exito = false;
+                continue;
             }
             
+            for (Jugador jugador : equipo.getJugadores()) {
+                if ((!soloModificados || jugador.estaModificado()) && !guardarJugador(jugador, equipo.getNombre())) {
+                    exito = false;
+                }
+            }
+        }
+        return exito;
+    }
+    
+    /**
+     * Verifica si los conteos de la cabecera coinciden con la plantilla. Como
+     * los nombres son únicos en cada archivo, si coinciden no hay registros
+     * sobrantes.
+     * 
+     * @param equipos Equipos de la plantilla
+     * @return true si los archivos tienen tantos registros como la plantilla
+     */
+    private boolean coincidenConteos(List<Equipo> equipos) {
+        int jugadores = 0;
+        for (Equipo equipo : equipos) {
+            jugadores += equipo == null ? 0 : equipo.getNumeroJugadores();
+        }
+        return getNumeroEquipos() == equipos.size() && getNumeroJugadores() == jugadores;
+    }
+    
+    /**
+     * Elimina los registros cuyos nombres no forman parte de la plantilla.
+     * 
+     * @param equipos Equipos de la plantilla
+     * @return true si se pudieron recorrer los archivos
+     */
+    private boolean eliminarAusentes(List<Equipo> equipos) {
+        Set<String> nombresEquipos = new HashSet<>();
+        Set<String> nombresJugadores = new HashSet<>();
+        for (Equipo equipo : equipos) {
+            if (equipo == null) {
+                continue;
+            }
+            nombresEquipos.add(equipo.getNombre());
+            for (Jugador jugador : equipo.getJugadores()) {
+                nombresJugadores.add(jugador.getNombre());
+            }
+        }
+        
+        try {
+            for (String nombre : buscarNombresAusentes(archivoEquipos, codificadorEquipos, nombresEquipos)) {
+                eliminarEquipo(nombre);
+            }
+            for (String nombre : buscarNombresAusentes(archivoJugadores, codificadorJugadores, nombresJugadores)) {
+                eliminarJugador(nombre);
+            }
             return true;
         } catch (IOException e) {
             return false;
         }
     }
     
+    /**
+     * Obtiene los nombres guardados en un archivo que no están en un conjunto.
+     * 
+     * @param archivo Archivo de registros
+     * @param codificador Codificador del archivo
+     * @param vigentes Nombres que deben conservarse
+     * @return Nombres ausentes del conjunto
+     * @throws IOException Si hay error de E/S
+     */
+    private List<String> buscarNombresAusentes(ArchivoRegistros archivo, CodificadorRegistros codificador,
+                                               Set<String> vigentes) throws IOException {
+        List<String> ausentes = new ArrayList<>();
+        archivo.recorrer((ranura, datos, posicion) -> {
+            String nombre = codificador.decodificarNombre(datos, posicion);
+            if (!vigentes.contains(nombre)) {
+                ausentes.add(nombre);
+            }
+        });
+        return ausentes;
+    }
+    
     /**
      * Carga todos los jugadores del archivo de acceso aleatorio.
      * 
      * @return Lista de jugadores cargados
      */
     public List<Jugador> cargarJugadores() {
-        List<Jugador> jugadores = new ArrayList<>();
+        // Archivo no existe o error de lectura, retorna lista vacía
+        return conLectura(() -> archivoJugadores.leerRegistros(codificadorJugadores::decodificarJugador),
+                          new ArrayList<>());
+    }
+    
+    /**
+     * Obtiene un flujo perezoso de los equipos guardados. Los registros se
+     * decodifican a medida que se consumen y el flujo admite {@code parallel()}.
+     * 
+     * @return Flujo de equipos, vacío si el archivo no existe o hay error
+     */
+    public Stream<Equipo> flujoEquipos() {
+        int tamano = archivoEquipos.getTamanoContenido();
+        return conLectura(() -> archivoEquipos.flujo(() -> new CodificadorRegistros(tamano)::decodificarEquipo),
+                          Stream.empty());
+    }
+    
+    /**
+     * Obtiene un flujo perezoso de los jugadores guardados, útil para recorrer
+     * archivos grandes con memoria acotada. Los registros se decodifican a
+     * medida que se consumen y el flujo admite {@code parallel()}.
+     * 
+     * @return Flujo de jugadores, vacío si el archivo no existe o hay error
+     */
+    public Stream<Jugador> flujoJugadores() {
+        int tamano = archivoJugadores.getTamanoContenido();
+        return conLectura(() -> archivoJugadores.flujo(() -> new CodificadorRegistros(tamano)::decodificarJugador),
+                          Stream.empty());
+    }
+    
+    /**
+     * Carga los jugadores de un equipo usando el índice secundario, leyendo
+     * únicamente sus registros. Si el índice aún no existe, la lectura se
+     * hace con el cerrojo de escritura para construirlo.
+     * 
+     * @param nombreEquipo Nombre del equipo
+     * @return Lista de jugadores del equipo, vacía si no tiene o hay error
+     */
+    public List<Jugador> cargarJugadoresDeEquipo(String nombreEquipo) {
+        if (nombreEquipo == null) {
+            return new ArrayList<>();
+        }
         
-        try (RandomAccessFile raf = new RandomAccessFile(ARCHIVO_JUGADORES, "r")) {
-            long longitud = raf.length();
-            int numeroRegistros = (int) (longitud / TAMANO_REGISTRO_JUGADOR);
-            
-            for (int i = 0; i < numeroRegistros; i++) {
-                raf.seek(i * TAMANO_REGISTRO_JUGADOR);
-                
-                try {
-                    String registro = raf.readUTF();
-                    if (!registro.trim().isEmpty()) {
-                        Jugador jugador = parsearJugador(registro);
-                        if (jugador != null) {
-                            jugadores.add(jugador);
-                        }
-                    }
-                } catch (EOFException e) {
-                    break; // Fin del archivo
+        return conLectura(() -> {
+            asegurarJugadoresPorEquipo();
+            List<Jugador> jugadores = new ArrayList<>();
+            for (int ranura : jugadoresPorEquipo.obtenerRanuras(nombreEquipo)) {
+                JugadorGuardado jugador = leerJugador(ranura);
+                if (jugador != null) {
+                    jugadores.add(jugador.crear());
                 }
             }
-        } catch (IOException e) {
-            // Archivo no existe o error de lectura, retorna lista vacía
+            return jugadores;
+        }, new ArrayList<>());
+    }
+    
+    /**
+     * Carga todos los equipos con sus jugadores ya asociados. Se hace un
+     * recorrido lineal de cada archivo: los equipos se ubican por nombre en
+     * una tabla hash y cada jugador se agrega directamente a su equipo, sin
+     * búsquedas anidadas. Si el índice secundario de equipo a jugadores aún
+     * no existe, la carga se hace con el cerrojo de escritura y el mismo
+     * recorrido lo construye.
+     * 
+     * @param jugadores Lista que recibe todos los jugadores cargados, incluidos
+     *                  los que no pertenecen a ningún equipo guardado; puede ser null
+     * @return Lista de equipos cargados con sus jugadores
+     */
+    public List<Equipo> cargarEquiposConJugadores(List<Jugador> jugadores) {
+        List<Jugador> cargados = new ArrayList<>();
+        CerrojoArchivos.Operacion<List<Equipo>> carga = () -> {
+            // La carga puede repetirse, por lo que empieza siempre desde cero
+            cargados.clear();
+            return cargarEquiposConJugadoresSinCerrojo(cargados);
+        };
+        List<Equipo> equipos = jugadoresPorEquipo.estaConstruido()
+                ? conLectura(carga, new ArrayList<>())
+                : conEscritura(carga, new ArrayList<>());
+        if (jugadores != null) {
+            jugadores.addAll(cargados);
         }
-        
-        return jugadores;
+        return equipos;
     }
     
     /**
-     * Busca un espacio disponible en el archivo.
+     * Carga los equipos con sus jugadores; quien la llama debe tener el cerrojo.
      * 
-     * @param raf Archivo de acceso aleatorio
-     * @return Posición del espacio disponible
-     * @throws IOException Si hay error de E/O
+     * @param jugadores Lista que recibe todos los jugadores cargados
+     * @return Lista de equipos cargados con sus jugadores
+     * @throws IOException Si hay error de E/S al leer los equipos
      */
-    private long buscarEspacioDisponible(RandomAccessFile raf) throws IOException {
-        long longitud = raf.length();
-        int numeroRegistros = (int) (longitud / TAMANO_REGISTRO_EQUIPO);
+    private List<Equipo> cargarEquiposConJugadoresSinCerrojo(List<Jugador> jugadores) throws IOException {
+        List<Equipo> equipos = archivoEquipos.leerRegistros(codificadorEquipos::decodificarEquipo);
+        Map<String, Equipo> equiposPorNombre = new HashMap<>(equipos.size() * 2);
+        for (Equipo equipo : equipos) {
+            equiposPorNombre.put(equipo.getNombre(), equipo);
+        }
         
-        // Buscar un registro vacío
-        for (int i = 0; i < numeroRegistros; i++) {
-            raf.seek(i * TAMANO_REGISTRO_EQUIPO);
-            try {
-                String registro = raf.readUTF();
-                if (registro.trim().isEmpty()) {
-                    return i;
+        // Solo el escritor puede construir el índice secundario
+        boolean construirIndice = !jugadoresPorEquipo.estaConstruido() && cerrojo.esEscritor();
+        if (construirIndice) {
+            jugadoresPorEquipo.iniciar(archivoJugadores.getNumeroRanuras());
+        }
+        
+        try {
+            archivoJugadores.recorrer((ranura, datos, posicion) -> {
+                Jugador jugador = codificadorJugadores.decodificarJugador(datos, posicion);
+                String nombreEquipo = codificadorJugadores.decodificarEquipoDeJugador(datos, posicion);
+                if (construirIndice) {
+                    jugadoresPorEquipo.asignar(ranura, nombreEquipo);
+                }
+                
+                Equipo equipo = equiposPorNombre.get(nombreEquipo);
+                if (equipo != null) {
+                    equipo.agregarJugador(jugador);
+                    jugador.marcarComoGuardado();
                 }
-            } catch (EOFException e) {
-                break;
+                jugadores.add(jugador);
+            });
+        } catch (IOException e) {
+            // Error de lectura, se conservan los jugadores asociados hasta el momento
+            if (construirIndice) {
+                jugadoresPorEquipo.invalidar();
             }
         }
         
-        // Si no hay espacios disponibles, agregar al final
-        return numeroRegistros;
+        // Asociar los jugadores los marca como modificados, pero coinciden con el archivo
+        equipos.forEach(Equipo::marcarComoGuardado);
+        return equipos;
     }
     
     /**
-     * Formatea un equipo para guardar en el archivo.
+     * Convierte un registro de equipo del formato de texto anterior al
+     * formato binario actual.
      * 
-     * @param equipo Equipo a formatear
-     * @return String formateado
+     * @param registro Registro de texto del archivo
+     * @return Registro binario, null si no se pudo convertir
      */
-    private String formatearEquipo(Equipo equipo) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(equipo.getNombre()).append(SEPARADOR);
-        sb.append(equipo.getColor()).append(SEPARADOR);
-        sb.append(equipo.getPuntuacionTotal()).append(SEPARADOR);
-        sb.append(equipo.getTotalAciertos()).append(SEPARADOR);
-        sb.append(equipo.getTotalIntentos()).append(SEPARADOR);
-        return sb.toString();
+    private ByteBuffer migrarEquipo(String registro) {
+        Equipo equipo = parsearEquipo(registro);
+        if (equipo == null) {
+            return null;
+        }
+        
+        try {
+            return codificadorEquipos.codificarEquipo(equipo);
+        } catch (IOException e) {
+            return null;
+        }
     }
     
     /**
-     * Parsea un string para crear un equipo.
+     * Convierte un registro de jugador del formato de texto anterior al
+     * formato binario actual, conservando el nombre de su equipo.
+     * 
+     * @param registro Registro de texto del archivo
+     * @return Registro binario, null si no se pudo convertir
+     */
+    private ByteBuffer migrarJugador(String registro) {
+        Jugador jugador = parsearJugador(registro);
+        if (jugador == null) {
+            return null;
+        }
+        
+        try {
+            String nombreEquipo = registro.split("\\" + SEPARADOR)[1];
+            return codificadorJugadores.codificarJugador(jugador, nombreEquipo);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Parsea un string del formato de texto anterior para crear un equipo.
      * 
      * @param registro String del archivo
      * @return Equipo parseado
@@ -260,24 +924,7 @@ public class ArchivoAccesoAleatorio {
     }
     
     /**
-     * Formatea un jugador para guardar en el archivo.
-     * 
-     * @param jugador Jugador a formatear
-     * @param nombreEquipo Nombre del equipo
-     * @return String formateado
-     */
-    private String formatearJugador(Jugador jugador, String nombreEquipo) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(jugador.getNombre()).append(SEPARADOR);
-        sb.append(nombreEquipo).append(SEPARADOR);
-        sb.append(jugador.getPuntuacion()).append(SEPARADOR);
-        sb.append(jugador.getAciertos()).append(SEPARADOR);
-        sb.append(jugador.getIntentos()).append(SEPARADOR);
-        return sb.toString();
-    }
-    
-    /**
-     * Parsea un string para crear un jugador.
+     * Parsea un string del formato de texto anterior para crear un jugador.
      * 
      * @param registro String del archivo
      * @return Jugador parseado
@@ -298,38 +945,553 @@ public class ArchivoAccesoAleatorio {
         return null;
     }
     
+    /**
+     * Guarda la plantilla completa de equipos y jugadores reemplazando el
+     * contenido anterior de los archivos. Todos los registros se serializan
+     * en memoria y cada archivo se escribe de una sola vez. Esta escritura no
+     * pasa por el diario; para guardados protegidos ante fallas se usa
+     * {@link #guardarPlantilla(List)}.
+     * 
+     * @param equipos Equipos a guardar, cada uno con sus jugadores
+     * @param forzar true para forzar la escritura a disco al terminar
+     * @return true si se guardaron todos, false si algún registro no se pudo guardar
+     */
+    public boolean guardarTodo(List<Equipo> equipos, boolean forzar) {
+        if (equipos == null) {
+            return false;
+        }
+        
+        return conEscritura(() -> guardarTodoSinCerrojo(equipos, forzar), false);
+    }
+    
+    /**
+     * Reemplaza el contenido de los archivos; quien la llama debe tener el
+     * cerrojo de escritura.
+     * 
+     * @param equipos Equipos a guardar, cada uno con sus jugadores
+     * @param forzar true para forzar la escritura a disco al terminar
+     * @return true si se guardaron todos, false si algún registro no se pudo guardar
+     */
+    private boolean guardarTodoSinCerrojo(List<Equipo> equipos, boolean forzar) {
+        try {
+            // Las operaciones anteriores del diario no deben reproducirse sobre el nuevo contenido
+            puntoDeControl();
+            diario.marcarCambios();
+        } catch (IOException e) {
+            return false;
+        }
+        
+        boolean exito = true;
+        ArchivoRegistros.Lote loteEquipos = archivoEquipos.crearLote(equipos.size());
+        ArchivoRegistros.Lote loteJugadores = archivoJugadores.crearLote(equipos.size() * 4);
+        
+        for (Equipo equipo : equipos) {
+            if (!esNombreValido(equipo == null ? null : equipo.getNombre())) {
+                exito = false;
+                continue;
+            }
+            
+            try {
+                loteEquipos.agregar(codificadorEquipos.codificarEquipo(equipo));
+            } catch (IOException e) {
+                exito = false;
+            }
+            
+            for (Jugador jugador : equipo.getJugadores()) {
+                if (!esNombreValido(jugador == null ? null : jugador.getNombre())) {
+                    exito = false;
+                    continue;
+                }
+                
+                try {
+                    loteJugadores.agregar(codificadorJugadores.codificarJugador(jugador, equipo.getNombre()));
+                } catch (IOException e) {
+                    exito = false;
+                }
+            }
+        }
+        
+        try {
+            archivoEquipos.escribirLote(loteEquipos, forzar);
+            archivoJugadores.escribirLote(loteJugadores, forzar);
+            reconstruirIndice(archivoEquipos, indiceEquipos, codificadorEquipos);
+            reconstruirIndice(archivoJugadores, indiceJugadores, codificadorJugadores);
+            indicesVerificados = true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            jugadoresPorEquipo.invalidar();
+            cacheEquipos.vaciar();
+            cacheJugadores.vaciar();
+        }
+        
+        return exito;
+    }
+    
+    /**
+     * Inserta un registro o actualiza el existente con el mismo nombre,
+     * manteniendo el índice.
+     * 
+     * @param archivo Archivo de registros
+     * @param indice Índice por nombre del archivo
+     * @param codificador Codificador del archivo
+     * @param nombre Nombre del registro
+     * @param registro Registro codificado
+     * @return Ranura donde quedó el registro
+     * @throws IOException Si hay error de E/S
+     */
+    private int guardarRegistro(ArchivoRegistros archivo, IndiceHash indice, CodificadorRegistros codificador,
+                                String nombre, ByteBuffer registro) throws IOException {
+        int ranura = buscarRanura(archivo, indice, codificador, nombre);
+        if (ranura >= 0) {
+            archivo.escribir(ranura, registro);
+        } else {
+            ranura = archivo.insertar(registro);
+            indice.insertar(nombre, ranura);
+        }
+        return ranura;
+    }
+    
+    /**
+     * Elimina un registro por nombre, liberando su ranura y su entrada del índice.
+     * 
+     * @param archivo Archivo de registros
+     * @param indice Índice por nombre del archivo
+     * @param codificador Codificador del archivo
+     * @param nombre Nombre del registro
+     * @return Ranura liberada, -1 si no existía o hubo error
+     */
+    private int eliminarRegistro(ArchivoRegistros archivo, IndiceHash indice,
+                                 CodificadorRegistros codificador, String nombre) {
+        try {
+            int ranura = buscarRanura(archivo, indice, codificador, nombre);
+            if (ranura < 0) {
+                return -1;
+            }
+            indice.eliminar(nombre, ranura);
+            return archivo.liberar(ranura) ? ranura : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Obtiene la ranura de un registro por nombre usando el índice.
+     * 
+     * @param archivo Archivo de registros
+     * @param indice Índice por nombre del archivo
+     * @param codificador Codificador del archivo
+     * @param nombre Nombre a buscar
+     * @return Ranura del registro, -1 si no existe
+     * @throws IOException Si hay error de E/S
+     */
+    private int buscarRanura(ArchivoRegistros archivo, IndiceHash indice,
+                             CodificadorRegistros codificador, String nombre) throws IOException {
+        asegurarIndices();
+        return indice.buscar(nombre, ranura -> tieneNombre(archivo, codificador, ranura, nombre));
+    }
+    
+    /**
+     * Lee una ranura pasando por la caché de registros decodificados. Se
+     * llama con el cerrojo tomado; lo leído del archivo solo se guarda en la
+     * caché si ninguna escritura la invalidó durante la lectura.
+     * 
+     * @param <T> Tipo del registro decodificado
+     * @param archivo Archivo de registros
+     * @param cache Caché del archivo
+     * @param ranura Ranura a leer
+     * @param lector Lector que decodifica el registro
+     * @return Registro decodificado, null si la ranura no está ocupada
+     * @throws IOException Si hay error de E/S
+     */
+    private <T> T leerRanura(ArchivoRegistros archivo, CacheRegistros<T> cache, int ranura,
+                             ArchivoRegistros.LectorRegistro<T> lector) throws IOException {
+        T valor = cache.obtener(ranura);
+        if (valor == null) {
+            long version = cache.getVersion();
+            valor = archivo.leer(ranura, lector);
+            if (valor != null) {
+                cache.guardar(ranura, valor, version);
+            }
+        }
+        return valor;
+    }
+    
+    /**
+     * Lee un jugador por ranura pasando por la caché.
+     * 
+     * @param ranura Ranura del jugador
+     * @return Jugador guardado, null si la ranura no está ocupada
+     * @throws IOException Si hay error de E/S
+     */
+    private JugadorGuardado leerJugador(int ranura) throws IOException {
+        return leerRanura(archivoJugadores, cacheJugadores, ranura,
+            (datos, posicion) -> new JugadorGuardado(codificadorJugadores.decodificarJugador(datos, posicion)));
+    }
+    
+    /**
+     * Obtiene la caché de registros de un archivo.
+     * 
+     * @param archivo Archivo de registros
+     * @return Caché del archivo
+     */
+    private CacheRegistros<?> cacheDe(ArchivoRegistros archivo) {
+        return archivo == archivoJugadores ? cacheJugadores : cacheEquipos;
+    }
+    
+    /**
+     * Verifica si el registro de una ranura tiene el nombre indicado.
+     * 
+     * @param archivo Archivo de registros
+     * @param codificador Codificador del archivo
+     * @param ranura Ranura candidata
+     * @param nombre Nombre esperado
+     * @return true si el registro tiene ese nombre
+     */
+    private boolean tieneNombre(ArchivoRegistros archivo, CodificadorRegistros codificador,
+                                int ranura, String nombre) {
+        try {
+            return nombre.equals(archivo.leer(ranura, codificador::decodificarNombre));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Reconstruye los índices a partir de los datos la primera vez que se
+     * usan si están vacíos o no existen (por ejemplo, tras migrar archivos
+     * de una versión anterior).
+     * 
+     * @throws IOException Si hay error de E/S
+     */
+    private void asegurarIndices() throws IOException {
+        if (indicesVerificados) {
+            return;
+        }
+        
+        if (indiceEquipos.estaVacio() && archivoEquipos.getNumeroRanuras() > 0) {
+            reconstruirIndice(archivoEquipos, indiceEquipos, codificadorEquipos);
+        }
+        if (indiceJugadores.estaVacio() && archivoJugadores.getNumeroRanuras() > 0) {
+            reconstruirIndice(archivoJugadores, indiceJugadores, codificadorJugadores);
+        }
+        indicesVerificados = true;
+    }
+    
+    /**
+     * Construye el índice secundario de equipo a jugadores con un recorrido
+     * del archivo de jugadores si aún no está construido. Construirlo
+     * modifica el estado, por lo que un lector sin el cerrojo de escritura
+     * recibe una excepción y el cerrojo repite la lectura como escritor.
+     * 
+     * @throws IOException Si hay error de E/S
+     */
+    private void asegurarJugadoresPorEquipo() throws IOException {
+        if (jugadoresPorEquipo.estaConstruido()) {
+            return;
+        }
+        if (!cerrojo.esEscritor()) {
+            throw new IllegalStateException("El índice por equipo se construye con el cerrojo de escritura");
+        }
+        
+        jugadoresPorEquipo.iniciar(archivoJugadores.getNumeroRanuras());
+        try {
+            archivoJugadores.recorrer((ranura, datos, posicion) ->
+                jugadoresPorEquipo.asignar(ranura, codificadorJugadores.decodificarEquipoDeJugador(datos, posicion)));
+        } catch (IOException e) {
+            jugadoresPorEquipo.invalidar();
+            throw e;
+        }
+    }
+    
+    /**
+     * Reconstruye un índice recorriendo todas las ranuras ocupadas.
+     * 
+     * @param archivo Archivo de registros
+     * @param indice Índice a reconstruir
+     * @param codificador Codificador del archivo
+     * @throws IOException Si hay error de E/S
+     */
+    private void reconstruirIndice(ArchivoRegistros archivo, IndiceHash indice,
+                                   CodificadorRegistros codificador) throws IOException {
+        indice.vaciar();
+        archivo.recorrer((ranura, datos, posicion) ->
+            indice.insertar(codificador.decodificarNombre(datos, posicion), ranura));
+    }
+    
+    /**
+     * Verifica si un nombre de equipo o jugador puede guardarse.
+     * 
+     * @param nombre Nombre a verificar
+     * @return true si el nombre no es nulo ni vacío
+     */
+    private boolean esNombreValido(String nombre) {
+        return nombre != null && !nombre.trim().isEmpty();
+    }
+    
+    /**
+     * Compacta ambos archivos de datos: los registros vigentes se reescriben
+     * en ranuras contiguas en un archivo nuevo que reemplaza al anterior, y
+     * los índices se reconstruyen.
+     * 
+     * @return true si se compactaron exitosamente, false en caso contrario
+     */
+    public boolean compactar() {
+        return conEscritura(() -> {
+            compactarArchivo(archivoEquipos, indiceEquipos, codificadorEquipos);
+            compactarArchivo(archivoJugadores, indiceJugadores, codificadorJugadores);
+            return true;
+        }, false);
+    }
+    
+    /**
+     * Inicia un hilo en segundo plano que revisa periódicamente los archivos
+     * y compacta los que tienen más ranuras libres que ocupadas.
+     * 
+     * @param intervalo Tiempo entre revisiones
+     * @param unidad Unidad del intervalo
+     */
+    public synchronized void iniciarCompactacionAutomatica(long intervalo, TimeUnit unidad) {
+        if (compactador != null) {
+            return;
+        }
+        
+        compactador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "compactador-argolla");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        compactador.scheduleWithFixedDelay(this::compactarSiEsNecesario, intervalo, intervalo, unidad);
+    }
+    
+    /**
+     * Detiene el hilo de compactación automática, esperando a que termine
+     * una compactación en curso.
+     */
+    public void detenerCompactacionAutomatica() {
+        ScheduledExecutorService actual;
+        synchronized (this) {
+            actual = compactador;
+            compactador = null;
+        }
+        if (actual == null) {
+            return;
+        }
+        
+        actual.shutdown();
+        try {
+            actual.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Compacta los archivos cuya proporción de ranuras libres lo justifica.
+     */
+    private void compactarSiEsNecesario() {
+        // Si hay error se intentará de nuevo en la siguiente revisión
+        conEscritura(() -> {
+            if (necesitaCompactacion(archivoEquipos)) {
+                compactarArchivo(archivoEquipos, indiceEquipos, codificadorEquipos);
+            }
+            if (necesitaCompactacion(archivoJugadores)) {
+                compactarArchivo(archivoJugadores, indiceJugadores, codificadorJugadores);
+            }
+            return true;
+        }, false);
+    }
+    
+    /**
+     * Indica si un archivo tiene suficientes ranuras y más de la mitad libres.
+     * 
+     * @param archivo Archivo de registros
+     * @return true si conviene compactarlo
+     */
+    private boolean necesitaCompactacion(ArchivoRegistros archivo) {
+        int ranuras = archivo.getNumeroRanuras();
+        int libres = ranuras - archivo.getNumeroRegistros();
+        return ranuras >= RANURAS_MINIMAS_COMPACTACION && libres * 2 > ranuras;
+    }
+    
+    /**
+     * Compacta un archivo y reconstruye su índice. El índice se vacía antes
+     * del reemplazo para que, si la aplicación termina a mitad, se
+     * reconstruya al iniciar en lugar de apuntar a ranuras antiguas.
+     * 
+     * @param archivo Archivo de registros
+     * @param indice Índice por nombre del archivo
+     * @param codificador Codificador del archivo
+     * @throws IOException Si hay error de E/S
+     */
+    private void compactarArchivo(ArchivoRegistros archivo, IndiceHash indice,
+                                  CodificadorRegistros codificador) throws IOException {
+        diario.marcarCambios();
+        indice.vaciar();
+        indice.sincronizar();
+        try {
+            archivo.compactar();
+        } finally {
+            cacheDe(archivo).vaciar();
+            reconstruirIndice(archivo, indice, codificador);
+            if (archivo == archivoJugadores) {
+                jugadoresPorEquipo.invalidar();
+            }
+        }
+    }
+    
+    /**
+     * Cierra los archivos de registros, confirmando las operaciones pendientes
+     * y haciendo un punto de control. La compactación automática se detiene.
+     * Los archivos se vuelven a abrir si se usan de nuevo.
+     */
+    public void cerrar() {
+        detenerCompactacionAutomatica();
+        conEscritura(() -> {
+            try {
+                diario.confirmar();
+                puntoDeControl();
+            } catch (IOException e) {
+                // El diario conserva las operaciones para reproducirlas al iniciar
+            }
+            diario.cerrar();
+            archivoEquipos.cerrar();
+            archivoJugadores.cerrar();
+            indiceEquipos.cerrar();
+            indiceJugadores.cerrar();
+            return true;
+        }, false);
+        cerrojo.cerrar();
+    }
+    
     /**
      * Elimina todos los datos guardados.
      * 
      * @return true si se eliminaron exitosamente, false en caso contrario
      */
     public boolean limpiarDatos() {
+        return conEscritura(this::limpiarDatosSinCerrojo, false);
+    }
+    
+    /**
+     * Elimina todos los datos; quien la llama debe tener el cerrojo de escritura.
+     * 
+     * @return true si se eliminaron exitosamente, false en caso contrario
+     */
+    private boolean limpiarDatosSinCerrojo() {
         try {
-            new File(ARCHIVO_EQUIPOS).delete();
-            new File(ARCHIVO_JUGADORES).delete();
-            return true;
+            diario.vaciar();
+            diario.marcarCambios();
+            boolean equiposVaciados = archivoEquipos.vaciar();
+            boolean jugadoresVaciados = archivoJugadores.vaciar();
+            indiceEquipos.vaciar();
+            indiceJugadores.vaciar();
+            jugadoresPorEquipo.iniciar(0);
+            cacheEquipos.vaciar();
+            cacheJugadores.vaciar();
+            indicesVerificados = true;
+            return equiposVaciados && jugadoresVaciados;
         } catch (Exception e) {
             return false;
         }
     }
     
     /**
-     * Obtiene el número de equipos guardados.
+     * Obtiene el número de equipos guardados leyendo la cabecera del archivo.
      * 
      * @return Número de equipos
      */
     public int getNumeroEquipos() {
-        return cargarEquipos().size();
+        return conLectura(archivoEquipos::getNumeroRegistros, 0);
     }
     
     /**
-     * Obtiene el número de jugadores guardados.
+     * Obtiene el número de jugadores guardados leyendo la cabecera del archivo.
      * 
      * @return Número de jugadores
      */
     public int getNumeroJugadores() {
-        return cargarJugadores().size();
+        return conLectura(archivoJugadores::getNumeroRegistros, 0);
+    }
+    
+    /**
+     * Obtiene la caché de equipos decodificados, con sus contadores de
+     * aciertos, fallos y desalojos.
+     * 
+     * @return Caché de equipos
+     */
+    public CacheRegistros<?> getCacheEquipos() {
+        return cacheEquipos;
+    }
+    
+    /**
+     * Obtiene la caché de jugadores decodificados, con sus contadores de
+     * aciertos, fallos y desalojos.
+     * 
+     * @return Caché de jugadores
+     */
+    public CacheRegistros<?> getCacheJugadores() {
+        return cacheJugadores;
+    }
+    
+    /**
+     * Copia inmutable de un equipo guardado, que la caché comparte entre lectores.
+     */
+    private static final class EquipoGuardado {
+        
+        private final String nombre;
+        
+        private final String color;
+        
+        private EquipoGuardado(Equipo equipo) {
+            this.nombre = equipo.getNombre();
+            this.color = equipo.getColor();
+        }
+        
+        /**
+         * Crea un equipo nuevo, marcado como guardado, con los datos de la copia.
+         * 
+         * @return Equipo creado
+         */
+        private Equipo crear() {
+            Equipo equipo = new Equipo(nombre, color);
+            equipo.marcarComoGuardado();
+            return equipo;
+        }
+    }
+    
+    /**
+     * Copia inmutable de un jugador guardado, que la caché comparte entre lectores.
+     */
+    private static final class JugadorGuardado {
+        
+        private final String nombre;
+        
+        private final int puntuacion;
+        
+        private final int aciertos;
+        
+        private final int intentos;
+        
+        private JugadorGuardado(Jugador jugador) {
+            this.nombre = jugador.getNombre();
+            this.puntuacion = jugador.getPuntuacion();
+            this.aciertos = jugador.getAciertos();
+            this.intentos = jugador.getIntentos();
+        }
+        
+        /**
+         * Crea un jugador nuevo, marcado como guardado, con los datos de la copia.
+         * 
+         * @return Jugador creado
+         */
+        private Jugador crear() {
+            Jugador jugador = new Jugador(nombre);
+            jugador.setPuntuacion(puntuacion);
+            jugador.setAciertos(aciertos);
+            jugador.setIntentos(intentos);
+            jugador.marcarComoGuardado();
+            return jugador;
+        }
     }
 }
-
-
@@ -0,0 +1,756 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.EntradaEstadisticas;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Registro de estadísticas de solo agregado (append-only) dividido en
+ * segmentos de tamaño fijo. Implementa el principio de responsabilidad única
+ * (SRP) al encargarse únicamente de guardar las estadísticas en orden de
+ * tiempo y de encontrarlas por rango de fechas.
+ *
+ * Guardar estadísticas agrega una entrada al final del segmento activo, con
+ * un costo que no depende de cuántas haya. Cada entrada lleva una marca de
+ * tiempo en milisegundos; las marcas son estrictamente crecientes (si el
+ * reloj no avanza o retrocede se usa la anterior más uno), así que cada
+ * marca identifica una sola entrada y los segmentos quedan ordenados.
+ *
+ * Formato de una entrada:
+ * <pre>
+ *   long                 marca de tiempo en milisegundos
+ *   int                  longitud del texto
+ *   byte[]               texto en UTF-8
+ *   int                  CRC32C de todo lo anterior
+ * </pre>
+ *
+ * Cada segmento tiene en memoria su primera y última marca y un índice
+ * disperso con la marca y la posición de una entrada cada
+ * {@link #INTERVALO_INDICE} bytes. Una consulta por rango descarta los
+ * segmentos fuera del rango y, en los demás, lee solo los bytes entre los
+ * puntos del índice que rodean el rango. El índice de un segmento se guarda
+ * en {@code segmento_<n>.idx} al cerrarse el segmento; el del segmento
+ * activo se reconstruye recorriéndolo al abrir, y una entrada incompleta o
+ * con CRC inválido al final se descarta.
+ *
+ * Al cerrar un segmento se aplica la retención: se eliminan los segmentos
+ * cerrados más antiguos mientras el registro supere el tamaño máximo o
+ * mientras su última entrada sea más antigua que la edad máxima. El
+ * segmento activo nunca se elimina.
+ *
+ * Las estadísticas guardadas antes como archivos sueltos
+ * {@code estadisticas_<marca>.txt} se incorporan al abrir y sus archivos se
+ * eliminan.
+ *
+ * Hay una instancia por directorio en el proceso, obtenida con
+ * {@link #abrir(Path)}, y sus métodos están sincronizados.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class ArchivoEstadisticas {
+
+    /** Tamaño a partir del cual se abre un segmento nuevo */
+    public static final long TAMANO_MAXIMO_SEGMENTO = 1024L * 1024;
+
+    /** Tamaño máximo predeterminado del registro en bytes */
+    public static final long RETENCION_BYTES_PREDETERMINADA = 64L * 1024 * 1024;
+
+    /** Edad máxima predeterminada de las entradas en milisegundos (180 días) */
+    public static final long RETENCION_EDAD_PREDETERMINADA = 180L * 24 * 60 * 60 * 1000;
+
+    /** Bytes mínimos entre dos puntos del índice de un segmento */
+    private static final int INTERVALO_INDICE = 4096;
+
+    /** Bytes de una entrada además del texto: marca, longitud y CRC */
+    private static final int TAMANO_MARCO = 16;
+
+    /** Número mágico de los archivos de índice */
+    private static final int MAGICO_INDICE = 0x41524745;
+
+    /** Versión del formato de los archivos de índice */
+    private static final int VERSION_INDICE = 1;
+
+    /** Prefijo de los archivos de segmento y de índice */
+    private static final String PREFIJO_SEGMENTO = "segmento_";
+
+    /** Extensión de los archivos de segmento */
+    private static final String EXTENSION_SEGMENTO = ".log";
+
+    /** Extensión de los archivos de índice */
+    private static final String EXTENSION_INDICE = ".idx";
+
+    /** Prefijo de las estadísticas guardadas como archivos sueltos */
+    private static final String PREFIJO_SUELTO = "estadisticas_";
+
+    /** Extensión de las estadísticas guardadas como archivos sueltos */
+    private static final String EXTENSION_SUELTO = ".txt";
+
+    /** Instancias abiertas por directorio */
+    private static final Map<Path, ArchivoEstadisticas> INSTANCIAS = new ConcurrentHashMap<>();
+
+    /** Directorio de los segmentos */
+    private final Path directorio;
+
+    /** Segmentos por número, en orden de tiempo */
+    private final TreeMap<Integer, Segmento> segmentos;
+
+    /** Calculador de CRC reutilizable */
+    private final CRC32C crc;
+
+    /** Tamaño máximo del registro en bytes */
+    private long retencionBytes;
+
+    /** Edad máxima de las entradas en milisegundos */
+    private long retencionEdad;
+
+    /** Marca de la última entrada agregada */
+    private long ultimaMarca;
+
+    /** Suma de los tamaños de los segmentos */
+    private long tamanoTotal;
+
+    /** Indica si los segmentos están abiertos */
+    private boolean abierto;
+
+    /**
+     * Segmento abierto con su rango de marcas y su índice disperso.
+     */
+    private static final class Segmento {
+
+        /** Número del segmento */
+        private final int numero;
+
+        /** Canal del archivo del segmento */
+        private final FileChannel canal;
+
+        /** Posición del final de la última entrada válida */
+        private long tamano;
+
+        /** Marca de la primera entrada */
+        private long primeraMarca;
+
+        /** Marca de la última entrada */
+        private long ultimaMarca;
+
+        /** Marcas de los puntos del índice */
+        private long[] marcas;
+
+        /** Posiciones de los puntos del índice */
+        private long[] posiciones;
+
+        /** Número de puntos del índice */
+        private int puntos;
+
+        private Segmento(int numero, FileChannel canal) {
+            this.numero = numero;
+            this.canal = canal;
+            this.marcas = new long[16];
+            this.posiciones = new long[16];
+        }
+
+        /**
+         * Registra una entrada agregada al final del segmento, añadiendo un
+         * punto al índice si la entrada está lejos del último.
+         *
+         * @param marca Marca de la entrada
+         * @param posicion Posición de la entrada
+         * @param longitud Longitud total de la entrada
+         */
+        private void registrar(long marca, long posicion, int longitud) {
+            if (puntos == 0) {
+                primeraMarca = marca;
+            }
+            ultimaMarca = marca;
+            if (puntos == 0 || posicion - posiciones[puntos - 1] >= INTERVALO_INDICE) {
+                agregarPunto(marca, posicion);
+            }
+            tamano = posicion + longitud;
+        }
+
+        /**
+         * Agrega un punto al final del índice.
+         *
+         * @param marca Marca de la entrada
+         * @param posicion Posición de la entrada
+         */
+        private void agregarPunto(long marca, long posicion) {
+            if (puntos == marcas.length) {
+                marcas = Arrays.copyOf(marcas, puntos * 2);
+                posiciones = Arrays.copyOf(posiciones, puntos * 2);
+            }
+            marcas[puntos] = marca;
+            posiciones[puntos] = posicion;
+            puntos++;
+        }
+
+        /**
+         * Indica si el segmento no tiene entradas.
+         *
+         * @return true si está vacío
+         */
+        private boolean estaVacio() {
+            return puntos == 0;
+        }
+
+        /**
+         * Obtiene la posición desde la que hay que leer para encontrar la
+         * primera entrada con marca mayor o igual a la dada.
+         *
+         * @param marca Marca inicial del rango
+         * @return Posición del último punto con marca menor o igual, o 0
+         */
+        private long posicionDesde(long marca) {
+            int punto = Arrays.binarySearch(marcas, 0, puntos, marca);
+            if (punto < 0) {
+                punto = -punto - 2;
+            }
+            return punto < 0 ? 0 : posiciones[punto];
+        }
+
+        /**
+         * Obtiene la posición hasta la que hay que leer para encontrar todas
+         * las entradas con marca menor o igual a la dada.
+         *
+         * @param marca Marca final del rango
+         * @return Posición del primer punto con marca mayor, o el tamaño
+         */
+        private long posicionHasta(long marca) {
+            int punto = Arrays.binarySearch(marcas, 0, puntos, marca);
+            punto = punto < 0 ? -punto - 1 : punto + 1;
+            return punto < puntos ? posiciones[punto] : tamano;
+        }
+    }
+
+    /**
+     * Constructor privado; las instancias se obtienen con {@link #abrir(Path)}.
+     *
+     * @param directorio Directorio de los segmentos
+     */
+    private ArchivoEstadisticas(Path directorio) {
+        this.directorio = directorio;
+        this.segmentos = new TreeMap<>();
+        this.crc = new CRC32C();
+        this.retencionBytes = RETENCION_BYTES_PREDETERMINADA;
+        this.retencionEdad = RETENCION_EDAD_PREDETERMINADA;
+        this.abierto = false;
+    }
+
+    /**
+     * Obtiene el registro de estadísticas de un directorio, compartido por todo el proceso.
+     *
+     * @param directorio Directorio de los segmentos
+     * @return Registro de estadísticas del directorio
+     */
+    public static ArchivoEstadisticas abrir(Path directorio) {
+        return INSTANCIAS.computeIfAbsent(directorio.toAbsolutePath().normalize(), ArchivoEstadisticas::new);
+    }
+
+    /**
+     * Obtiene el nombre con que se identificaba una entrada cuando las
+     * estadísticas se guardaban en archivos sueltos.
+     *
+     * @param marca Marca de la entrada
+     * @return Nombre de archivo de la entrada
+     */
+    public static String nombreSuelto(long marca) {
+        return PREFIJO_SUELTO + marca + EXTENSION_SUELTO;
+    }
+
+    /**
+     * Obtiene la marca de un nombre de archivo suelto de estadísticas.
+     *
+     * @param nombre Nombre de archivo
+     * @return Marca del nombre, -1 si el nombre no tiene ese formato
+     */
+    public static long marcaSuelto(String nombre) {
+        if (nombre == null || !nombre.startsWith(PREFIJO_SUELTO) || !nombre.endsWith(EXTENSION_SUELTO)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(nombre.substring(PREFIJO_SUELTO.length(), nombre.length() - EXTENSION_SUELTO.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Agrega estadísticas con la hora actual.
+     *
+     * @param contenido Estadísticas a guardar
+     * @return Marca asignada a la entrada
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized long agregar(String contenido) throws IOException {
+        return agregar(System.currentTimeMillis(), contenido);
+    }
+
+    /**
+     * Agrega estadísticas con una marca de tiempo. Si la marca no es mayor
+     * que la de la última entrada se usa la última más uno.
+     *
+     * @param marca Marca de tiempo en milisegundos
+     * @param contenido Estadísticas a guardar
+     * @return Marca asignada a la entrada
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized long agregar(long marca, String contenido) throws IOException {
+        asegurarAbierto();
+        byte[] texto = contenido.getBytes(StandardCharsets.UTF_8);
+        long asignada = Math.max(marca, ultimaMarca + 1);
+
+        ByteBuffer entrada = ByteBuffer.allocate(TAMANO_MARCO + texto.length);
+        entrada.putLong(asignada).putInt(texto.length).put(texto);
+        entrada.putInt(calcularCrc(entrada, entrada.position()));
+        entrada.flip();
+
+        Segmento activo = segmentos.lastEntry().getValue();
+        if (activo.tamano > 0 && activo.tamano + entrada.remaining() > TAMANO_MAXIMO_SEGMENTO) {
+            activo = abrirSegmentoNuevo(activo);
+        }
+        long posicion = activo.tamano;
+        int longitud = entrada.remaining();
+        while (entrada.hasRemaining()) {
+            activo.canal.write(entrada, posicion + longitud - entrada.remaining());
+        }
+        activo.registrar(asignada, posicion, longitud);
+        tamanoTotal += longitud;
+        ultimaMarca = asignada;
+        return asignada;
+    }
+
+    /**
+     * Lee las entradas con marca dentro de un rango, en orden de tiempo.
+     *
+     * @param desde Marca inicial del rango, incluida
+     * @param hasta Marca final del rango, incluida
+     * @return Entradas del rango
+     * @throws IOException Si hay error de E/S o una entrada está dañada
+     */
+    public synchronized List<EntradaEstadisticas> leer(long desde, long hasta) throws IOException {
+        asegurarAbierto();
+        List<EntradaEstadisticas> entradas = new ArrayList<>();
+        if (desde > hasta) {
+            return entradas;
+        }
+        for (Segmento segmento : segmentos.values()) {
+            if (segmento.estaVacio() || segmento.ultimaMarca < desde) {
+                continue;
+            }
+            if (segmento.primeraMarca > hasta) {
+                break;
+            }
+
+            long inicio = segmento.posicionDesde(desde);
+            ByteBuffer bytes = ByteBuffer.allocate((int) (segmento.posicionHasta(hasta) - inicio));
+            leerCompleto(segmento.canal, bytes, inicio);
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                long marca = bytes.getLong(bytes.position());
+                int longitud = bytes.getInt(bytes.position() + 8);
+                if (calcularCrc(bytes, bytes.position(), 12 + longitud) != bytes.getInt(bytes.position() + 12 + longitud)) {
+                    throw new IOException("Estadísticas dañadas en el segmento " + segmento.numero);
+                }
+                if (marca > hasta) {
+                    break;
+                }
+                if (marca >= desde) {
+                    entradas.add(new EntradaEstadisticas(marca, new String(bytes.array(), bytes.position() + 12,
+                                                                           longitud, StandardCharsets.UTF_8)));
+                }
+                bytes.position(bytes.position() + TAMANO_MARCO + longitud);
+            }
+        }
+        return entradas;
+    }
+
+    /**
+     * Cambia la retención y la aplica de inmediato.
+     *
+     * @param maximoBytes Tamaño máximo del registro en bytes
+     * @param maximaEdad Edad máxima de las entradas en milisegundos
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized void setRetencion(long maximoBytes, long maximaEdad) throws IOException {
+        asegurarAbierto();
+        this.retencionBytes = maximoBytes;
+        this.retencionEdad = maximaEdad;
+        aplicarRetencion();
+    }
+
+    /**
+     * Obtiene el tamaño del registro en bytes.
+     *
+     * @return Suma de los tamaños de los segmentos
+     * @throws IOException Si hay error de E/S al abrir los segmentos
+     */
+    public synchronized long getTamano() throws IOException {
+        asegurarAbierto();
+        return tamanoTotal;
+    }
+
+    /**
+     * Obtiene el número de segmentos.
+     *
+     * @return Número de segmentos
+     * @throws IOException Si hay error de E/S al abrir los segmentos
+     */
+    public synchronized int getNumeroSegmentos() throws IOException {
+        asegurarAbierto();
+        return segmentos.size();
+    }
+
+    /**
+     * Elimina todas las estadísticas, sus segmentos y sus índices.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized void limpiar() throws IOException {
+        asegurarAbierto();
+        for (Segmento segmento : new ArrayList<>(segmentos.values())) {
+            eliminarSegmento(segmento);
+        }
+        tamanoTotal = 0;
+        abrirSegmento(1);
+    }
+
+    /**
+     * Fuerza a disco el segmento activo y cierra los segmentos. Se vuelven a
+     * abrir si se usan de nuevo.
+     */
+    public synchronized void cerrar() {
+        if (!abierto) {
+            return;
+        }
+
+        try {
+            segmentos.lastEntry().getValue().canal.force(false);
+        } catch (IOException e) {
+            // Las entradas incompletas se descartan al abrir
+        }
+        cerrarCanales();
+    }
+
+    /**
+     * Cierra los canales de los segmentos y descarta sus índices en memoria.
+     */
+    private void cerrarCanales() {
+        for (Segmento segmento : segmentos.values()) {
+            try {
+                segmento.canal.close();
+            } catch (IOException e) {
+                // Se ignora el error al cerrar
+            }
+        }
+        segmentos.clear();
+        tamanoTotal = 0;
+        ultimaMarca = 0;
+        abierto = false;
+    }
+
+    /**
+     * Abre los segmentos y carga sus índices si aún no están abiertos.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void asegurarAbierto() throws IOException {
+        if (abierto) {
+            return;
+        }
+
+        Files.createDirectories(directorio);
+        List<Integer> numeros = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO_SEGMENTO + "*" + EXTENSION_SEGMENTO)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                numeros.add(Integer.parseInt(nombre.substring(PREFIJO_SEGMENTO.length(),
+                                                              nombre.length() - EXTENSION_SEGMENTO.length())));
+            }
+        }
+        numeros.sort(null);
+        abierto = true;
+
+        try {
+            for (int i = 0; i < numeros.size(); i++) {
+                Segmento segmento = abrirSegmento(numeros.get(i));
+                boolean activo = i == numeros.size() - 1;
+                if (activo || !cargarIndice(segmento)) {
+                    recorrerSegmento(segmento);
+                    if (!activo) {
+                        guardarIndice(segmento);
+                    }
+                }
+                tamanoTotal += segmento.tamano;
+                if (!segmento.estaVacio()) {
+                    ultimaMarca = segmento.ultimaMarca;
+                }
+            }
+            if (segmentos.isEmpty()) {
+                abrirSegmento(1);
+            }
+            incorporarSueltos();
+            aplicarRetencion();
+        } catch (IOException | RuntimeException e) {
+            cerrarCanales();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+    }
+
+    /**
+     * Abre el archivo de un segmento, creándolo si no existe, y lo agrega a
+     * los segmentos abiertos.
+     *
+     * @param numero Número del segmento
+     * @return Segmento abierto, sin entradas registradas
+     * @throws IOException Si hay error de E/S
+     */
+    private Segmento abrirSegmento(int numero) throws IOException {
+        FileChannel canal = FileChannel.open(rutaSegmento(numero), StandardOpenOption.CREATE,
+                                             StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segmento segmento = new Segmento(numero, canal);
+        segmentos.put(numero, segmento);
+        return segmento;
+    }
+
+    /**
+     * Cierra el segmento activo, guarda su índice, abre uno nuevo y aplica la retención.
+     *
+     * @param activo Segmento activo actual
+     * @return Nuevo segmento activo
+     * @throws IOException Si hay error de E/S
+     */
+    private Segmento abrirSegmentoNuevo(Segmento activo) throws IOException {
+        activo.canal.force(false);
+        guardarIndice(activo);
+        Segmento nuevo = abrirSegmento(activo.numero + 1);
+        aplicarRetencion();
+        return nuevo;
+    }
+
+    /**
+     * Elimina los segmentos cerrados más antiguos mientras el registro supere
+     * el tamaño máximo o su última entrada supere la edad máxima.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void aplicarRetencion() throws IOException {
+        long limiteEdad = System.currentTimeMillis() - retencionEdad;
+        while (segmentos.size() > 1) {
+            Segmento masAntiguo = segmentos.firstEntry().getValue();
+            if (tamanoTotal <= retencionBytes && masAntiguo.ultimaMarca >= limiteEdad) {
+                break;
+            }
+            tamanoTotal -= masAntiguo.tamano;
+            eliminarSegmento(masAntiguo);
+        }
+    }
+
+    /**
+     * Cierra un segmento y elimina su archivo y su índice.
+     *
+     * @param segmento Segmento a eliminar
+     * @throws IOException Si hay error de E/S
+     */
+    private void eliminarSegmento(Segmento segmento) throws IOException {
+        segmentos.remove(segmento.numero);
+        segmento.canal.close();
+        Files.deleteIfExists(rutaIndice(segmento.numero));
+        Files.deleteIfExists(rutaSegmento(segmento.numero));
+    }
+
+    /**
+     * Recorre las entradas de un segmento registrándolas en su índice. El
+     * segmento se recorta en la primera entrada inválida.
+     *
+     * @param segmento Segmento a recorrer, sin entradas registradas
+     * @throws IOException Si hay error de E/S
+     */
+    private void recorrerSegmento(Segmento segmento) throws IOException {
+        long tamanoArchivo = segmento.canal.size();
+        ByteBuffer bytes = ByteBuffer.allocate((int) tamanoArchivo);
+        leerCompleto(segmento.canal, bytes, 0);
+
+        int posicion = 0;
+        while (posicion + TAMANO_MARCO <= tamanoArchivo) {
+            int longitud = bytes.getInt(posicion + 8);
+            if (longitud < 0 || posicion + TAMANO_MARCO + (long) longitud > tamanoArchivo
+                || calcularCrc(bytes, posicion, 12 + longitud) != bytes.getInt(posicion + 12 + longitud)) {
+                break;
+            }
+            segmento.registrar(bytes.getLong(posicion), posicion, TAMANO_MARCO + longitud);
+            posicion += TAMANO_MARCO + longitud;
+        }
+        if (posicion < tamanoArchivo) {
+            segmento.canal.truncate(posicion);
+        }
+    }
+
+    /**
+     * Carga el índice guardado de un segmento cerrado.
+     *
+     * @param segmento Segmento sin entradas registradas
+     * @return true si el índice existía y corresponde al segmento
+     */
+    private boolean cargarIndice(Segmento segmento) throws IOException {
+        Path ruta = rutaIndice(segmento.numero);
+        if (!Files.exists(ruta)) {
+            return false;
+        }
+
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(ruta)))) {
+            if (entrada.readInt() != MAGICO_INDICE || entrada.readInt() != VERSION_INDICE
+                || entrada.readLong() != segmento.canal.size()) {
+                return false;
+            }
+            segmento.tamano = segmento.canal.size();
+            segmento.primeraMarca = entrada.readLong();
+            segmento.ultimaMarca = entrada.readLong();
+            int puntos = entrada.readInt();
+            for (int i = 0; i < puntos; i++) {
+                segmento.agregarPunto(entrada.readLong(), entrada.readLong());
+            }
+            return true;
+        } catch (IOException e) {
+            segmento.puntos = 0;
+            return false;
+        }
+    }
+
+    /**
+     * Guarda el índice de un segmento en un archivo temporal y lo reemplaza de forma atómica.
+     *
+     * @param segmento Segmento cerrado
+     * @throws IOException Si hay error de E/S
+     */
+    private void guardarIndice(Segmento segmento) throws IOException {
+        Path ruta = rutaIndice(segmento.numero);
+        Path temporal = directorio.resolve(ruta.getFileName() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            salida.writeInt(MAGICO_INDICE);
+            salida.writeInt(VERSION_INDICE);
+            salida.writeLong(segmento.tamano);
+            salida.writeLong(segmento.primeraMarca);
+            salida.writeLong(segmento.ultimaMarca);
+            salida.writeInt(segmento.puntos);
+            for (int i = 0; i < segmento.puntos; i++) {
+                salida.writeLong(segmento.marcas[i]);
+                salida.writeLong(segmento.posiciones[i]);
+            }
+        }
+        Files.move(temporal, ruta, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Incorpora las estadísticas guardadas como archivos sueltos, en orden
+     * de su marca, y elimina sus archivos. Los archivos con una marca que no
+     * es posterior a la última del registro ya se incorporaron en una
+     * migración interrumpida antes de eliminarlos, así que solo se eliminan.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void incorporarSueltos() throws IOException {
+        TreeMap<Long, Path> sueltos = new TreeMap<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO_SUELTO + "*" + EXTENSION_SUELTO)) {
+            for (Path archivo : archivos) {
+                long marca = marcaSuelto(archivo.getFileName().toString());
+                if (marca >= 0) {
+                    sueltos.put(marca, archivo);
+                }
+            }
+        }
+        if (sueltos.isEmpty()) {
+            return;
+        }
+
+        long incorporadosHasta = ultimaMarca;
+        for (Map.Entry<Long, Path> suelto : sueltos.tailMap(incorporadosHasta, false).entrySet()) {
+            agregar(suelto.getKey(), new String(Files.readAllBytes(suelto.getValue()), StandardCharsets.UTF_8));
+        }
+        segmentos.lastEntry().getValue().canal.force(false);
+        for (Path suelto : sueltos.values()) {
+            Files.deleteIfExists(suelto);
+        }
+    }
+
+    /**
+     * Llena un buffer desde una posición del canal.
+     *
+     * @param canal Canal de lectura
+     * @param destino Buffer a llenar
+     * @param posicion Posición de lectura
+     * @throws IOException Si el canal termina antes de llenar el buffer
+     */
+    private void leerCompleto(FileChannel canal, ByteBuffer destino, long posicion) throws IOException {
+        long actual = posicion;
+        while (destino.hasRemaining()) {
+            int leidos = canal.read(destino, actual);
+            if (leidos < 0) {
+                throw new IOException("Fin inesperado del segmento");
+            }
+            actual += leidos;
+        }
+    }
+
+    /**
+     * Calcula el CRC32C de los primeros bytes de un buffer.
+     *
+     * @param buffer Buffer con arreglo
+     * @param longitud Número de bytes
+     * @return CRC calculado
+     */
+    private int calcularCrc(ByteBuffer buffer, int longitud) {
+        return calcularCrc(buffer, 0, longitud);
+    }
+
+    /**
+     * Calcula el CRC32C de un tramo de un buffer.
+     *
+     * @param buffer Buffer con arreglo
+     * @param inicio Posición del primer byte
+     * @param longitud Número de bytes
+     * @return CRC calculado
+     */
+    private int calcularCrc(ByteBuffer buffer, int inicio, int longitud) {
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + inicio, longitud);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Obtiene la ruta del archivo de un segmento.
+     *
+     * @param segmento Número del segmento
+     * @return Ruta del segmento
+     */
+    private Path rutaSegmento(int segmento) {
+        return directorio.resolve(String.format("%s%06d%s", PREFIJO_SEGMENTO, segmento, EXTENSION_SEGMENTO));
+    }
+
+    /**
+     * Obtiene la ruta del archivo de índice de un segmento.
+     *
+     * @param segmento Número del segmento
+     * @return Ruta del índice
+     */
+    private Path rutaIndice(int segmento) {
+        return directorio.resolve(String.format("%s%06d%s", PREFIJO_SEGMENTO, segmento, EXTENSION_INDICE));
+    }
+}
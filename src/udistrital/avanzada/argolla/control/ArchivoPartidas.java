@@ -0,0 +1,1015 @@
+package udistrital.avanzada.argolla.control;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+
+/**
+ * Archivo de partidas guardadas como registro de solo agregado (append-only)
+ * dividido en segmentos. Implementa el principio de responsabilidad única
+ * (SRP) al encargarse únicamente de ubicar los bytes de cada partida; el
+ * formato de esos bytes lo define {@link CodificadorPartidas}.
+ *
+ * Guardar una partida agrega una entrada al segmento activo y eliminarla
+ * agrega una lápida; nada se sobrescribe. Un índice en memoria guarda la
+ * ubicación de la última entrada de cada partida, así que cargar una partida
+ * es una sola lectura posicionada y listar los ids no toca el disco.
+ *
+ * Además de su instantánea, cada partida puede tener un delta con los
+ * cambios posteriores, guardado con {@link #guardarDelta(String, byte[])}.
+ * Solo se conserva el último delta, y guardar una instantánea nueva o
+ * eliminar la partida lo descarta.
+ *
+ * Formato de una entrada:
+ * <pre>
+ *   u1                   tipo (1 partida, 2 lápida, 3 delta)
+ *   u2 longitud + UTF-8  id de la partida
+ *   int                  longitud de los datos (0 en las lápidas)
+ *   byte[]               datos de la partida o del delta
+ *   int                  CRC32C de todo lo anterior
+ * </pre>
+ *
+ * Cuando el segmento activo supera {@link #TAMANO_MAXIMO_SEGMENTO} se abre
+ * uno nuevo. Los segmentos cerrados en los que más de la mitad de los bytes
+ * son partidas sobrescritas, eliminadas o lápidas se compactan copiando las
+ * entradas vigentes al segmento activo y borrando el segmento.
+ *
+ * El índice se guarda en {@code partidas.idx} al rotar, compactar y cerrar,
+ * junto con la posición del registro que cubre. Al abrir se carga y se
+ * recorren solo las entradas posteriores; si falta o está dañado, se
+ * reconstruye recorriendo todos los segmentos. Una entrada incompleta o con
+ * CRC inválido al final del segmento activo se descarta.
+ *
+ * Las partidas guardadas antes como archivos sueltos {@code partida_<id>.dat}
+ * se incorporan al abrir y sus archivos se eliminan.
+ *
+ * Hay una instancia por directorio en el proceso, obtenida con
+ * {@link #abrir(Path)}, y sus métodos están sincronizados.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class ArchivoPartidas {
+
+    /** Tamaño a partir del cual se abre un segmento nuevo */
+    public static final long TAMANO_MAXIMO_SEGMENTO = 8L * 1024 * 1024;
+
+    /** Tipo de entrada de una partida guardada */
+    private static final byte TIPO_PARTIDA = 1;
+
+    /** Tipo de entrada de una partida eliminada */
+    private static final byte TIPO_LAPIDA = 2;
+
+    /** Tipo de entrada del delta de una partida */
+    private static final byte TIPO_DELTA = 3;
+
+    /** Bytes de una entrada además del id y los datos: tipo, longitudes y CRC */
+    private static final int TAMANO_MARCO = 11;
+
+    /** Número mágico del archivo de índice */
+    private static final int MAGICO_INDICE = 0x41524749;
+
+    /** Versión del formato del archivo de índice */
+    private static final int VERSION_INDICE = 2;
+
+    /** Nombre del archivo de índice */
+    private static final String ARCHIVO_INDICE = "partidas.idx";
+
+    /** Prefijo de los archivos de segmento */
+    private static final String PREFIJO_SEGMENTO = "segmento_";
+
+    /** Extensión de los archivos de segmento */
+    private static final String EXTENSION_SEGMENTO = ".log";
+
+    /** Prefijo de las partidas guardadas como archivos sueltos */
+    private static final String PREFIJO_SUELTA = "partida_";
+
+    /** Extensión de las partidas guardadas como archivos sueltos */
+    private static final String EXTENSION_SUELTA = ".dat";
+
+    /** Archivos sueltos que se leen en paralelo antes de agregarlos al segmento activo */
+    private static final int LOTE_SUELTAS = 512;
+
+    /** Instancias abiertas por directorio */
+    private static final Map<Path, ArchivoPartidas> INSTANCIAS = new ConcurrentHashMap<>();
+
+    /** Directorio de los segmentos */
+    private final Path directorio;
+
+    /** Ubicación de la última entrada de cada partida, en orden de guardado */
+    private final LinkedHashMap<String, Ubicacion> indice;
+
+    /** Ubicación del último delta de cada partida que tiene uno */
+    private final Map<String, Ubicacion> deltas;
+
+    /** Canales de los segmentos por número, en orden */
+    private final TreeMap<Integer, FileChannel> segmentos;
+
+    /** Bytes de cada segmento que ya no pertenecen a una partida vigente */
+    private final Map<Integer, Long> basura;
+
+    /** Calculador de CRC reutilizable */
+    private final CRC32C crc;
+
+    /** Número del segmento activo, donde se agregan las entradas */
+    private int segmentoActivo;
+
+    /** Posición del final del segmento activo */
+    private long finActivo;
+
+    /** Indica si los segmentos están abiertos */
+    private boolean abierto;
+
+    /** Indica si hay una compactación en curso, para no iniciar otra al rotar */
+    private boolean compactando;
+
+    /**
+     * Ubicación de la entrada de una partida.
+     */
+    private static final class Ubicacion {
+
+        /** Número del segmento */
+        private final int segmento;
+
+        /** Posición de la entrada en el segmento */
+        private final long posicion;
+
+        /** Longitud total de la entrada */
+        private final int longitud;
+
+        /** Longitud de los datos de la partida */
+        private final int longitudDatos;
+
+        private Ubicacion(int segmento, long posicion, int longitud, int longitudDatos) {
+            this.segmento = segmento;
+            this.posicion = posicion;
+            this.longitud = longitud;
+            this.longitudDatos = longitudDatos;
+        }
+    }
+
+    /**
+     * Interfaz funcional que recibe las entradas válidas al recorrer un segmento.
+     */
+    @FunctionalInterface
+    private interface VisitanteEntrada {
+
+        /**
+         * Procesa una entrada.
+         *
+         * @param tipo Tipo de la entrada
+         * @param id Id de la partida
+         * @param posicion Posición de la entrada en el segmento
+         * @param longitud Longitud total de la entrada
+         * @param longitudDatos Longitud de los datos
+         */
+        void visitar(byte tipo, String id, long posicion, int longitud, int longitudDatos);
+    }
+
+    /**
+     * Constructor privado; las instancias se obtienen con {@link #abrir(Path)}.
+     *
+     * @param directorio Directorio de los segmentos
+     */
+    private ArchivoPartidas(Path directorio) {
+        this.directorio = directorio;
+        this.indice = new LinkedHashMap<>();
+        this.deltas = new HashMap<>();
+        this.segmentos = new TreeMap<>();
+        this.basura = new HashMap<>();
+        this.crc = new CRC32C();
+        this.abierto = false;
+    }
+
+    /**
+     * Obtiene el archivo de partidas de un directorio, compartido por todo el proceso.
+     *
+     * @param directorio Directorio de los segmentos
+     * @return Archivo de partidas del directorio
+     */
+    public static ArchivoPartidas abrir(Path directorio) {
+        return INSTANCIAS.computeIfAbsent(directorio.toAbsolutePath().normalize(), ArchivoPartidas::new);
+    }
+
+    /**
+     * Guarda los datos de una partida, reemplazando a los anteriores y a su delta.
+     *
+     * @param id Id de la partida
+     * @param datos Datos de la partida
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized void guardar(String id, byte[] datos) throws IOException {
+        asegurarAbierto();
+        Ubicacion nueva = agregarEntrada(construirEntrada(TIPO_PARTIDA, id, datos));
+        Ubicacion anterior = indice.remove(id);
+        indice.put(id, nueva);
+        descartarDelta(id);
+        if (anterior != null) {
+            sumarBasura(anterior.segmento, anterior.longitud);
+            compactarSiEsNecesario(anterior.segmento);
+        }
+    }
+
+    /**
+     * Guarda el delta de una partida, reemplazando al anterior.
+     *
+     * @param id Id de la partida
+     * @param datos Datos del delta
+     * @throws IOException Si hay error de E/S o la partida no tiene instantánea
+     */
+    public synchronized void guardarDelta(String id, byte[] datos) throws IOException {
+        asegurarAbierto();
+        if (!indice.containsKey(id)) {
+            throw new IOException("La partida no tiene instantánea: " + id);
+        }
+
+        Ubicacion nueva = agregarEntrada(construirEntrada(TIPO_DELTA, id, datos));
+        Ubicacion anterior = deltas.put(id, nueva);
+        if (anterior != null) {
+            sumarBasura(anterior.segmento, anterior.longitud);
+            compactarSiEsNecesario(anterior.segmento);
+        }
+    }
+
+    /**
+     * Lee los datos de una partida con una sola lectura posicionada.
+     *
+     * @param id Id de la partida
+     * @return Datos de la partida, null si no existe
+     * @throws IOException Si hay error de E/S o la entrada está dañada
+     */
+    public synchronized byte[] leer(String id) throws IOException {
+        asegurarAbierto();
+        Ubicacion ubicacion = indice.get(id);
+        return ubicacion == null ? null : leerDatos(ubicacion, id);
+    }
+
+    /**
+     * Lee los primeros bytes de los datos de una partida con una sola
+     * lectura posicionada, sin leer el resto de la entrada. El CRC de la
+     * entrada no se verifica porque cubre la entrada completa; quien lee
+     * debe validar esos bytes por su cuenta.
+     *
+     * @param id Id de la partida
+     * @param longitud Número máximo de bytes a leer
+     * @return Los primeros bytes de los datos, o todos si son menos, null si la partida no existe
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized byte[] leerInicio(String id, int longitud) throws IOException {
+        asegurarAbierto();
+        Ubicacion ubicacion = indice.get(id);
+        if (ubicacion == null) {
+            return null;
+        }
+
+        ByteBuffer inicio = ByteBuffer.allocate(Math.min(longitud, ubicacion.longitudDatos));
+        leerCompleto(segmentos.get(ubicacion.segmento), inicio,
+                     ubicacion.posicion + ubicacion.longitud - 4 - ubicacion.longitudDatos);
+        return inicio.array();
+    }
+
+    /**
+     * Lee el delta de una partida con una sola lectura posicionada.
+     *
+     * @param id Id de la partida
+     * @return Datos del delta, null si la partida no tiene delta
+     * @throws IOException Si hay error de E/S o la entrada está dañada
+     */
+    public synchronized byte[] leerDelta(String id) throws IOException {
+        asegurarAbierto();
+        Ubicacion ubicacion = deltas.get(id);
+        return ubicacion == null ? null : leerDatos(ubicacion, id);
+    }
+
+    /**
+     * Elimina una partida agregando una lápida.
+     *
+     * @param id Id de la partida
+     * @return true si la partida existía
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized boolean eliminar(String id) throws IOException {
+        asegurarAbierto();
+        if (!indice.containsKey(id)) {
+            return false;
+        }
+
+        Ubicacion lapida = agregarEntrada(construirEntrada(TIPO_LAPIDA, id, new byte[0]));
+        sumarBasura(lapida.segmento, lapida.longitud);
+        Ubicacion anterior = indice.remove(id);
+        descartarDelta(id);
+        sumarBasura(anterior.segmento, anterior.longitud);
+        compactarSiEsNecesario(anterior.segmento);
+        return true;
+    }
+
+    /**
+     * Obtiene los ids de las partidas guardadas desde el índice en memoria.
+     *
+     * @return Ids de las partidas, en orden de guardado
+     * @throws IOException Si hay error de E/S al abrir los segmentos
+     */
+    public synchronized List<String> getIds() throws IOException {
+        asegurarAbierto();
+        return new ArrayList<>(indice.keySet());
+    }
+
+    /**
+     * Indica si hay una partida guardada con un id.
+     *
+     * @param id Id de la partida
+     * @return true si existe
+     * @throws IOException Si hay error de E/S al abrir los segmentos
+     */
+    public synchronized boolean contiene(String id) throws IOException {
+        asegurarAbierto();
+        return indice.containsKey(id);
+    }
+
+    /**
+     * Obtiene el tamaño de los datos de una partida, sumando los de su delta.
+     *
+     * @param id Id de la partida
+     * @return Tamaño en bytes, -1 si no existe
+     * @throws IOException Si hay error de E/S al abrir los segmentos
+     */
+    public synchronized long getTamano(String id) throws IOException {
+        asegurarAbierto();
+        Ubicacion ubicacion = indice.get(id);
+        if (ubicacion == null) {
+            return -1;
+        }
+        Ubicacion delta = deltas.get(id);
+        return ubicacion.longitudDatos + (delta == null ? 0 : delta.longitudDatos);
+    }
+
+    /**
+     * Obtiene el número de segmentos.
+     *
+     * @return Número de segmentos
+     * @throws IOException Si hay error de E/S al abrir los segmentos
+     */
+    public synchronized int getNumeroSegmentos() throws IOException {
+        asegurarAbierto();
+        return segmentos.size();
+    }
+
+    /**
+     * Elimina todas las partidas, sus segmentos y el índice.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized void limpiar() throws IOException {
+        asegurarAbierto();
+        for (Map.Entry<Integer, FileChannel> segmento : segmentos.entrySet()) {
+            segmento.getValue().close();
+            Files.deleteIfExists(rutaSegmento(segmento.getKey()));
+        }
+        segmentos.clear();
+        indice.clear();
+        deltas.clear();
+        basura.clear();
+        segmentoActivo = 1;
+        abrirSegmentoActivo();
+        guardarIndice();
+    }
+
+    /**
+     * Compacta todos los segmentos cerrados que tienen partidas sobrescritas,
+     * eliminadas o lápidas, sin importar la proporción.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized void compactar() throws IOException {
+        asegurarAbierto();
+        abrirSegmentoNuevo();
+        for (Integer segmento : new ArrayList<>(segmentos.headMap(segmentoActivo).keySet())) {
+            compactarSegmento(segmento);
+        }
+    }
+
+    /**
+     * Guarda el índice, fuerza a disco el segmento activo y cierra los
+     * segmentos. Se vuelven a abrir si se usan de nuevo.
+     */
+    public synchronized void cerrar() {
+        if (!abierto) {
+            return;
+        }
+
+        try {
+            segmentos.get(segmentoActivo).force(false);
+            guardarIndice();
+        } catch (IOException e) {
+            // El índice se reconstruye desde los segmentos al abrir
+        }
+        cerrarCanales();
+    }
+
+    /**
+     * Cierra los canales de los segmentos y descarta el índice en memoria sin guardarlo.
+     */
+    private void cerrarCanales() {
+        for (FileChannel canal : segmentos.values()) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                // Se ignora el error al cerrar
+            }
+        }
+        segmentos.clear();
+        indice.clear();
+        deltas.clear();
+        basura.clear();
+        abierto = false;
+    }
+
+    /**
+     * Abre los segmentos y carga el índice si aún no están abiertos.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void asegurarAbierto() throws IOException {
+        if (abierto) {
+            return;
+        }
+
+        Files.createDirectories(directorio);
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO_SEGMENTO + "*" + EXTENSION_SEGMENTO)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                int numero = Integer.parseInt(nombre.substring(PREFIJO_SEGMENTO.length(),
+                                                               nombre.length() - EXTENSION_SEGMENTO.length()));
+                segmentos.put(numero, FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            }
+        }
+        segmentoActivo = segmentos.isEmpty() ? 1 : segmentos.lastKey();
+        abrirSegmentoActivo();
+        abierto = true;
+
+        try {
+            if (!cargarIndice()) {
+                reconstruirIndice(segmentos.firstKey(), 0);
+            }
+        } catch (IOException | RuntimeException e) {
+            cerrarCanales();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+        incorporarSueltas();
+    }
+
+    /**
+     * Carga el índice guardado y recorre las entradas agregadas después de él.
+     *
+     * @return true si el índice existía y era válido
+     */
+    private boolean cargarIndice() throws IOException {
+        Path ruta = directorio.resolve(ARCHIVO_INDICE);
+        if (!Files.exists(ruta)) {
+            return false;
+        }
+
+        int segmentoCubierto;
+        long posicionCubierta;
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(ruta)))) {
+            if (entrada.readInt() != MAGICO_INDICE || entrada.readInt() != VERSION_INDICE) {
+                return false;
+            }
+            segmentoCubierto = entrada.readInt();
+            posicionCubierta = entrada.readLong();
+            int numero = entrada.readInt();
+            for (int i = 0; i < numero; i++) {
+                String id = entrada.readUTF();
+                Ubicacion ubicacion = new Ubicacion(entrada.readInt(), entrada.readLong(),
+                                                    entrada.readInt(), entrada.readInt());
+                if (!estaEnSegmentos(ubicacion)) {
+                    indice.clear();
+                    return false;
+                }
+                indice.put(id, ubicacion);
+            }
+            int numeroDeltas = entrada.readInt();
+            for (int i = 0; i < numeroDeltas; i++) {
+                String id = entrada.readUTF();
+                Ubicacion ubicacion = new Ubicacion(entrada.readInt(), entrada.readLong(),
+                                                    entrada.readInt(), entrada.readInt());
+                if (!estaEnSegmentos(ubicacion) || !indice.containsKey(id)) {
+                    indice.clear();
+                    deltas.clear();
+                    return false;
+                }
+                deltas.put(id, ubicacion);
+            }
+        } catch (IOException e) {
+            indice.clear();
+            deltas.clear();
+            return false;
+        }
+
+        FileChannel cubierto = segmentos.get(segmentoCubierto);
+        if (cubierto == null || posicionCubierta > cubierto.size()) {
+            indice.clear();
+            deltas.clear();
+            return false;
+        }
+        reconstruirIndice(segmentoCubierto, posicionCubierta);
+        return true;
+    }
+
+    /**
+     * Indica si una ubicación cabe dentro de su segmento.
+     *
+     * @param ubicacion Ubicación a revisar
+     * @return true si el segmento existe y contiene la entrada completa
+     * @throws IOException Si hay error de E/S
+     */
+    private boolean estaEnSegmentos(Ubicacion ubicacion) throws IOException {
+        FileChannel canal = segmentos.get(ubicacion.segmento);
+        return canal != null && ubicacion.posicion + ubicacion.longitud <= canal.size();
+    }
+
+    /**
+     * Recorre los segmentos desde una posición aplicando sus entradas al
+     * índice y recalcula la basura de cada segmento. El segmento activo se
+     * recorta en la primera entrada inválida.
+     *
+     * @param segmentoInicial Segmento donde comienza el recorrido
+     * @param posicionInicial Posición donde comienza el recorrido
+     * @throws IOException Si hay error de E/S
+     */
+    private void reconstruirIndice(int segmentoInicial, long posicionInicial) throws IOException {
+        for (Map.Entry<Integer, FileChannel> segmento : segmentos.tailMap(segmentoInicial).entrySet()) {
+            int numero = segmento.getKey();
+            long inicio = numero == segmentoInicial ? posicionInicial : 0;
+            long fin = recorrerSegmento(numero, inicio, (tipo, id, posicion, longitud, longitudDatos) -> {
+                Ubicacion ubicacion = new Ubicacion(numero, posicion, longitud, longitudDatos);
+                if (tipo == TIPO_DELTA) {
+                    if (indice.containsKey(id)) {
+                        deltas.put(id, ubicacion);
+                    }
+                    return;
+                }
+                indice.remove(id);
+                deltas.remove(id);
+                if (tipo == TIPO_PARTIDA) {
+                    indice.put(id, ubicacion);
+                }
+            });
+            if (fin < segmento.getValue().size()) {
+                segmento.getValue().truncate(fin);
+            }
+        }
+        finActivo = segmentos.get(segmentoActivo).size();
+
+        Map<Integer, Long> vigentes = new HashMap<>();
+        for (Ubicacion ubicacion : indice.values()) {
+            vigentes.merge(ubicacion.segmento, (long) ubicacion.longitud, Long::sum);
+        }
+        for (Ubicacion ubicacion : deltas.values()) {
+            vigentes.merge(ubicacion.segmento, (long) ubicacion.longitud, Long::sum);
+        }
+        basura.clear();
+        for (Map.Entry<Integer, FileChannel> segmento : segmentos.entrySet()) {
+            basura.put(segmento.getKey(), segmento.getValue().size() - vigentes.getOrDefault(segmento.getKey(), 0L));
+        }
+    }
+
+    /**
+     * Recorre las entradas válidas de un segmento desde una posición.
+     *
+     * @param segmento Número del segmento
+     * @param inicio Posición de la primera entrada
+     * @param visitante Receptor de cada entrada válida
+     * @return Posición del final de la última entrada válida
+     * @throws IOException Si hay error de E/S
+     */
+    private long recorrerSegmento(int segmento, long inicio, VisitanteEntrada visitante) throws IOException {
+        FileChannel canal = segmentos.get(segmento);
+        long tamano = canal.size();
+        long posicion = inicio;
+        ByteBuffer cabecera = ByteBuffer.allocate(3);
+        while (posicion + TAMANO_MARCO <= tamano) {
+            cabecera.clear();
+            leerCompleto(canal, cabecera, posicion);
+            int longitudId = cabecera.getShort(1) & 0xFFFF;
+            if (posicion + TAMANO_MARCO + longitudId > tamano) {
+                break;
+            }
+            ByteBuffer longitudDatos = ByteBuffer.allocate(4);
+            leerCompleto(canal, longitudDatos, posicion + 3 + longitudId);
+            long longitud = (long) TAMANO_MARCO + longitudId + longitudDatos.getInt(0);
+            if (longitudDatos.getInt(0) < 0 || posicion + longitud > tamano) {
+                break;
+            }
+
+            ByteBuffer entrada = leerEntrada(segmento, posicion, (int) longitud);
+            byte tipo = entrada.get(0);
+            if ((tipo != TIPO_PARTIDA && tipo != TIPO_LAPIDA && tipo != TIPO_DELTA)
+                || calcularCrc(entrada, (int) longitud - 4) != entrada.getInt((int) longitud - 4)) {
+                break;
+            }
+            String id = new String(entrada.array(), 3, longitudId, StandardCharsets.UTF_8);
+            visitante.visitar(tipo, id, posicion, (int) longitud, longitudDatos.getInt(0));
+            posicion += longitud;
+        }
+        return posicion;
+    }
+
+    /**
+     * Guarda el índice en un archivo temporal y lo reemplaza de forma atómica.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void guardarIndice() throws IOException {
+        Path ruta = directorio.resolve(ARCHIVO_INDICE);
+        Path temporal = directorio.resolve(ARCHIVO_INDICE + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            salida.writeInt(MAGICO_INDICE);
+            salida.writeInt(VERSION_INDICE);
+            salida.writeInt(segmentoActivo);
+            salida.writeLong(finActivo);
+            escribirUbicaciones(salida, indice);
+            escribirUbicaciones(salida, deltas);
+        }
+        Files.move(temporal, ruta, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Escribe en el índice el número de ubicaciones y cada una con su id.
+     *
+     * @param salida Destino de la escritura
+     * @param ubicaciones Ubicaciones por id
+     * @throws IOException Si hay error de E/S
+     */
+    private void escribirUbicaciones(DataOutputStream salida, Map<String, Ubicacion> ubicaciones) throws IOException {
+        salida.writeInt(ubicaciones.size());
+        for (Map.Entry<String, Ubicacion> entrada : ubicaciones.entrySet()) {
+            Ubicacion ubicacion = entrada.getValue();
+            salida.writeUTF(entrada.getKey());
+            salida.writeInt(ubicacion.segmento);
+            salida.writeLong(ubicacion.posicion);
+            salida.writeInt(ubicacion.longitud);
+            salida.writeInt(ubicacion.longitudDatos);
+        }
+    }
+
+    /**
+     * Construye una entrada con su CRC.
+     *
+     * @param tipo Tipo de la entrada
+     * @param id Id de la partida
+     * @param datos Datos de la partida
+     * @return Buffer con la entrada, listo para leer
+     * @throws IOException Si el id es demasiado largo
+     */
+    private ByteBuffer construirEntrada(byte tipo, String id, byte[] datos) throws IOException {
+        byte[] bytesId = id.getBytes(StandardCharsets.UTF_8);
+        if (bytesId.length > 0xFFFF) {
+            throw new IOException("Id de partida demasiado largo");
+        }
+
+        ByteBuffer entrada = ByteBuffer.allocate(TAMANO_MARCO + bytesId.length + datos.length);
+        entrada.put(tipo).putShort((short) bytesId.length).put(bytesId).putInt(datos.length).put(datos);
+        entrada.putInt(calcularCrc(entrada, entrada.position()));
+        return entrada.flip();
+    }
+
+    /**
+     * Agrega una entrada al final del segmento activo, abriendo uno nuevo si
+     * el activo superó su tamaño máximo.
+     *
+     * @param entrada Entrada lista para leer
+     * @return Ubicación de la entrada
+     * @throws IOException Si hay error de E/S
+     */
+    private Ubicacion agregarEntrada(ByteBuffer entrada) throws IOException {
+        if (finActivo > 0 && finActivo + entrada.remaining() > TAMANO_MAXIMO_SEGMENTO) {
+            abrirSegmentoNuevo();
+        }
+
+        int longitud = entrada.remaining();
+        int longitudDatos = entrada.getInt(3 + (entrada.getShort(1) & 0xFFFF));
+        long posicion = finActivo;
+        FileChannel canal = segmentos.get(segmentoActivo);
+        while (entrada.hasRemaining()) {
+            canal.write(entrada, posicion + longitud - entrada.remaining());
+        }
+        finActivo += longitud;
+        return new Ubicacion(segmentoActivo, posicion, longitud, longitudDatos);
+    }
+
+    /**
+     * Cierra el segmento activo, abre uno nuevo y guarda el índice. Luego
+     * compacta los segmentos cerrados que lo necesiten.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void abrirSegmentoNuevo() throws IOException {
+        if (finActivo == 0) {
+            return;
+        }
+
+        segmentos.get(segmentoActivo).force(false);
+        segmentoActivo++;
+        abrirSegmentoActivo();
+        guardarIndice();
+        for (Integer segmento : new ArrayList<>(segmentos.headMap(segmentoActivo).keySet())) {
+            compactarSiEsNecesario(segmento);
+        }
+    }
+
+    /**
+     * Abre el segmento activo, creándolo si no existe.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void abrirSegmentoActivo() throws IOException {
+        if (!segmentos.containsKey(segmentoActivo)) {
+            segmentos.put(segmentoActivo, FileChannel.open(rutaSegmento(segmentoActivo), StandardOpenOption.CREATE,
+                                                           StandardOpenOption.READ, StandardOpenOption.WRITE));
+            basura.put(segmentoActivo, 0L);
+        }
+        finActivo = segmentos.get(segmentoActivo).size();
+    }
+
+    /**
+     * Compacta un segmento cerrado si más de la mitad de sus bytes son basura.
+     *
+     * @param segmento Número del segmento
+     * @throws IOException Si hay error de E/S
+     */
+    private void compactarSiEsNecesario(int segmento) throws IOException {
+        FileChannel canal = segmentos.get(segmento);
+        if (segmento != segmentoActivo && canal != null && basura.getOrDefault(segmento, 0L) * 2 > canal.size()) {
+            compactarSegmento(segmento);
+        }
+    }
+
+    /**
+     * Copia al segmento activo las partidas y deltas vigentes de un segmento
+     * cerrado y lo elimina. Sus lápidas se copian solo si hay segmentos más
+     * antiguos que aún podrían tener la partida eliminada. El índice se
+     * guarda antes de borrar el segmento.
+     *
+     * @param segmento Número del segmento
+     * @throws IOException Si hay error de E/S
+     */
+    private void compactarSegmento(int segmento) throws IOException {
+        if (compactando || basura.getOrDefault(segmento, 0L) == 0) {
+            return;
+        }
+
+        compactando = true;
+        try {
+            copiarVigentes(segmento);
+        } finally {
+            compactando = false;
+        }
+    }
+
+    /**
+     * Copia al segmento activo las entradas de un segmento que deben
+     * conservarse y elimina el segmento.
+     *
+     * @param segmento Número del segmento
+     * @throws IOException Si hay error de E/S
+     */
+    private void copiarVigentes(int segmento) throws IOException {
+        boolean hayAnteriores = segmentos.firstKey() < segmento;
+        List<String> lapidas = new ArrayList<>();
+        recorrerSegmento(segmento, 0, (tipo, id, posicion, longitud, longitudDatos) -> {
+            if (tipo == TIPO_LAPIDA && hayAnteriores && !indice.containsKey(id)) {
+                lapidas.add(id);
+            }
+        });
+
+        // Un delta debe quedar después de su instantánea en el registro: si
+        // la instantánea se copia, su delta se copia detrás aunque esté en
+        // otro segmento
+        List<Map.Entry<String, Ubicacion>> vigentes = new ArrayList<>();
+        for (Map.Entry<String, Ubicacion> entrada : indice.entrySet()) {
+            if (entrada.getValue().segmento == segmento) {
+                vigentes.add(entrada);
+            }
+        }
+        Set<String> copiadas = new HashSet<>();
+        for (Map.Entry<String, Ubicacion> entrada : vigentes) {
+            copiadas.add(entrada.getKey());
+        }
+        for (Map.Entry<String, Ubicacion> entrada : deltas.entrySet()) {
+            if (entrada.getValue().segmento == segmento || copiadas.contains(entrada.getKey())) {
+                vigentes.add(entrada);
+            }
+        }
+        vigentes.sort(Comparator.comparingInt((Map.Entry<String, Ubicacion> entrada) -> entrada.getValue().segmento)
+                                .thenComparingLong(entrada -> entrada.getValue().posicion));
+        for (Map.Entry<String, Ubicacion> entrada : vigentes) {
+            Ubicacion anterior = entrada.getValue();
+            entrada.setValue(agregarEntrada(leerEntrada(anterior.segmento, anterior.posicion, anterior.longitud)));
+            if (anterior.segmento != segmento) {
+                sumarBasura(anterior.segmento, anterior.longitud);
+            }
+        }
+        for (String id : lapidas) {
+            Ubicacion lapida = agregarEntrada(construirEntrada(TIPO_LAPIDA, id, new byte[0]));
+            sumarBasura(lapida.segmento, lapida.longitud);
+        }
+
+        segmentos.get(segmentoActivo).force(false);
+        segmentos.remove(segmento).close();
+        basura.remove(segmento);
+        guardarIndice();
+        Files.deleteIfExists(rutaSegmento(segmento));
+    }
+
+    /**
+     * Incorpora las partidas guardadas como archivos sueltos y elimina sus
+     * archivos. Los archivos se leen en paralelo por lotes de
+     * {@link #LOTE_SUELTAS}, ya que con decenas de miles de partidas el
+     * costo está en abrir y leer cada archivo, y se agregan al segmento
+     * activo en orden desde este hilo. Los archivos solo se eliminan, también
+     * en paralelo, después de forzar los segmentos y guardar el índice.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void incorporarSueltas() throws IOException {
+        List<Path> sueltas = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO_SUELTA + "*" + EXTENSION_SUELTA)) {
+            for (Path suelta : archivos) {
+                if (!indice.containsKey(idSuelta(suelta))) {
+                    sueltas.add(suelta);
+                }
+            }
+        }
+
+        for (int inicio = 0; inicio < sueltas.size(); inicio += LOTE_SUELTAS) {
+            List<Path> lote = sueltas.subList(inicio, Math.min(inicio + LOTE_SUELTAS, sueltas.size()));
+            List<byte[]> datos;
+            try {
+                datos = lote.parallelStream().map(ArchivoPartidas::leerSuelta).collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (int i = 0; i < lote.size(); i++) {
+                guardar(idSuelta(lote.get(i)), datos.get(i));
+            }
+        }
+        if (!sueltas.isEmpty()) {
+            segmentos.get(segmentoActivo).force(false);
+            guardarIndice();
+        }
+
+        // Incluye las sueltas que ya estaban incorporadas por una migración interrumpida
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO_SUELTA + "*" + EXTENSION_SUELTA)) {
+            List<Path> incorporadas = new ArrayList<>();
+            archivos.forEach(incorporadas::add);
+            incorporadas.parallelStream().forEach(suelta -> suelta.toFile().delete());
+        }
+    }
+
+    /**
+     * Obtiene el id de la partida de un archivo suelto.
+     *
+     * @param suelta Archivo suelto
+     * @return Id de la partida
+     */
+    private static String idSuelta(Path suelta) {
+        String nombre = suelta.getFileName().toString();
+        return nombre.substring(PREFIJO_SUELTA.length(), nombre.length() - EXTENSION_SUELTA.length());
+    }
+
+    /**
+     * Lee un archivo suelto desde un hilo del lote.
+     *
+     * @param suelta Archivo suelto
+     * @return Datos de la partida
+     * @throws UncheckedIOException Si hay error de E/S
+     */
+    private static byte[] leerSuelta(Path suelta) {
+        try {
+            return Files.readAllBytes(suelta);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lee los datos de una entrada y verifica su CRC.
+     *
+     * @param ubicacion Ubicación de la entrada
+     * @param id Id de la partida, para el mensaje de error
+     * @return Datos de la entrada
+     * @throws IOException Si hay error de E/S o la entrada está dañada
+     */
+    private byte[] leerDatos(Ubicacion ubicacion, String id) throws IOException {
+        ByteBuffer entrada = leerEntrada(ubicacion.segmento, ubicacion.posicion, ubicacion.longitud);
+        if (calcularCrc(entrada, ubicacion.longitud - 4) != entrada.getInt(ubicacion.longitud - 4)) {
+            throw new IOException("Partida dañada: " + id);
+        }
+        byte[] datos = new byte[ubicacion.longitudDatos];
+        entrada.get(ubicacion.longitud - 4 - ubicacion.longitudDatos, datos);
+        return datos;
+    }
+
+    /**
+     * Quita el delta de una partida, si tiene, y lo cuenta como basura.
+     *
+     * @param id Id de la partida
+     */
+    private void descartarDelta(String id) {
+        Ubicacion delta = deltas.remove(id);
+        if (delta != null) {
+            sumarBasura(delta.segmento, delta.longitud);
+        }
+    }
+
+    /**
+     * Lee una entrada completa con una lectura posicionada.
+     *
+     * @param segmento Número del segmento
+     * @param posicion Posición de la entrada
+     * @param longitud Longitud de la entrada
+     * @return Buffer con la entrada
+     * @throws IOException Si hay error de E/S
+     */
+    private ByteBuffer leerEntrada(int segmento, long posicion, int longitud) throws IOException {
+        ByteBuffer entrada = ByteBuffer.allocate(longitud);
+        leerCompleto(segmentos.get(segmento), entrada, posicion);
+        return entrada.flip();
+    }
+
+    /**
+     * Llena un buffer desde una posición del canal.
+     *
+     * @param canal Canal de lectura
+     * @param destino Buffer a llenar
+     * @param posicion Posición de lectura
+     * @throws IOException Si el canal termina antes de llenar el buffer
+     */
+    private void leerCompleto(FileChannel canal, ByteBuffer destino, long posicion) throws IOException {
+        long actual = posicion;
+        while (destino.hasRemaining()) {
+            int leidos = canal.read(destino, actual);
+            if (leidos < 0) {
+                throw new IOException("Fin inesperado del segmento");
+            }
+            actual += leidos;
+        }
+    }
+
+    /**
+     * Calcula el CRC32C de los primeros bytes de un buffer.
+     *
+     * @param buffer Buffer con arreglo
+     * @param longitud Número de bytes
+     * @return CRC calculado
+     */
+    private int calcularCrc(ByteBuffer buffer, int longitud) {
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset(), longitud);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Suma bytes a la basura de un segmento.
+     *
+     * @param segmento Número del segmento
+     * @param bytes Bytes que dejaron de estar vigentes
+     */
+    private void sumarBasura(int segmento, long bytes) {
+        basura.merge(segmento, bytes, Long::sum);
+    }
+
+    /**
+     * Obtiene la ruta del archivo de un segmento.
+     *
+     * @param segmento Número del segmento
+     * @return Ruta del segmento
+     */
+    private Path rutaSegmento(int segmento) {
+        return directorio.resolve(String.format("%s%06d%s", PREFIJO_SEGMENTO, segmento, EXTENSION_SEGMENTO));
+    }
+}
@@ -0,0 +1,1138 @@
+package udistrital.avanzada.argolla.control;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.zip.CRC32C;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Archivo de registros de tamaño fijo con cabecera y lista de ranuras libres.
+ * Implementa el principio de responsabilidad única (SRP) al encargarse
+ * únicamente de la asignación y liberación de ranuras dentro del archivo.
+ *
+ * La cabecera guarda la versión del formato, el número de ranuras usadas, el
+ * número de registros vigentes, la capacidad proyectada y la cabeza de una
+ * lista enlazada de ranuras libres, de modo que encontrar espacio para un
+ * nuevo registro o contar los registros cuesta O(1) y el estado se conserva
+ * entre ejecuciones. Disposición de la cabecera:
+ * <pre>
+ *    0  int  número mágico "ARG1"
+ *    4  int  versión del formato
+ *    8  int  tamaño de cada ranura
+ *   12  int  ranuras usadas (ocupadas o libres)
+ *   16  int  primera ranura libre, -1 si no hay
+ *   20  int  registros vigentes (ranuras ocupadas)
+ *   24  int  capacidad en ranuras de la proyección actual
+ * </pre>
+ * Cada operación escribe primero la ranura y después actualiza la cabecera.
+ *
+ * Cada ranura ocupada tiene la forma: byte de estado, CRC32C del contenido
+ * e inmediatamente el contenido. {@link #verificar()} revisa los CRC de todas
+ * las ranuras en paralelo y {@link #ponerEnCuarentena(int[])} copia las
+ * ranuras dañadas a un archivo aparte (.cuarentena) y las retira de uso.
+ *
+ * Las ranuras eliminadas quedan marcadas como libres (lápidas enlazadas en la
+ * lista de libres) hasta que se reutilizan. {@link #compactar()} reescribe los
+ * registros vigentes de forma contigua en un archivo nuevo y lo reemplaza de
+ * forma atómica.
+ *
+ * El archivo se abre una sola vez y se mantiene proyectado en memoria
+ * ({@link MappedByteBuffer}) hasta llamar a {@link #cerrar()}; las lecturas y
+ * escrituras van directamente a las páginas proyectadas. La proyección crece
+ * en bloques de {@link #TAMANO_BLOQUE} bytes a medida que se agregan ranuras.
+ *
+ * El contenido de cada ranura es binario y lo interpreta quien usa el archivo
+ * (ver {@link CodificadorRegistros}). Los archivos con registros de texto de
+ * versiones anteriores se convierten al abrirlos mediante el migrador recibido
+ * en el constructor. Los archivos sin CRC se actualizan al abrirlos
+ * desplazando el contenido de cada ranura.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class ArchivoRegistros {
+
+    /** Tamaño reservado para la cabecera al inicio del archivo */
+    static final int TAMANO_CABECERA = 64;
+
+    /** Tamaño en bytes en que crece la proyección del archivo */
+    static final int TAMANO_BLOQUE = 256 * 1024;
+
+    /** Número mágico que identifica los archivos con cabecera ("ARG1") */
+    private static final int NUMERO_MAGICO = 0x41524731;
+
+    /** Versión del formato de los registros */
+    private static final int VERSION_FORMATO = 4;
+
+    /** Versión del formato binario sin CRC en las ranuras */
+    private static final int VERSION_SIN_CRC = 3;
+
+    /** Versión del formato binario sin conteo de registros en la cabecera */
+    private static final int VERSION_SIN_CONTEO = 2;
+
+    /** Versión del formato con registros de texto (writeUTF) */
+    private static final int VERSION_TEXTO = 1;
+
+    /** Posición en la cabecera de la versión del formato */
+    private static final int POS_VERSION = 4;
+
+    /** Posición en la cabecera del tamaño de cada ranura */
+    private static final int POS_TAMANO_REGISTRO = 8;
+
+    /** Marca de ranura libre (enlazada en la lista de libres) */
+    private static final byte ESTADO_LIBRE = 0;
+
+    /** Marca de ranura ocupada por un registro */
+    private static final byte ESTADO_OCUPADO = 1;
+
+    /** Marca de ranura dañada, retirada de uso hasta compactar */
+    private static final byte ESTADO_CUARENTENA = 2;
+
+    /** Posición del CRC dentro de una ranura */
+    private static final int DESPLAZAMIENTO_CRC = 1;
+
+    /** Posición del contenido dentro de una ranura */
+    private static final int DESPLAZAMIENTO_CONTENIDO = 5;
+
+    /** Número de ranuras que verifica cada tarea paralela */
+    private static final int RANURAS_POR_TAREA = 4096;
+
+    /** Sufijo del archivo donde se copian las ranuras dañadas */
+    private static final String SUFIJO_CUARENTENA = ".cuarentena";
+
+    /** Bytes en cero para completar los registros */
+    private static final byte[] RELLENO = new byte[1024];
+
+    /** Valor que indica que no hay ranura */
+    private static final int SIN_RANURA = -1;
+
+    /** Posición en la cabecera del número de ranuras usadas */
+    private static final int POS_NUMERO_RANURAS = 12;
+
+    /** Posición en la cabecera de la primera ranura libre */
+    private static final int POS_CABEZA_LIBRES = 16;
+
+    /** Posición en la cabecera del número de registros vigentes */
+    private static final int POS_NUMERO_REGISTROS = 20;
+
+    /** Posición en la cabecera de la capacidad en ranuras */
+    private static final int POS_CAPACIDAD = 24;
+
+    /** Sufijo del archivo temporal usado al compactar */
+    private static final String SUFIJO_COMPACTACION = ".compactando";
+
+    /** Número mínimo de ranuras de un tramo para dividirlo en un flujo paralelo */
+    private static final int RANURAS_MINIMAS_DIVISION = 1024;
+
+    /** Archivo físico */
+    private final File archivo;
+
+    /** Tamaño fijo de cada registro en bytes */
+    private final int tamanoRegistro;
+
+    /** Canal del archivo, abierto mientras el archivo esté en uso */
+    private FileChannel canal;
+
+    /** Proyección en memoria del archivo */
+    private MappedByteBuffer mapa;
+
+    /** Convierte registros de texto de formatos anteriores al formato binario */
+    private final Function<String, ByteBuffer> migrador;
+
+    /** Calculador de CRC para las escrituras */
+    private final CRC32C crc;
+
+    /**
+     * Interfaz funcional para interpretar el contenido de una ranura.
+     *
+     * @param <T> Tipo del valor leído
+     */
+    public interface LectorRegistro<T> {
+
+        /**
+         * Interpreta el registro que comienza en la posición indicada.
+         *
+         * @param datos Buffer con el contenido del archivo (solo lectura absoluta)
+         * @param posicion Posición absoluta del contenido del registro
+         * @return Valor leído, null para omitir el registro
+         */
+        T leer(ByteBuffer datos, int posicion);
+    }
+
+    /**
+     * Interfaz funcional para recorrer las ranuras ocupadas.
+     */
+    public interface VisitanteRegistro {
+
+        /**
+         * Procesa una ranura ocupada.
+         *
+         * @param ranura Número de la ranura
+         * @param datos Buffer con el contenido del archivo (solo lectura absoluta)
+         * @param posicion Posición absoluta del contenido del registro
+         * @throws IOException Si hay error de E/S al procesar el registro
+         */
+        void visitar(int ranura, ByteBuffer datos, int posicion) throws IOException;
+    }
+
+    /**
+     * Constructor del archivo de registros.
+     *
+     * @param ruta Ruta del archivo
+     * @param tamanoRegistro Tamaño fijo de cada registro en bytes
+     * @param migrador Convierte un registro de texto del formato anterior a su
+     *                 forma binaria; devuelve null para descartarlo
+     */
+    public ArchivoRegistros(String ruta, int tamanoRegistro, Function<String, ByteBuffer> migrador) {
+        this.archivo = new File(ruta);
+        this.tamanoRegistro = tamanoRegistro;
+        this.migrador = migrador;
+        this.crc = new CRC32C();
+    }
+
+    /**
+     * Obtiene el tamaño máximo del contenido de un registro.
+     *
+     * @return Tamaño en bytes disponible en cada ranura
+     */
+    public int getTamanoContenido() {
+        return tamanoRegistro - DESPLAZAMIENTO_CONTENIDO;
+    }
+
+    /**
+     * Inserta un registro en la primera ranura libre o al final del archivo.
+     *
+     * @param registro Buffer con el contenido del registro entre su posición y su límite
+     * @return Ranura donde se escribió el registro
+     * @throws IOException Si hay error de E/S o el registro no cabe en la ranura
+     */
+    public int insertar(ByteBuffer registro) throws IOException {
+        int longitud = registro.remaining();
+        if (longitud > getTamanoContenido()) {
+            throw new IOException("El registro excede el tamaño de la ranura");
+        }
+
+        abrir();
+        int numeroRanuras = mapa.getInt(POS_NUMERO_RANURAS);
+        int cabezaLibres = mapa.getInt(POS_CABEZA_LIBRES);
+
+        int ranura;
+        if (cabezaLibres != SIN_RANURA) {
+            // Reutilizar la primera ranura libre y avanzar la lista
+            ranura = cabezaLibres;
+            mapa.putInt(POS_CABEZA_LIBRES, mapa.getInt(posicionRanura(ranura) + 1));
+        } else {
+            ranura = numeroRanuras;
+            asegurarCapacidad(ranura + 1);
+            mapa.putInt(POS_NUMERO_RANURAS, numeroRanuras + 1);
+        }
+
+        int posicion = posicionRanura(ranura);
+        mapa.put(posicion, ESTADO_OCUPADO);
+        escribirContenido(posicion, registro);
+        mapa.putInt(POS_NUMERO_REGISTROS, mapa.getInt(POS_NUMERO_REGISTROS) + 1);
+
+        return ranura;
+    }
+
+    /**
+     * Sobrescribe el contenido de una ranura ocupada.
+     *
+     * @param ranura Ranura a sobrescribir
+     * @param registro Buffer con el contenido del registro entre su posición y su límite
+     * @throws IOException Si hay error de E/S, la ranura no está ocupada o el
+     *                     registro no cabe en la ranura
+     */
+    public void escribir(int ranura, ByteBuffer registro) throws IOException {
+        int longitud = registro.remaining();
+        if (longitud > getTamanoContenido()) {
+            throw new IOException("El registro excede el tamaño de la ranura");
+        }
+
+        abrir();
+        if (!estaOcupada(ranura)) {
+            throw new IOException("La ranura " + ranura + " no está ocupada");
+        }
+
+        escribirContenido(posicionRanura(ranura), registro);
+    }
+
+    /**
+     * Escribe el contenido de una ranura completándolo hasta el tamaño fijo
+     * y actualiza su CRC.
+     *
+     * @param posicion Posición de la ranura
+     * @param registro Buffer con el contenido del registro entre su posición y su límite
+     */
+    private void escribirContenido(int posicion, ByteBuffer registro) {
+        int longitud = registro.remaining();
+        int inicio = posicion + DESPLAZAMIENTO_CONTENIDO;
+        mapa.put(inicio, registro, registro.position(), longitud);
+        mapa.put(inicio + longitud, RELLENO, 0, getTamanoContenido() - longitud);
+        sellar(mapa, posicion);
+    }
+
+    /**
+     * Calcula el CRC32C del contenido de una ranura y lo guarda en ella.
+     *
+     * @param destino Buffer que contiene la ranura
+     * @param posicion Posición de la ranura en el buffer
+     */
+    private void sellar(ByteBuffer destino, int posicion) {
+        crc.reset();
+        crc.update(destino.slice(posicion + DESPLAZAMIENTO_CONTENIDO, getTamanoContenido()));
+        destino.putInt(posicion + DESPLAZAMIENTO_CRC, (int) crc.getValue());
+    }
+
+    /**
+     * Lee una única ranura ocupada.
+     *
+     * @param <T> Tipo del valor leído
+     * @param ranura Ranura a leer
+     * @param lector Lector que interpreta el contenido del registro
+     * @return Valor leído, null si la ranura no está ocupada
+     * @throws IOException Si hay error de E/S
+     */
+    public <T> T leer(int ranura, LectorRegistro<T> lector) throws IOException {
+        abrir();
+        if (!estaOcupada(ranura)) {
+            return null;
+        }
+        return lector.leer(mapa, posicionRanura(ranura) + DESPLAZAMIENTO_CONTENIDO);
+    }
+
+    /**
+     * Recorre todas las ranuras ocupadas en orden.
+     *
+     * @param visitante Visitante que procesa cada ranura
+     * @throws IOException Si hay error de E/S
+     */
+    public void recorrer(VisitanteRegistro visitante) throws IOException {
+        if (canal == null && !archivo.exists()) {
+            return;
+        }
+
+        abrir();
+        int numeroRanuras = mapa.getInt(POS_NUMERO_RANURAS);
+        for (int i = 0; i < numeroRanuras; i++) {
+            int posicion = posicionRanura(i);
+            if (mapa.get(posicion) == ESTADO_OCUPADO) {
+                visitante.visitar(i, mapa, posicion + DESPLAZAMIENTO_CONTENIDO);
+            }
+        }
+    }
+
+    /**
+     * Libera una ranura y la agrega al inicio de la lista de libres.
+     *
+     * @param ranura Ranura a liberar
+     * @return true si se liberó, false si la ranura no estaba ocupada
+     * @throws IOException Si hay error de E/S
+     */
+    public boolean liberar(int ranura) throws IOException {
+        abrir();
+        if (!estaOcupada(ranura)) {
+            return false;
+        }
+
+        int posicion = posicionRanura(ranura);
+        mapa.put(posicion, ESTADO_LIBRE);
+        mapa.putInt(posicion + 1, mapa.getInt(POS_CABEZA_LIBRES));
+        mapa.putInt(POS_CABEZA_LIBRES, ranura);
+        mapa.putInt(POS_NUMERO_REGISTROS, mapa.getInt(POS_NUMERO_REGISTROS) - 1);
+        return true;
+    }
+
+    /**
+     * Lee todas las ranuras ocupadas interpretándolas con el lector indicado.
+     *
+     * @param <T> Tipo de los valores leídos
+     * @param lector Lector que interpreta el contenido de cada registro
+     * @return Lista de valores no nulos leídos, vacía si no hay archivo
+     * @throws IOException Si hay error de E/S
+     */
+    public <T> List<T> leerRegistros(LectorRegistro<T> lector) throws IOException {
+        List<T> registros = new ArrayList<>();
+        if (canal == null && !archivo.exists()) {
+            return registros;
+        }
+
+        abrir();
+        int numeroRanuras = mapa.getInt(POS_NUMERO_RANURAS);
+        for (int i = 0; i < numeroRanuras; i++) {
+            int posicion = posicionRanura(i);
+            if (mapa.get(posicion) == ESTADO_OCUPADO) {
+                T valor = lector.leer(mapa, posicion + DESPLAZAMIENTO_CONTENIDO);
+                if (valor != null) {
+                    registros.add(valor);
+                }
+            }
+        }
+
+        return registros;
+    }
+
+    /**
+     * Crea un flujo perezoso sobre las ranuras ocupadas. Los registros se
+     * interpretan a medida que se consumen, por lo que el flujo puede
+     * terminarse antes de tiempo o filtrarse sin cargar todo el archivo.
+     *
+     * El flujo se divide por tramos de ranuras; con {@code parallel()} cada
+     * tramo se interpreta en un hilo distinto con su propio lector, obtenido
+     * del proveedor. Las ranuras agregadas después de crear el flujo no se
+     * incluyen, y el archivo no debe modificarse mientras se recorre.
+     *
+     * @param <T> Tipo de los valores leídos
+     * @param proveedorLector Proveedor de lectores; se pide uno por tramo
+     * @return Flujo secuencial de los valores no nulos leídos, vacío si no hay archivo
+     * @throws IOException Si hay error de E/S al abrir el archivo
+     */
+    public <T> Stream<T> flujo(Supplier<LectorRegistro<T>> proveedorLector) throws IOException {
+        if (canal == null && !archivo.exists()) {
+            return Stream.empty();
+        }
+
+        abrir();
+        ByteBuffer datos = mapa.duplicate();
+        int numeroRanuras = datos.getInt(POS_NUMERO_RANURAS);
+        return StreamSupport.stream(new TramoRanuras<>(datos, 0, numeroRanuras, proveedorLector), false);
+    }
+
+    /**
+     * Obtiene el número de ranuras usadas (ocupadas o libres).
+     *
+     * @return Número de ranuras, 0 si el archivo no existe
+     */
+    public int getNumeroRanuras() {
+        if (canal == null && !archivo.exists()) {
+            return 0;
+        }
+
+        try {
+            abrir();
+            return mapa.getInt(POS_NUMERO_RANURAS);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Obtiene el número de registros vigentes leyendo la cabecera.
+     *
+     * @return Número de ranuras ocupadas, 0 si el archivo no existe
+     */
+    public int getNumeroRegistros() {
+        if (canal == null && !archivo.exists()) {
+            return 0;
+        }
+
+        try {
+            abrir();
+            return mapa.getInt(POS_NUMERO_REGISTROS);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Descarta todos los registros dejando el archivo con una cabecera vacía.
+     * El archivo no se borra porque permanece abierto y proyectado.
+     *
+     * @return true si se vació exitosamente
+     */
+    public boolean vaciar() {
+        try {
+            abrir();
+            escribirCabecera(mapa, 0);
+            actualizarCapacidad();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Crea un lote vacío para reemplazar todo el contenido del archivo
+     * con {@link #escribirLote(Lote, boolean)}.
+     *
+     * @param registrosEstimados Número aproximado de registros del lote
+     * @return Lote vacío
+     */
+    public Lote crearLote(int registrosEstimados) {
+        return new Lote(Math.max(registrosEstimados, 1));
+    }
+
+    /**
+     * Reemplaza todo el contenido del archivo por los registros del lote.
+     * El archivo se escribe con una sola escritura sobre el canal y, si se
+     * solicita, con un único {@code force()} al final. El archivo no se trunca,
+     * aunque el lote sea más corto que el contenido anterior, porque las
+     * proyecciones anteriores pueden seguir en uso y acceder a páginas
+     * recortadas provoca un error del sistema; lo que quede después de la
+     * última ranura se ignora según la cabecera y se reutiliza al crecer.
+     *
+     * @param lote Lote con los registros a escribir
+     * @param forzar true para forzar la escritura a disco antes de retornar
+     * @throws IOException Si hay error de E/S
+     */
+    public void escribirLote(Lote lote, boolean forzar) throws IOException {
+        abrir();
+        ByteBuffer contenido = lote.contenido.duplicate().flip();
+        escribirCabecera(contenido, lote.numeroRegistros);
+
+        canal.position(0);
+        while (contenido.hasRemaining()) {
+            canal.write(contenido);
+        }
+        if (forzar) {
+            canal.force(false);
+        }
+
+        mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, redondearABloque(contenido.limit()));
+        actualizarCapacidad();
+    }
+
+    /**
+     * Verifica el CRC de todas las ranuras ocupadas. El archivo se divide en
+     * tramos que se revisan en paralelo, cada uno con su propio calculador.
+     * Las ranuras con un estado desconocido también se consideran dañadas.
+     *
+     * @return Ranuras dañadas en orden ascendente, vacío si no hay archivo
+     * @throws IOException Si hay error de E/S al abrir el archivo
+     */
+    public int[] verificar() throws IOException {
+        if (canal == null && !archivo.exists()) {
+            return new int[0];
+        }
+
+        abrir();
+        ByteBuffer datos = mapa.duplicate();
+        int numeroRanuras = datos.getInt(POS_NUMERO_RANURAS);
+        int tareas = (numeroRanuras + RANURAS_POR_TAREA - 1) / RANURAS_POR_TAREA;
+        return IntStream.range(0, tareas)
+                .parallel()
+                .flatMap(tarea -> verificarTramo(datos, tarea * RANURAS_POR_TAREA,
+                                                 Math.min(numeroRanuras, (tarea + 1) * RANURAS_POR_TAREA)))
+                .toArray();
+    }
+
+    /**
+     * Verifica un tramo de ranuras.
+     *
+     * @param datos Proyección del archivo (solo lectura absoluta)
+     * @param inicio Primera ranura del tramo
+     * @param fin Ranura siguiente a la última del tramo
+     * @return Ranuras dañadas del tramo
+     */
+    private IntStream verificarTramo(ByteBuffer datos, int inicio, int fin) {
+        CRC32C calculador = new CRC32C();
+        byte[] contenido = new byte[getTamanoContenido()];
+        IntStream.Builder danadas = IntStream.builder();
+        for (int i = inicio; i < fin; i++) {
+            int posicion = posicionRanura(i);
+            byte estado = datos.get(posicion);
+            if (estado == ESTADO_LIBRE || estado == ESTADO_CUARENTENA) {
+                continue;
+            }
+            if (estado == ESTADO_OCUPADO) {
+                datos.get(posicion + DESPLAZAMIENTO_CONTENIDO, contenido);
+                calculador.reset();
+                calculador.update(contenido);
+                if ((int) calculador.getValue() == datos.getInt(posicion + DESPLAZAMIENTO_CRC)) {
+                    continue;
+                }
+            }
+            danadas.add(i);
+        }
+        return danadas.build();
+    }
+
+    /**
+     * Copia las ranuras indicadas al archivo de cuarentena (número de ranura,
+     * longitud y bytes de la ranura) y las retira de uso. Después se valida
+     * la lista de libres y se recuenta la cabecera.
+     *
+     * @param ranuras Ranuras dañadas
+     * @return Número de ranuras puestas en cuarentena
+     * @throws IOException Si hay error de E/S
+     */
+    public int ponerEnCuarentena(int[] ranuras) throws IOException {
+        if (ranuras.length == 0) {
+            return 0;
+        }
+
+        abrir();
+        ByteBuffer copia = ByteBuffer.allocate(ranuras.length * (8 + tamanoRegistro));
+        for (int ranura : ranuras) {
+            int posicion = posicionRanura(ranura);
+            copia.putInt(ranura).putInt(tamanoRegistro);
+            copia.put(mapa.slice(posicion, tamanoRegistro));
+        }
+        copia.flip();
+        try (FileChannel cuarentena = FileChannel.open(Paths.get(archivo.getPath() + SUFIJO_CUARENTENA),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (copia.hasRemaining()) {
+                cuarentena.write(copia);
+            }
+            cuarentena.force(false);
+        }
+
+        for (int ranura : ranuras) {
+            mapa.put(posicionRanura(ranura), ESTADO_CUARENTENA);
+        }
+        if (!listaLibresValida()) {
+            reconstruirListaLibres();
+        }
+        recontarRegistros();
+        return ranuras.length;
+    }
+
+    /**
+     * Rehace la lista de libres y el conteo de registros a partir de las
+     * ranuras, por ejemplo tras una falla en la que solo parte de las
+     * páginas proyectadas llegó al disco y la cabecera no coincide con ellas.
+     * Las ranuras con CRC inválido se retiran antes con {@link #verificar()}.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    public void reparar() throws IOException {
+        if (canal == null && !archivo.exists()) {
+            return;
+        }
+
+        abrir();
+        reconstruirListaLibres();
+        recontarRegistros();
+    }
+
+    /**
+     * Verifica que la lista de libres solo recorra ranuras libres existentes
+     * y no tenga ciclos.
+     *
+     * @return true si la lista es válida
+     */
+    private boolean listaLibresValida() {
+        int numeroRanuras = mapa.getInt(POS_NUMERO_RANURAS);
+        int actual = mapa.getInt(POS_CABEZA_LIBRES);
+        for (int pasos = 0; actual != SIN_RANURA; pasos++) {
+            if (pasos > numeroRanuras || actual < 0 || actual >= numeroRanuras
+                    || mapa.get(posicionRanura(actual)) != ESTADO_LIBRE) {
+                return false;
+            }
+            actual = mapa.getInt(posicionRanura(actual) + 1);
+        }
+        return true;
+    }
+
+    /**
+     * Vuelve a enlazar todas las ranuras libres en la lista de libres.
+     */
+    private void reconstruirListaLibres() {
+        int cabeza = SIN_RANURA;
+        for (int i = mapa.getInt(POS_NUMERO_RANURAS) - 1; i >= 0; i--) {
+            int posicion = posicionRanura(i);
+            if (mapa.get(posicion) == ESTADO_LIBRE) {
+                mapa.putInt(posicion + 1, cabeza);
+                cabeza = i;
+            }
+        }
+        mapa.putInt(POS_CABEZA_LIBRES, cabeza);
+    }
+
+    /**
+     * Reescribe los registros vigentes en ranuras contiguas dentro de un
+     * archivo nuevo y reemplaza el actual con un movimiento atómico. Las
+     * ranuras de los registros cambian, por lo que quien mantenga índices
+     * sobre ellas debe reconstruirlos. Los flujos abiertos antes de compactar
+     * siguen leyendo la proyección anterior.
+     *
+     * Si el sistema no permite reemplazar el archivo (por ejemplo, porque
+     * otra proyección lo mantiene bloqueado), el archivo original queda intacto.
+     *
+     * @return Número de ranuras recuperadas
+     * @throws IOException Si hay error de E/S
+     */
+    public int compactar() throws IOException {
+        if (canal == null && !archivo.exists()) {
+            return 0;
+        }
+
+        abrir();
+        int numeroRanuras = mapa.getInt(POS_NUMERO_RANURAS);
+        Lote lote = crearLote(mapa.getInt(POS_NUMERO_REGISTROS));
+        for (int i = 0; i < numeroRanuras; i++) {
+            int posicion = posicionRanura(i);
+            if (mapa.get(posicion) == ESTADO_OCUPADO) {
+                lote.agregar(mapa.slice(posicion + DESPLAZAMIENTO_CONTENIDO, getTamanoContenido()));
+            }
+        }
+
+        ByteBuffer contenido = lote.contenido.duplicate().flip();
+        escribirCabecera(contenido, lote.numeroRegistros);
+        Path temporal = Paths.get(archivo.getPath() + SUFIJO_COMPACTACION);
+        try (FileChannel destino = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (contenido.hasRemaining()) {
+                destino.write(contenido);
+            }
+            destino.force(true);
+        }
+
+        // Un lector concurrente no debe abrir el archivo anterior entre el cierre y el reemplazo
+        synchronized (this) {
+            cerrar();
+            try {
+                Files.move(temporal, archivo.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                           StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(temporal);
+                throw e;
+            }
+        }
+        return numeroRanuras - lote.numeroRegistros;
+    }
+
+    /**
+     * Conjunto de registros serializados en un buffer contiguo con la misma
+     * disposición que el archivo, listo para escribirse de una vez.
+     */
+    public class Lote {
+
+        /** Cabecera y ranuras serializadas */
+        private ByteBuffer contenido;
+
+        /** Número de registros agregados */
+        private int numeroRegistros;
+
+        /**
+         * Constructor del lote.
+         *
+         * @param registrosEstimados Número aproximado de registros
+         */
+        private Lote(int registrosEstimados) {
+            this.contenido = ByteBuffer.allocate(posicionRanura(registrosEstimados));
+            this.contenido.position(TAMANO_CABECERA);
+        }
+
+        /**
+         * Agrega un registro en la siguiente ranura del lote.
+         *
+         * @param registro Buffer con el contenido del registro entre su posición y su límite
+         * @throws IOException Si el registro no cabe en la ranura
+         */
+        public void agregar(ByteBuffer registro) throws IOException {
+            int longitud = registro.remaining();
+            if (longitud > getTamanoContenido()) {
+                throw new IOException("El registro excede el tamaño de la ranura");
+            }
+
+            if (contenido.remaining() < tamanoRegistro) {
+                ByteBuffer ampliado = ByteBuffer.allocate(contenido.capacity() * 2);
+                ampliado.put(contenido.flip());
+                contenido = ampliado;
+            }
+
+            int posicion = contenido.position();
+            contenido.put(posicion, ESTADO_OCUPADO);
+            // El resto de la ranura ya está en cero en un buffer nuevo
+            contenido.put(posicion + DESPLAZAMIENTO_CONTENIDO, registro, registro.position(), longitud);
+            sellar(contenido, posicion);
+            contenido.position(posicion + tamanoRegistro);
+            numeroRegistros++;
+        }
+
+        /**
+         * Obtiene el número de registros agregados.
+         *
+         * @return Número de registros
+         */
+        public int getNumeroRegistros() {
+            return numeroRegistros;
+        }
+    }
+
+    /**
+     * Divisor de un tramo de ranuras [inicio, fin) para los flujos perezosos.
+     *
+     * @param <T> Tipo de los valores leídos
+     */
+    private class TramoRanuras<T> implements Spliterator<T> {
+
+        /** Proyección del archivo al crear el flujo */
+        private final ByteBuffer datos;
+
+        /** Proveedor de lectores para los tramos divididos */
+        private final Supplier<LectorRegistro<T>> proveedorLector;
+
+        /** Lector propio de este tramo, se crea al empezar a recorrerlo */
+        private LectorRegistro<T> lector;
+
+        /** Siguiente ranura a visitar */
+        private int actual;
+
+        /** Ranura siguiente a la última del tramo */
+        private final int fin;
+
+        private TramoRanuras(ByteBuffer datos, int inicio, int fin, Supplier<LectorRegistro<T>> proveedorLector) {
+            this.datos = datos;
+            this.actual = inicio;
+            this.fin = fin;
+            this.proveedorLector = proveedorLector;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> accion) {
+            if (lector == null) {
+                lector = proveedorLector.get();
+            }
+            while (actual < fin) {
+                int posicion = posicionRanura(actual++);
+                if (datos.get(posicion) == ESTADO_OCUPADO) {
+                    T valor = lector.leer(datos, posicion + DESPLAZAMIENTO_CONTENIDO);
+                    if (valor != null) {
+                        accion.accept(valor);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int restantes = fin - actual;
+            if (restantes < RANURAS_MINIMAS_DIVISION * 2) {
+                return null;
+            }
+
+            int mitad = actual + restantes / 2;
+            TramoRanuras<T> primero = new TramoRanuras<>(datos, actual, mitad, proveedorLector);
+            actual = mitad;
+            return primero;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fin - actual;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    /**
+     * Fuerza la escritura a disco de las páginas modificadas.
+     */
+    public void sincronizar() {
+        if (mapa != null) {
+            mapa.force();
+        }
+    }
+
+    /**
+     * Sincroniza y cierra el archivo. Puede volver a abrirse con cualquier
+     * operación posterior.
+     */
+    public synchronized void cerrar() {
+        sincronizar();
+        mapa = null;
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                // Se ignora el error al cerrar
+            }
+            canal = null;
+        }
+    }
+
+    /**
+     * Vuelve a abrir el archivo para ver los cambios de otro proceso, que
+     * pudo haberlo agrandado o reemplazado al compactar. A diferencia de
+     * {@link #cerrar()}, las páginas proyectadas no se fuerzan a disco.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized void reabrir() throws IOException {
+        mapa = null;
+        if (canal != null) {
+            canal.close();
+            canal = null;
+        }
+        abrir();
+    }
+
+    /**
+     * Abre y proyecta el archivo si aún no está abierto, asegurando que tenga
+     * una cabecera válida. Los archivos con registros de texto (con o sin
+     * cabecera) se migran al formato binario al abrirlos. Está sincronizado
+     * porque un lector concurrente puede provocar la apertura.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private synchronized void abrir() throws IOException {
+        if (canal != null) {
+            return;
+        }
+
+        canal = FileChannel.open(archivo.toPath(), StandardOpenOption.CREATE,
+                                 StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long longitud = canal.size();
+            List<String> registrosAnteriores = null;
+            if (longitud > 0 && (longitud < TAMANO_CABECERA || !tieneCabecera())) {
+                registrosAnteriores = leerFormatoSinCabecera(longitud);
+            } else if (longitud > 0 && leerVersion() == VERSION_TEXTO) {
+                registrosAnteriores = leerFormatoTexto();
+            }
+            if (registrosAnteriores != null) {
+                canal.truncate(0);
+                longitud = 0;
+            }
+
+            mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, redondearABloque(Math.max(longitud, TAMANO_CABECERA)));
+            if (longitud == 0) {
+                escribirCabecera(mapa, 0);
+            } else {
+                if (mapa.getInt(POS_VERSION) == VERSION_SIN_CONTEO) {
+                    agregarConteo();
+                }
+                if (mapa.getInt(POS_VERSION) == VERSION_SIN_CRC) {
+                    agregarCrc();
+                }
+            }
+            actualizarCapacidad();
+
+            if (registrosAnteriores != null) {
+                for (String registro : registrosAnteriores) {
+                    ByteBuffer convertido = migrador.apply(registro);
+                    if (convertido != null) {
+                        insertar(convertido);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            cerrar();
+            throw e;
+        }
+    }
+
+    /**
+     * Completa la cabecera de un archivo de la versión sin conteo contando
+     * una única vez sus ranuras ocupadas.
+     */
+    private void agregarConteo() {
+        recontarRegistros();
+        mapa.putInt(POS_VERSION, VERSION_SIN_CRC);
+    }
+
+    /**
+     * Convierte las ranuras de la versión sin CRC desplazando su contenido
+     * para dejar lugar al CRC. Un registro cuyo contenido ocupa los últimos
+     * bytes de la ranura ya no cabe y se pone en cuarentena.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void agregarCrc() throws IOException {
+        int numeroRanuras = mapa.getInt(POS_NUMERO_RANURAS);
+        int longitudAnterior = tamanoRegistro - 1;
+        byte[] contenido = new byte[longitudAnterior];
+        List<Integer> sinEspacio = new ArrayList<>();
+        for (int i = 0; i < numeroRanuras; i++) {
+            int posicion = posicionRanura(i);
+            if (mapa.get(posicion) != ESTADO_OCUPADO) {
+                continue;
+            }
+
+            mapa.get(posicion + 1, contenido);
+            if (mapa.getInt(posicion + tamanoRegistro - 4) != 0) {
+                sinEspacio.add(i);
+                continue;
+            }
+            mapa.put(posicion + DESPLAZAMIENTO_CONTENIDO, contenido, 0, getTamanoContenido());
+            sellar(mapa, posicion);
+        }
+
+        mapa.putInt(POS_VERSION, VERSION_FORMATO);
+        if (!sinEspacio.isEmpty()) {
+            ponerEnCuarentena(sinEspacio.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    /**
+     * Vuelve a contar las ranuras ocupadas y guarda el resultado en la cabecera.
+     */
+    private void recontarRegistros() {
+        int numeroRanuras = mapa.getInt(POS_NUMERO_RANURAS);
+        int ocupadas = 0;
+        for (int i = 0; i < numeroRanuras; i++) {
+            if (mapa.get(posicionRanura(i)) == ESTADO_OCUPADO) {
+                ocupadas++;
+            }
+        }
+        mapa.putInt(POS_NUMERO_REGISTROS, ocupadas);
+    }
+
+    /**
+     * Guarda en la cabecera cuántas ranuras caben en la proyección actual.
+     */
+    private void actualizarCapacidad() {
+        mapa.putInt(POS_CAPACIDAD, (mapa.capacity() - TAMANO_CABECERA) / tamanoRegistro);
+    }
+
+    /**
+     * Verifica si el archivo comienza con el número mágico.
+     *
+     * @return true si el archivo tiene cabecera
+     * @throws IOException Si hay error de E/S
+     */
+    private boolean tieneCabecera() throws IOException {
+        ByteBuffer magico = ByteBuffer.allocate(4);
+        canal.read(magico, 0);
+        return magico.getInt(0) == NUMERO_MAGICO;
+    }
+
+    /**
+     * Lee la versión del formato guardada en la cabecera.
+     *
+     * @return Versión del formato
+     * @throws IOException Si hay error de E/S
+     */
+    private int leerVersion() throws IOException {
+        ByteBuffer version = ByteBuffer.allocate(4);
+        canal.read(version, POS_VERSION);
+        return version.getInt(0);
+    }
+
+    /**
+     * Lee los registros ocupados de un archivo con cabecera y registros de
+     * texto (marca de estado seguida de un texto escrito con writeUTF).
+     *
+     * @return Registros ocupados del archivo
+     * @throws IOException Si hay error de E/S
+     */
+    private List<String> leerFormatoTexto() throws IOException {
+        List<String> registros = new ArrayList<>();
+        try (RandomAccessFile raf = new RandomAccessFile(archivo, "r")) {
+            raf.seek(POS_NUMERO_RANURAS);
+            int numeroRanuras = raf.readInt();
+            for (int i = 0; i < numeroRanuras; i++) {
+                raf.seek(posicionRanura(i));
+                try {
+                    if (raf.readByte() == ESTADO_OCUPADO) {
+                        registros.add(raf.readUTF());
+                    }
+                } catch (EOFException | UTFDataFormatException e) {
+                    // Registro incompleto o dañado, se descarta
+                }
+            }
+        }
+        return registros;
+    }
+
+    /**
+     * Lee los registros de un archivo del formato original (registros escritos
+     * con writeUTF, sin cabecera ni marca de estado), descartando los vacíos.
+     *
+     * @param longitud Longitud del archivo
+     * @return Registros no vacíos del archivo
+     * @throws IOException Si hay error de E/S
+     */
+    private List<String> leerFormatoSinCabecera(long longitud) throws IOException {
+        List<String> registros = new ArrayList<>();
+        try (RandomAccessFile raf = new RandomAccessFile(archivo, "r")) {
+            int numeroRegistros = (int) (longitud / tamanoRegistro);
+            for (int i = 0; i < numeroRegistros; i++) {
+                raf.seek((long) i * tamanoRegistro);
+                try {
+                    String registro = raf.readUTF();
+                    if (!registro.trim().isEmpty()) {
+                        registros.add(registro);
+                    }
+                } catch (EOFException | UTFDataFormatException e) {
+                    // Registro incompleto o dañado, se descarta
+                }
+            }
+        }
+        return registros;
+    }
+
+    /**
+     * Escribe una cabecera nueva con la lista de libres vacía, por lo que
+     * todas las ranuras usadas cuentan como registros vigentes.
+     *
+     * @param destino Buffer donde comienza el archivo
+     * @param numeroRanuras Número de ranuras usadas
+     */
+    private void escribirCabecera(ByteBuffer destino, int numeroRanuras) {
+        destino.putInt(0, NUMERO_MAGICO);
+        destino.putInt(POS_VERSION, VERSION_FORMATO);
+        destino.putInt(POS_TAMANO_REGISTRO, tamanoRegistro);
+        destino.putInt(POS_NUMERO_RANURAS, numeroRanuras);
+        destino.putInt(POS_CABEZA_LIBRES, SIN_RANURA);
+        destino.putInt(POS_NUMERO_REGISTROS, numeroRanuras);
+        destino.putInt(POS_CAPACIDAD, numeroRanuras);
+    }
+
+    /**
+     * Amplía la proyección si no alcanza para el número de ranuras indicado.
+     *
+     * @param numeroRanuras Número de ranuras que deben caber
+     * @throws IOException Si hay error de E/S
+     */
+    private void asegurarCapacidad(int numeroRanuras) throws IOException {
+        long necesario = posicionRanura(numeroRanuras);
+        if (necesario > mapa.capacity()) {
+            mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, redondearABloque(necesario));
+            actualizarCapacidad();
+        }
+    }
+
+    /**
+     * Redondea un tamaño al siguiente múltiplo de {@link #TAMANO_BLOQUE}.
+     *
+     * @param tamano Tamaño en bytes
+     * @return Tamaño redondeado
+     */
+    private long redondearABloque(long tamano) {
+        return (tamano + TAMANO_BLOQUE - 1) / TAMANO_BLOQUE * TAMANO_BLOQUE;
+    }
+
+    /**
+     * Verifica si una ranura existe y está ocupada.
+     *
+     * @param ranura Número de ranura
+     * @return true si la ranura está ocupada
+     */
+    private boolean estaOcupada(int ranura) {
+        return ranura >= 0 && ranura < mapa.getInt(POS_NUMERO_RANURAS)
+            && mapa.get(posicionRanura(ranura)) == ESTADO_OCUPADO;
+    }
+
+    /**
+     * Calcula la posición en bytes de una ranura.
+     *
+     * @param ranura Número de ranura
+     * @return Posición en el archivo
+     */
+    private int posicionRanura(int ranura) {
+        return TAMANO_CABECERA + ranura * tamanoRegistro;
+    }
+}
@@ -0,0 +1,252 @@
+package udistrital.avanzada.argolla.control;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché acotada de registros ya decodificados, indexada por ranura.
+ * Implementa el principio de responsabilidad única (SRP) al encargarse
+ * únicamente de conservar en memoria los registros usados con frecuencia.
+ *
+ * El desalojo sigue el algoritmo del reloj (CLOCK): cada acierto marca la
+ * entrada como referenciada y, cuando la caché está llena, una manecilla
+ * recorre las posiciones dando una segunda oportunidad a las marcadas y
+ * desalojando la primera que no lo esté. Las consultas no toman cerrojos.
+ *
+ * Cada invalidación incrementa una versión. Un lector toma la versión antes
+ * de leer el archivo y solo guarda lo leído si la versión no cambió, de modo
+ * que un registro leído antes de una escritura no reemplaza al invalidado.
+ * Los valores deben ser inmutables porque se comparten entre lectores.
+ *
+ * @param <V> Tipo de los registros decodificados
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class CacheRegistros<V> {
+
+    /** Número máximo de registros en memoria */
+    private final int capacidad;
+
+    /** Entradas por ranura */
+    private final ConcurrentHashMap<Integer, Entrada<V>> entradas;
+
+    /** Ranura guardada en cada posición del reloj, null si está libre */
+    private final Integer[] reloj;
+
+    /** Posiciones libres del reloj */
+    private final int[] libres;
+
+    /** Número de posiciones libres */
+    private int numeroLibres;
+
+    /** Posición actual de la manecilla */
+    private int manecilla;
+
+    /** Versión que cambia con cada invalidación */
+    private volatile long version;
+
+    /** Consultas atendidas desde memoria */
+    private final LongAdder aciertos;
+
+    /** Consultas que tuvieron que leer el archivo */
+    private final LongAdder fallos;
+
+    /** Registros desalojados para hacer espacio */
+    private final LongAdder desalojos;
+
+    /**
+     * Entrada de la caché.
+     *
+     * @param <V> Tipo del registro
+     */
+    private static final class Entrada<V> {
+
+        /** Registro decodificado */
+        private final V valor;
+
+        /** Posición de la entrada en el reloj */
+        private final int posicion;
+
+        /** Marca de uso reciente que consulta la manecilla */
+        private volatile boolean referenciada;
+
+        private Entrada(V valor, int posicion) {
+            this.valor = valor;
+            this.posicion = posicion;
+        }
+    }
+
+    /**
+     * Constructor de la caché.
+     *
+     * @param capacidad Número máximo de registros; 0 deshabilita la caché
+     */
+    public CacheRegistros(int capacidad) {
+        this.capacidad = Math.max(capacidad, 0);
+        this.entradas = new ConcurrentHashMap<>(this.capacidad * 2);
+        this.reloj = new Integer[this.capacidad];
+        this.libres = new int[this.capacidad];
+        this.aciertos = new LongAdder();
+        this.fallos = new LongAdder();
+        this.desalojos = new LongAdder();
+        reiniciarPosiciones();
+    }
+
+    /**
+     * Obtiene el registro de una ranura si está en memoria.
+     *
+     * @param ranura Ranura del registro
+     * @return Registro decodificado, null si no está
+     */
+    public V obtener(int ranura) {
+        Entrada<V> entrada = entradas.get(ranura);
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        entrada.referenciada = true;
+        aciertos.increment();
+        return entrada.valor;
+    }
+
+    /**
+     * Obtiene la versión actual, que debe tomarse antes de leer el registro
+     * que se guardará con {@link #guardar(int, Object, long)}.
+     *
+     * @return Versión actual
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Guarda un registro leído del archivo si no hubo invalidaciones desde
+     * que se tomó la versión.
+     *
+     * @param ranura Ranura del registro
+     * @param valor Registro decodificado
+     * @param versionLeida Versión tomada antes de leer el registro
+     */
+    public synchronized void guardar(int ranura, V valor, long versionLeida) {
+        if (capacidad == 0 || versionLeida != version || entradas.containsKey(ranura)) {
+            return;
+        }
+
+        int posicion = numeroLibres > 0 ? libres[--numeroLibres] : desalojar();
+        reloj[posicion] = ranura;
+        entradas.put(ranura, new Entrada<>(valor, posicion));
+    }
+
+    /**
+     * Invalida el registro de una ranura que se escribió o liberó.
+     *
+     * @param ranura Ranura modificada
+     */
+    public synchronized void quitar(int ranura) {
+        version++;
+        Entrada<V> entrada = entradas.remove(ranura);
+        if (entrada != null) {
+            reloj[entrada.posicion] = null;
+            libres[numeroLibres++] = entrada.posicion;
+        }
+    }
+
+    /**
+     * Invalida todos los registros, por ejemplo cuando las ranuras cambian al compactar.
+     */
+    public synchronized void vaciar() {
+        version++;
+        entradas.clear();
+        reiniciarPosiciones();
+    }
+
+    /**
+     * Obtiene el número de aciertos de la caché.
+     *
+     * @return Número de búsquedas que encontraron el registro en la caché
+     */
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    /**
+     * Obtiene el número de fallos de la caché.
+     *
+     * @return Número de búsquedas que no encontraron el registro en la caché
+     */
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * Obtiene el número de registros desalojados.
+     *
+     * @return Número de registros retirados para dejar espacio
+     */
+    public long getDesalojos() {
+        return desalojos.sum();
+    }
+
+    /**
+     * Obtiene el número de registros en la caché.
+     *
+     * @return Número de registros en la caché
+     */
+    public int getTamano() {
+        return entradas.size();
+    }
+
+    /**
+     * Obtiene la capacidad de la caché.
+     *
+     * @return Número máximo de registros en la caché
+     */
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * Avanza la manecilla hasta encontrar una entrada sin marca de uso y la desaloja.
+     *
+     * @return Posición liberada
+     */
+    private int desalojar() {
+        while (true) {
+            int posicion = manecilla;
+            manecilla = (manecilla + 1) % capacidad;
+            Entrada<V> entrada = entradas.get(reloj[posicion]);
+            if (entrada.referenciada) {
+                entrada.referenciada = false;
+                continue;
+            }
+
+            entradas.remove(reloj[posicion]);
+            desalojos.increment();
+            return posicion;
+        }
+    }
+
+    /**
+     * Marca todas las posiciones del reloj como libres.
+     */
+    private void reiniciarPosiciones() {
+        Arrays.fill(reloj, null);
+        for (int i = 0; i < capacidad; i++) {
+            libres[i] = capacidad - 1 - i;
+        }
+        numeroLibres = capacidad;
+        manecilla = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheRegistros{" +
+                "tamano=" + getTamano() +
+                "/" + capacidad +
+                ", aciertos=" + getAciertos() +
+                ", fallos=" + getFallos() +
+                ", desalojos=" + getDesalojos() +
+                '}';
+    }
+}
@@ -0,0 +1,630 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.Partida;
+import udistrital.avanzada.argolla.modelo.ResumenPartida;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * Catálogo persistente con el resumen de cada partida guardada, para
+ * listarlas sin decodificarlas. Implementa el principio de responsabilidad
+ * única (SRP) al encargarse únicamente de los metadatos de las partidas.
+ *
+ * El catálogo se guarda en {@code catalogo.dat} como un registro de solo
+ * agregado: registrar o quitar una partida agrega una entrada. Al abrir se
+ * leen todas las entradas y, si el archivo ocupa más del doble de lo
+ * necesario, se reescribe solo con los resúmenes vigentes.
+ *
+ * Formato de una entrada:
+ * <pre>
+ *   u1     tipo (1 registrar, 2 quitar)
+ *   int    longitud del contenido
+ *   byte[] contenido: el id, o el resumen codificado al registrar
+ *   int    CRC32C del tipo y el contenido
+ * </pre>
+ *
+ * Un hilo vigila el directorio con un {@link WatchService}: cuando el
+ * archivo crece se leen las entradas nuevas, y cuando se reemplaza se vuelve
+ * a cargar completo, de modo que el catálogo refleja también lo que guarden
+ * otros procesos. Las entradas propias se aplican leyéndolas del archivo,
+ * por el mismo camino.
+ *
+ * Las consultas ordenan los resúmenes una sola vez por criterio y reutilizan
+ * el orden hasta el siguiente cambio.
+ *
+ * Hay una instancia por directorio en el proceso, obtenida con
+ * {@link #abrir(Path)}, y sus métodos están sincronizados.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class CatalogoPartidas {
+
+    /** Nombre del archivo del catálogo */
+    public static final String ARCHIVO_CATALOGO = "catalogo.dat";
+
+    /** Tipo de entrada que registra un resumen */
+    private static final byte TIPO_REGISTRAR = 1;
+
+    /** Tipo de entrada que quita una partida */
+    private static final byte TIPO_QUITAR = 2;
+
+    /** Bytes de una entrada además del contenido: tipo, longitud y CRC */
+    private static final int TAMANO_MARCO = 9;
+
+    /** Fecha ausente en un resumen codificado */
+    private static final long SIN_FECHA = Long.MIN_VALUE;
+
+    /** Estados de partida por ordinal */
+    private static final Partida.EstadoPartida[] ESTADOS = Partida.EstadoPartida.values();
+
+    /** Instancias abiertas por directorio */
+    private static final Map<Path, CatalogoPartidas> INSTANCIAS = new ConcurrentHashMap<>();
+
+    /**
+     * Criterios de orden de las consultas. Los valores ausentes van al
+     * final en ambos sentidos y los empates se resuelven por id.
+     */
+    public enum Orden {
+        ID(ResumenPartida::getId),
+        ESTADO(ResumenPartida::getEstado),
+        FECHA_INICIO(ResumenPartida::getFechaInicio),
+        FECHA_FIN(ResumenPartida::getFechaFin),
+        RONDA(ResumenPartida::getRondaActual);
+
+        /** Comparador ascendente, con desempate por id */
+        private final Comparator<ResumenPartida> ascendente;
+
+        /** Comparador descendente, con desempate por id */
+        private final Comparator<ResumenPartida> descendente;
+
+        <T extends Comparable<? super T>> Orden(Function<ResumenPartida, T> clave) {
+            this.ascendente = Comparator.comparing(clave, Comparator.nullsLast(Comparator.<T>naturalOrder()))
+                                        .thenComparing(ResumenPartida::getId);
+            this.descendente = Comparator.comparing(clave, Comparator.nullsLast(Comparator.<T>reverseOrder()))
+                                         .thenComparing(ResumenPartida::getId);
+        }
+    }
+
+    /** Archivo del catálogo */
+    private final Path archivo;
+
+    /** Resúmenes vigentes por id */
+    private final Map<String, ResumenPartida> resumenes;
+
+    /** Bytes que ocupa en el archivo la entrada vigente de cada id */
+    private final Map<String, Integer> tamanos;
+
+    /** Resúmenes ordenados por criterio y sentido, descartados con cada cambio */
+    private final Map<Comparator<ResumenPartida>, List<ResumenPartida>> ordenados;
+
+    /** Calculador de CRC reutilizable */
+    private final CRC32C crc;
+
+    /** Canal del catálogo, abierto para agregar */
+    private FileChannel canal;
+
+    /** Canal del catálogo, abierto para leer */
+    private FileChannel lectura;
+
+    /** Identidad del archivo leído, para detectar que fue reemplazado */
+    private Object identidad;
+
+    /** Posición hasta donde se leyeron las entradas */
+    private long posicionLeida;
+
+    /** Bytes de las entradas que ya no están vigentes */
+    private long bytesObsoletos;
+
+    /** Indica si ya se comparó el catálogo con las partidas guardadas */
+    private boolean sincronizado;
+
+    /** Servicio que vigila el directorio del catálogo */
+    private WatchService vigilante;
+
+    /**
+     * Constructor privado; las instancias se obtienen con {@link #abrir(Path)}.
+     *
+     * @param directorio Directorio del catálogo
+     */
+    private CatalogoPartidas(Path directorio) {
+        this.archivo = directorio.resolve(ARCHIVO_CATALOGO);
+        this.resumenes = new HashMap<>();
+        this.tamanos = new HashMap<>();
+        this.ordenados = new HashMap<>();
+        this.crc = new CRC32C();
+    }
+
+    /**
+     * Obtiene el catálogo de un directorio, compartido por todo el proceso.
+     *
+     * @param directorio Directorio del catálogo
+     * @return Catálogo del directorio
+     */
+    public static CatalogoPartidas abrir(Path directorio) {
+        return INSTANCIAS.computeIfAbsent(directorio.toAbsolutePath().normalize(), CatalogoPartidas::new);
+    }
+
+    /**
+     * Registra o reemplaza el resumen de una partida.
+     *
+     * @param resumen Resumen de la partida
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized void registrar(ResumenPartida resumen) throws IOException {
+        asegurarAbierto();
+        agregarEntrada(TIPO_REGISTRAR, codificar(resumen));
+    }
+
+    /**
+     * Quita una partida del catálogo.
+     *
+     * @param id Id de la partida
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized void quitar(String id) throws IOException {
+        asegurarAbierto();
+        if (resumenes.containsKey(id)) {
+            agregarEntrada(TIPO_QUITAR, id.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Quita todas las partidas del catálogo.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized void limpiar() throws IOException {
+        asegurarAbierto();
+        resumenes.clear();
+        reescribir();
+    }
+
+    /**
+     * Compara el catálogo con las partidas guardadas la primera vez que se
+     * llama en el proceso: registra las que faltan, resumiéndolas con la
+     * función dada, y quita las que ya no existen.
+     *
+     * @param ids Ids de las partidas guardadas
+     * @param resumidor Función que resume una partida por id, o devuelve null si no puede
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized void sincronizar(List<String> ids, Function<String, ResumenPartida> resumidor)
+            throws IOException {
+        asegurarAbierto();
+        if (sincronizado) {
+            return;
+        }
+
+        Set<String> guardadas = new HashSet<>(ids);
+        for (String id : new ArrayList<>(resumenes.keySet())) {
+            if (!guardadas.contains(id)) {
+                quitar(id);
+            }
+        }
+        for (String id : ids) {
+            if (!resumenes.containsKey(id)) {
+                ResumenPartida resumen = resumidor.apply(id);
+                if (resumen != null) {
+                    registrar(resumen);
+                }
+            }
+        }
+        sincronizado = true;
+    }
+
+    /**
+     * Consulta una página de resúmenes ordenados.
+     *
+     * @param orden Criterio de orden
+     * @param descendente true para invertir el orden
+     * @param pagina Número de página, desde 0
+     * @param tamanoPagina Resúmenes por página
+     * @return Resúmenes de la página, vacía si no hay más
+     * @throws IOException Si hay error de E/S al abrir el catálogo
+     */
+    public synchronized List<ResumenPartida> consultar(Orden orden, boolean descendente, int pagina, int tamanoPagina)
+            throws IOException {
+        asegurarAbierto();
+        List<ResumenPartida> lista = ordenados.computeIfAbsent(descendente ? orden.descendente : orden.ascendente,
+                                                               comparador -> {
+            List<ResumenPartida> ordenada = new ArrayList<>(resumenes.values());
+            ordenada.sort(comparador);
+            return ordenada;
+        });
+
+        long desde = (long) Math.max(pagina, 0) * Math.max(tamanoPagina, 0);
+        if (desde >= lista.size()) {
+            return new ArrayList<>();
+        }
+        int hasta = (int) Math.min(lista.size(), desde + Math.max(tamanoPagina, 0));
+        return new ArrayList<>(lista.subList((int) desde, hasta));
+    }
+
+    /**
+     * Obtiene el resumen de una partida.
+     *
+     * @param id Id de la partida
+     * @return Resumen, null si no está en el catálogo
+     * @throws IOException Si hay error de E/S al abrir el catálogo
+     */
+    public synchronized ResumenPartida obtener(String id) throws IOException {
+        asegurarAbierto();
+        return resumenes.get(id);
+    }
+
+    /**
+     * Obtiene el número de partidas del catálogo.
+     *
+     * @return Número de partidas
+     * @throws IOException Si hay error de E/S al abrir el catálogo
+     */
+    public synchronized int contar() throws IOException {
+        asegurarAbierto();
+        return resumenes.size();
+    }
+
+    /**
+     * Detiene la vigilancia y cierra el archivo. Se vuelve a abrir si se usa de nuevo.
+     */
+    public void cerrar() {
+        WatchService actual;
+        synchronized (this) {
+            actual = vigilante;
+            vigilante = null;
+            cerrarCanales();
+            resumenes.clear();
+            tamanos.clear();
+            ordenados.clear();
+        }
+        if (actual != null) {
+            try {
+                actual.close();
+            } catch (IOException e) {
+                // Se ignora el error al cerrar
+            }
+        }
+    }
+
+    /**
+     * Abre el catálogo, carga sus entradas e inicia la vigilancia si aún no está abierto.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void asegurarAbierto() throws IOException {
+        if (canal != null) {
+            return;
+        }
+
+        Files.createDirectories(archivo.getParent());
+        cargar();
+        if (bytesObsoletos > posicionLeida - bytesObsoletos) {
+            reescribir();
+        }
+        iniciarVigilancia();
+    }
+
+    /**
+     * Carga el catálogo completo desde el inicio del archivo.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void cargar() throws IOException {
+        cerrarCanales();
+        canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                 StandardOpenOption.APPEND);
+        lectura = FileChannel.open(archivo, StandardOpenOption.READ);
+        identidad = Files.readAttributes(archivo, BasicFileAttributes.class).fileKey();
+        resumenes.clear();
+        tamanos.clear();
+        ordenados.clear();
+        posicionLeida = 0;
+        bytesObsoletos = 0;
+        leerNuevas();
+    }
+
+    /**
+     * Aplica las entradas agregadas después de la última leída. Una entrada
+     * incompleta se deja para la siguiente lectura.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void leerNuevas() throws IOException {
+        long tamano = lectura.size();
+        if (tamano <= posicionLeida) {
+            return;
+        }
+
+        ByteBuffer datos = ByteBuffer.allocate((int) (tamano - posicionLeida));
+        while (datos.hasRemaining() && lectura.read(datos, posicionLeida + datos.position()) >= 0) {
+            // Se lee hasta llenar el buffer
+        }
+        datos.flip();
+
+        while (datos.remaining() >= TAMANO_MARCO) {
+            int inicio = datos.position();
+            byte tipo = datos.get(inicio);
+            int longitud = datos.getInt(inicio + 1);
+            if (longitud < 0 || longitud > datos.remaining() - TAMANO_MARCO) {
+                break;
+            }
+
+            crc.reset();
+            crc.update(datos.array(), inicio, 5 + longitud);
+            if ((int) crc.getValue() != datos.getInt(inicio + 5 + longitud)) {
+                break;
+            }
+            aplicarEntrada(tipo, ByteBuffer.wrap(datos.array(), inicio + 5, longitud).slice(), TAMANO_MARCO + longitud);
+            datos.position(inicio + TAMANO_MARCO + longitud);
+        }
+        posicionLeida += datos.position();
+    }
+
+    /**
+     * Aplica una entrada leída al catálogo en memoria.
+     *
+     * @param tipo Tipo de la entrada
+     * @param contenido Contenido de la entrada
+     * @param longitud Bytes que ocupa la entrada en el archivo
+     */
+    private void aplicarEntrada(byte tipo, ByteBuffer contenido, int longitud) {
+        Integer anterior;
+        if (tipo == TIPO_REGISTRAR) {
+            ResumenPartida resumen = decodificar(contenido);
+            resumenes.put(resumen.getId(), resumen);
+            anterior = tamanos.put(resumen.getId(), longitud);
+        } else {
+            String id = StandardCharsets.UTF_8.decode(contenido).toString();
+            resumenes.remove(id);
+            anterior = tamanos.remove(id);
+            bytesObsoletos += longitud;
+        }
+        if (anterior != null) {
+            bytesObsoletos += anterior;
+        }
+        ordenados.clear();
+    }
+
+    /**
+     * Agrega una entrada al archivo y la aplica leyéndola junto con las que
+     * otros procesos hayan agregado.
+     *
+     * @param tipo Tipo de la entrada
+     * @param contenido Contenido de la entrada
+     * @throws IOException Si hay error de E/S
+     */
+    private void agregarEntrada(byte tipo, byte[] contenido) throws IOException {
+        ByteBuffer entrada = ByteBuffer.allocate(TAMANO_MARCO + contenido.length);
+        entrada.put(tipo).putInt(contenido.length).put(contenido);
+        crc.reset();
+        crc.update(entrada.array(), 0, entrada.position());
+        entrada.putInt((int) crc.getValue()).flip();
+        while (entrada.hasRemaining()) {
+            canal.write(entrada);
+        }
+        leerNuevas();
+    }
+
+    /**
+     * Reescribe el catálogo solo con los resúmenes vigentes, en un archivo
+     * temporal que reemplaza al actual de forma atómica.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void reescribir() throws IOException {
+        Path temporal = archivo.resolveSibling(ARCHIVO_CATALOGO + ".tmp");
+        try (FileChannel salida = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (ResumenPartida resumen : resumenes.values()) {
+                byte[] contenido = codificar(resumen);
+                ByteBuffer entrada = ByteBuffer.allocate(TAMANO_MARCO + contenido.length);
+                entrada.put(TIPO_REGISTRAR).putInt(contenido.length).put(contenido);
+                crc.reset();
+                crc.update(entrada.array(), 0, entrada.position());
+                entrada.putInt((int) crc.getValue()).flip();
+                while (entrada.hasRemaining()) {
+                    salida.write(entrada);
+                }
+            }
+            salida.force(false);
+        }
+        Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        cargar();
+    }
+
+    /**
+     * Inicia el hilo que vigila el directorio del catálogo.
+     *
+     * @throws IOException Si no se puede registrar la vigilancia
+     */
+    private void iniciarVigilancia() throws IOException {
+        WatchService servicio = archivo.getFileSystem().newWatchService();
+        archivo.getParent().register(servicio, StandardWatchEventKinds.ENTRY_CREATE,
+                                     StandardWatchEventKinds.ENTRY_MODIFY);
+        vigilante = servicio;
+
+        Thread hilo = new Thread(() -> vigilar(servicio), "catalogo-argolla");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Espera eventos del directorio y actualiza el catálogo cuando cambia
+     * su archivo, hasta que el servicio se cierre.
+     *
+     * @param servicio Servicio de vigilancia
+     */
+    private void vigilar(WatchService servicio) {
+        try {
+            while (true) {
+                WatchKey clave = servicio.take();
+                boolean cambio = false;
+                for (WatchEvent<?> evento : clave.pollEvents()) {
+                    cambio |= evento.kind() == StandardWatchEventKinds.OVERFLOW
+                              || ARCHIVO_CATALOGO.equals(String.valueOf(evento.context()));
+                }
+                clave.reset();
+                if (cambio) {
+                    actualizar(servicio);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // El catálogo se cerró
+        }
+    }
+
+    /**
+     * Lee los cambios del archivo: las entradas nuevas o, si fue
+     * reemplazado, el catálogo completo.
+     *
+     * @param servicio Servicio que detectó el cambio
+     */
+    private synchronized void actualizar(WatchService servicio) {
+        if (servicio != vigilante || canal == null) {
+            return;
+        }
+
+        try {
+            Object actual = Files.readAttributes(archivo, BasicFileAttributes.class).fileKey();
+            if (actual == null || !actual.equals(identidad)) {
+                cargar();
+            } else {
+                leerNuevas();
+            }
+        } catch (IOException e) {
+            // Se intentará de nuevo en el siguiente cambio
+        }
+    }
+
+    /**
+     * Cierra los canales del catálogo, ignorando los errores.
+     */
+    private void cerrarCanales() {
+        for (FileChannel abierto : new FileChannel[] {canal, lectura}) {
+            if (abierto != null) {
+                try {
+                    abierto.close();
+                } catch (IOException e) {
+                    // Se ignora el error al cerrar
+                }
+            }
+        }
+        canal = null;
+        lectura = null;
+    }
+
+    /**
+     * Codifica un resumen.
+     *
+     * @param resumen Resumen a codificar
+     * @return Bytes del resumen
+     */
+    private byte[] codificar(ResumenPartida resumen) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            salida.writeUTF(resumen.getId());
+            salida.writeByte(resumen.getEstado() == null ? 0 : resumen.getEstado().ordinal());
+            salida.writeLong(aMilisegundos(resumen.getFechaInicio()));
+            salida.writeLong(aMilisegundos(resumen.getFechaFin()));
+            salida.writeInt(resumen.getRondaActual());
+            salida.writeInt(resumen.getMaxRondas());
+            salida.writeBoolean(resumen.getGanador() != null);
+            if (resumen.getGanador() != null) {
+                salida.writeUTF(resumen.getGanador());
+            }
+            salida.writeShort(resumen.getNombresEquipos().size());
+            for (String nombre : resumen.getNombresEquipos()) {
+                salida.writeUTF(nombre != null ? nombre : "");
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodifica un resumen.
+     *
+     * @param contenido Bytes del resumen
+     * @return Resumen decodificado
+     */
+    private ResumenPartida decodificar(ByteBuffer contenido) {
+        String id = leerTexto(contenido);
+        Partida.EstadoPartida estado = ESTADOS[Math.min(contenido.get() & 0xFF, ESTADOS.length - 1)];
+        LocalDateTime inicio = deMilisegundos(contenido.getLong());
+        LocalDateTime fin = deMilisegundos(contenido.getLong());
+        int rondaActual = contenido.getInt();
+        int maxRondas = contenido.getInt();
+        String ganador = contenido.get() != 0 ? leerTexto(contenido) : null;
+        int numeroEquipos = contenido.getShort() & 0xFFFF;
+        List<String> equipos = new ArrayList<>(numeroEquipos);
+        for (int i = 0; i < numeroEquipos; i++) {
+            equipos.add(leerTexto(contenido));
+        }
+        return new ResumenPartida(id, estado, inicio, fin, equipos, ganador, rondaActual, maxRondas);
+    }
+
+    /**
+     * Lee un texto escrito con {@link DataOutputStream#writeUTF(String)}.
+     * Los nombres del juego no usan los caracteres en que el UTF-8
+     * modificado difiere del estándar.
+     *
+     * @param contenido Buffer de lectura
+     * @return Texto leído
+     */
+    private String leerTexto(ByteBuffer contenido) {
+        int longitud = contenido.getShort() & 0xFFFF;
+        String texto = new String(contenido.array(), contenido.arrayOffset() + contenido.position(),
+                                  longitud, StandardCharsets.UTF_8);
+        contenido.position(contenido.position() + longitud);
+        return texto;
+    }
+
+    /**
+     * Convierte una fecha a milisegundos UTC.
+     *
+     * @param fecha Fecha, puede ser null
+     * @return Milisegundos, o {@link #SIN_FECHA} si no hay fecha
+     */
+    private static long aMilisegundos(LocalDateTime fecha) {
+        return fecha == null ? SIN_FECHA : fecha.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Convierte milisegundos UTC a fecha.
+     *
+     * @param milisegundos Milisegundos, o {@link #SIN_FECHA}
+     * @return Fecha, null si no hay
+     */
+    private static LocalDateTime deMilisegundos(long milisegundos) {
+        return milisegundos == SIN_FECHA ? null
+               : LocalDateTime.ofInstant(Instant.ofEpochMilli(milisegundos), ZoneOffset.UTC);
+    }
+}
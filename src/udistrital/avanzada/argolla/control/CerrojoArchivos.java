@@ -0,0 +1,338 @@
+package udistrital.avanzada.argolla.control;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Cerrojo de lectores concurrentes y escritor único para los archivos de
+ * datos de un directorio, válido entre hilos y entre procesos.
+ * Implementa el principio de responsabilidad única (SRP) al encargarse
+ * únicamente de coordinar el acceso a los archivos.
+ *
+ * Dentro del proceso se usa un {@link StampedLock}. Entre procesos, el
+ * escritor toma un bloqueo exclusivo ({@link FileLock}) solo sobre la región
+ * de escritura del archivo de bloqueo, donde además publica una generación:
+ * impar mientras escribe y par al terminar. Los lectores no toman bloqueos
+ * de archivo; leen de forma optimista y validan que ni el sello ni la
+ * generación hayan cambiado, como en un seqlock.
+ *
+ * Un {@link FileLock} pertenece a todo el proceso y no excluye a otra
+ * instancia del mismo proceso sobre el mismo archivo, que recibiría
+ * {@link OverlappingFileLockException}. Por eso, antes de bloquear la
+ * región, el escritor toma un {@link ReentrantLock} compartido por todas
+ * las instancias del proceso con el mismo archivo de bloqueo, y espera en
+ * él sin consumir procesador.
+ *
+ * Las lecturas se intentan en tres niveles: optimista sin bloqueo, con el
+ * cerrojo de lectura del proceso y, si otra escritura se cruza o el estado
+ * debe prepararse, con el cerrojo de escritura. Cuando la generación cambió
+ * por otro proceso se invoca la preparación antes de continuar, para que
+ * quien usa el cerrojo vuelva a abrir sus archivos.
+ *
+ * El cerrojo de escritura es reentrante para el hilo que lo tiene: las
+ * lecturas y escrituras anidadas se ejecutan directamente.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class CerrojoArchivos {
+
+    /** Posición de la generación, inicio de la región de escritura */
+    private static final int POS_GENERACION = 0;
+
+    /** Tamaño de la región de escritura del archivo de bloqueo */
+    private static final int TAMANO_REGION = 8;
+
+    /** Generación desconocida antes de la primera preparación */
+    private static final long SIN_GENERACION = -1;
+
+    /** Espera entre intentos si la región está bloqueada por otra ruta al mismo archivo */
+    private static final long ESPERA_REGION_NANOS = 1_000_000;
+
+    /** Cerrojos de la región de escritura del proceso, por archivo de bloqueo */
+    private static final Map<Path, ReentrantLock> CERROJOS_REGION = new ConcurrentHashMap<>();
+
+    /** Acceso con orden de memoria a la generación proyectada */
+    private static final VarHandle GENERACION =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    /** Archivo de bloqueo compartido entre procesos */
+    private final File archivo;
+
+    /** Preparación de los archivos protegidos */
+    private final Preparacion preparacion;
+
+    /** Cerrojo entre hilos del proceso */
+    private final StampedLock cerrojo;
+
+    /** Cerrojo de la región de escritura, compartido con las demás instancias del archivo */
+    private final ReentrantLock cerrojoRegion;
+
+    /** Canal del archivo de bloqueo */
+    private FileChannel canal;
+
+    /** Proyección de la región de escritura */
+    private MappedByteBuffer region;
+
+    /** Hilo que tiene el cerrojo de escritura, null si ninguno */
+    private Thread escritor;
+
+    /** Última generación escrita o vista por este proceso */
+    private long generacionConocida;
+
+    /** Indica si los archivos protegidos están listos para leer sin preparar */
+    private boolean preparado;
+
+    /**
+     * Interfaz funcional de una operación protegida por el cerrojo.
+     *
+     * @param <T> Tipo del resultado
+     */
+    @FunctionalInterface
+    public interface Operacion<T> {
+
+        /**
+         * Ejecuta la operación. Una lectura puede ejecutarse más de una vez
+         * y no debe modificar estado compartido.
+         *
+         * @return Resultado de la operación
+         * @throws IOException Si hay error de E/S
+         */
+        T ejecutar() throws IOException;
+    }
+
+    /**
+     * Interfaz funcional que deja listos los archivos protegidos.
+     */
+    @FunctionalInterface
+    public interface Preparacion {
+
+        /**
+         * Prepara los archivos con el cerrojo de escritura tomado.
+         *
+         * @param cambiosExternos true si otro proceso escribió desde la
+         *                        última vez que este proceso los usó
+         * @throws IOException Si hay error de E/S
+         */
+        void preparar(boolean cambiosExternos) throws IOException;
+    }
+
+    /**
+     * Constructor del cerrojo. El archivo de bloqueo se abre en la primera operación.
+     *
+     * @param ruta Ruta del archivo de bloqueo
+     * @param preparacion Preparación que se invoca antes de la primera
+     *                    operación y tras los cambios de otro proceso
+     */
+    public CerrojoArchivos(String ruta, Preparacion preparacion) {
+        this.archivo = new File(ruta);
+        this.preparacion = preparacion;
+        this.cerrojo = new StampedLock();
+        this.cerrojoRegion = CERROJOS_REGION.computeIfAbsent(archivo.toPath().toAbsolutePath().normalize(),
+                                                             clave -> new ReentrantLock());
+        this.generacionConocida = SIN_GENERACION;
+        this.preparado = false;
+    }
+
+    /**
+     * Ejecuta una lectura sin excluir a otros lectores. Los errores en
+     * tiempo de ejecución de un intento que se cruzó con una escritura se
+     * descartan y la lectura se repite en el siguiente nivel.
+     *
+     * @param <T> Tipo del resultado
+     * @param lectura Lectura a ejecutar
+     * @return Resultado de la lectura
+     * @throws IOException Si hay error de E/S
+     */
+    public <T> T leer(Operacion<T> lectura) throws IOException {
+        if (esEscritor()) {
+            return lectura.ejecutar();
+        }
+
+        long sello = cerrojo.tryOptimisticRead();
+        if (sello != 0) {
+            try {
+                long generacion = preparado ? leerGeneracion() : SIN_GENERACION;
+                if (generacion != SIN_GENERACION && generacion == generacionConocida) {
+                    T valor = lectura.ejecutar();
+                    if (cerrojo.validate(sello) && leerGeneracion() == generacion) {
+                        return valor;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Lectura cruzada con una escritura: se repite con el cerrojo
+            }
+        }
+
+        sello = cerrojo.readLock();
+        try {
+            if (preparado) {
+                long generacion = leerGeneracion();
+                if (generacion == generacionConocida) {
+                    T valor = lectura.ejecutar();
+                    if (leerGeneracion() == generacion) {
+                        return valor;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Otro proceso escribió durante la lectura: se repite como escritor
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+        return escribir(lectura);
+    }
+
+    /**
+     * Ejecuta una operación como escritor único del proceso y de los demás
+     * procesos que comparten el archivo de bloqueo.
+     *
+     * @param <T> Tipo del resultado
+     * @param escritura Operación a ejecutar
+     * @return Resultado de la operación
+     * @throws IOException Si hay error de E/S
+     */
+    public <T> T escribir(Operacion<T> escritura) throws IOException {
+        if (esEscritor()) {
+            return escritura.ejecutar();
+        }
+
+        long sello = cerrojo.writeLock();
+        FileLock bloqueo = null;
+        escritor = Thread.currentThread();
+        try {
+            abrir();
+            bloqueo = bloquearRegion();
+            long generacion = leerGeneracion();
+            if (!preparado || generacion != generacionConocida) {
+                preparacion.preparar(generacion != generacionConocida);
+                preparado = true;
+            }
+
+            // Impar mientras se escribe, aunque un escritor anterior haya terminado sin cerrarla
+            long inicio = generacion + 1 + (generacion & 1);
+            GENERACION.setVolatile(region, POS_GENERACION, inicio);
+            try {
+                return escritura.ejecutar();
+            } finally {
+                GENERACION.setVolatile(region, POS_GENERACION, inicio + 1);
+                generacionConocida = inicio + 1;
+            }
+        } finally {
+            escritor = null;
+            if (bloqueo != null) {
+                liberarRegion(bloqueo);
+            }
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Indica si el hilo actual tiene el cerrojo de escritura.
+     *
+     * @return true si el hilo actual es el escritor
+     */
+    public boolean esEscritor() {
+        return escritor == Thread.currentThread();
+    }
+
+    /**
+     * Cierra el archivo de bloqueo. La siguiente operación lo vuelve a abrir
+     * y prepara de nuevo los archivos protegidos.
+     */
+    public void cerrar() {
+        long sello = cerrojo.writeLock();
+        try {
+            preparado = false;
+            region = null;
+            if (canal != null) {
+                try {
+                    canal.close();
+                } catch (IOException e) {
+                    // Se ignora el error al cerrar
+                }
+                canal = null;
+            }
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Toma el bloqueo exclusivo de la región de escritura. Si otra instancia
+     * del mismo proceso tiene la región, se espera en el cerrojo compartido a
+     * que la libere. Si aun así el bloqueo se cruza, porque el mismo archivo
+     * se abrió con otra ruta, se reintenta con pausas.
+     *
+     * @return Bloqueo tomado
+     * @throws IOException Si hay error de E/S
+     */
+    private FileLock bloquearRegion() throws IOException {
+        cerrojoRegion.lock();
+        try {
+            while (true) {
+                try {
+                    return canal.lock(POS_GENERACION, TAMANO_REGION, false);
+                } catch (OverlappingFileLockException e) {
+                    LockSupport.parkNanos(ESPERA_REGION_NANOS);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            cerrojoRegion.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Libera el bloqueo de la región de escritura y el cerrojo compartido.
+     *
+     * @param bloqueo Bloqueo tomado con {@link #bloquearRegion()}
+     * @throws IOException Si hay error de E/S
+     */
+    private void liberarRegion(FileLock bloqueo) throws IOException {
+        try {
+            bloqueo.release();
+        } finally {
+            cerrojoRegion.unlock();
+        }
+    }
+
+    /**
+     * Lee la generación publicada por el último escritor.
+     *
+     * @return Generación actual
+     */
+    private long leerGeneracion() {
+        return (long) GENERACION.getVolatile(region, POS_GENERACION);
+    }
+
+    /**
+     * Abre y proyecta el archivo de bloqueo si aún no está abierto. Un canal
+     * cerrado por una interrupción se vuelve a abrir.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void abrir() throws IOException {
+        if (canal != null && canal.isOpen()) {
+            return;
+        }
+
+        canal = FileChannel.open(archivo.toPath(), StandardOpenOption.CREATE,
+                                 StandardOpenOption.READ, StandardOpenOption.WRITE);
+        region = canal.map(FileChannel.MapMode.READ_WRITE, POS_GENERACION, TAMANO_REGION);
+    }
+}
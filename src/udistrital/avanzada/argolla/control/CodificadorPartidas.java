@@ -0,0 +1,689 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.Equipo;
+import udistrital.avanzada.argolla.modelo.Jugador;
+import udistrital.avanzada.argolla.modelo.Partida;
+import udistrital.avanzada.argolla.modelo.PartidaDiferida;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * Codificador binario versionado de partidas completas, con sus equipos y
+ * jugadores. Implementa el principio de responsabilidad única (SRP) al
+ * encargarse únicamente de convertir partidas a bytes y viceversa.
+ *
+ * Formato de una partida (versión 2):
+ * <pre>
+ *   4 bytes              número mágico "ARGP"
+ *   u1                   versión del formato
+ *   varint               longitud de la cabecera
+ *   cabecera:
+ *     texto                id
+ *     u1                   estado (ordinal de {@link Partida.EstadoPartida})
+ *     u1                   presencia de fechas (bit 0 inicio, bit 1 fin)
+ *     varlong              fecha de inicio en milisegundos UTC, si está presente
+ *     varlong              fecha de fin en milisegundos UTC, si está presente
+ *     varint               máximo de rondas
+ *     varint               ronda actual
+ *     varint               puntos para ganar
+ *     varint               número de equipos, y por cada uno:
+ *       texto                nombre
+ *       varint               puntuación total
+ *   int                  CRC32C de la cabecera
+ *   por cada equipo de la cabecera:
+ *     texto                color
+ *     varint               número de jugadores, y por cada uno:
+ *       texto                nombre
+ *       varint               puntuación
+ *       varint               aciertos
+ *       varint               intentos
+ * </pre>
+ * La cabecera se puede leer sin el resto de la partida con
+ * {@link #decodificarCabecera(byte[])}, que devuelve una
+ * {@link PartidaDiferida}; por eso lleva su propio CRC. La versión 1 no
+ * tenía cabecera: el id, el estado y los equipos, cada uno con su nombre,
+ * color y jugadores, iban seguidos. Se sigue leyendo completa.
+ * Los varint usan codificación zigzag con 7 bits por byte, así que los
+ * valores pequeños ocupan un byte. Un texto es un varint con la longitud en
+ * bytes más uno, seguido del UTF-8; la longitud 0 representa null. Las
+ * fechas se guardan con precisión de milisegundos.
+ *
+ * Un delta describe una partida en relación con una instantánea anterior
+ * de la misma partida, con los mismos equipos y jugadores:
+ * <pre>
+ *   4 bytes              número mágico "ARGD"
+ *   u1                   versión del formato
+ *   u1, u1, varlongs     estado y fechas, como en la partida completa
+ *   varint               máximo de rondas
+ *   varint               ronda actual
+ *   varint               puntos para ganar
+ *   varint               número de equipos, y por cada uno:
+ *     varint               puntuación total
+ *   varint               número de jugadores que cambiaron, y por cada uno:
+ *     varint               posición del equipo
+ *     varint               posición del jugador en el equipo
+ *     varint               puntuación
+ *     varint               aciertos
+ *     varint               intentos
+ * </pre>
+ * Las puntuaciones de los equipos permiten actualizar una cabecera sin
+ * leer los jugadores; los deltas de la versión 1 no las tienen.
+ *
+ * El codificador no guarda estado y puede usarse desde varios hilos a la vez.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class CodificadorPartidas {
+
+    /** Número mágico al inicio de una partida codificada */
+    private static final byte[] MAGICO = {'A', 'R', 'G', 'P'};
+
+    /** Número mágico al inicio de un delta */
+    private static final byte[] MAGICO_DELTA = {'A', 'R', 'G', 'D'};
+
+    /** Versión actual del formato */
+    public static final int VERSION_FORMATO = 2;
+
+    /** Versión del formato anterior, sin cabecera */
+    private static final int VERSION_SIN_CABECERA = 1;
+
+    /**
+     * Bytes del inicio de una partida que conviene leer para obtener su
+     * cabecera; basta salvo con nombres de equipos muy largos.
+     */
+    public static final int TAMANO_LECTURA_CABECERA = 256;
+
+    /** Tamaño inicial del arreglo donde se codifica una partida */
+    private static final int TAMANO_INICIAL = 256;
+
+    /** Bit de presencia de la fecha de inicio */
+    private static final int FECHA_INICIO = 1;
+
+    /** Bit de presencia de la fecha de fin */
+    private static final int FECHA_FIN = 2;
+
+    /** Estados de partida por ordinal */
+    private static final Partida.EstadoPartida[] ESTADOS = Partida.EstadoPartida.values();
+
+    /**
+     * Arreglo de bytes que crece a medida que se escribe.
+     */
+    private static final class Salida {
+
+        /** Bytes escritos */
+        private byte[] datos;
+
+        /** Número de bytes escritos */
+        private int tamano;
+
+        private Salida() {
+            this.datos = new byte[TAMANO_INICIAL];
+        }
+
+        private void asegurar(int adicionales) {
+            if (tamano + adicionales > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(datos.length * 2, tamano + adicionales));
+            }
+        }
+
+        private void escribirByte(int valor) {
+            asegurar(1);
+            datos[tamano++] = (byte) valor;
+        }
+
+        private void escribirBytes(byte[] valor) {
+            asegurar(valor.length);
+            System.arraycopy(valor, 0, datos, tamano, valor.length);
+            tamano += valor.length;
+        }
+
+        private void escribirVarlong(long valor) {
+            asegurar(10);
+            long sinSigno = (valor << 1) ^ (valor >> 63);
+            while ((sinSigno & ~0x7FL) != 0) {
+                datos[tamano++] = (byte) ((sinSigno & 0x7F) | 0x80);
+                sinSigno >>>= 7;
+            }
+            datos[tamano++] = (byte) sinSigno;
+        }
+
+        private void escribirEntero(int valor) {
+            asegurar(4);
+            datos[tamano++] = (byte) (valor >>> 24);
+            datos[tamano++] = (byte) (valor >>> 16);
+            datos[tamano++] = (byte) (valor >>> 8);
+            datos[tamano++] = (byte) valor;
+        }
+
+        private void escribirSalida(Salida otra) {
+            asegurar(otra.tamano);
+            System.arraycopy(otra.datos, 0, datos, tamano, otra.tamano);
+            tamano += otra.tamano;
+        }
+
+        private void escribirTexto(String texto) {
+            if (texto == null) {
+                escribirVarlong(0);
+                return;
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            escribirVarlong(bytes.length + 1L);
+            escribirBytes(bytes);
+        }
+    }
+
+    /**
+     * Indica si unos bytes comienzan con el número mágico de este formato.
+     * Las partidas guardadas con serialización de Java comienzan con otro.
+     *
+     * @param datos Bytes a revisar
+     * @return true si los bytes son una partida codificada por esta clase
+     */
+    public static boolean esFormatoBinario(byte[] datos) {
+        return datos.length > MAGICO.length && Arrays.equals(datos, 0, MAGICO.length, MAGICO, 0, MAGICO.length);
+    }
+
+    /**
+     * Codifica una partida completa.
+     *
+     * @param partida Partida a codificar
+     * @return Bytes de la partida codificada
+     */
+    public byte[] codificar(Partida partida) {
+        List<Equipo> equipos = partida.getEquipos();
+        Salida cabecera = new Salida();
+        cabecera.escribirTexto(partida.getId());
+        escribirEstado(cabecera, partida);
+        cabecera.escribirVarlong(equipos.size());
+        for (Equipo equipo : equipos) {
+            cabecera.escribirTexto(equipo.getNombre());
+            cabecera.escribirVarlong(equipo.getPuntuacionTotal());
+        }
+
+        Salida salida = new Salida();
+        salida.escribirBytes(MAGICO);
+        salida.escribirByte(VERSION_FORMATO);
+        salida.escribirVarlong(cabecera.tamano);
+        salida.escribirSalida(cabecera);
+        salida.escribirEntero(calcularCrc(cabecera.datos, 0, cabecera.tamano));
+        for (Equipo equipo : equipos) {
+            salida.escribirTexto(equipo.getColor());
+            List<Jugador> jugadores = equipo.getJugadores();
+            salida.escribirVarlong(jugadores.size());
+            for (Jugador jugador : jugadores) {
+                salida.escribirTexto(jugador.getNombre());
+                salida.escribirVarlong(jugador.getPuntuacion());
+                salida.escribirVarlong(jugador.getAciertos());
+                salida.escribirVarlong(jugador.getIntentos());
+            }
+        }
+        return Arrays.copyOf(salida.datos, salida.tamano);
+    }
+
+    /**
+     * Decodifica una partida. Los equipos y jugadores quedan marcados como
+     * modificados porque no provienen de los archivos de registros.
+     *
+     * @param datos Bytes de la partida codificada
+     * @return Partida decodificada
+     * @throws IOException Si los bytes no son una partida válida o su
+     *                     versión no es compatible
+     */
+    public Partida decodificar(byte[] datos) throws IOException {
+        if (!esFormatoBinario(datos)) {
+            throw new IOException("No es una partida codificada");
+        }
+
+        ByteBuffer entrada = ByteBuffer.wrap(datos, MAGICO.length, datos.length - MAGICO.length);
+        try {
+            int version = entrada.get() & 0xFF;
+            Partida partida = new Partida();
+            if (version == VERSION_SIN_CABECERA) {
+                partida.setId(leerTexto(entrada));
+                leerEstado(entrada, partida);
+                partida.setEquipos(leerEquipos(entrada, null));
+                return partida;
+            }
+            if (version != VERSION_FORMATO) {
+                throw new IOException("Versión de partida no soportada: " + version);
+            }
+
+            leerConteo(entrada);
+            partida.setId(leerTexto(entrada));
+            leerEstado(entrada, partida);
+            List<String> nombres = new ArrayList<>();
+            leerEquiposCabecera(entrada, nombres);
+            entrada.getInt();
+            partida.setEquipos(leerEquipos(entrada, nombres));
+            return partida;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Partida codificada incompleta", e);
+        }
+    }
+
+    /**
+     * Obtiene cuántos bytes del inicio de una partida codificada ocupan su
+     * cabecera y su CRC.
+     *
+     * @param inicio Primeros bytes de la partida, al menos
+     *               {@link #TAMANO_LECTURA_CABECERA} o todos si son menos
+     * @return Bytes necesarios para decodificar la cabecera, o -1 si los
+     *         datos no tienen cabecera (versión 1 o serialización de Java)
+     * @throws IOException Si la longitud de la cabecera es inválida
+     */
+    public int longitudCabecera(byte[] inicio) throws IOException {
+        if (!esFormatoBinario(inicio) || (inicio[MAGICO.length] & 0xFF) != VERSION_FORMATO) {
+            return -1;
+        }
+
+        ByteBuffer entrada = ByteBuffer.wrap(inicio, MAGICO.length + 1, inicio.length - MAGICO.length - 1);
+        try {
+            int longitud = leerVarint(entrada);
+            if (longitud < 0) {
+                throw new IOException("Longitud de cabecera inválida: " + longitud);
+            }
+            return entrada.position() + longitud + 4;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Cabecera de partida incompleta", e);
+        }
+    }
+
+    /**
+     * Decodifica solo la cabecera de una partida, sin sus jugadores. La
+     * partida devuelta no tiene lector de equipos; quien la use debe
+     * asignarlo con {@link PartidaDiferida#setCargador}.
+     *
+     * @param inicio Primeros bytes de la partida, al menos los indicados
+     *               por {@link #longitudCabecera(byte[])}
+     * @return Partida con los datos de la cabecera
+     * @throws IOException Si los bytes no contienen una cabecera válida
+     */
+    public PartidaDiferida decodificarCabecera(byte[] inicio) throws IOException {
+        int longitud = longitudCabecera(inicio);
+        if (longitud < 0 || longitud > inicio.length) {
+            throw new IOException("No es una cabecera de partida completa");
+        }
+
+        ByteBuffer entrada = ByteBuffer.wrap(inicio, MAGICO.length + 1, longitud - MAGICO.length - 1);
+        try {
+            int longitudCabecera = leerVarint(entrada);
+            int inicioCabecera = entrada.position();
+            if (calcularCrc(inicio, inicioCabecera, longitudCabecera) != entrada.getInt(inicioCabecera + longitudCabecera)) {
+                throw new IOException("Cabecera de partida dañada");
+            }
+
+            PartidaDiferida partida = new PartidaDiferida();
+            partida.setId(leerTexto(entrada));
+            leerEstado(entrada, partida);
+            List<String> nombres = new ArrayList<>();
+            int[] puntuaciones = leerEquiposCabecera(entrada, nombres);
+            partida.setCabeceraEquipos(nombres, puntuaciones);
+            return partida;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Cabecera de partida incompleta", e);
+        }
+    }
+
+    /**
+     * Codifica los cambios de una partida respecto a una instantánea
+     * anterior: su estado, rondas y fechas, y las estadísticas de los
+     * jugadores que cambiaron. El delta solo sirve si los equipos y
+     * jugadores son los mismos, en el mismo orden.
+     *
+     * @param base Partida tal como quedó en la instantánea
+     * @param partida Partida actual
+     * @return Bytes del delta, o null si los equipos o jugadores cambiaron
+     *         y hace falta una instantánea nueva
+     */
+    public byte[] codificarDelta(Partida base, Partida partida) {
+        List<Equipo> equiposBase = base.getEquipos();
+        List<Equipo> equipos = partida.getEquipos();
+        if (equiposBase.size() != equipos.size()) {
+            return null;
+        }
+
+        Salida cambios = new Salida();
+        int numeroCambios = 0;
+        for (int i = 0; i < equipos.size(); i++) {
+            Equipo equipoBase = equiposBase.get(i);
+            Equipo equipo = equipos.get(i);
+            List<Jugador> jugadoresBase = equipoBase.getJugadores();
+            List<Jugador> jugadores = equipo.getJugadores();
+            if (!Objects.equals(equipoBase.getNombre(), equipo.getNombre())
+                || !Objects.equals(equipoBase.getColor(), equipo.getColor())
+                || jugadoresBase.size() != jugadores.size()) {
+                return null;
+            }
+
+            for (int j = 0; j < jugadores.size(); j++) {
+                Jugador jugadorBase = jugadoresBase.get(j);
+                Jugador jugador = jugadores.get(j);
+                if (!Objects.equals(jugadorBase.getNombre(), jugador.getNombre())) {
+                    return null;
+                }
+                if (jugadorBase.getPuntuacion() != jugador.getPuntuacion()
+                    || jugadorBase.getAciertos() != jugador.getAciertos()
+                    || jugadorBase.getIntentos() != jugador.getIntentos()) {
+                    cambios.escribirVarlong(i);
+                    cambios.escribirVarlong(j);
+                    cambios.escribirVarlong(jugador.getPuntuacion());
+                    cambios.escribirVarlong(jugador.getAciertos());
+                    cambios.escribirVarlong(jugador.getIntentos());
+                    numeroCambios++;
+                }
+            }
+        }
+
+        Salida salida = new Salida();
+        salida.escribirBytes(MAGICO_DELTA);
+        salida.escribirByte(VERSION_FORMATO);
+        escribirEstado(salida, partida);
+        salida.escribirVarlong(equipos.size());
+        for (Equipo equipo : equipos) {
+            salida.escribirVarlong(equipo.getPuntuacionTotal());
+        }
+        salida.escribirVarlong(numeroCambios);
+        salida.escribirSalida(cambios);
+        return Arrays.copyOf(salida.datos, salida.tamano);
+    }
+
+    /**
+     * Aplica un delta sobre la partida de la instantánea a la que se refiere.
+     *
+     * @param partida Partida decodificada de la instantánea; se modifica
+     * @param delta Bytes del delta
+     * @throws IOException Si los bytes no son un delta válido para la partida
+     */
+    public void aplicarDelta(Partida partida, byte[] delta) throws IOException {
+        ByteBuffer entrada = abrirDelta(delta);
+        try {
+            int version = entrada.get() & 0xFF;
+            if (version != VERSION_SIN_CABECERA && version != VERSION_FORMATO) {
+                throw new IOException("Versión de delta no soportada: " + version);
+            }
+            leerEstado(entrada, partida);
+            if (version == VERSION_FORMATO) {
+                int numeroEquipos = leerConteo(entrada);
+                for (int i = 0; i < numeroEquipos; i++) {
+                    leerVarint(entrada);
+                }
+            }
+
+            List<Equipo> equipos = partida.getEquipos();
+            int numeroCambios = leerConteo(entrada);
+            for (int k = 0; k < numeroCambios; k++) {
+                int i = leerVarint(entrada);
+                int j = leerVarint(entrada);
+                if (i < 0 || i >= equipos.size()) {
+                    throw new IOException("Equipo inválido en el delta: " + i);
+                }
+                List<Jugador> jugadores = equipos.get(i).getJugadores();
+                if (j < 0 || j >= jugadores.size()) {
+                    throw new IOException("Jugador inválido en el delta: " + j);
+                }
+                Jugador jugador = jugadores.get(j);
+                jugador.setPuntuacion(leerVarint(entrada));
+                jugador.setAciertos(leerVarint(entrada));
+                jugador.setIntentos(leerVarint(entrada));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Delta de partida incompleto", e);
+        }
+    }
+
+    /**
+     * Aplica a una cabecera el estado, las rondas y las puntuaciones de los
+     * equipos de un delta, sin leer sus jugadores.
+     *
+     * @param partida Cabecera de la instantánea; se modifica
+     * @param delta Bytes del delta
+     * @return true si se aplicó; false si el delta es de la versión 1, que
+     *         no tiene las puntuaciones, y hay que cargar la partida completa
+     * @throws IOException Si los bytes no son un delta válido para la cabecera
+     */
+    public boolean aplicarDeltaCabecera(PartidaDiferida partida, byte[] delta) throws IOException {
+        ByteBuffer entrada = abrirDelta(delta);
+        try {
+            int version = entrada.get() & 0xFF;
+            if (version == VERSION_SIN_CABECERA) {
+                return false;
+            }
+            if (version != VERSION_FORMATO) {
+                throw new IOException("Versión de delta no soportada: " + version);
+            }
+            leerEstado(entrada, partida);
+
+            int numeroEquipos = leerConteo(entrada);
+            if (numeroEquipos != partida.getNumeroEquipos()) {
+                throw new IOException("El delta no corresponde a la cabecera");
+            }
+            int[] puntuaciones = new int[numeroEquipos];
+            for (int i = 0; i < numeroEquipos; i++) {
+                puntuaciones[i] = leerVarint(entrada);
+            }
+            partida.setPuntuacionesEquipos(puntuaciones);
+            return true;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Delta de partida incompleto", e);
+        }
+    }
+
+    /**
+     * Verifica el número mágico de un delta y devuelve un buffer posicionado
+     * en su versión.
+     *
+     * @param delta Bytes del delta
+     * @return Buffer de lectura del delta
+     * @throws IOException Si los bytes no son un delta
+     */
+    private ByteBuffer abrirDelta(byte[] delta) throws IOException {
+        if (delta.length <= MAGICO_DELTA.length
+            || !Arrays.equals(delta, 0, MAGICO_DELTA.length, MAGICO_DELTA, 0, MAGICO_DELTA.length)) {
+            throw new IOException("No es un delta de partida");
+        }
+        return ByteBuffer.wrap(delta, MAGICO_DELTA.length, delta.length - MAGICO_DELTA.length);
+    }
+
+    /**
+     * Lee los equipos de la cabecera: sus nombres y puntuaciones totales.
+     *
+     * @param entrada Buffer de lectura
+     * @param nombres Lista donde se agregan los nombres de los equipos
+     * @return Puntuación total de cada equipo
+     * @throws IOException Si los datos son inválidos
+     */
+    private int[] leerEquiposCabecera(ByteBuffer entrada, List<String> nombres) throws IOException {
+        int numeroEquipos = leerConteo(entrada);
+        int[] puntuaciones = new int[numeroEquipos];
+        for (int i = 0; i < numeroEquipos; i++) {
+            nombres.add(leerTexto(entrada));
+            puntuaciones[i] = leerVarint(entrada);
+        }
+        return puntuaciones;
+    }
+
+    /**
+     * Lee los equipos con sus jugadores. Los equipos quedan marcados como
+     * modificados porque no provienen de los archivos de registros.
+     *
+     * @param entrada Buffer de lectura
+     * @param nombres Nombres de los equipos leídos de la cabecera, o null si
+     *                el número de equipos y sus nombres van en los datos (versión 1)
+     * @return Equipos leídos
+     * @throws IOException Si los datos son inválidos
+     */
+    private List<Equipo> leerEquipos(ByteBuffer entrada, List<String> nombres) throws IOException {
+        int numeroEquipos = nombres == null ? leerConteo(entrada) : nombres.size();
+        List<Equipo> equipos = new ArrayList<>(numeroEquipos);
+        for (int i = 0; i < numeroEquipos; i++) {
+            String nombre = nombres == null ? leerTexto(entrada) : nombres.get(i);
+            Equipo equipo = new Equipo(nombre, leerTexto(entrada));
+            int numeroJugadores = leerConteo(entrada);
+            List<Jugador> jugadores = new ArrayList<>(numeroJugadores);
+            for (int j = 0; j < numeroJugadores; j++) {
+                Jugador jugador = new Jugador(leerTexto(entrada));
+                jugador.setPuntuacion(leerVarint(entrada));
+                jugador.setAciertos(leerVarint(entrada));
+                jugador.setIntentos(leerVarint(entrada));
+                jugadores.add(jugador);
+            }
+            equipo.setJugadores(jugadores);
+            equipos.add(equipo);
+        }
+        return equipos;
+    }
+
+    /**
+     * Calcula el CRC32C de un tramo de un arreglo.
+     *
+     * @param datos Arreglo de bytes
+     * @param inicio Posición del primer byte
+     * @param longitud Número de bytes
+     * @return CRC calculado
+     */
+    private static int calcularCrc(byte[] datos, int inicio, int longitud) {
+        CRC32C crc = new CRC32C();
+        crc.update(datos, inicio, longitud);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Escribe el estado, las fechas y las rondas de una partida.
+     *
+     * @param salida Destino de la escritura
+     * @param partida Partida a escribir
+     */
+    private static void escribirEstado(Salida salida, Partida partida) {
+        salida.escribirByte(partida.getEstado() == null ? 0 : partida.getEstado().ordinal());
+
+        LocalDateTime inicio = partida.getFechaInicio();
+        LocalDateTime fin = partida.getFechaFin();
+        salida.escribirByte((inicio != null ? FECHA_INICIO : 0) | (fin != null ? FECHA_FIN : 0));
+        if (inicio != null) {
+            salida.escribirVarlong(inicio.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if (fin != null) {
+            salida.escribirVarlong(fin.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+
+        salida.escribirVarlong(partida.getMaxRondas());
+        salida.escribirVarlong(partida.getRondaActual());
+        salida.escribirVarlong(partida.getPuntosParaGanar());
+    }
+
+    /**
+     * Lee el estado, las fechas y las rondas de una partida.
+     *
+     * @param entrada Buffer de lectura
+     * @param partida Partida donde se asignan los valores leídos
+     * @throws IOException Si el estado es inválido
+     */
+    private void leerEstado(ByteBuffer entrada, Partida partida) throws IOException {
+        int estado = entrada.get() & 0xFF;
+        if (estado >= ESTADOS.length) {
+            throw new IOException("Estado de partida inválido: " + estado);
+        }
+        partida.setEstado(ESTADOS[estado]);
+
+        int fechas = entrada.get();
+        partida.setFechaInicio((fechas & FECHA_INICIO) != 0 ? leerFecha(entrada) : null);
+        partida.setFechaFin((fechas & FECHA_FIN) != 0 ? leerFecha(entrada) : null);
+
+        partida.setMaxRondas(leerVarint(entrada));
+        partida.setRondaActual(leerVarint(entrada));
+        partida.setPuntosParaGanar(leerVarint(entrada));
+    }
+
+    /**
+     * Lee un varlong con codificación zigzag.
+     *
+     * @param entrada Buffer de lectura
+     * @return Valor leído
+     * @throws IOException Si el varlong ocupa más de 10 bytes
+     */
+    private long leerVarlong(ByteBuffer entrada) throws IOException {
+        long sinSigno = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            byte actual = entrada.get();
+            sinSigno |= (long) (actual & 0x7F) << desplazamiento;
+            if (actual >= 0) {
+                return (sinSigno >>> 1) ^ -(sinSigno & 1);
+            }
+        }
+        throw new IOException("Varint demasiado largo");
+    }
+
+    /**
+     * Lee un varint con codificación zigzag.
+     *
+     * @param entrada Buffer de lectura
+     * @return Valor leído
+     * @throws IOException Si el valor no cabe en un int
+     */
+    private int leerVarint(ByteBuffer entrada) throws IOException {
+        long valor = leerVarlong(entrada);
+        if (valor != (int) valor) {
+            throw new IOException("Valor fuera de rango: " + valor);
+        }
+        return (int) valor;
+    }
+
+    /**
+     * Lee un número de elementos, que no puede superar los bytes restantes.
+     *
+     * @param entrada Buffer de lectura
+     * @return Número de elementos
+     * @throws IOException Si el número es inválido
+     */
+    private int leerConteo(ByteBuffer entrada) throws IOException {
+        int conteo = leerVarint(entrada);
+        if (conteo < 0 || conteo > entrada.remaining()) {
+            throw new IOException("Número de elementos inválido: " + conteo);
+        }
+        return conteo;
+    }
+
+    /**
+     * Lee un texto que puede ser null.
+     *
+     * @param entrada Buffer de lectura
+     * @return Texto leído
+     * @throws IOException Si la longitud es inválida
+     */
+    private String leerTexto(ByteBuffer entrada) throws IOException {
+        int longitud = leerVarint(entrada);
+        if (longitud == 0) {
+            return null;
+        }
+        if (longitud < 0 || longitud - 1 > entrada.remaining()) {
+            throw new IOException("Texto incompleto");
+        }
+
+        String texto = new String(entrada.array(), entrada.arrayOffset() + entrada.position(),
+                                  longitud - 1, StandardCharsets.UTF_8);
+        entrada.position(entrada.position() + longitud - 1);
+        return texto;
+    }
+
+    /**
+     * Lee una fecha guardada en milisegundos UTC.
+     *
+     * @param entrada Buffer de lectura
+     * @return Fecha leída
+     * @throws IOException Si hay error de lectura
+     */
+    private LocalDateTime leerFecha(ByteBuffer entrada) throws IOException {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(leerVarlong(entrada)), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,212 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.Equipo;
+import udistrital.avanzada.argolla.modelo.Jugador;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codificador binario de los registros de equipos y jugadores.
+ * Implementa el principio de responsabilidad única (SRP) al encargarse
+ * únicamente de convertir entidades a bytes y viceversa.
+ *
+ * Formato de un registro de equipo:
+ * <pre>
+ *   u1 longitud + UTF-8  nombre
+ *   u1 longitud + UTF-8  color
+ *   int                  puntuación total
+ *   int                  total de aciertos
+ *   int                  total de intentos
+ * </pre>
+ * Formato de un registro de jugador:
+ * <pre>
+ *   u1 longitud + UTF-8  nombre
+ *   u1 longitud + UTF-8  nombre del equipo
+ *   int                  puntuación
+ *   int                  aciertos
+ *   int                  intentos
+ * </pre>
+ *
+ * Cada instancia reutiliza el mismo {@link ByteBuffer} para codificar, por
+ * lo que la codificación no es segura para uso concurrente. La decodificación
+ * no guarda estado y puede usarse desde varios hilos a la vez.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class CodificadorRegistros {
+
+    /** Longitud máxima en bytes de un texto codificado */
+    private static final int LONGITUD_MAXIMA_TEXTO = 255;
+
+    /** Buffer reutilizable donde se codifican los registros */
+    private final ByteBuffer buffer;
+
+    /** Codificador UTF-8 reutilizable */
+    private final CharsetEncoder codificadorUtf8;
+
+    /**
+     * Constructor del codificador.
+     *
+     * @param tamanoMaximo Tamaño máximo en bytes de un registro codificado
+     */
+    public CodificadorRegistros(int tamanoMaximo) {
+        this.buffer = ByteBuffer.allocate(tamanoMaximo);
+        this.codificadorUtf8 = StandardCharsets.UTF_8.newEncoder();
+    }
+
+    /**
+     * Codifica un equipo.
+     *
+     * @param equipo Equipo a codificar
+     * @return Buffer listo para leer con el registro codificado; se reutiliza
+     *         en la siguiente llamada
+     * @throws IOException Si el registro no cabe en el tamaño máximo
+     */
+    public ByteBuffer codificarEquipo(Equipo equipo) throws IOException {
+        buffer.clear();
+        escribirTexto(equipo.getNombre());
+        escribirTexto(equipo.getColor());
+        escribirEnteros(equipo.getPuntuacionTotal(), equipo.getTotalAciertos(), equipo.getTotalIntentos());
+        return buffer.flip();
+    }
+
+    /**
+     * Codifica un jugador junto con el nombre de su equipo.
+     *
+     * @param jugador Jugador a codificar
+     * @param nombreEquipo Nombre del equipo al que pertenece
+     * @return Buffer listo para leer con el registro codificado; se reutiliza
+     *         en la siguiente llamada
+     * @throws IOException Si el registro no cabe en el tamaño máximo
+     */
+    public ByteBuffer codificarJugador(Jugador jugador, String nombreEquipo) throws IOException {
+        buffer.clear();
+        escribirTexto(jugador.getNombre());
+        escribirTexto(nombreEquipo);
+        escribirEnteros(jugador.getPuntuacion(), jugador.getAciertos(), jugador.getIntentos());
+        return buffer.flip();
+    }
+
+    /**
+     * Decodifica un equipo. Las estadísticas del registro no se restauran
+     * porque se calculan a partir de los jugadores. El equipo se entrega
+     * marcado como guardado.
+     *
+     * @param origen Buffer que contiene el registro
+     * @param posicion Posición absoluta del registro en el buffer
+     * @return Equipo decodificado
+     */
+    public Equipo decodificarEquipo(ByteBuffer origen, int posicion) {
+        String nombre = leerTexto(origen, posicion);
+        String color = leerTexto(origen, saltarTexto(origen, posicion));
+        Equipo equipo = new Equipo(nombre, color);
+        equipo.marcarComoGuardado();
+        return equipo;
+    }
+
+    /**
+     * Decodifica un jugador. El jugador se entrega marcado como guardado.
+     *
+     * @param origen Buffer que contiene el registro
+     * @param posicion Posición absoluta del registro en el buffer
+     * @return Jugador decodificado
+     */
+    public Jugador decodificarJugador(ByteBuffer origen, int posicion) {
+        Jugador jugador = new Jugador(leerTexto(origen, posicion));
+        int posicionEnteros = saltarTexto(origen, saltarTexto(origen, posicion));
+        jugador.setPuntuacion(origen.getInt(posicionEnteros));
+        jugador.setAciertos(origen.getInt(posicionEnteros + 4));
+        jugador.setIntentos(origen.getInt(posicionEnteros + 8));
+        jugador.marcarComoGuardado();
+        return jugador;
+    }
+
+    /**
+     * Decodifica únicamente el nombre de un registro de equipo o jugador.
+     *
+     * @param origen Buffer que contiene el registro
+     * @param posicion Posición absoluta del registro en el buffer
+     * @return Nombre del registro
+     */
+    public String decodificarNombre(ByteBuffer origen, int posicion) {
+        return leerTexto(origen, posicion);
+    }
+
+    /**
+     * Decodifica únicamente el nombre del equipo de un registro de jugador.
+     *
+     * @param origen Buffer que contiene el registro
+     * @param posicion Posición absoluta del registro en el buffer
+     * @return Nombre del equipo del jugador
+     */
+    public String decodificarEquipoDeJugador(ByteBuffer origen, int posicion) {
+        return leerTexto(origen, saltarTexto(origen, posicion));
+    }
+
+    /**
+     * Escribe un texto con prefijo de longitud de un byte.
+     *
+     * @param texto Texto a escribir (null se escribe como vacío)
+     * @throws IOException Si el texto no cabe
+     */
+    private void escribirTexto(String texto) throws IOException {
+        if (!buffer.hasRemaining()) {
+            throw new IOException("El registro excede el tamaño máximo");
+        }
+
+        int posicionLongitud = buffer.position();
+        buffer.put((byte) 0);
+        if (texto != null && !texto.isEmpty()) {
+            int limite = buffer.limit();
+            buffer.limit(Math.min(limite, buffer.position() + LONGITUD_MAXIMA_TEXTO));
+            codificadorUtf8.reset();
+            CoderResult resultado = codificadorUtf8.encode(CharBuffer.wrap(texto), buffer, true);
+            buffer.limit(limite);
+            if (resultado.isOverflow()) {
+                throw new IOException("El texto excede la longitud máxima: " + texto);
+            }
+        }
+        buffer.put(posicionLongitud, (byte) (buffer.position() - posicionLongitud - 1));
+    }
+
+    /**
+     * Escribe los tres enteros de estadísticas.
+     *
+     * @throws IOException Si no caben en el buffer
+     */
+    private void escribirEnteros(int puntuacion, int aciertos, int intentos) throws IOException {
+        if (buffer.remaining() < 12) {
+            throw new IOException("El registro excede el tamaño máximo");
+        }
+        buffer.putInt(puntuacion).putInt(aciertos).putInt(intentos);
+    }
+
+    /**
+     * Lee un texto con prefijo de longitud de un byte.
+     *
+     * @param origen Buffer de origen
+     * @param posicion Posición absoluta del prefijo de longitud
+     * @return Texto leído
+     */
+    private String leerTexto(ByteBuffer origen, int posicion) {
+        byte[] texto = new byte[origen.get(posicion) & 0xFF];
+        origen.get(posicion + 1, texto);
+        return new String(texto, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Calcula la posición siguiente a un texto con prefijo de longitud.
+     *
+     * @param origen Buffer de origen
+     * @param posicion Posición absoluta del prefijo de longitud
+     * @return Posición del campo siguiente
+     */
+    private int saltarTexto(ByteBuffer origen, int posicion) {
+        return posicion + 1 + (origen.get(posicion) & 0xFF);
+    }
+}
@@ -0,0 +1,306 @@
+package udistrital.avanzada.argolla.control;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Diario de escritura anticipada (write-ahead log) de los archivos de registros.
+ * Implementa el principio de responsabilidad única (SRP) al encargarse
+ * únicamente de anotar operaciones y volver a aplicarlas tras una falla.
+ *
+ * Cada operación se agrega al final del diario. Las entradas se acumulan en
+ * memoria y {@link #confirmar()} las escribe juntas con un único
+ * {@code force()} (confirmación en grupo). Al iniciar, las entradas válidas
+ * se reproducen en orden y el diario se vacía en el siguiente punto de control.
+ *
+ * Un diario vacío en disco indica que los archivos de registros quedaron
+ * sincronizados en el último punto de control. Como las páginas proyectadas
+ * pueden llegar al disco antes que las entradas confirmadas,
+ * {@link #marcarCambios()} escribe y fuerza una entrada de marca antes del
+ * primer cambio tras cada punto de control: si al iniciar el diario no está
+ * vacío, la ejecución anterior no terminó en un punto de control.
+ *
+ * Formato de una entrada:
+ * <pre>
+ *   int   longitud de los datos
+ *   byte  tipo de operación
+ *   byte[] datos
+ *   int   CRC32C del tipo y los datos
+ * </pre>
+ * Una entrada incompleta o con CRC inválido marca el final del diario
+ * (escritura interrumpida) y se descarta junto con lo que le sigue.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class DiarioEscritura {
+
+    /** Tamaño del buffer de entradas pendientes */
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    /** Bytes de una entrada además de sus datos: longitud, tipo y CRC */
+    private static final int TAMANO_MARCO = 9;
+
+    /** Tipo de la entrada de marca, que no se reproduce */
+    private static final byte TIPO_MARCA = 0;
+
+    /** Archivo físico del diario */
+    private final File archivo;
+
+    /** Entradas agregadas que aún no se escriben al canal */
+    private final ByteBuffer pendientes;
+
+    /** Calculador de CRC reutilizable */
+    private final CRC32C crc;
+
+    /** Canal del archivo, abierto mientras el diario esté en uso */
+    private FileChannel canal;
+
+    /**
+     * Interfaz funcional para aplicar una entrada al reproducir el diario.
+     */
+    public interface AplicadorEntrada {
+
+        /**
+         * Aplica una operación del diario.
+         *
+         * @param tipo Tipo de operación
+         * @param datos Datos de la operación entre su posición y su límite
+         * @throws IOException Si hay error de E/S al aplicarla
+         */
+        void aplicar(byte tipo, ByteBuffer datos) throws IOException;
+    }
+
+    /**
+     * Constructor del diario.
+     *
+     * @param ruta Ruta del archivo del diario
+     */
+    public DiarioEscritura(String ruta) {
+        this.archivo = new File(ruta);
+        this.pendientes = ByteBuffer.allocate(TAMANO_BUFFER);
+        this.crc = new CRC32C();
+    }
+
+    /**
+     * Agrega una operación al diario. La entrada no es durable hasta
+     * llamar a {@link #confirmar()}.
+     *
+     * @param tipo Tipo de operación
+     * @param datos Datos de la operación entre su posición y su límite (no se modifican)
+     * @throws IOException Si hay error de E/S o la entrada es demasiado grande
+     */
+    public void registrar(byte tipo, ByteBuffer datos) throws IOException {
+        int longitud = datos.remaining();
+        if (longitud + TAMANO_MARCO > pendientes.capacity()) {
+            throw new IOException("La entrada excede el tamaño máximo del diario");
+        }
+        if (longitud + TAMANO_MARCO > pendientes.remaining()) {
+            escribirPendientes();
+        }
+
+        crc.reset();
+        crc.update(tipo);
+        crc.update(datos.duplicate());
+        pendientes.putInt(longitud);
+        pendientes.put(tipo);
+        pendientes.put(datos.duplicate());
+        pendientes.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Escribe las entradas pendientes y fuerza el diario a disco con una sola
+     * llamada, confirmando en grupo todas las operaciones registradas.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    public void confirmar() throws IOException {
+        if (pendientes.position() == 0 && canal == null) {
+            return;
+        }
+        escribirPendientes();
+        canal.force(false);
+    }
+
+    /**
+     * Asegura que el diario en disco no esté vacío antes de modificar los
+     * archivos de registros. Si está vacío, escribe una entrada de marca y
+     * la fuerza a disco; si no, no hace E/S más allá de consultar su tamaño.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    public void marcarCambios() throws IOException {
+        boolean nuevo = canal == null && !archivo.exists();
+        abrir();
+        if (canal.size() > 0) {
+            return;
+        }
+
+        crc.reset();
+        crc.update(TIPO_MARCA);
+        ByteBuffer marca = ByteBuffer.allocate(TAMANO_MARCO);
+        marca.putInt(0).put(TIPO_MARCA).putInt((int) crc.getValue()).flip();
+        while (marca.hasRemaining()) {
+            canal.write(marca, marca.position());
+        }
+        canal.force(false);
+        if (nuevo) {
+            sincronizarDirectorio();
+        }
+    }
+
+    /**
+     * Indica si hay entradas registradas que aún no se escriben al archivo.
+     *
+     * @return true si hay entradas pendientes
+     */
+    public boolean tienePendientes() {
+        return pendientes.position() > 0;
+    }
+
+    /**
+     * Obtiene el tamaño del diario incluyendo las entradas pendientes.
+     *
+     * @return Tamaño en bytes
+     * @throws IOException Si hay error de E/S
+     */
+    public long getTamano() throws IOException {
+        long escrito = canal != null ? canal.size() : archivo.length();
+        return escrito + pendientes.position();
+    }
+
+    /**
+     * Reproduce en orden las entradas válidas del diario. Si hay una entrada
+     * incompleta o dañada al final, se recorta el diario en ese punto.
+     *
+     * @param aplicador Aplicador de cada entrada
+     * @return Número de entradas reproducidas
+     * @throws IOException Si hay error de E/S
+     */
+    public int reproducir(AplicadorEntrada aplicador) throws IOException {
+        if (canal == null && !archivo.exists()) {
+            return 0;
+        }
+
+        abrir();
+        ByteBuffer contenido = ByteBuffer.allocate((int) canal.size());
+        while (contenido.hasRemaining()) {
+            if (canal.read(contenido, contenido.position()) < 0) {
+                break;
+            }
+        }
+        contenido.flip();
+
+        int entradas = 0;
+        while (contenido.remaining() >= TAMANO_MARCO) {
+            int inicio = contenido.position();
+            int longitud = contenido.getInt(inicio);
+            if (longitud < 0 || longitud > contenido.remaining() - TAMANO_MARCO) {
+                break;
+            }
+
+            byte tipo = contenido.get(inicio + 4);
+            ByteBuffer datos = contenido.duplicate().position(inicio + 5).limit(inicio + 5 + longitud);
+            crc.reset();
+            crc.update(tipo);
+            crc.update(datos.duplicate());
+            if ((int) crc.getValue() != contenido.getInt(inicio + 5 + longitud)) {
+                break;
+            }
+
+            if (tipo != TIPO_MARCA) {
+                aplicador.aplicar(tipo, datos);
+                entradas++;
+            }
+            contenido.position(inicio + TAMANO_MARCO + longitud);
+        }
+
+        if (contenido.hasRemaining()) {
+            canal.truncate(contenido.position());
+        }
+        return entradas;
+    }
+
+    /**
+     * Descarta todas las entradas, incluidas las pendientes. Debe llamarse
+     * solo después de forzar a disco los archivos de registros.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    public void vaciar() throws IOException {
+        pendientes.clear();
+        if (canal == null && !archivo.exists()) {
+            return;
+        }
+        abrir();
+        canal.truncate(0);
+        canal.force(false);
+    }
+
+    /**
+     * Cierra el diario. Las entradas pendientes no confirmadas se escriben
+     * sin forzarlas a disco.
+     */
+    public void cerrar() {
+        try {
+            if (pendientes.position() > 0) {
+                escribirPendientes();
+            }
+        } catch (IOException e) {
+            // Se ignora el error al cerrar
+        }
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                // Se ignora el error al cerrar
+            }
+            canal = null;
+        }
+    }
+
+    /**
+     * Escribe al final del archivo las entradas pendientes.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void escribirPendientes() throws IOException {
+        abrir();
+        pendientes.flip();
+        long posicion = canal.size();
+        while (pendientes.hasRemaining()) {
+            posicion += canal.write(pendientes, posicion);
+        }
+        pendientes.clear();
+    }
+
+    /**
+     * Fuerza a disco el directorio del diario para que el archivo recién
+     * creado no se pierda tras una falla. Si el sistema no permite abrir el
+     * directorio, se continúa sin forzarlo.
+     */
+    private void sincronizarDirectorio() {
+        try (FileChannel directorio = FileChannel.open(archivo.getAbsoluteFile().getParentFile().toPath(),
+                                                       StandardOpenOption.READ)) {
+            directorio.force(true);
+        } catch (IOException e) {
+            // Algunos sistemas no permiten forzar un directorio
+        }
+    }
+
+    /**
+     * Abre el archivo del diario si aún no está abierto.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private void abrir() throws IOException {
+        if (canal == null) {
+            canal = FileChannel.open(archivo.toPath(), StandardOpenOption.CREATE,
+                                     StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.Equipo;
+import udistrital.avanzada.argolla.modelo.Jugador;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cola de escritura diferida (write-behind) hacia los archivos de acceso
+ * aleatorio. Implementa el principio de responsabilidad única (SRP) al
+ * encargarse únicamente de sacar las escrituras del hilo que las solicita,
+ * de modo que la interfaz gráfica no espere al disco.
+ *
+ * Cada solicitud toma una copia de los datos en el hilo que la hace y
+ * devuelve un {@link CompletableFuture} que se completa con true cuando la
+ * escritura quedó confirmada en el diario. Un hilo escritor dedicado aplica
+ * las solicitudes en el orden en que llegaron y las confirma juntas con un
+ * solo forzado a disco.
+ *
+ * Las solicitudes sobre un mismo jugador o equipo que aún no se escriben se
+ * combinan: solo se escribe la última, y los futuros de las anteriores se
+ * completan con ella. Lo mismo ocurre con los guardados de la plantilla.
+ *
+ * Ninguna solicitud espera más que la latencia máxima: la primera de un lote
+ * programa su escritura para ese momento, y un lote que alcanza
+ * {@link #TAMANO_LOTE_MAXIMO} se escribe de inmediato.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class EscrituraDiferida {
+
+    /** Solicitudes pendientes a partir de las cuales se escribe sin esperar */
+    public static final int TAMANO_LOTE_MAXIMO = 256;
+
+    /** Clave de los guardados de la plantilla completa */
+    private static final String CLAVE_PLANTILLA = "plantilla";
+
+    /** Archivos donde se escriben las solicitudes */
+    private final ArchivoAccesoAleatorio archivo;
+
+    /** Tiempo máximo en milisegundos que una solicitud espera su escritura */
+    private final long latenciaMaxima;
+
+    /** Hilo escritor dedicado */
+    private final ScheduledExecutorService escritor;
+
+    /** Solicitudes pendientes por clave, en orden de llegada */
+    private final LinkedHashMap<String, Pendiente> pendientes;
+
+    /** Indica si ya hay una escritura programada para las pendientes */
+    private boolean programada;
+
+    /** Indica si la cola ya no acepta solicitudes */
+    private boolean cerrada;
+
+    /** Solicitudes recibidas */
+    private final LongAdder solicitudes;
+
+    /** Solicitudes combinadas con una posterior sin escribirse */
+    private final LongAdder combinadas;
+
+    /**
+     * Escritura que ejecuta el hilo escritor sobre los archivos.
+     */
+    @FunctionalInterface
+    private interface Escritura {
+
+        /**
+         * Aplica la escritura.
+         *
+         * @param archivo Archivos de datos
+         * @return true si se aplicó exitosamente
+         */
+        boolean aplicar(ArchivoAccesoAleatorio archivo);
+    }
+
+    /**
+     * Solicitud pendiente junto con los futuros que esperan su resultado.
+     */
+    private static final class Pendiente {
+
+        /** Escritura a aplicar */
+        private final Escritura escritura;
+
+        /** Copia de la plantilla, solo en los guardados de la plantilla */
+        private final List<Equipo> plantilla;
+
+        /** Acciones que devuelven la marca de modificado si la escritura falla */
+        private final List<Runnable> restauraciones;
+
+        /** Futuros de esta solicitud y de las que se combinaron con ella */
+        private final List<CompletableFuture<Boolean>> futuros;
+
+        private Pendiente(Escritura escritura, List<Equipo> plantilla, Runnable restauracion) {
+            this.escritura = escritura;
+            this.plantilla = plantilla;
+            this.restauraciones = new ArrayList<>();
+            this.futuros = new ArrayList<>();
+            if (restauracion != null) {
+                restauraciones.add(restauracion);
+            }
+        }
+
+        /**
+         * Absorbe una solicitud anterior con la misma clave. En los guardados
+         * de la plantilla, lo que la anterior iba a escribir como modificado
+         * se conserva como modificado en esta.
+         *
+         * @param anterior Solicitud reemplazada
+         */
+        private void absorber(Pendiente anterior) {
+            restauraciones.addAll(0, anterior.restauraciones);
+            futuros.addAll(0, anterior.futuros);
+            if (plantilla == null || anterior.plantilla == null) {
+                return;
+            }
+
+            Set<String> equiposModificados = new HashSet<>();
+            Set<String> jugadoresModificados = new HashSet<>();
+            for (Equipo equipo : anterior.plantilla) {
+                if (equipo == null) {
+                    continue;
+                }
+                if (equipo.estaModificado()) {
+                    equiposModificados.add(equipo.getNombre());
+                }
+                for (Jugador jugador : equipo.getJugadores()) {
+                    if (jugador.estaModificado()) {
+                        jugadoresModificados.add(jugador.getNombre());
+                    }
+                }
+            }
+
+            for (Equipo equipo : plantilla) {
+                if (equipo == null) {
+                    continue;
+                }
+                if (equiposModificados.contains(equipo.getNombre())) {
+                    equipo.marcarModificado();
+                }
+                for (Jugador jugador : equipo.getJugadores()) {
+                    if (jugadoresModificados.contains(jugador.getNombre())) {
+                        jugador.marcarModificado();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Completa los futuros con el resultado y, si falló, devuelve la
+         * marca de modificado a los originales para reintentar en el
+         * siguiente guardado.
+         *
+         * @param exito Resultado de la escritura
+         */
+        private void completar(boolean exito) {
+            if (!exito) {
+                restauraciones.forEach(Runnable::run);
+            }
+            futuros.forEach(futuro -> futuro.complete(exito));
+        }
+    }
+
+    /**
+     * Constructor de la cola. Inicia el hilo escritor.
+     *
+     * @param archivo Archivos donde se escriben las solicitudes
+     * @param latenciaMaxima Milisegundos que una solicitud puede esperar su escritura
+     */
+    public EscrituraDiferida(ArchivoAccesoAleatorio archivo, long latenciaMaxima) {
+        this.archivo = archivo;
+        this.latenciaMaxima = Math.max(latenciaMaxima, 0);
+        this.pendientes = new LinkedHashMap<>();
+        this.solicitudes = new LongAdder();
+        this.combinadas = new LongAdder();
+        this.escritor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "escritor-argolla");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Solicita guardar un jugador. Se escribe una copia de su estado actual.
+     *
+     * @param jugador Jugador a guardar
+     * @param nombreEquipo Nombre del equipo al que pertenece
+     * @return Futuro que se completa con true cuando el guardado quedó confirmado
+     */
+    public CompletableFuture<Boolean> guardarJugador(Jugador jugador, String nombreEquipo) {
+        if (jugador == null || jugador.getNombre() == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        Jugador copia = copiarJugador(jugador);
+        return encolar("jugador:" + copia.getNombre(),
+                       new Pendiente(destino -> destino.guardarJugador(copia, nombreEquipo), null, null));
+    }
+
+    /**
+     * Solicita guardar un equipo sin sus jugadores.
+     *
+     * @param equipo Equipo a guardar
+     * @return Futuro que se completa con true cuando el guardado quedó confirmado
+     */
+    public CompletableFuture<Boolean> guardarEquipo(Equipo equipo) {
+        if (equipo == null || equipo.getNombre() == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        Equipo copia = new Equipo(equipo.getNombre(), equipo.getColor());
+        return encolar("equipo:" + copia.getNombre(),
+                       new Pendiente(destino -> destino.guardarEquipo(copia), null, null));
+    }
+
+    /**
+     * Solicita eliminar un jugador. Reemplaza a un guardado pendiente del mismo jugador.
+     *
+     * @param nombre Nombre del jugador
+     * @return Futuro que se completa con true si se eliminó y quedó confirmado
+     */
+    public CompletableFuture<Boolean> eliminarJugador(String nombre) {
+        if (nombre == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return encolar("jugador:" + nombre, new Pendiente(destino -> destino.eliminarJugador(nombre), null, null));
+    }
+
+    /**
+     * Solicita eliminar un equipo. Reemplaza a un guardado pendiente del mismo equipo.
+     *
+     * @param nombre Nombre del equipo
+     * @return Futuro que se completa con true si se eliminó y quedó confirmado
+     */
+    public CompletableFuture<Boolean> eliminarEquipo(String nombre) {
+        if (nombre == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return encolar("equipo:" + nombre, new Pendiente(destino -> destino.eliminarEquipo(nombre), null, null));
+    }
+
+    /**
+     * Solicita guardar los cambios de la plantilla como lo hace
+     * {@link ArchivoAccesoAleatorio#guardarCambios(List)}. Los equipos y
+     * jugadores modificados se marcan como guardados de inmediato; si la
+     * escritura falla, vuelven a marcarse como modificados.
+     *
+     * @param equipos Equipos a guardar, cada uno con sus jugadores
+     * @return Futuro que se completa con true cuando todo quedó confirmado
+     */
+    public CompletableFuture<Boolean> guardarCambios(List<Equipo> equipos) {
+        if (equipos == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        List<Equipo> plantilla = new ArrayList<>();
+        List<Equipo> equiposMarcados = new ArrayList<>();
+        List<Jugador> jugadoresMarcados = new ArrayList<>();
+        for (Equipo equipo : equipos) {
+            if (equipo == null) {
+                plantilla.add(null);
+                continue;
+            }
+
+            Equipo copia = new Equipo(equipo.getNombre(), equipo.getColor());
+            for (Jugador jugador : equipo.getJugadores()) {
+                Jugador copiaJugador = copiarJugador(jugador);
+                copia.agregarJugador(copiaJugador);
+                if (jugador.estaModificado()) {
+                    jugadoresMarcados.add(jugador);
+                    jugador.marcarComoGuardado();
+                } else {
+                    copiaJugador.marcarComoGuardado();
+                }
+            }
+            if (equipo.estaModificado()) {
+                equiposMarcados.add(equipo);
+                equipo.marcarComoGuardado();
+            } else {
+                copia.marcarComoGuardado();
+            }
+            plantilla.add(copia);
+        }
+
+        Runnable restauracion = () -> {
+            equiposMarcados.forEach(Equipo::marcarModificado);
+            jugadoresMarcados.forEach(Jugador::marcarModificado);
+        };
+        return encolar(CLAVE_PLANTILLA,
+                       new Pendiente(destino -> destino.guardarCambios(plantilla), plantilla, restauracion));
+    }
+
+    /**
+     * Escribe de inmediato las solicitudes pendientes.
+     *
+     * @return Futuro que se completa con true si todas las pendientes se confirmaron
+     */
+    public CompletableFuture<Boolean> vaciar() {
+        List<CompletableFuture<Boolean>> futuros = new ArrayList<>();
+        synchronized (this) {
+            for (Pendiente pendiente : pendientes.values()) {
+                futuros.addAll(pendiente.futuros);
+            }
+        }
+
+        try {
+            escritor.execute(this::escribirPendientes);
+        } catch (RejectedExecutionException e) {
+            // El hilo escritor ya terminó y escribió las pendientes al cerrarse
+        }
+        return CompletableFuture.allOf(futuros.toArray(new CompletableFuture<?>[0]))
+                                .thenApply(v -> futuros.stream().allMatch(CompletableFuture::join));
+    }
+
+    /**
+     * Deja de aceptar solicitudes, escribe las pendientes y detiene el hilo
+     * escritor. Las solicitudes posteriores se completan con false.
+     */
+    public void cerrar() {
+        synchronized (this) {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+        }
+
+        escritor.execute(this::escribirPendientes);
+        escritor.shutdown();
+        try {
+            escritor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Agrega una solicitud a la cola, combinándola con la pendiente de la
+     * misma clave, y programa su escritura según la latencia máxima.
+     *
+     * @param clave Clave del registro que modifica la solicitud
+     * @param pendiente Solicitud
+     * @return Futuro de la solicitud
+     */
+    private CompletableFuture<Boolean> encolar(String clave, Pendiente pendiente) {
+        CompletableFuture<Boolean> futuro = new CompletableFuture<>();
+        pendiente.futuros.add(futuro);
+        synchronized (this) {
+            if (cerrada) {
+                pendiente.completar(false);
+                return futuro;
+            }
+
+            solicitudes.increment();
+            Pendiente anterior = pendientes.remove(clave);
+            if (anterior != null) {
+                pendiente.absorber(anterior);
+                combinadas.increment();
+            }
+            pendientes.put(clave, pendiente);
+
+            if (pendientes.size() == TAMANO_LOTE_MAXIMO) {
+                escritor.execute(this::escribirPendientes);
+            } else if (!programada) {
+                programada = true;
+                escritor.schedule(this::escribirPendientes, latenciaMaxima, TimeUnit.MILLISECONDS);
+            }
+        }
+        return futuro;
+    }
+
+    /**
+     * Aplica en orden las solicitudes pendientes y las confirma con un solo
+     * forzado a disco. Se ejecuta en el hilo escritor.
+     */
+    private void escribirPendientes() {
+        List<Pendiente> lote;
+        synchronized (this) {
+            lote = new ArrayList<>(pendientes.values());
+            pendientes.clear();
+            programada = false;
+        }
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        boolean[] aplicadas = new boolean[lote.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            try {
+                aplicadas[i] = lote.get(i).escritura.aplicar(archivo);
+            } catch (RuntimeException e) {
+                aplicadas[i] = false;
+            }
+        }
+
+        boolean confirmado = archivo.confirmar();
+        for (int i = 0; i < lote.size(); i++) {
+            lote.get(i).completar(aplicadas[i] && confirmado);
+        }
+    }
+
+    /**
+     * Copia el nombre y las estadísticas de un jugador.
+     *
+     * @param jugador Jugador original
+     * @return Copia del jugador
+     */
+    private static Jugador copiarJugador(Jugador jugador) {
+        Jugador copia = new Jugador(jugador.getNombre());
+        copia.setPuntuacion(jugador.getPuntuacion());
+        copia.setIntentos(jugador.getIntentos());
+        copia.setAciertos(jugador.getAciertos());
+        return copia;
+    }
+
+    /**
+     * Obtiene el número de solicitudes recibidas.
+     *
+     * @return Solicitudes recibidas
+     */
+    public long getSolicitudes() {
+        return solicitudes.sum();
+    }
+
+    /**
+     * Obtiene el número de solicitudes que se combinaron con una posterior
+     * y no llegaron a escribirse por separado.
+     *
+     * @return Solicitudes combinadas
+     */
+    public long getCombinadas() {
+        return combinadas.sum();
+    }
+
+    /**
+     * Obtiene el número de solicitudes pendientes de escribir.
+     *
+     * @return Solicitudes pendientes
+     */
+    public synchronized int getPendientes() {
+        return pendientes.size();
+    }
+}
@@ -0,0 +1,283 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.ConfiguracionJuego;
+import udistrital.avanzada.argolla.modelo.InstantaneaConfiguracion;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fuente de la configuración del juego, leída de un archivo properties.
+ * Implementa el principio de responsabilidad única (SRP) al encargarse
+ * únicamente de leer, guardar y publicar la configuración.
+ *
+ * El archivo se lee una sola vez y la configuración se publica como una
+ * {@link InstantaneaConfiguracion} en una referencia volátil: leerla con
+ * {@link #getActual()} no toma cerrojos ni hace E/S. Un hilo vigila el
+ * directorio del archivo con un {@link WatchService} y, cuando el archivo
+ * cambia, lo vuelve a leer y publica la nueva configuración, de modo que
+ * se puede ajustar el juego sin reiniciarlo. Si el archivo modificado no es
+ * válido se conserva la configuración publicada.
+ *
+ * {@link #publicar(InstantaneaConfiguracion)} reemplaza la configuración
+ * sin tocar el archivo, hasta el siguiente cambio del archivo.
+ *
+ * Hay una instancia por archivo en el proceso, obtenida con
+ * {@link #abrir(Path)}.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class FuenteConfiguracion {
+
+    /** Instancias abiertas por archivo */
+    private static final Map<Path, FuenteConfiguracion> INSTANCIAS = new ConcurrentHashMap<>();
+
+    /** Archivo de configuración */
+    private final Path archivo;
+
+    /** Configuración publicada, null hasta la primera lectura */
+    private volatile InstantaneaConfiguracion actual;
+
+    /** Servicio que vigila el directorio del archivo */
+    private WatchService vigilante;
+
+    /** Número de veces que se leyó el archivo */
+    private volatile int lecturas;
+
+    /**
+     * Constructor privado; las instancias se obtienen con {@link #abrir(Path)}.
+     *
+     * @param archivo Archivo de configuración
+     */
+    private FuenteConfiguracion(Path archivo) {
+        this.archivo = archivo;
+    }
+
+    /**
+     * Obtiene la fuente de un archivo de configuración, compartida por todo el proceso.
+     *
+     * @param archivo Archivo de configuración
+     * @return Fuente del archivo
+     */
+    public static FuenteConfiguracion abrir(Path archivo) {
+        return INSTANCIAS.computeIfAbsent(archivo.toAbsolutePath().normalize(), FuenteConfiguracion::new);
+    }
+
+    /**
+     * Obtiene la configuración publicada. Solo la primera llamada lee el
+     * archivo e inicia la vigilancia.
+     *
+     * @return Configuración actual
+     */
+    public InstantaneaConfiguracion getActual() {
+        InstantaneaConfiguracion configuracion = actual;
+        return configuracion != null ? configuracion : inicializar();
+    }
+
+    /**
+     * Publica una configuración sin guardarla en el archivo.
+     *
+     * @param configuracion Configuración a publicar
+     */
+    public void publicar(InstantaneaConfiguracion configuracion) {
+        if (configuracion != null) {
+            actual = configuracion;
+        }
+    }
+
+    /**
+     * Guarda una configuración en el archivo y la publica. El archivo se
+     * escribe en un temporal que lo reemplaza de forma atómica, para que la
+     * vigilancia nunca lea un archivo escrito a medias: como las propiedades
+     * que faltan toman su valor predeterminado, leerlo así publicaría los
+     * valores predeterminados en lugar de los guardados.
+     *
+     * @param configuracion Configuración a guardar
+     * @throws IOException Si hay error de E/S
+     * @throws IllegalArgumentException Si la configuración no es válida
+     */
+    public synchronized void guardar(ConfiguracionJuego configuracion) throws IOException {
+        InstantaneaConfiguracion instantanea = new InstantaneaConfiguracion(configuracion);
+
+        Properties props = new Properties();
+        props.setProperty("maxJugadoresPorEquipo", String.valueOf(instantanea.getMaxJugadoresPorEquipo()));
+        props.setProperty("maxEquiposPorPartida", String.valueOf(instantanea.getMaxEquiposPorPartida()));
+        props.setProperty("maxRondasPorPartida", String.valueOf(instantanea.getMaxRondasPorPartida()));
+        props.setProperty("puntosParaGanar", String.valueOf(instantanea.getPuntosParaGanar()));
+        props.setProperty("puntosPorAcierto", String.valueOf(instantanea.getPuntosPorAcierto()));
+        props.setProperty("puntosPorIntento", String.valueOf(instantanea.getPuntosPorIntento()));
+        props.setProperty("tiempoLimitePorRonda", String.valueOf(instantanea.getTiempoLimitePorRonda()));
+        props.setProperty("distanciaArgolla", String.valueOf(instantanea.getDistanciaArgolla()));
+        props.setProperty("dificultad", String.valueOf(instantanea.getDificultad()));
+        props.setProperty("sonidoHabilitado", String.valueOf(instantanea.isSonidoHabilitado()));
+        props.setProperty("efectosVisualesHabilitados", String.valueOf(instantanea.isEfectosVisualesHabilitados()));
+        props.setProperty("tamanoCacheRegistros", String.valueOf(instantanea.getTamanoCacheRegistros()));
+        props.setProperty("latenciaMaximaEscritura", String.valueOf(instantanea.getLatenciaMaximaEscritura()));
+
+        Files.createDirectories(archivo.getParent());
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try {
+            try (OutputStream salida = Files.newOutputStream(temporal)) {
+                props.store(salida, "Configuración del Juego de la Argolla");
+            }
+            Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        actual = instantanea;
+    }
+
+    /**
+     * Obtiene el número de veces que se leyó el archivo.
+     *
+     * @return Lecturas del archivo
+     */
+    public int getLecturas() {
+        return lecturas;
+    }
+
+    /**
+     * Detiene la vigilancia del archivo. La configuración publicada se
+     * conserva, pero los cambios posteriores del archivo ya no se leen.
+     */
+    public synchronized void cerrar() {
+        if (vigilante != null) {
+            try {
+                vigilante.close();
+            } catch (IOException e) {
+                // Se ignora el error al cerrar
+            }
+            vigilante = null;
+        }
+    }
+
+    /**
+     * Lee el archivo e inicia la vigilancia si ningún otro hilo lo hizo antes.
+     *
+     * @return Configuración publicada
+     */
+    private synchronized InstantaneaConfiguracion inicializar() {
+        if (actual != null) {
+            return actual;
+        }
+
+        InstantaneaConfiguracion leida = leer();
+        actual = leida != null ? leida : new InstantaneaConfiguracion(new ConfiguracionJuego());
+        iniciarVigilancia();
+        return actual;
+    }
+
+    /**
+     * Lee el archivo de configuración. Las propiedades que faltan toman su
+     * valor predeterminado.
+     *
+     * @return Configuración leída, predeterminada si el archivo no existe,
+     *         o null si el archivo no se pudo leer o no es válido
+     */
+    private InstantaneaConfiguracion leer() {
+        lecturas++;
+        if (!Files.exists(archivo)) {
+            return new InstantaneaConfiguracion(new ConfiguracionJuego());
+        }
+
+        try {
+            Properties props = new Properties();
+            try (InputStream entrada = Files.newInputStream(archivo)) {
+                props.load(entrada);
+            }
+
+            ConfiguracionJuego configuracion = new ConfiguracionJuego();
+            configuracion.setMaxJugadoresPorEquipo(Integer.parseInt(props.getProperty("maxJugadoresPorEquipo", "4").trim()));
+            configuracion.setMaxEquiposPorPartida(Integer.parseInt(props.getProperty("maxEquiposPorPartida", "4").trim()));
+            configuracion.setMaxRondasPorPartida(Integer.parseInt(props.getProperty("maxRondasPorPartida", "10").trim()));
+            configuracion.setPuntosParaGanar(Integer.parseInt(props.getProperty("puntosParaGanar", "100").trim()));
+            configuracion.setPuntosPorAcierto(Integer.parseInt(props.getProperty("puntosPorAcierto", "10").trim()));
+            configuracion.setPuntosPorIntento(Integer.parseInt(props.getProperty("puntosPorIntento", "1").trim()));
+            configuracion.setTiempoLimitePorRonda(Integer.parseInt(props.getProperty("tiempoLimitePorRonda", "60").trim()));
+            configuracion.setDistanciaArgolla(Double.parseDouble(props.getProperty("distanciaArgolla", "2.5").trim()));
+            configuracion.setDificultad(Integer.parseInt(props.getProperty("dificultad", "3").trim()));
+            configuracion.setSonidoHabilitado(Boolean.parseBoolean(props.getProperty("sonidoHabilitado", "true").trim()));
+            configuracion.setEfectosVisualesHabilitados(Boolean.parseBoolean(props.getProperty("efectosVisualesHabilitados", "true").trim()));
+            configuracion.setTamanoCacheRegistros(Integer.parseInt(props.getProperty("tamanoCacheRegistros", "1024").trim()));
+            configuracion.setLatenciaMaximaEscritura(Integer.parseInt(props.getProperty("latenciaMaximaEscritura", "200").trim()));
+
+            return configuracion.esValida() ? new InstantaneaConfiguracion(configuracion) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Inicia el hilo que vigila el directorio del archivo. Si no se puede
+     * vigilar, la configuración simplemente no se recarga.
+     */
+    private void iniciarVigilancia() {
+        try {
+            Files.createDirectories(archivo.getParent());
+            WatchService servicio = archivo.getFileSystem().newWatchService();
+            archivo.getParent().register(servicio, StandardWatchEventKinds.ENTRY_CREATE,
+                                         StandardWatchEventKinds.ENTRY_MODIFY);
+            vigilante = servicio;
+
+            Thread hilo = new Thread(() -> vigilar(servicio), "configuracion-argolla");
+            hilo.setDaemon(true);
+            hilo.start();
+        } catch (IOException e) {
+            // Sin vigilancia, la configuración se mantiene hasta reiniciar
+        }
+    }
+
+    /**
+     * Espera eventos del directorio y vuelve a leer el archivo cuando
+     * cambia, hasta que el servicio se cierre.
+     *
+     * @param servicio Servicio de vigilancia
+     */
+    private void vigilar(WatchService servicio) {
+        String nombre = archivo.getFileName().toString();
+        try {
+            while (true) {
+                WatchKey clave = servicio.take();
+                boolean cambio = false;
+                for (WatchEvent<?> evento : clave.pollEvents()) {
+                    cambio |= evento.kind() == StandardWatchEventKinds.OVERFLOW
+                              || nombre.equals(String.valueOf(evento.context()));
+                }
+                clave.reset();
+                if (cambio) {
+                    recargar(servicio);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // La fuente se cerró
+        }
+    }
+
+    /**
+     * Vuelve a leer el archivo y publica la configuración si es válida.
+     *
+     * @param servicio Servicio que detectó el cambio
+     */
+    private synchronized void recargar(WatchService servicio) {
+        if (servicio != vigilante) {
+            return;
+        }
+
+        InstantaneaConfiguracion leida = leer();
+        if (leida != null) {
+            actual = leida;
+        }
+    }
+}
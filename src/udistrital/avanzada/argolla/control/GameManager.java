@@ -3,9 +3,12 @@ package udistrital.avanzada.argolla.control;
 import udistrital.avanzada.argolla.modelo.*;
 import udistrital.avanzada.argolla.control.PersistenciaManager;
 import udistrital.avanzada.argolla.control.ArchivoAccesoAleatorio;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controlador principal del juego que orquesta el flujo general.
@@ -32,11 +35,17 @@ public class GameManager implements IControladorJuego {
     /** Gestor de archivos de acceso aleatorio */
     private ArchivoAccesoAleatorio archivoAccesoAleatorio;
     
-    /** Partida actual */
-    private Partida partidaActual;
+    /** Cola de escritura en segundo plano hacia los archivos de acceso aleatorio */
+    private EscrituraDiferida escrituraDiferida;
     
-    /** Configuración del juego */
-    private ConfiguracionJuego configuracion;
+    /** Operaciones de guardado y carga de partidas en hilos virtuales */
+    private OperacionesAsincronas operacionesAsincronas;
+    
+    /** Partida actual, que también asignan las cargas asíncronas */
+    private volatile Partida partidaActual;
+    
+    /** Fuente de la configuración del juego, que se recarga cuando cambia su archivo */
+    private FuenteConfiguracion fuenteConfiguracion;
     
     /**
      * Constructor del GameManager.
@@ -47,12 +56,21 @@ public class GameManager implements IControladorJuego {
         this.gestorJugadores = new GestorJugadores();
         this.gestorPartidas = new GestorPartidas();
         this.persistenciaManager = new PersistenciaManager();
-        this.archivoAccesoAleatorio = new ArchivoAccesoAleatorio();
-        this.configuracion = new ConfiguracionJuego();
+        this.fuenteConfiguracion = persistenciaManager.getFuenteConfiguracion();
+        this.archivoAccesoAleatorio = new ArchivoAccesoAleatorio(
+            ArchivoAccesoAleatorio.DIRECTORIO_DATOS,
+            fuenteConfiguracion.getActual().getTamanoCacheRegistros()
+        );
+        this.escrituraDiferida = new EscrituraDiferida(
+            archivoAccesoAleatorio,
+            fuenteConfiguracion.getActual().getLatenciaMaximaEscritura()
+        );
+        this.operacionesAsincronas = new OperacionesAsincronas();
         this.partidaActual = null;
         
         // Cargar datos guardados al inicializar
         cargarDatosGuardados();
+        archivoAccesoAleatorio.iniciarCompactacionAutomatica(1, TimeUnit.MINUTES);
     }
     
     @Override
@@ -61,7 +79,7 @@ public class GameManager implements IControladorJuego {
             return false;
         }
         
-        this.configuracion = configuracion;
+        fuenteConfiguracion.publicar(new InstantaneaConfiguracion(configuracion));
         String idPartida = UUID.randomUUID().toString();
         
         this.partidaActual = new Partida(
@@ -109,7 +127,7 @@ public class GameManager implements IControladorJuego {
             return false;
         }
         
-        if (partidaActual.getNumeroEquipos() >= configuracion.getMaxEquiposPorPartida()) {
+        if (partidaActual.getNumeroEquipos() >= fuenteConfiguracion.getActual().getMaxEquiposPorPartida()) {
             return false;
         }
         
@@ -131,7 +149,7 @@ public class GameManager implements IControladorJuego {
             return false;
         }
         
-        if (equipo.getNumeroJugadores() >= configuracion.getMaxJugadoresPorEquipo()) {
+        if (equipo.getNumeroJugadores() >= fuenteConfiguracion.getActual().getMaxJugadoresPorEquipo()) {
             return false;
         }
         
@@ -182,9 +200,9 @@ public class GameManager implements IControladorJuego {
         int puntosObtenidos = 0;
         if (esAcierto) {
             jugador.incrementarAciertos();
-            puntosObtenidos = configuracion.getPuntosPorAcierto();
+            puntosObtenidos = fuenteConfiguracion.getActual().getPuntosPorAcierto();
         } else {
-            puntosObtenidos = configuracion.getPuntosPorIntento();
+            puntosObtenidos = fuenteConfiguracion.getActual().getPuntosPorIntento();
         }
         
         jugador.agregarPuntos(puntosObtenidos);
@@ -234,13 +252,13 @@ public class GameManager implements IControladorJuego {
     
     @Override
     public ConfiguracionJuego getConfiguracion() {
-        return configuracion;
+        return fuenteConfiguracion.getActual().aConfiguracion();
     }
     
     @Override
     public void setConfiguracion(ConfiguracionJuego configuracion) {
         if (configuracion != null && configuracion.esValida()) {
-            this.configuracion = configuracion;
+            fuenteConfiguracion.publicar(new InstantaneaConfiguracion(configuracion));
         }
     }
     
@@ -311,12 +329,73 @@ public class GameManager implements IControladorJuego {
         
         return false;
     }
+    
+    @Override
+    public CompletableFuture<Boolean> guardarPartidaAsincrona() {
+        if (partidaActual == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        // Se copia en este hilo: la partida actual puede cambiar mientras se guarda
+        Partida copia = persistenciaManager.copiarPartida(partidaActual);
+        if (copia == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        return operacionesAsincronas.ejecutar("guardarPartida", () -> persistenciaManager.guardarPartida(copia));
+    }
+    
+    @Override
+    public CompletableFuture<Partida> cargarPartidaAsincrona(String idPartida) {
+        if (idPartida == null || idPartida.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        return operacionesAsincronas.ejecutar("cargarPartida", () -> persistenciaManager.cargarPartida(idPartida),
+            partidaCargada -> {
+                if (partidaCargada != null) {
+                    this.partidaActual = partidaCargada;
+                }
+            });
+    }
 
     @Override
     public List<String> listarPartidasGuardadas() {
         return persistenciaManager.obtenerIdsPartidasGuardadas();
     }
-    
+
+    @Override
+    public List<ResumenPartida> consultarPartidasGuardadas(int pagina, int tamanoPagina) {
+        return persistenciaManager.consultarPartidasGuardadas(CatalogoPartidas.Orden.FECHA_INICIO, true,
+                                                              pagina, tamanoPagina);
+    }
+
+    @Override
+    public boolean exportarDatos(String rutaPaquete) {
+        if (rutaPaquete == null || rutaPaquete.trim().isEmpty()) {
+            return false;
+        }
+
+        try {
+            // Escribir los cambios pendientes y copiar sin otros escritores
+            escrituraDiferida.vaciar().join();
+            return archivoAccesoAleatorio.conDatosSincronizados(
+                    () -> persistenciaManager.exportarDatos(Paths.get(rutaPaquete)), false);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean importarDatos(String rutaPaquete, String directorio) {
+        if (rutaPaquete == null || rutaPaquete.trim().isEmpty()
+                || directorio == null || directorio.trim().isEmpty()) {
+            return false;
+        }
+
+        return persistenciaManager.importarDatos(Paths.get(rutaPaquete), Paths.get(directorio));
+    }
+
     /**
      * Verifica si algún equipo ha alcanzado la condición de victoria.
      */
@@ -326,7 +405,7 @@ public class GameManager implements IControladorJuego {
         }
         
         for (Equipo equipo : partidaActual.getEquipos()) {
-            if (equipo.getPuntuacionTotal() >= configuracion.getPuntosParaGanar()) {
+            if (equipo.getPuntuacionTotal() >= fuenteConfiguracion.getActual().getPuntosParaGanar()) {
                 partidaActual.finalizarPartida();
                 break;
             }
@@ -366,19 +445,11 @@ public class GameManager implements IControladorJuego {
      */
     private void cargarDatosGuardados() {
         try {
-            // Cargar equipos
-            List<Equipo> equiposCargados = archivoAccesoAleatorio.cargarEquipos();
-            for (Equipo equipo : equiposCargados) {
-                gestorEquipos.agregarEquipo(equipo);
-            }
-            
-            // Cargar jugadores y asociarlos a sus equipos
-            List<Jugador> jugadoresCargados = archivoAccesoAleatorio.cargarJugadores();
-            for (Jugador jugador : jugadoresCargados) {
-                // Buscar el equipo correspondiente (se necesita implementar método para obtener equipo por nombre)
-                // Por ahora, agregamos el jugador al gestor de jugadores
-                gestorJugadores.agregarJugador(jugador);
-            }
+            // Cargar equipos con sus jugadores ya asociados en un solo recorrido
+            List<Jugador> jugadoresCargados = new ArrayList<>();
+            List<Equipo> equiposCargados = archivoAccesoAleatorio.cargarEquiposConJugadores(jugadoresCargados);
+            gestorEquipos.agregarEquipos(equiposCargados);
+            gestorJugadores.agregarJugadores(jugadoresCargados);
         } catch (Exception e) {
             // En caso de error, continuar sin datos cargados
         }
@@ -391,32 +462,37 @@ public class GameManager implements IControladorJuego {
      * @return true si se guardaron exitosamente, false en caso contrario
      */
     public boolean guardarDatosCompletos() {
-        boolean exito = true;
-        
         try {
-            // Limpiar archivos existentes
-            archivoAccesoAleatorio.limpiarDatos();
-            
-            // Guardar equipos
-            List<Equipo> equipos = gestorEquipos.obtenerTodosLosEquipos();
-            for (Equipo equipo : equipos) {
-                if (!archivoAccesoAleatorio.guardarEquipo(equipo)) {
-                    exito = false;
-                }
-                
-                // Guardar jugadores del equipo
-                List<Jugador> jugadores = equipo.getJugadores();
-                for (Jugador jugador : jugadores) {
-                    if (!archivoAccesoAleatorio.guardarJugador(jugador, equipo.getNombre())) {
-                        exito = false;
-                    }
-                }
-            }
+            // Guardar solo los registros modificados a través del diario de escritura
+            CompletableFuture<Boolean> guardado = guardarDatosEnSegundoPlano();
+            escrituraDiferida.vaciar();
+            return guardado.join();
         } catch (Exception e) {
-            exito = false;
+            return false;
         }
-        
-        return exito;
+    }
+    
+    /**
+     * Solicita guardar los datos actuales sin esperar al disco. Los equipos
+     * y jugadores modificados se copian en el hilo que llama y se escriben
+     * en el hilo escritor; los guardados seguidos se combinan en uno.
+     * 
+     * @return Futuro que se completa con true cuando los datos quedaron guardados
+     */
+    public CompletableFuture<Boolean> guardarDatosEnSegundoPlano() {
+        return escrituraDiferida.guardarCambios(gestorEquipos.obtenerTodosLosEquipos());
+    }
+    
+    /**
+     * Libera los archivos de datos que el GameManager mantiene abiertos,
+     * escribiendo antes los guardados pendientes. Debe llamarse al terminar
+     * la aplicación.
+     */
+    public void cerrar() {
+        operacionesAsincronas.cerrar();
+        escrituraDiferida.cerrar();
+        archivoAccesoAleatorio.cerrar();
+        persistenciaManager.cerrar();
     }
     
     /**
@@ -427,4 +503,22 @@ public class GameManager implements IControladorJuego {
     public ArchivoAccesoAleatorio getArchivoAccesoAleatorio() {
         return archivoAccesoAleatorio;
     }
+    
+    /**
+     * Obtiene la cola de escritura en segundo plano.
+     * 
+     * @return Cola de escritura diferida
+     */
+    public EscrituraDiferida getEscrituraDiferida() {
+        return escrituraDiferida;
+    }
+    
+    /**
+     * Obtiene el ejecutor de las operaciones asíncronas, con sus tiempos.
+     * 
+     * @return Ejecutor de operaciones asíncronas
+     */
+    public OperacionesAsincronas getOperacionesAsincronas() {
+        return operacionesAsincronas;
+    }
 }
@@ -2,7 +2,9 @@ package udistrital.avanzada.argolla.control;
 
 import udistrital.avanzada.argolla.modelo.Equipo;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Gestor especializado para la administración de equipos.
@@ -64,6 +66,30 @@ public class GestorEquipos {
         return true;
     }
     
+    /**
+     * Agrega varios equipos de una vez, omitiendo los nulos y los repetidos.
+     * Usa un conjunto para detectar repetidos, por lo que el costo es lineal
+     * aun con listas grandes.
+     * 
+     * @param nuevos Equipos a agregar
+     * @return Número de equipos agregados
+     */
+    public int agregarEquipos(List<Equipo> nuevos) {
+        if (nuevos == null) {
+            return 0;
+        }
+        
+        Set<Equipo> existentes = new HashSet<>(equipos);
+        int agregados = 0;
+        for (Equipo equipo : nuevos) {
+            if (equipo != null && existentes.add(equipo)) {
+                equipos.add(equipo);
+                agregados++;
+            }
+        }
+        return agregados;
+    }
+    
     /**
      * Remueve un equipo de la lista de equipos.
      * 
@@ -2,7 +2,9 @@ package udistrital.avanzada.argolla.control;
 
 import udistrital.avanzada.argolla.modelo.Jugador;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Gestor especializado para la administración de jugadores.
@@ -59,6 +61,30 @@ public class GestorJugadores {
         return true;
     }
     
+    /**
+     * Agrega varios jugadores de una vez, omitiendo los nulos y los repetidos.
+     * Usa un conjunto para detectar repetidos, por lo que el costo es lineal
+     * aun con listas grandes.
+     * 
+     * @param nuevos Jugadores a agregar
+     * @return Número de jugadores agregados
+     */
+    public int agregarJugadores(List<Jugador> nuevos) {
+        if (nuevos == null) {
+            return 0;
+        }
+        
+        Set<Jugador> existentes = new HashSet<>(jugadores);
+        int agregados = 0;
+        for (Jugador jugador : nuevos) {
+            if (jugador != null && existentes.add(jugador)) {
+                jugadores.add(jugador);
+                agregados++;
+            }
+        }
+        return agregados;
+    }
+    
     /**
      * Remueve un jugador de la lista de jugadores.
      * 
@@ -4,7 +4,9 @@ import udistrital.avanzada.argolla.modelo.Equipo;
 import udistrital.avanzada.argolla.modelo.Jugador;
 import udistrital.avanzada.argolla.modelo.Partida;
 import udistrital.avanzada.argolla.modelo.ConfiguracionJuego;
+import udistrital.avanzada.argolla.modelo.ResumenPartida;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.List;
 
 /**
@@ -114,14 +116,16 @@ public interface IControladorJuego {
     Equipo getEquipoGanador();
     
     /**
-     * Obtiene la configuración actual del juego.
+     * Obtiene una copia editable de la configuración actual del juego.
+     * Modificarla no cambia el juego hasta pasarla a {@link #setConfiguracion}.
      * 
      * @return Configuración del juego
      */
     ConfiguracionJuego getConfiguracion();
     
     /**
-     * Establece la configuración del juego.
+     * Establece la configuración del juego, si es válida. Se usa hasta que
+     * se establezca otra o cambie el archivo de configuración.
      * 
      * @param configuracion Nueva configuración
      */
@@ -163,13 +167,61 @@ public interface IControladorJuego {
      */
     boolean cargarPartida(String idPartida);
 
+    /**
+     * Guarda la partida actual sin bloquear al llamador. Se guarda el estado
+     * de la partida al momento de la llamada, aunque luego siga cambiando.
+     * Cancelar el futuro no deshace un guardado que ya empezó.
+     * 
+     * @return Futuro que se completa con true si se guardó exitosamente
+     */
+    CompletableFuture<Boolean> guardarPartidaAsincrona();
+
+    /**
+     * Carga una partida guardada sin bloquear al llamador. La partida pasa
+     * a ser la actual antes de completarse el futuro; si el futuro se
+     * cancela antes, la partida actual no cambia.
+     * 
+     * @param idPartida ID de la partida a cargar
+     * @return Futuro con la partida cargada, o null si no se pudo cargar
+     */
+    CompletableFuture<Partida> cargarPartidaAsincrona(String idPartida);
+
     /**
      * Lista los IDs de partidas guardadas disponibles.
      * 
      * @return Lista de IDs de partidas guardadas
      */
     List<String> listarPartidasGuardadas();
-    
+
+    /**
+     * Consulta una página de resúmenes de partidas guardadas, de la más
+     * reciente a la más antigua, sin cargar las partidas.
+     * 
+     * @param pagina Número de página, desde 0
+     * @param tamanoPagina Resúmenes por página
+     * @return Resúmenes de la página, vacía si no hay más
+     */
+    List<ResumenPartida> consultarPartidasGuardadas(int pagina, int tamanoPagina);
+
+    /**
+     * Exporta todos los datos guardados a un único archivo de paquete, con
+     * los cambios pendientes ya escritos.
+     *
+     * @param rutaPaquete Ruta del paquete a crear
+     * @return true si se exportó exitosamente, false en caso contrario
+     */
+    boolean exportarDatos(String rutaPaquete);
+
+    /**
+     * Restaura un paquete exportado en un directorio vacío o inexistente.
+     * El paquete se verifica completo antes de crear el directorio.
+     *
+     * @param rutaPaquete Ruta del paquete
+     * @param directorio Directorio donde restaurar los datos
+     * @return true si se importó exitosamente, false en caso contrario
+     */
+    boolean importarDatos(String rutaPaquete, String directorio);
+
     /**
      * Crea un nuevo equipo.
      * 
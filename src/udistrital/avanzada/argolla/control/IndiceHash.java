@@ -0,0 +1,323 @@
+package udistrital.avanzada.argolla.control;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntPredicate;
+
+/**
+ * Índice en disco que asocia el nombre de un registro con su ranura.
+ * Implementa el principio de responsabilidad única (SRP) al encargarse
+ * únicamente de localizar registros por nombre sin recorrer el archivo.
+ *
+ * Es una tabla hash de direccionamiento abierto (sondeo lineal) proyectada
+ * en memoria. Cada entrada guarda el hash del nombre y la ranura; los nombres
+ * no se copian al índice, por lo que quien busca confirma la coincidencia
+ * leyendo el registro candidato.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class IndiceHash {
+
+    /** Número mágico que identifica los archivos de índice ("ARGI") */
+    private static final int NUMERO_MAGICO = 0x41524749;
+
+    /** Tamaño de la cabecera: número mágico, capacidad, ocupadas y borradas */
+    private static final int TAMANO_CABECERA = 16;
+
+    /** Tamaño de cada entrada: hash y ranura + 1 */
+    private static final int TAMANO_ENTRADA = 8;
+
+    /** Capacidad inicial de la tabla (potencia de dos) */
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    /** Valor de ranura de una entrada vacía */
+    private static final int ENTRADA_VACIA = 0;
+
+    /** Valor de ranura de una entrada borrada */
+    private static final int ENTRADA_BORRADA = -1;
+
+    private static final int POS_CAPACIDAD = 4;
+    private static final int POS_OCUPADAS = 8;
+    private static final int POS_BORRADAS = 12;
+
+    /** Bytes en cero para vaciar la tabla */
+    private static final byte[] RELLENO = new byte[8192];
+
+    /** Archivo físico del índice */
+    private final File archivo;
+
+    /** Canal del archivo, abierto mientras el índice esté en uso */
+    private FileChannel canal;
+
+    /** Proyección en memoria del índice */
+    private MappedByteBuffer mapa;
+
+    /** Capacidad actual de la tabla */
+    private int capacidad;
+
+    /**
+     * Constructor del índice.
+     *
+     * @param ruta Ruta del archivo de índice
+     */
+    public IndiceHash(String ruta) {
+        this.archivo = new File(ruta);
+    }
+
+    /**
+     * Indica si el índice no tiene entradas o su archivo no existe.
+     *
+     * @return true si el índice está vacío
+     * @throws IOException Si hay error de E/S
+     */
+    public boolean estaVacio() throws IOException {
+        if (canal == null && !archivo.exists()) {
+            return true;
+        }
+        abrir();
+        return mapa.getInt(POS_OCUPADAS) == 0;
+    }
+
+    /**
+     * Busca la ranura asociada a una clave.
+     *
+     * @param clave Nombre a buscar
+     * @param coincide Confirma si el registro de una ranura candidata
+     *                 corresponde realmente a la clave
+     * @return Ranura encontrada, -1 si no existe
+     * @throws IOException Si hay error de E/S
+     */
+    public int buscar(String clave, IntPredicate coincide) throws IOException {
+        abrir();
+        int hash = calcularHash(clave);
+        int tamanoTabla = capacidad;
+        // El sondeo se acota a la capacidad por si un lector concurrente ve la tabla a medio cambiar
+        for (int i = hash & (tamanoTabla - 1), sondeos = 0; sondeos < tamanoTabla;
+                i = (i + 1) & (tamanoTabla - 1), sondeos++) {
+            int valor = mapa.getInt(posicionEntrada(i) + 4);
+            if (valor == ENTRADA_VACIA) {
+                return -1;
+            }
+            if (valor != ENTRADA_BORRADA && mapa.getInt(posicionEntrada(i)) == hash
+                    && coincide.test(valor - 1)) {
+                return valor - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Agrega una entrada al índice.
+     *
+     * @param clave Nombre del registro
+     * @param ranura Ranura del registro
+     * @throws IOException Si hay error de E/S
+     */
+    public void insertar(String clave, int ranura) throws IOException {
+        abrir();
+        int ocupadas = mapa.getInt(POS_OCUPADAS);
+        int borradas = mapa.getInt(POS_BORRADAS);
+        if ((ocupadas + borradas + 1) * 4L > capacidad * 3L) {
+            redimensionar(ocupadas * 2 >= capacidad ? capacidad * 2 : capacidad);
+        }
+        colocar(calcularHash(clave), ranura + 1);
+        mapa.putInt(POS_OCUPADAS, mapa.getInt(POS_OCUPADAS) + 1);
+    }
+
+    /**
+     * Elimina la entrada de una clave y ranura.
+     *
+     * @param clave Nombre del registro
+     * @param ranura Ranura del registro
+     * @return true si la entrada existía
+     * @throws IOException Si hay error de E/S
+     */
+    public boolean eliminar(String clave, int ranura) throws IOException {
+        abrir();
+        int hash = calcularHash(clave);
+        for (int i = hash & (capacidad - 1); ; i = (i + 1) & (capacidad - 1)) {
+            int posicion = posicionEntrada(i);
+            int valor = mapa.getInt(posicion + 4);
+            if (valor == ENTRADA_VACIA) {
+                return false;
+            }
+            if (valor == ranura + 1 && mapa.getInt(posicion) == hash) {
+                mapa.putInt(posicion + 4, ENTRADA_BORRADA);
+                mapa.putInt(POS_OCUPADAS, mapa.getInt(POS_OCUPADAS) - 1);
+                mapa.putInt(POS_BORRADAS, mapa.getInt(POS_BORRADAS) + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Elimina todas las entradas del índice.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    public void vaciar() throws IOException {
+        abrir();
+        inicializar(CAPACIDAD_INICIAL);
+    }
+
+    /**
+     * Fuerza la escritura a disco de las páginas modificadas.
+     */
+    public void sincronizar() {
+        if (mapa != null) {
+            mapa.force();
+        }
+    }
+
+    /**
+     * Sincroniza y cierra el índice.
+     */
+    public synchronized void cerrar() {
+        sincronizar();
+        mapa = null;
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                // Se ignora el error al cerrar
+            }
+            canal = null;
+        }
+    }
+
+    /**
+     * Vuelve a abrir el índice para ver los cambios de otro proceso, sin
+     * forzar a disco las páginas proyectadas.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    public synchronized void reabrir() throws IOException {
+        mapa = null;
+        if (canal != null) {
+            canal.close();
+            canal = null;
+        }
+        abrir();
+    }
+
+    /**
+     * Abre y proyecta el índice si aún no está abierto. Está sincronizado
+     * porque un lector concurrente puede provocar la apertura.
+     *
+     * @throws IOException Si hay error de E/S
+     */
+    private synchronized void abrir() throws IOException {
+        if (canal != null) {
+            return;
+        }
+
+        canal = FileChannel.open(archivo.toPath(), StandardOpenOption.CREATE,
+                                 StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long longitud = canal.size();
+            if (longitud >= TAMANO_CABECERA) {
+                mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, longitud);
+                capacidad = mapa.getInt(POS_CAPACIDAD);
+                if (mapa.getInt(0) == NUMERO_MAGICO && capacidad > 0 && Integer.bitCount(capacidad) == 1
+                        && longitud >= posicionEntrada(capacidad)) {
+                    return;
+                }
+            }
+            // Índice inexistente o inválido: se crea vacío
+            inicializar(CAPACIDAD_INICIAL);
+        } catch (IOException e) {
+            cerrar();
+            throw e;
+        }
+    }
+
+    /**
+     * Reemplaza el contenido por una tabla vacía de la capacidad indicada.
+     * El archivo no se trunca (no se puede truncar un archivo proyectado en
+     * todos los sistemas), solo se ponen en cero las entradas.
+     *
+     * @param nuevaCapacidad Capacidad de la tabla (potencia de dos)
+     * @throws IOException Si hay error de E/S
+     */
+    private void inicializar(int nuevaCapacidad) throws IOException {
+        int tamano = posicionEntrada(nuevaCapacidad);
+        if (mapa == null || mapa.capacity() < tamano) {
+            mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamano);
+        }
+        for (int posicion = 0; posicion < tamano; posicion += RELLENO.length) {
+            mapa.put(posicion, RELLENO, 0, Math.min(RELLENO.length, tamano - posicion));
+        }
+        mapa.putInt(0, NUMERO_MAGICO);
+        mapa.putInt(POS_CAPACIDAD, nuevaCapacidad);
+        mapa.putInt(POS_OCUPADAS, 0);
+        mapa.putInt(POS_BORRADAS, 0);
+        capacidad = nuevaCapacidad;
+    }
+
+    /**
+     * Reconstruye la tabla con otra capacidad descartando las entradas borradas.
+     *
+     * @param nuevaCapacidad Nueva capacidad (potencia de dos)
+     * @throws IOException Si hay error de E/S
+     */
+    private void redimensionar(int nuevaCapacidad) throws IOException {
+        int ocupadas = mapa.getInt(POS_OCUPADAS);
+        int[] hashes = new int[ocupadas];
+        int[] valores = new int[ocupadas];
+        int n = 0;
+        for (int i = 0; i < capacidad; i++) {
+            int valor = mapa.getInt(posicionEntrada(i) + 4);
+            if (valor != ENTRADA_VACIA && valor != ENTRADA_BORRADA) {
+                hashes[n] = mapa.getInt(posicionEntrada(i));
+                valores[n] = valor;
+                n++;
+            }
+        }
+
+        inicializar(nuevaCapacidad);
+        for (int i = 0; i < n; i++) {
+            colocar(hashes[i], valores[i]);
+        }
+        mapa.putInt(POS_OCUPADAS, n);
+    }
+
+    /**
+     * Escribe una entrada en la primera posición vacía o borrada de su secuencia.
+     *
+     * @param hash Hash de la clave
+     * @param valor Ranura + 1
+     */
+    private void colocar(int hash, int valor) {
+        for (int i = hash & (capacidad - 1); ; i = (i + 1) & (capacidad - 1)) {
+            int posicion = posicionEntrada(i);
+            int actual = mapa.getInt(posicion + 4);
+            if (actual == ENTRADA_VACIA || actual == ENTRADA_BORRADA) {
+                if (actual == ENTRADA_BORRADA) {
+                    mapa.putInt(POS_BORRADAS, mapa.getInt(POS_BORRADAS) - 1);
+                }
+                mapa.putInt(posicion, hash);
+                mapa.putInt(posicion + 4, valor);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Calcula el hash de una clave dispersando los bits de {@link String#hashCode()}.
+     *
+     * @param clave Clave
+     * @return Hash dispersado
+     */
+    private static int calcularHash(String clave) {
+        int h = clave.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int posicionEntrada(int indice) {
+        return TAMANO_CABECERA + indice * TAMANO_ENTRADA;
+    }
+}
@@ -0,0 +1,157 @@
+package udistrital.avanzada.argolla.control;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índice secundario en memoria que asocia el nombre de un equipo con las
+ * ranuras de sus jugadores en el archivo de jugadores.
+ * Implementa el principio de responsabilidad única (SRP) al encargarse
+ * únicamente de responder qué jugadores pertenecen a un equipo.
+ *
+ * Se construye recorriendo una sola vez el archivo de jugadores y después
+ * se mantiene con cada escritura. Guarda además el equipo de cada ranura,
+ * de modo que cambiar a un jugador de equipo no requiere leer su registro.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class IndiceJugadoresPorEquipo {
+
+    /** Ranuras vacías */
+    private static final int[] SIN_RANURAS = new int[0];
+
+    /** Ranuras de jugadores por nombre de equipo */
+    private final Map<String, ListaRanuras> ranurasPorEquipo;
+
+    /** Nombre del equipo de cada ranura, null si la ranura no está indexada */
+    private String[] equipoPorRanura;
+
+    /** Indica si el índice refleja el contenido del archivo */
+    private boolean construido;
+
+    /**
+     * Constructor del índice. El índice se crea sin construir.
+     */
+    public IndiceJugadoresPorEquipo() {
+        this.ranurasPorEquipo = new HashMap<>();
+        this.equipoPorRanura = new String[0];
+        this.construido = false;
+    }
+
+    /**
+     * Indica si el índice ya fue construido a partir del archivo.
+     *
+     * @return true si está construido
+     */
+    public boolean estaConstruido() {
+        return construido;
+    }
+
+    /**
+     * Vacía el índice y lo marca como construido, listo para recibir
+     * las ranuras de un recorrido del archivo.
+     *
+     * @param numeroRanuras Número de ranuras del archivo, para reservar espacio
+     */
+    public void iniciar(int numeroRanuras) {
+        ranurasPorEquipo.clear();
+        equipoPorRanura = new String[Math.max(numeroRanuras, 16)];
+        construido = true;
+    }
+
+    /**
+     * Descarta el contenido del índice; deberá construirse de nuevo antes de usarse.
+     */
+    public void invalidar() {
+        ranurasPorEquipo.clear();
+        equipoPorRanura = new String[0];
+        construido = false;
+    }
+
+    /**
+     * Asigna una ranura de jugador a un equipo, quitándola del equipo anterior
+     * si lo tenía. No hace nada si el índice no está construido.
+     *
+     * @param ranura Ranura del jugador
+     * @param nombreEquipo Nombre del equipo (null equivale a sin equipo)
+     */
+    public void asignar(int ranura, String nombreEquipo) {
+        if (!construido) {
+            return;
+        }
+
+        String equipo = nombreEquipo != null ? nombreEquipo : "";
+        if (ranura >= equipoPorRanura.length) {
+            equipoPorRanura = Arrays.copyOf(equipoPorRanura, Math.max(ranura + 1, equipoPorRanura.length * 2));
+        }
+
+        String anterior = equipoPorRanura[ranura];
+        if (equipo.equals(anterior)) {
+            return;
+        }
+        if (anterior != null) {
+            quitar(ranura);
+        }
+        equipoPorRanura[ranura] = equipo;
+        ranurasPorEquipo.computeIfAbsent(equipo, clave -> new ListaRanuras()).agregar(ranura);
+    }
+
+    /**
+     * Quita una ranura del índice. No hace nada si el índice no está construido.
+     *
+     * @param ranura Ranura liberada
+     */
+    public void quitar(int ranura) {
+        if (!construido || ranura < 0 || ranura >= equipoPorRanura.length || equipoPorRanura[ranura] == null) {
+            return;
+        }
+
+        String equipo = equipoPorRanura[ranura];
+        ListaRanuras ranuras = ranurasPorEquipo.get(equipo);
+        ranuras.quitar(ranura);
+        if (ranuras.tamano == 0) {
+            ranurasPorEquipo.remove(equipo);
+        }
+        equipoPorRanura[ranura] = null;
+    }
+
+    /**
+     * Obtiene las ranuras de los jugadores de un equipo en orden de inserción.
+     *
+     * @param nombreEquipo Nombre del equipo
+     * @return Copia de las ranuras, vacía si el equipo no tiene jugadores
+     */
+    public int[] obtenerRanuras(String nombreEquipo) {
+        ListaRanuras ranuras = ranurasPorEquipo.get(nombreEquipo);
+        return ranuras == null ? SIN_RANURAS : Arrays.copyOf(ranuras.valores, ranuras.tamano);
+    }
+
+    /**
+     * Lista creciente de ranuras sin conversión a Integer.
+     */
+    private static class ListaRanuras {
+
+        private int[] valores = new int[4];
+
+        private int tamano;
+
+        private void agregar(int ranura) {
+            if (tamano == valores.length) {
+                valores = Arrays.copyOf(valores, tamano * 2);
+            }
+            valores[tamano++] = ranura;
+        }
+
+        private void quitar(int ranura) {
+            for (int i = 0; i < tamano; i++) {
+                if (valores[i] == ranura) {
+                    System.arraycopy(valores, i + 1, valores, i, tamano - i - 1);
+                    tamano--;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package udistrital.avanzada.argolla.control;
 
-import udistrital.avanzada.argolla.modelo.ConfiguracionJuego;
-import udistrital.avanzada.argolla.control.PersistenciaManager;
 import udistrital.avanzada.argolla.vista.VistaPrincipal;
 
 /**
@@ -25,28 +23,20 @@ public class JuegoDeLaArgolla {
      */
     public void inicializar() {
         try {
-            // 1. Crear el gestor de persistencia
-            PersistenciaManager persistenciaManager = new PersistenciaManager();
+            // 1. Crear el controlador principal (GameManager), que carga la
+            //    configuración guardada o la predeterminada, y liberar sus
+            //    archivos de datos al terminar la aplicación
+            GameManager gameManager = new GameManager();
+            Runtime.getRuntime().addShutdownHook(new Thread(gameManager::cerrar));
+            IControladorJuego controlador = gameManager;
             
-            // 2. Crear el controlador principal (GameManager)
-            IControladorJuego controlador = new GameManager();
-            
-            // 3. Cargar la configuración guardada o usar la predeterminada
-            ConfiguracionJuego configuracion = persistenciaManager.cargarConfiguracion();
-            if (configuracion == null) {
-                configuracion = new ConfiguracionJuego();
-            }
-            
-            // 4. Establecer la configuración en el controlador
-            controlador.setConfiguracion(configuracion);
-            
-            // 5. Crear la vista principal e inyectar el controlador (DIP)
+            // 2. Crear la vista principal e inyectar el controlador (DIP)
             VistaPrincipal vistaPrincipal = new VistaPrincipal(controlador);
             
-            // 6. Hacer visible la aplicación
+            // 3. Hacer visible la aplicación
             vistaPrincipal.setVisible(true);
             
-            // 7. Mostrar mensaje de bienvenida
+            // 4. Mostrar mensaje de bienvenida
             vistaPrincipal.mostrarMensaje("¡Bienvenido al Juego de la Argolla!\n\n" +
                                         "Para comenzar:\n" +
                                         "1. Configure el juego si lo desea\n" +
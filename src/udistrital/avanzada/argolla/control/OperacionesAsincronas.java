@@ -0,0 +1,234 @@
+package udistrital.avanzada.argolla.control;
+
+import java.util.LinkedHashMap;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Ejecutor de operaciones de guardado y carga en hilos virtuales.
+ * Implementa el principio de responsabilidad única (SRP) al encargarse
+ * únicamente de sacar del hilo que llama las operaciones que esperan al
+ * disco y de medir cuánto tardan.
+ *
+ * Cada operación corre en su propio hilo virtual y devuelve un
+ * {@link CompletableFuture}. Cancelar el futuro evita que la operación
+ * empiece si aún no lo hizo y descarta su resultado si ya está corriendo:
+ * la acción de término no se ejecuta. El hilo no se interrumpe, porque una
+ * interrupción durante la E/S cerraría los canales compartidos de los
+ * archivos de datos. Por eso una operación cancelada puede seguir
+ * escribiendo; {@link #finalizacion(CompletableFuture)} indica cuándo su
+ * hilo terminó de verdad.
+ *
+ * El tiempo de cada operación terminada se acumula por nombre, en
+ * nanosegundos, y se consulta con {@link #getTiempos()}.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class OperacionesAsincronas {
+
+    /** Segundos que se esperan las operaciones en curso al cerrar */
+    private static final long ESPERA_CIERRE_SEGUNDOS = 10;
+
+    /** Ejecutor con un hilo virtual por operación */
+    private final ExecutorService ejecutor;
+
+    /** Tiempos de las operaciones terminadas, por nombre */
+    private final Map<String, LongSummaryStatistics> tiempos;
+
+    /** Operaciones canceladas */
+    private final LongAdder canceladas;
+
+    /**
+     * Futuro de una operación cuya acción de término se ejecuta solo si
+     * no fue cancelada antes.
+     *
+     * @param <T> Tipo del resultado
+     */
+    private static final class Operacion<T> extends CompletableFuture<T> {
+
+        /** Indica si el resultado ya se aplicó y no se puede cancelar */
+        private boolean aplicada;
+
+        /** Se completa cuando la tarea terminó de correr o ya no va a correr */
+        private final CompletableFuture<Void> finalizada = new CompletableFuture<>();
+
+        @Override
+        public synchronized boolean cancel(boolean interrumpir) {
+            return !aplicada && super.cancel(false);
+        }
+
+        /**
+         * Ejecuta la acción de término y completa el futuro, salvo que
+         * haya sido cancelado antes.
+         *
+         * @param valor Resultado de la operación
+         * @param alTerminar Acción de término, puede ser null
+         */
+        private void terminar(T valor, Consumer<? super T> alTerminar) {
+            synchronized (this) {
+                if (isDone()) {
+                    return;
+                }
+                if (alTerminar != null) {
+                    alTerminar.accept(valor);
+                }
+                aplicada = true;
+            }
+            complete(valor);
+        }
+    }
+
+    /**
+     * Constructor que crea el ejecutor de hilos virtuales.
+     */
+    public OperacionesAsincronas() {
+        this(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("operacion-argolla-", 0).factory()));
+    }
+
+    /**
+     * Constructor con un ejecutor dado, para controlar cuándo empiezan las
+     * operaciones.
+     *
+     * @param ejecutor Ejecutor de las operaciones
+     */
+    OperacionesAsincronas(ExecutorService ejecutor) {
+        this.ejecutor = ejecutor;
+        this.tiempos = new LinkedHashMap<>();
+        this.canceladas = new LongAdder();
+    }
+
+    /**
+     * Ejecuta una operación en un hilo virtual.
+     *
+     * @param <T> Tipo del resultado
+     * @param nombre Nombre con que se acumula el tiempo de la operación
+     * @param tarea Operación a ejecutar
+     * @return Futuro con el resultado de la operación
+     */
+    public <T> CompletableFuture<T> ejecutar(String nombre, Callable<T> tarea) {
+        return ejecutar(nombre, tarea, null);
+    }
+
+    /**
+     * Ejecuta una operación en un hilo virtual y, si no fue cancelada,
+     * aplica su resultado con una acción de término antes de completar el
+     * futuro. Así, quien espere el futuro ya ve el resultado aplicado.
+     *
+     * @param <T> Tipo del resultado
+     * @param nombre Nombre con que se acumula el tiempo de la operación
+     * @param tarea Operación a ejecutar
+     * @param alTerminar Acción que aplica el resultado, puede ser null
+     * @return Futuro con el resultado de la operación
+     */
+    public <T> CompletableFuture<T> ejecutar(String nombre, Callable<T> tarea, Consumer<? super T> alTerminar) {
+        Operacion<T> operacion = new Operacion<>();
+        operacion.whenComplete((valor, error) -> {
+            if (operacion.isCancelled()) {
+                canceladas.increment();
+            }
+        });
+
+        try {
+            ejecutor.execute(() -> {
+                try {
+                    if (operacion.isDone()) {
+                        return;
+                    }
+
+                    long inicio = System.nanoTime();
+                    try {
+                        operacion.terminar(tarea.call(), alTerminar);
+                    } catch (Exception e) {
+                        operacion.completeExceptionally(e);
+                    } finally {
+                        registrarTiempo(nombre, System.nanoTime() - inicio);
+                    }
+                } finally {
+                    operacion.finalizada.complete(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            operacion.completeExceptionally(e);
+            operacion.finalizada.complete(null);
+        }
+        return operacion;
+    }
+
+    /**
+     * Obtiene un futuro que se completa cuando el hilo de una operación
+     * terminó de correr. A diferencia del futuro de la operación, que se
+     * completa en cuanto se cancela, este espera a que la tarea termine si
+     * ya había empezado, por ejemplo para no iniciar otro guardado encima.
+     *
+     * @param operacion Futuro devuelto por {@link #ejecutar(String, Callable)}
+     *                  o por otro método que no corre en un hilo de este ejecutor
+     * @return Futuro que se completa al terminar la tarea, nunca con error
+     */
+    public static CompletableFuture<Void> finalizacion(CompletableFuture<?> operacion) {
+        if (operacion instanceof Operacion) {
+            return ((Operacion<?>) operacion).finalizada;
+        }
+        return operacion.handle((valor, error) -> null);
+    }
+
+    /**
+     * Acumula el tiempo de una operación terminada.
+     *
+     * @param nombre Nombre de la operación
+     * @param nanosegundos Duración de la operación
+     */
+    private void registrarTiempo(String nombre, long nanosegundos) {
+        synchronized (tiempos) {
+            tiempos.computeIfAbsent(nombre, clave -> new LongSummaryStatistics()).accept(nanosegundos);
+        }
+    }
+
+    /**
+     * Obtiene una copia de los tiempos acumulados por operación, en
+     * nanosegundos: cantidad, mínimo, máximo, promedio y total.
+     *
+     * @return Tiempos por nombre de operación
+     */
+    public Map<String, LongSummaryStatistics> getTiempos() {
+        Map<String, LongSummaryStatistics> copia = new LinkedHashMap<>();
+        synchronized (tiempos) {
+            for (Map.Entry<String, LongSummaryStatistics> entrada : tiempos.entrySet()) {
+                LongSummaryStatistics estadisticas = new LongSummaryStatistics();
+                estadisticas.combine(entrada.getValue());
+                copia.put(entrada.getKey(), estadisticas);
+            }
+        }
+        return copia;
+    }
+
+    /**
+     * Obtiene el número de operaciones canceladas.
+     *
+     * @return Operaciones canceladas
+     */
+    public long getCanceladas() {
+        return canceladas.sum();
+    }
+
+    /**
+     * Deja de aceptar operaciones y espera a que terminen las que están en
+     * curso, para que no queden escrituras a medias al cerrar los archivos.
+     */
+    public void cerrar() {
+        ejecutor.shutdown();
+        try {
+            ejecutor.awaitTermination(ESPERA_CIERRE_SEGUNDOS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
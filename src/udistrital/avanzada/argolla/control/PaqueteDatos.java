@@ -0,0 +1,492 @@
+package udistrital.avanzada.argolla.control;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Paquete de un solo archivo con todo el directorio de datos, para
+ * respaldarlo o moverlo a otra máquina. Implementa el principio de
+ * responsabilidad única (SRP) al encargarse únicamente de empaquetar y
+ * restaurar los archivos de datos, sin interpretar su contenido.
+ *
+ * Formato del paquete:
+ * <pre>
+ *   4 bytes              número mágico "ARGB"
+ *   int                  versión del formato
+ *   int                  longitud del manifiesto
+ *   manifiesto:
+ *     int                  número de entradas, y por cada una:
+ *       u2 longitud + UTF-8  ruta relativa, separada por '/'
+ *       long                 longitud del contenido
+ *       int                  CRC32C del contenido
+ *   int                  CRC32C del manifiesto
+ *   byte[]               contenido de cada entrada, en el orden del manifiesto
+ * </pre>
+ *
+ * Los contenidos se copian con {@link FileChannel#transferTo} y
+ * {@link FileChannel#transferFrom}, que dejan la copia al sistema operativo
+ * sin pasar los bytes por el montón de Java. Los CRC se calculan sobre
+ * proyecciones en memoria de los archivos, por tramos, con la instrucción
+ * CRC32C del procesador cuando existe. Como el manifiesto va al inicio, el
+ * paquete se puede restaurar leyéndolo en orden desde cualquier canal, por
+ * ejemplo la salida de otro proceso o una conexión de red.
+ *
+ * La restauración escribe en un directorio temporal junto al destino,
+ * verifica el CRC de cada archivo y solo al final lo renombra al destino,
+ * que no debe existir o debe estar vacío. Si algo falla, el destino no se
+ * toca y el directorio temporal se elimina.
+ *
+ * El paquete incluye todos los archivos del directorio y sus
+ * subdirectorios salvo el archivo de bloqueo y los temporales. Quien
+ * exporta debe impedir escrituras mientras dura la exportación; si un
+ * archivo cambia a la mitad, su CRC no coincide y la restauración falla en
+ * lugar de producir datos inconsistentes.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class PaqueteDatos {
+
+    /** Número mágico al inicio de un paquete */
+    private static final int MAGICO = 0x41524742;
+
+    /** Versión actual del formato */
+    public static final int VERSION_FORMATO = 1;
+
+    /** Bytes que se proyectan en memoria a la vez para calcular un CRC */
+    private static final long TRAMO_PROYECCION = 64L * 1024 * 1024;
+
+    /** Archivo de bloqueo entre procesos, que no se exporta */
+    private static final String ARCHIVO_BLOQUEO = "bloqueo.lck";
+
+    /** Extensión de los archivos temporales, que no se exportan */
+    private static final String EXTENSION_TEMPORAL = ".tmp";
+
+    /** Sufijo del directorio temporal de una restauración */
+    private static final String SUFIJO_RESTAURACION = ".restaurando";
+
+    /** Longitud máxima aceptada del manifiesto al restaurar */
+    private static final int MANIFIESTO_MAXIMO = 16 * 1024 * 1024;
+
+    /**
+     * Archivo incluido en el paquete.
+     */
+    private static final class Entrada {
+
+        /** Ruta relativa, separada por '/' */
+        private final String ruta;
+
+        /** Longitud del contenido */
+        private final long longitud;
+
+        /** CRC32C del contenido */
+        private final int crc;
+
+        private Entrada(String ruta, long longitud, int crc) {
+            this.ruta = ruta;
+            this.longitud = longitud;
+            this.crc = crc;
+        }
+    }
+
+    /**
+     * Exporta un directorio de datos a un archivo de paquete, reemplazándolo
+     * si existe.
+     *
+     * @param directorio Directorio de datos
+     * @param paquete Archivo de paquete a escribir
+     * @return Bytes escritos en el paquete
+     * @throws IOException Si hay error de E/S
+     */
+    public long exportar(Path directorio, Path paquete) throws IOException {
+        Path temporal = paquete.resolveSibling(paquete.getFileName() + EXTENSION_TEMPORAL);
+        try {
+            long escritos;
+            try (FileChannel destino = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                escritos = exportar(directorio, destino);
+                destino.force(true);
+            }
+            Files.move(temporal, paquete, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return escritos;
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Exporta un directorio de datos a un canal, por ejemplo una conexión.
+     *
+     * @param directorio Directorio de datos
+     * @param destino Canal donde se escribe el paquete
+     * @return Bytes escritos
+     * @throws IOException Si hay error de E/S
+     */
+    public long exportar(Path directorio, WritableByteChannel destino) throws IOException {
+        List<Path> archivos = listarArchivos(directorio);
+        List<FileChannel> canales = new ArrayList<>();
+        try {
+            List<Entrada> entradas = new ArrayList<>();
+            for (Path archivo : archivos) {
+                FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+                canales.add(canal);
+                long longitud = canal.size();
+                entradas.add(new Entrada(rutaRelativa(directorio, archivo), longitud, calcularCrc(canal, longitud)));
+            }
+
+            byte[] manifiesto = codificarManifiesto(entradas);
+            ByteBuffer cabecera = ByteBuffer.allocate(12 + manifiesto.length + 4);
+            cabecera.putInt(MAGICO).putInt(VERSION_FORMATO).putInt(manifiesto.length).put(manifiesto);
+            cabecera.putInt(calcularCrc(manifiesto));
+            cabecera.flip();
+            long escritos = cabecera.remaining();
+            while (cabecera.hasRemaining()) {
+                destino.write(cabecera);
+            }
+
+            for (int i = 0; i < entradas.size(); i++) {
+                transferirDesde(canales.get(i), entradas.get(i).longitud, destino);
+                escritos += entradas.get(i).longitud;
+            }
+            return escritos;
+        } finally {
+            for (FileChannel canal : canales) {
+                canal.close();
+            }
+        }
+    }
+
+    /**
+     * Restaura un archivo de paquete en un directorio nuevo.
+     *
+     * @param paquete Archivo de paquete
+     * @param directorio Directorio de destino, que no debe existir o debe estar vacío
+     * @return Número de archivos restaurados
+     * @throws IOException Si hay error de E/S, el paquete está dañado o el destino no está vacío
+     */
+    public int importar(Path paquete, Path directorio) throws IOException {
+        try (FileChannel origen = FileChannel.open(paquete, StandardOpenOption.READ)) {
+            return importar(origen, directorio);
+        }
+    }
+
+    /**
+     * Restaura un paquete leído en orden desde un canal en un directorio nuevo.
+     *
+     * @param origen Canal desde donde se lee el paquete
+     * @param directorio Directorio de destino, que no debe existir o debe estar vacío
+     * @return Número de archivos restaurados
+     * @throws IOException Si hay error de E/S, el paquete está dañado o el destino no está vacío
+     */
+    public int importar(ReadableByteChannel origen, Path directorio) throws IOException {
+        verificarDestinoVacio(directorio);
+        Path temporal = directorio.resolveSibling(directorio.getFileName() + SUFIJO_RESTAURACION);
+        eliminarDirectorio(temporal);
+        Files.createDirectories(temporal);
+
+        try {
+            List<Entrada> entradas = leerManifiesto(origen);
+            for (Entrada entrada : entradas) {
+                Path archivo = resolverRuta(temporal, entrada.ruta);
+                Files.createDirectories(archivo.getParent());
+                try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE_NEW,
+                                                          StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    transferirHacia(origen, canal, entrada.longitud);
+                    if (calcularCrc(canal, entrada.longitud) != entrada.crc) {
+                        throw new IOException("Archivo dañado en el paquete: " + entrada.ruta);
+                    }
+                    canal.force(true);
+                }
+            }
+
+            Files.deleteIfExists(directorio);
+            Files.move(temporal, directorio, StandardCopyOption.ATOMIC_MOVE);
+            return entradas.size();
+        } finally {
+            eliminarDirectorio(temporal);
+        }
+    }
+
+    /**
+     * Lista los archivos del directorio de datos que se exportan, en un
+     * orden estable.
+     *
+     * @param directorio Directorio de datos
+     * @return Archivos a exportar
+     * @throws IOException Si hay error de E/S
+     */
+    private List<Path> listarArchivos(Path directorio) throws IOException {
+        List<Path> archivos = new ArrayList<>();
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            rutas.filter(Files::isRegularFile)
+                 .filter(ruta -> !ruta.getFileName().toString().equals(ARCHIVO_BLOQUEO))
+                 .filter(ruta -> !ruta.getFileName().toString().endsWith(EXTENSION_TEMPORAL))
+                 .sorted()
+                 .forEach(archivos::add);
+        }
+        return archivos;
+    }
+
+    /**
+     * Codifica el manifiesto de un paquete.
+     *
+     * @param entradas Entradas del paquete
+     * @return Bytes del manifiesto
+     * @throws IOException Si una ruta es demasiado larga
+     */
+    private byte[] codificarManifiesto(List<Entrada> entradas) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            salida.writeInt(entradas.size());
+            for (Entrada entrada : entradas) {
+                byte[] ruta = entrada.ruta.getBytes(StandardCharsets.UTF_8);
+                if (ruta.length > 0xFFFF) {
+                    throw new IOException("Ruta demasiado larga: " + entrada.ruta);
+                }
+                salida.writeShort(ruta.length);
+                salida.write(ruta);
+                salida.writeLong(entrada.longitud);
+                salida.writeInt(entrada.crc);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Lee y verifica la cabecera y el manifiesto de un paquete.
+     *
+     * @param origen Canal posicionado al inicio del paquete
+     * @return Entradas del paquete
+     * @throws IOException Si hay error de E/S o el manifiesto no es válido
+     */
+    private List<Entrada> leerManifiesto(ReadableByteChannel origen) throws IOException {
+        ByteBuffer cabecera = leerCompleto(origen, 12);
+        if (cabecera.getInt() != MAGICO) {
+            throw new IOException("No es un paquete de datos");
+        }
+        int version = cabecera.getInt();
+        if (version != VERSION_FORMATO) {
+            throw new IOException("Versión de paquete no soportada: " + version);
+        }
+        int longitud = cabecera.getInt();
+        if (longitud < 4 || longitud > MANIFIESTO_MAXIMO) {
+            throw new IOException("Longitud de manifiesto inválida: " + longitud);
+        }
+
+        ByteBuffer manifiesto = leerCompleto(origen, longitud + 4);
+        if (calcularCrc(manifiesto.array(), longitud) != manifiesto.getInt(longitud)) {
+            throw new IOException("Manifiesto del paquete dañado");
+        }
+        manifiesto.limit(longitud);
+
+        List<Entrada> entradas = new ArrayList<>();
+        try {
+            int numero = manifiesto.getInt();
+            for (int i = 0; i < numero; i++) {
+                byte[] ruta = new byte[manifiesto.getShort() & 0xFFFF];
+                manifiesto.get(ruta);
+                long tamano = manifiesto.getLong();
+                if (tamano < 0) {
+                    throw new IOException("Longitud de archivo inválida en el paquete");
+                }
+                entradas.add(new Entrada(new String(ruta, StandardCharsets.UTF_8), tamano, manifiesto.getInt()));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Manifiesto del paquete incompleto", e);
+        }
+        return entradas;
+    }
+
+    /**
+     * Copia bytes de un archivo a un canal con {@link FileChannel#transferTo}.
+     *
+     * @param origen Archivo de origen
+     * @param longitud Bytes a copiar desde el inicio
+     * @param destino Canal de destino
+     * @throws IOException Si hay error de E/S o el archivo se acortó
+     */
+    private void transferirDesde(FileChannel origen, long longitud, WritableByteChannel destino) throws IOException {
+        long posicion = 0;
+        while (posicion < longitud) {
+            long transferidos = origen.transferTo(posicion, longitud - posicion, destino);
+            if (transferidos <= 0 && posicion >= origen.size()) {
+                throw new IOException("El archivo se acortó durante la exportación");
+            }
+            posicion += transferidos;
+        }
+    }
+
+    /**
+     * Copia bytes de un canal a un archivo con {@link FileChannel#transferFrom}.
+     *
+     * @param origen Canal de origen, leído en orden
+     * @param destino Archivo de destino
+     * @param longitud Bytes a copiar
+     * @throws IOException Si hay error de E/S o el paquete termina antes
+     */
+    private void transferirHacia(ReadableByteChannel origen, FileChannel destino, long longitud) throws IOException {
+        long posicion = 0;
+        while (posicion < longitud) {
+            long transferidos = destino.transferFrom(origen, posicion, longitud - posicion);
+            if (transferidos <= 0) {
+                throw new IOException("Paquete incompleto");
+            }
+            posicion += transferidos;
+        }
+    }
+
+    /**
+     * Lee una cantidad exacta de bytes de un canal.
+     *
+     * @param origen Canal de origen
+     * @param longitud Bytes a leer
+     * @return Buffer con los bytes, posicionado al inicio
+     * @throws IOException Si el canal termina antes
+     */
+    private ByteBuffer leerCompleto(ReadableByteChannel origen, int longitud) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(longitud);
+        while (buffer.hasRemaining()) {
+            if (origen.read(buffer) < 0) {
+                throw new IOException("Paquete incompleto");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Calcula el CRC32C de los primeros bytes de un archivo proyectándolo en
+     * memoria por tramos, sin copiarlo al montón de Java.
+     *
+     * @param canal Archivo
+     * @param longitud Bytes desde el inicio
+     * @return CRC calculado
+     * @throws IOException Si hay error de E/S
+     */
+    private int calcularCrc(FileChannel canal, long longitud) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (long posicion = 0; posicion < longitud; posicion += TRAMO_PROYECCION) {
+            MappedByteBuffer tramo = canal.map(FileChannel.MapMode.READ_ONLY, posicion,
+                                               Math.min(TRAMO_PROYECCION, longitud - posicion));
+            crc.update(tramo);
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Calcula el CRC32C de un arreglo completo.
+     *
+     * @param datos Arreglo de bytes
+     * @return CRC calculado
+     */
+    private int calcularCrc(byte[] datos) {
+        return calcularCrc(datos, datos.length);
+    }
+
+    /**
+     * Calcula el CRC32C de los primeros bytes de un arreglo.
+     *
+     * @param datos Arreglo de bytes
+     * @param longitud Número de bytes
+     * @return CRC calculado
+     */
+    private int calcularCrc(byte[] datos, int longitud) {
+        CRC32C crc = new CRC32C();
+        crc.update(datos, 0, longitud);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Obtiene la ruta de un archivo relativa al directorio de datos, separada por '/'.
+     *
+     * @param directorio Directorio de datos
+     * @param archivo Archivo dentro del directorio
+     * @return Ruta relativa
+     */
+    private String rutaRelativa(Path directorio, Path archivo) {
+        List<String> partes = new ArrayList<>();
+        for (Path parte : directorio.relativize(archivo)) {
+            partes.add(parte.toString());
+        }
+        return String.join("/", partes);
+    }
+
+    /**
+     * Resuelve una ruta del manifiesto dentro de un directorio, rechazando
+     * las que saldrían de él.
+     *
+     * @param directorio Directorio de destino
+     * @param ruta Ruta relativa del manifiesto
+     * @return Ruta del archivo dentro del directorio
+     * @throws IOException Si la ruta no es válida
+     */
+    private Path resolverRuta(Path directorio, String ruta) throws IOException {
+        Path base = directorio.toAbsolutePath().normalize();
+        Path archivo = base;
+        for (String parte : ruta.split("/")) {
+            if (parte.isEmpty() || parte.equals(".") || parte.equals("..")) {
+                throw new IOException("Ruta inválida en el paquete: " + ruta);
+            }
+            archivo = archivo.resolve(parte);
+        }
+        archivo = archivo.normalize();
+        if (!archivo.startsWith(base) || archivo.equals(base)) {
+            throw new IOException("Ruta inválida en el paquete: " + ruta);
+        }
+        return archivo;
+    }
+
+    /**
+     * Verifica que el directorio de destino no exista o esté vacío.
+     *
+     * @param directorio Directorio de destino
+     * @throws IOException Si el destino existe y no es un directorio vacío
+     */
+    private void verificarDestinoVacio(Path directorio) throws IOException {
+        if (!Files.exists(directorio)) {
+            return;
+        }
+        if (!Files.isDirectory(directorio)) {
+            throw new IOException("El destino no es un directorio: " + directorio);
+        }
+        try (DirectoryStream<Path> contenido = Files.newDirectoryStream(directorio)) {
+            if (contenido.iterator().hasNext()) {
+                throw new IOException("El directorio de destino no está vacío: " + directorio);
+            }
+        }
+    }
+
+    /**
+     * Elimina recursivamente un directorio, si existe.
+     *
+     * @param directorio Directorio a eliminar
+     * @throws IOException Si hay error de E/S
+     */
+    private void eliminarDirectorio(Path directorio) throws IOException {
+        if (!Files.exists(directorio)) {
+            return;
+        }
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            for (Path ruta : (Iterable<Path>) rutas.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(ruta);
+            }
+        }
+    }
+}
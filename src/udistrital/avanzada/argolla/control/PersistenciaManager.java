@@ -5,7 +5,8 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Properties;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Gestor de persistencia para el manejo de archivos del juego.
@@ -29,11 +30,91 @@ public class PersistenciaManager {
     /** Directorio para estadísticas */
     private static final String DIRECTORIO_ESTADISTICAS = "estadisticas";
     
+    /** Instantáneas que se conservan para calcular deltas */
+    private static final int MAXIMO_INSTANTANEAS = 16;
+    
+    /**
+     * Últimas instantáneas guardadas o cargadas de las partidas usadas más
+     * recientemente, por directorio de partidas e id, para calcular los
+     * deltas. Las comparten todos
+     * los gestores del proceso, como el archivo de partidas, y se acceden
+     * con el monitor del archivo de partidas. Una partida sin instantánea
+     * conservada se guarda completa.
+     */
+    private static final Map<String, Instantanea> INSTANTANEAS = new MapaInstantaneas();
+    
+    /** Directorio base de los archivos de datos de este gestor */
+    private final Path directorioBase;
+    
+    /** Codificador binario de partidas */
+    private final CodificadorPartidas codificadorPartidas;
+    
+    /**
+     * Última instantánea guardada de una partida. Se decodifica la primera
+     * vez que un guardado la compara con la partida.
+     */
+    private static final class Instantanea {
+        
+        /** Bytes de la instantánea, tal como están en el archivo */
+        private final byte[] datos;
+        
+        /** Partida decodificada de la instantánea, null hasta que se necesita */
+        private Partida partida;
+        
+        private Instantanea(byte[] datos) {
+            this.datos = datos;
+        }
+        
+        /**
+         * Obtiene la partida de la instantánea, decodificándola si aún no se hizo.
+         * 
+         * @param codificador Codificador de partidas
+         * @return Partida de la instantánea
+         * @throws IOException Si los datos están dañados
+         */
+        private Partida getPartida(CodificadorPartidas codificador) throws IOException {
+            if (partida == null) {
+                partida = codificador.decodificar(datos);
+            }
+            return partida;
+        }
+    }
+    
+    /**
+     * Mapa de instantáneas en orden de uso que descarta la menos usada
+     * al superar {@link #MAXIMO_INSTANTANEAS}.
+     */
+    private static final class MapaInstantaneas extends LinkedHashMap<String, Instantanea> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private MapaInstantaneas() {
+            super(MAXIMO_INSTANTANEAS * 2, 0.75f, true);
+        }
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Instantanea> mayor) {
+            return size() > MAXIMO_INSTANTANEAS;
+        }
+    }
+    
     /**
      * Constructor del gestor de persistencia.
      * Crea los directorios necesarios si no existen.
      */
     public PersistenciaManager() {
+        this(Paths.get(DIRECTORIO_BASE));
+    }
+    
+    /**
+     * Constructor del gestor de persistencia sobre otro directorio de datos.
+     * Crea los directorios necesarios si no existen.
+     * 
+     * @param directorioBase Directorio base de los archivos de datos
+     */
+    PersistenciaManager(Path directorioBase) {
+        this.directorioBase = directorioBase;
+        this.codificadorPartidas = new CodificadorPartidas();
         crearDirectoriosNecesarios();
     }
     
@@ -42,9 +123,9 @@ public class PersistenciaManager {
      */
     private void crearDirectoriosNecesarios() {
         try {
-            Files.createDirectories(Paths.get(DIRECTORIO_BASE));
-            Files.createDirectories(Paths.get(DIRECTORIO_BASE, DIRECTORIO_PARTIDAS));
-            Files.createDirectories(Paths.get(DIRECTORIO_BASE, DIRECTORIO_ESTADISTICAS));
+            Files.createDirectories(directorioBase);
+            Files.createDirectories(directorioBase.resolve(DIRECTORIO_PARTIDAS));
+            Files.createDirectories(directorioBase.resolve(DIRECTORIO_ESTADISTICAS));
         } catch (IOException e) {
             // En caso de error, se continúa sin los directorios
             // El sistema intentará crearlos cuando sea necesario
@@ -52,35 +133,19 @@ public class PersistenciaManager {
     }
     
     /**
-     * Guarda la configuración del juego en un archivo properties.
+     * Guarda la configuración del juego en un archivo properties y la
+     * publica como configuración actual.
      * 
      * @param configuracion Configuración a guardar
      * @return true si se guardó exitosamente, false en caso contrario
      */
     public boolean guardarConfiguracion(ConfiguracionJuego configuracion) {
-        if (configuracion == null) {
+        if (configuracion == null || !configuracion.esValida()) {
             return false;
         }
         
         try {
-            Properties props = new Properties();
-            props.setProperty("maxJugadoresPorEquipo", String.valueOf(configuracion.getMaxJugadoresPorEquipo()));
-            props.setProperty("maxEquiposPorPartida", String.valueOf(configuracion.getMaxEquiposPorPartida()));
-            props.setProperty("maxRondasPorPartida", String.valueOf(configuracion.getMaxRondasPorPartida()));
-            props.setProperty("puntosParaGanar", String.valueOf(configuracion.getPuntosParaGanar()));
-            props.setProperty("puntosPorAcierto", String.valueOf(configuracion.getPuntosPorAcierto()));
-            props.setProperty("puntosPorIntento", String.valueOf(configuracion.getPuntosPorIntento()));
-            props.setProperty("tiempoLimitePorRonda", String.valueOf(configuracion.getTiempoLimitePorRonda()));
-            props.setProperty("distanciaArgolla", String.valueOf(configuracion.getDistanciaArgolla()));
-            props.setProperty("dificultad", String.valueOf(configuracion.getDificultad()));
-            props.setProperty("sonidoHabilitado", String.valueOf(configuracion.isSonidoHabilitado()));
-            props.setProperty("efectosVisualesHabilitados", String.valueOf(configuracion.isEfectosVisualesHabilitados()));
-            
-            Path archivoConfig = Paths.get(DIRECTORIO_BASE, ARCHIVO_CONFIGURACION);
-            try (FileOutputStream fos = new FileOutputStream(archivoConfig.toFile())) {
-                props.store(fos, "Configuración del Juego de la Argolla");
-            }
-            
+            getFuenteConfiguracion().guardar(configuracion);
             return true;
         } catch (IOException e) {
             return false;
@@ -88,43 +153,41 @@ public class PersistenciaManager {
     }
     
     /**
-     * Carga la configuración del juego desde un archivo properties.
+     * Obtiene una copia editable de la configuración actual. El archivo
+     * solo se lee la primera vez; después se copia la configuración
+     * publicada, que se recarga sola cuando el archivo cambia.
      * 
-     * @return Configuración cargada, null si no se pudo cargar
+     * @return Configuración actual, o la predeterminada si el archivo no existe o no es válido
      */
     public ConfiguracionJuego cargarConfiguracion() {
-        try {
-            Path archivoConfig = Paths.get(DIRECTORIO_BASE, ARCHIVO_CONFIGURACION);
-            if (!Files.exists(archivoConfig)) {
-                return new ConfiguracionJuego(); // Retorna configuración por defecto
-            }
-            
-            Properties props = new Properties();
-            try (FileInputStream fis = new FileInputStream(archivoConfig.toFile())) {
-                props.load(fis);
-            }
-            
-            ConfiguracionJuego configuracion = new ConfiguracionJuego();
-            configuracion.setMaxJugadoresPorEquipo(Integer.parseInt(props.getProperty("maxJugadoresPorEquipo", "4")));
-            configuracion.setMaxEquiposPorPartida(Integer.parseInt(props.getProperty("maxEquiposPorPartida", "4")));
-            configuracion.setMaxRondasPorPartida(Integer.parseInt(props.getProperty("maxRondasPorPartida", "10")));
-            configuracion.setPuntosParaGanar(Integer.parseInt(props.getProperty("puntosParaGanar", "100")));
-            configuracion.setPuntosPorAcierto(Integer.parseInt(props.getProperty("puntosPorAcierto", "10")));
-            configuracion.setPuntosPorIntento(Integer.parseInt(props.getProperty("puntosPorIntento", "1")));
-            configuracion.setTiempoLimitePorRonda(Integer.parseInt(props.getProperty("tiempoLimitePorRonda", "60")));
-            configuracion.setDistanciaArgolla(Double.parseDouble(props.getProperty("distanciaArgolla", "2.5")));
-            configuracion.setDificultad(Integer.parseInt(props.getProperty("dificultad", "3")));
-            configuracion.setSonidoHabilitado(Boolean.parseBoolean(props.getProperty("sonidoHabilitado", "true")));
-            configuracion.setEfectosVisualesHabilitados(Boolean.parseBoolean(props.getProperty("efectosVisualesHabilitados", "true")));
-            
-            return configuracion;
-        } catch (IOException | NumberFormatException e) {
-            return new ConfiguracionJuego(); // Retorna configuración por defecto en caso de error
-        }
+        return obtenerConfiguracion().aConfiguracion();
+    }
+    
+    /**
+     * Obtiene la configuración actual sin copiarla ni leer el archivo.
+     * 
+     * @return Configuración actual inmutable
+     */
+    public InstantaneaConfiguracion obtenerConfiguracion() {
+        return getFuenteConfiguracion().getActual();
+    }
+    
+    /**
+     * Obtiene la fuente de la configuración, compartida por todos los gestores del proceso.
+     * 
+     * @return Fuente de la configuración
+     */
+    public FuenteConfiguracion getFuenteConfiguracion() {
+        return FuenteConfiguracion.abrir(directorioBase.resolve(ARCHIVO_CONFIGURACION));
     }
     
     /**
-     * Guarda una partida en un archivo serializado.
+     * Guarda una partida en el archivo de partidas con el formato binario de
+     * {@link CodificadorPartidas}. Si desde la última instantánea solo
+     * cambiaron el estado, las rondas y las estadísticas de los jugadores,
+     * se guarda únicamente el delta de esos cambios; se guarda una
+     * instantánea completa cuando cambian los equipos o jugadores, o cuando
+     * el delta llega a la mitad del tamaño de la instantánea.
      * 
      * @param partida Partida a guardar
      * @return true si se guardó exitosamente, false en caso contrario
@@ -134,14 +197,27 @@ public class PersistenciaManager {
             return false;
         }
         
-        try {
-            String nombreArchivo = "partida_" + partida.getId() + ".dat";
-            Path archivoPartida = Paths.get(DIRECTORIO_BASE, DIRECTORIO_PARTIDAS, nombreArchivo);
-            
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(archivoPartida.toFile()))) {
-                oos.writeObject(partida);
+        String id = partida.getId();
+        ArchivoPartidas archivo = getArchivoPartidas();
+        synchronized (archivo) {
+            try {
+                Instantanea instantanea = INSTANTANEAS.get(claveInstantanea(id));
+                byte[] delta = instantanea == null ? null
+                               : codificadorPartidas.codificarDelta(instantanea.getPartida(codificadorPartidas), partida);
+                if (delta != null && delta.length * 2 <= instantanea.datos.length && archivo.contiene(id)) {
+                    archivo.guardarDelta(id, delta);
+                } else {
+                    byte[] datos = codificadorPartidas.codificar(partida);
+                    archivo.guardar(id, datos);
+                    INSTANTANEAS.put(claveInstantanea(id), new Instantanea(datos));
+                }
+            } catch (IOException e) {
+                INSTANTANEAS.remove(claveInstantanea(id));
+                return false;
             }
-            
+        }
+        try {
+            getCatalogoPartidas().registrar(new ResumenPartida(partida));
             return true;
         } catch (IOException e) {
             return false;
@@ -149,7 +225,29 @@ public class PersistenciaManager {
     }
     
     /**
-     * Carga una partida desde un archivo serializado.
+     * Copia una partida codificándola y decodificándola, para que otro hilo
+     * pueda guardarla mientras la original sigue cambiando. La copia tiene
+     * exactamente lo que se guardaría de la partida en este momento.
+     * 
+     * @param partida Partida a copiar
+     * @return Copia independiente de la partida, null si no se pudo copiar
+     */
+    public Partida copiarPartida(Partida partida) {
+        if (partida == null) {
+            return null;
+        }
+        
+        try {
+            return codificadorPartidas.decodificar(codificadorPartidas.codificar(partida));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Carga una partida leyendo su instantánea y, si tiene, aplicando su
+     * delta. Las partidas guardadas antes del formato binario, con
+     * serialización de Java, se siguen leyendo.
      * 
      * @param idPartida ID de la partida a cargar
      * @return Partida cargada, null si no se pudo cargar
@@ -159,18 +257,86 @@ public class PersistenciaManager {
             return null;
         }
         
+        ArchivoPartidas archivo = getArchivoPartidas();
         try {
-            String nombreArchivo = "partida_" + idPartida + ".dat";
-            Path archivoPartida = Paths.get(DIRECTORIO_BASE, DIRECTORIO_PARTIDAS, nombreArchivo);
-            
-            if (!Files.exists(archivoPartida)) {
+            byte[] datos;
+            byte[] delta;
+            synchronized (archivo) {
+                datos = archivo.leer(idPartida);
+                delta = archivo.leerDelta(idPartida);
+                // Con el monitor tomado, la instantánea es la que está en el archivo
+                if (datos != null && CodificadorPartidas.esFormatoBinario(datos)) {
+                    INSTANTANEAS.put(claveInstantanea(idPartida), new Instantanea(datos));
+                }
+            }
+            if (datos == null) {
                 return null;
             }
             
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(archivoPartida.toFile()))) {
+            if (CodificadorPartidas.esFormatoBinario(datos)) {
+                Partida partida = codificadorPartidas.decodificar(datos);
+                if (delta != null) {
+                    codificadorPartidas.aplicarDelta(partida, delta);
+                }
+                return partida;
+            }
+            
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(datos))) {
                 return (Partida) ois.readObject();
             }
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Carga solo la cabecera de una partida: su estado, fechas, rondas y
+     * los nombres y puntuaciones de sus equipos, con una lectura pequeña del
+     * inicio de la instantánea y otra de su delta si tiene. Los equipos y
+     * jugadores se cargan la primera vez que se usan. Las partidas guardadas
+     * en formatos sin cabecera se cargan completas.
+     * 
+     * @param idPartida ID de la partida a cargar
+     * @return Partida con sus equipos sin cargar, null si no se pudo cargar
+     */
+    public Partida cargarPartidaDiferida(String idPartida) {
+        if (idPartida == null || idPartida.trim().isEmpty()) {
+            return null;
+        }
+        
+        ArchivoPartidas archivo = getArchivoPartidas();
+        try {
+            byte[] inicio;
+            byte[] delta;
+            int longitud;
+            synchronized (archivo) {
+                inicio = archivo.leerInicio(idPartida, CodificadorPartidas.TAMANO_LECTURA_CABECERA);
+                if (inicio == null) {
+                    return null;
+                }
+                longitud = codificadorPartidas.longitudCabecera(inicio);
+                if (longitud > inicio.length) {
+                    inicio = archivo.leerInicio(idPartida, longitud);
+                }
+                delta = archivo.leerDelta(idPartida);
+            }
+            if (longitud < 0) {
+                return cargarPartida(idPartida);
+            }
+            
+            PartidaDiferida partida = codificadorPartidas.decodificarCabecera(inicio);
+            if (delta != null && !codificadorPartidas.aplicarDeltaCabecera(partida, delta)) {
+                return cargarPartida(idPartida);
+            }
+            partida.setCargador(() -> {
+                Partida completa = cargarPartida(idPartida);
+                if (completa == null) {
+                    throw new IOException("No se pudo cargar la partida " + idPartida);
+                }
+                return completa.getEquipos();
+            });
+            return partida;
+        } catch (IOException e) {
             return null;
         }
     }
@@ -186,51 +352,37 @@ public class PersistenciaManager {
             return false;
         }
         
+        ArchivoPartidas archivo = getArchivoPartidas();
         try {
-            String nombreArchivo = "partida_" + idPartida + ".dat";
-            Path archivoPartida = Paths.get(DIRECTORIO_BASE, DIRECTORIO_PARTIDAS, nombreArchivo);
-            
-            if (Files.exists(archivoPartida)) {
-                Files.delete(archivoPartida);
-                return true;
+            boolean eliminada;
+            synchronized (archivo) {
+                INSTANTANEAS.remove(claveInstantanea(idPartida));
+                eliminada = archivo.eliminar(idPartida);
             }
-            
-            return false;
+            getCatalogoPartidas().quitar(idPartida);
+            return eliminada;
         } catch (IOException e) {
             return false;
         }
     }
     
     /**
-     * Obtiene la lista de IDs de partidas guardadas.
+     * Obtiene la lista de IDs de partidas guardadas desde el índice en memoria.
      * 
      * @return Lista de IDs de partidas guardadas
      */
     public java.util.List<String> obtenerIdsPartidasGuardadas() {
-        java.util.List<String> ids = new java.util.ArrayList<>();
-        
         try {
-            Path directorioPartidas = Paths.get(DIRECTORIO_BASE, DIRECTORIO_PARTIDAS);
-            if (Files.exists(directorioPartidas)) {
-                Files.list(directorioPartidas)
-                     .filter(path -> path.toString().endsWith(".dat"))
-                     .forEach(path -> {
-                         String nombreArchivo = path.getFileName().toString();
-                         if (nombreArchivo.startsWith("partida_") && nombreArchivo.endsWith(".dat")) {
-                             String id = nombreArchivo.substring(8, nombreArchivo.length() - 4);
-                             ids.add(id);
-                         }
-                     });
-            }
+            return getArchivoPartidas().getIds();
         } catch (IOException e) {
             // En caso de error, retorna lista vacía
+            return new java.util.ArrayList<>();
         }
-        
-        return ids;
     }
     
     /**
-     * Guarda estadísticas del juego en un archivo.
+     * Agrega estadísticas del juego al registro de estadísticas, con la
+     * fecha actual. El costo no depende de cuántas estadísticas haya.
      * 
      * @param estadisticas Estadísticas a guardar
      * @return true si se guardó exitosamente, false en caso contrario
@@ -241,11 +393,7 @@ public class PersistenciaManager {
         }
         
         try {
-            String nombreArchivo = "estadisticas_" + System.currentTimeMillis() + ".txt";
-            Path archivoEstadisticas = Paths.get(DIRECTORIO_BASE, DIRECTORIO_ESTADISTICAS, nombreArchivo);
-            
-            Files.write(archivoEstadisticas, estadisticas.getBytes("UTF-8"));
-            
+            getArchivoEstadisticas().agregar(estadisticas);
             return true;
         } catch (IOException e) {
             return false;
@@ -253,48 +401,61 @@ public class PersistenciaManager {
     }
     
     /**
-     * Carga estadísticas desde un archivo.
+     * Carga las estadísticas guardadas dentro de un rango de fechas.
      * 
-     * @param nombreArchivo Nombre del archivo de estadísticas
+     * @param desde Fecha inicial, incluida, o null para no limitar
+     * @param hasta Fecha final, incluida, o null para no limitar
+     * @return Estadísticas del rango en orden de fecha, vacía si hay error
+     */
+    public java.util.List<EntradaEstadisticas> cargarEstadisticas(java.time.LocalDateTime desde,
+                                                                 java.time.LocalDateTime hasta) {
+        try {
+            return getArchivoEstadisticas().leer(desde != null ? aMarca(desde) : Long.MIN_VALUE,
+                                                 hasta != null ? aMarca(hasta) : Long.MAX_VALUE);
+        } catch (IOException e) {
+            // En caso de error, retorna lista vacía
+            return new java.util.ArrayList<>();
+        }
+    }
+    
+    /**
+     * Carga las estadísticas identificadas por un nombre de
+     * {@link #obtenerArchivosEstadisticas()}.
+     * 
+     * @param nombreArchivo Nombre de las estadísticas
      * @return Estadísticas cargadas, null si no se pudo cargar
+     * @deprecated Las estadísticas ya no se guardan en archivos sueltos; usar
+     *             {@link #cargarEstadisticas(java.time.LocalDateTime, java.time.LocalDateTime)}
      */
+    @Deprecated
     public String cargarEstadisticas(String nombreArchivo) {
-        if (nombreArchivo == null || nombreArchivo.trim().isEmpty()) {
+        long marca = ArchivoEstadisticas.marcaSuelto(nombreArchivo);
+        if (marca < 0) {
             return null;
         }
         
         try {
-            Path archivoEstadisticas = Paths.get(DIRECTORIO_BASE, DIRECTORIO_ESTADISTICAS, nombreArchivo);
-            
-            if (!Files.exists(archivoEstadisticas)) {
-                return null;
-            }
-            
-            return new String(Files.readAllBytes(archivoEstadisticas), "UTF-8");
+            java.util.List<EntradaEstadisticas> entradas = getArchivoEstadisticas().leer(marca, marca);
+            return entradas.isEmpty() ? null : entradas.get(0).getContenido();
         } catch (IOException e) {
             return null;
         }
     }
     
     /**
-     * Obtiene la lista de archivos de estadísticas disponibles.
+     * Obtiene un nombre por cada entrada del registro de estadísticas, con
+     * el formato de los antiguos archivos sueltos. Lee el registro completo.
      * 
-     * @return Lista de nombres de archivos de estadísticas
+     * @return Lista de nombres de estadísticas
+     * @deprecated Las estadísticas ya no se guardan en archivos sueltos; usar
+     *             {@link #cargarEstadisticas(java.time.LocalDateTime, java.time.LocalDateTime)}
      */
+    @Deprecated
     public java.util.List<String> obtenerArchivosEstadisticas() {
         java.util.List<String> archivos = new java.util.ArrayList<>();
-        
-        try {
-            Path directorioEstadisticas = Paths.get(DIRECTORIO_BASE, DIRECTORIO_ESTADISTICAS);
-            if (Files.exists(directorioEstadisticas)) {
-                Files.list(directorioEstadisticas)
-                     .filter(path -> path.toString().endsWith(".txt"))
-                     .forEach(path -> archivos.add(path.getFileName().toString()));
-            }
-        } catch (IOException e) {
-            // En caso de error, retorna lista vacía
+        for (EntradaEstadisticas entrada : cargarEstadisticas(null, null)) {
+            archivos.add(ArchivoEstadisticas.nombreSuelto(entrada.getMarcaTiempo()));
         }
-        
         return archivos;
     }
     
@@ -309,16 +470,18 @@ public class PersistenciaManager {
             return false;
         }
         
-        String nombreArchivo = "partida_" + idPartida + ".dat";
-        Path archivoPartida = Paths.get(DIRECTORIO_BASE, DIRECTORIO_PARTIDAS, nombreArchivo);
-        return Files.exists(archivoPartida);
+        try {
+            return getArchivoPartidas().contiene(idPartida);
+        } catch (IOException e) {
+            return false;
+        }
     }
     
     /**
-     * Obtiene el tamaño del archivo de una partida en bytes.
+     * Obtiene el tamaño de los datos de una partida en bytes.
      * 
      * @param idPartida ID de la partida
-     * @return Tamaño del archivo en bytes, -1 si no existe
+     * @return Tamaño de la partida en bytes, -1 si no existe
      */
     public long obtenerTamanoPartida(String idPartida) {
         if (idPartida == null || idPartida.trim().isEmpty()) {
@@ -326,43 +489,194 @@ public class PersistenciaManager {
         }
         
         try {
-            String nombreArchivo = "partida_" + idPartida + ".dat";
-            Path archivoPartida = Paths.get(DIRECTORIO_BASE, DIRECTORIO_PARTIDAS, nombreArchivo);
-            
-            if (Files.exists(archivoPartida)) {
-                return Files.size(archivoPartida);
-            }
+            return getArchivoPartidas().getTamano(idPartida);
         } catch (IOException e) {
             // En caso de error, retorna -1
+            return -1;
         }
-        
-        return -1;
     }
     
     /**
-     * Limpia todos los archivos de partidas guardadas.
+     * Limpia todas las partidas guardadas.
      * 
      * @return true si se limpiaron exitosamente, false en caso contrario
      */
     public boolean limpiarPartidasGuardadas() {
         try {
-            Path directorioPartidas = Paths.get(DIRECTORIO_BASE, DIRECTORIO_PARTIDAS);
-            if (Files.exists(directorioPartidas)) {
-                Files.list(directorioPartidas)
-                     .filter(path -> path.toString().endsWith(".dat"))
-                     .forEach(path -> {
-                         try {
-                             Files.delete(path);
-                         } catch (IOException e) {
-                             // Ignora errores individuales
-                         }
-                     });
+            ArchivoPartidas archivo = getArchivoPartidas();
+            synchronized (archivo) {
+                INSTANTANEAS.clear();
+                archivo.limpiar();
             }
+            getCatalogoPartidas().limpiar();
             return true;
         } catch (IOException e) {
             return false;
         }
     }
-}
+    
+    /**
+     * Consulta una página de resúmenes de partidas guardadas desde el
+     * catálogo, sin cargar las partidas. La primera consulta del proceso
+     * registra en el catálogo las partidas guardadas que aún no tenga.
+     * 
+     * @param orden Criterio de orden
+     * @param descendente true para invertir el orden
+     * @param pagina Número de página, desde 0
+     * @param tamanoPagina Resúmenes por página
+     * @return Resúmenes de la página, vacía si no hay más o hay error
+     */
+    public java.util.List<ResumenPartida> consultarPartidasGuardadas(CatalogoPartidas.Orden orden, boolean descendente,
+                                                                    int pagina, int tamanoPagina) {
+        try {
+            CatalogoPartidas catalogo = getCatalogoPartidas();
+            sincronizarCatalogo(catalogo);
+            return catalogo.consultar(orden, descendente, pagina, tamanoPagina);
+        } catch (IOException e) {
+            // En caso de error, retorna lista vacía
+            return new java.util.ArrayList<>();
+        }
+    }
+    
+    /**
+     * Obtiene el número de partidas guardadas según el catálogo.
+     * 
+     * @return Número de partidas, 0 si hay error
+     */
+    public int contarPartidasGuardadas() {
+        try {
+            CatalogoPartidas catalogo = getCatalogoPartidas();
+            sincronizarCatalogo(catalogo);
+            return catalogo.contar();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Exporta el directorio de datos completo a un paquete. Las partidas y
+     * las estadísticas se cierran antes de copiarlas para que su índice y
+     * sus segmentos estén en disco, y no se guardan otras mientras se
+     * copian. Los archivos de equipos y jugadores deben estar sincronizados
+     * por quien llama, por ejemplo con
+     * {@link ArchivoAccesoAleatorio#conDatosSincronizados}.
+     *
+     * @param paquete Archivo del paquete a crear
+     * @return true si se exportó exitosamente, false en caso contrario
+     */
+    public boolean exportarDatos(Path paquete) {
+        if (paquete == null) {
+            return false;
+        }
 
+        ArchivoPartidas partidas = getArchivoPartidas();
+        ArchivoEstadisticas estadisticas = getArchivoEstadisticas();
+        synchronized (partidas) {
+            synchronized (estadisticas) {
+                try {
+                    partidas.cerrar();
+                    estadisticas.cerrar();
+                    new PaqueteDatos().exportar(directorioBase, paquete);
+                    return true;
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Importa un paquete en un directorio de datos vacío o inexistente.
+     * Si el paquete está dañado el directorio no se crea.
+     *
+     * @param paquete Archivo del paquete
+     * @param directorio Directorio donde restaurar los datos
+     * @return true si se importó exitosamente, false en caso contrario
+     */
+    public boolean importarDatos(Path paquete, Path directorio) {
+        if (paquete == null || directorio == null) {
+            return false;
+        }
 
+        try {
+            new PaqueteDatos().importar(paquete, directorio);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Guarda el índice del archivo de partidas, cierra sus segmentos y los
+     * del registro de estadísticas, y detiene la vigilancia del catálogo y
+     * de la configuración. Los archivos se vuelven a abrir si se usan de nuevo.
+     */
+    public void cerrar() {
+        getArchivoPartidas().cerrar();
+        getArchivoEstadisticas().cerrar();
+        getCatalogoPartidas().cerrar();
+        getFuenteConfiguracion().cerrar();
+    }
+    
+    /**
+     * Compara el catálogo con el archivo de partidas, resumiendo las que
+     * falten a partir de su cabecera. Solo lee partidas la primera vez en
+     * el proceso.
+     * 
+     * @param catalogo Catálogo a sincronizar
+     * @throws IOException Si hay error de E/S
+     */
+    private void sincronizarCatalogo(CatalogoPartidas catalogo) throws IOException {
+        catalogo.sincronizar(getArchivoPartidas().getIds(), id -> {
+            Partida partida = cargarPartidaDiferida(id);
+            return partida != null ? new ResumenPartida(partida) : null;
+        });
+    }
+    
+    /**
+     * Obtiene el catálogo de partidas, compartido por todos los gestores del proceso.
+     * 
+     * @return Catálogo de partidas
+     */
+    private CatalogoPartidas getCatalogoPartidas() {
+        return CatalogoPartidas.abrir(directorioBase.resolve(DIRECTORIO_PARTIDAS));
+    }
+    
+    /**
+     * Obtiene el registro de estadísticas, compartido por todos los gestores del proceso.
+     * 
+     * @return Registro de estadísticas
+     */
+    private ArchivoEstadisticas getArchivoEstadisticas() {
+        return ArchivoEstadisticas.abrir(directorioBase.resolve(DIRECTORIO_ESTADISTICAS));
+    }
+    
+    /**
+     * Convierte una fecha de la zona horaria del sistema en milisegundos desde la época.
+     * 
+     * @param fecha Fecha a convertir
+     * @return Milisegundos desde la época
+     */
+    private static long aMarca(java.time.LocalDateTime fecha) {
+        return fecha.atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    /**
+     * Obtiene la clave de una partida en las instantáneas conservadas.
+     * 
+     * @param idPartida ID de la partida
+     * @return Ruta absoluta del directorio de partidas seguida del id
+     */
+    private String claveInstantanea(String idPartida) {
+        return directorioBase.resolve(DIRECTORIO_PARTIDAS).toAbsolutePath().normalize() + "/" + idPartida;
+    }
+    
+    /**
+     * Obtiene el archivo de partidas, compartido por todos los gestores del proceso.
+     * 
+     * @return Archivo de partidas
+     */
+    private ArchivoPartidas getArchivoPartidas() {
+        return ArchivoPartidas.abrir(directorioBase.resolve(DIRECTORIO_PARTIDAS));
+    }
+}
@@ -47,6 +47,12 @@ public class ConfiguracionJuego implements Serializable {
     /** Efectos visuales habilitados */
     private boolean efectosVisualesHabilitados;
     
+    /** Registros por archivo en la caché de datos guardados (0 la deshabilita) */
+    private int tamanoCacheRegistros;
+    
+    /** Milisegundos que un guardado en segundo plano puede esperar antes de escribirse */
+    private int latenciaMaximaEscritura;
+    
     /**
      * Constructor por defecto con valores predeterminados.
      */
@@ -62,6 +68,8 @@ public class ConfiguracionJuego implements Serializable {
         this.dificultad = 3;
         this.sonidoHabilitado = true;
         this.efectosVisualesHabilitados = true;
+        this.tamanoCacheRegistros = 1024;
+        this.latenciaMaximaEscritura = 200;
     }
     
     /**
@@ -91,6 +99,8 @@ public class ConfiguracionJuego implements Serializable {
         this.dificultad = dificultad;
         this.sonidoHabilitado = true;
         this.efectosVisualesHabilitados = true;
+        this.tamanoCacheRegistros = 1024;
+        this.latenciaMaximaEscritura = 200;
     }
     
     // Getters y Setters
@@ -183,6 +193,22 @@ public class ConfiguracionJuego implements Serializable {
         this.efectosVisualesHabilitados = efectosVisualesHabilitados;
     }
     
+    public int getTamanoCacheRegistros() {
+        return tamanoCacheRegistros;
+    }
+    
+    public void setTamanoCacheRegistros(int tamanoCacheRegistros) {
+        this.tamanoCacheRegistros = tamanoCacheRegistros;
+    }
+    
+    public int getLatenciaMaximaEscritura() {
+        return latenciaMaximaEscritura;
+    }
+    
+    public void setLatenciaMaximaEscritura(int latenciaMaximaEscritura) {
+        this.latenciaMaximaEscritura = latenciaMaximaEscritura;
+    }
+    
     /**
      * Valida si la configuración es válida.
      * 
@@ -197,7 +223,9 @@ public class ConfiguracionJuego implements Serializable {
                puntosPorIntento >= 0 &&
                tiempoLimitePorRonda > 0 &&
                distanciaArgolla > 0 &&
-               dificultad >= 1 && dificultad <= 5;
+               dificultad >= 1 && dificultad <= 5 &&
+               tamanoCacheRegistros >= 0 &&
+               latenciaMaximaEscritura >= 0;
     }
     
     /**
@@ -264,6 +292,8 @@ public class ConfiguracionJuego implements Serializable {
         this.dificultad = 3;
         this.sonidoHabilitado = true;
         this.efectosVisualesHabilitados = true;
+        this.tamanoCacheRegistros = 1024;
+        this.latenciaMaximaEscritura = 200;
     }
     
     @Override
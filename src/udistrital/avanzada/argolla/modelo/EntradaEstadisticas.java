@@ -0,0 +1,57 @@
+package udistrital.avanzada.argolla.modelo;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Entrada inmutable del registro de estadísticas: el texto guardado y el
+ * momento en que se guardó.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public final class EntradaEstadisticas {
+
+    /** Milisegundos desde la época en que se guardó la entrada */
+    private final long marcaTiempo;
+
+    /** Estadísticas guardadas */
+    private final String contenido;
+
+    /**
+     * Constructor con todos los datos de la entrada.
+     *
+     * @param marcaTiempo Milisegundos desde la época en que se guardó
+     * @param contenido Estadísticas guardadas
+     */
+    public EntradaEstadisticas(long marcaTiempo, String contenido) {
+        this.marcaTiempo = marcaTiempo;
+        this.contenido = contenido;
+    }
+
+    public long getMarcaTiempo() {
+        return marcaTiempo;
+    }
+
+    public String getContenido() {
+        return contenido;
+    }
+
+    /**
+     * Obtiene la fecha en que se guardó la entrada, en la zona horaria del sistema.
+     *
+     * @return Fecha de la entrada
+     */
+    public LocalDateTime getFecha() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(marcaTiempo), ZoneId.systemDefault());
+    }
+
+    @Override
+    public String toString() {
+        return "EntradaEstadisticas{" +
+                "fecha=" + getFecha() +
+                ", longitud=" + contenido.length() +
+                '}';
+    }
+}
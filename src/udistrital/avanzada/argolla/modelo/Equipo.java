@@ -1,5 +1,7 @@
 package udistrital.avanzada.argolla.modelo;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -9,6 +11,9 @@ import java.util.List;
  * Un equipo está compuesto por varios jugadores y mantiene
  * estadísticas agregadas del equipo.
  * 
+ * El equipo lleva una marca de modificado que se activa al cambiar sus datos
+ * o su lista de jugadores; los jugadores llevan su propia marca.
+ * 
  * @author Sansantax, And_Gar03
  * @version 3.0
  */
@@ -25,6 +30,9 @@ public class Equipo implements Serializable {
     /** Color del equipo (para identificación visual) */
     private String color;
     
+    /** Indica si el equipo cambió desde el último guardado */
+    private transient boolean modificado;
+    
     /**
      * Constructor por defecto del equipo.
      */
@@ -32,6 +40,7 @@ public class Equipo implements Serializable {
         this.nombre = "";
         this.jugadores = new ArrayList<>();
         this.color = "";
+        this.modificado = true;
     }
     
     /**
@@ -44,6 +53,7 @@ public class Equipo implements Serializable {
         this.nombre = nombre;
         this.jugadores = new ArrayList<>();
         this.color = color;
+        this.modificado = true;
     }
     
     /**
@@ -62,6 +72,7 @@ public class Equipo implements Serializable {
      */
     public void setNombre(String nombre) {
         this.nombre = nombre;
+        this.modificado = true;
     }
     
     /**
@@ -80,6 +91,8 @@ public class Equipo implements Serializable {
      */
     public void setJugadores(List<Jugador> jugadores) {
         this.jugadores = new ArrayList<>(jugadores);
+        this.jugadores.forEach(Jugador::marcarModificado);
+        this.modificado = true;
     }
     
     /**
@@ -98,10 +111,12 @@ public class Equipo implements Serializable {
      */
     public void setColor(String color) {
         this.color = color;
+        this.modificado = true;
     }
     
     /**
-     * Agrega un jugador al equipo.
+     * Agrega un jugador al equipo. El jugador queda marcado como modificado
+     * porque su registro guarda el equipo al que pertenece.
      * 
      * @param jugador Jugador a agregar
      * @return true si se agregó exitosamente, false si ya existe
@@ -109,6 +124,8 @@ public class Equipo implements Serializable {
     public boolean agregarJugador(Jugador jugador) {
         if (jugador != null && !jugadores.contains(jugador)) {
             jugadores.add(jugador);
+            jugador.marcarModificado();
+            this.modificado = true;
             return true;
         }
         return false;
@@ -121,7 +138,11 @@ public class Equipo implements Serializable {
      * @return true si se removió exitosamente, false si no existía
      */
     public boolean removerJugador(Jugador jugador) {
-        return jugadores.remove(jugador);
+        if (jugadores.remove(jugador)) {
+            this.modificado = true;
+            return true;
+        }
+        return false;
     }
     
     /**
@@ -216,6 +237,39 @@ public class Equipo implements Serializable {
         jugadores.forEach(Jugador::reiniciarEstadisticas);
     }
     
+    /**
+     * Indica si el equipo cambió desde el último guardado. No considera los
+     * cambios de estadísticas de sus jugadores, que se guardan por separado.
+     * 
+     * @return true si tiene cambios sin guardar
+     */
+    public boolean estaModificado() {
+        return modificado;
+    }
+    
+    /**
+     * Marca el equipo como modificado.
+     */
+    public void marcarModificado() {
+        this.modificado = true;
+    }
+    
+    /**
+     * Marca el equipo como guardado, sin cambios pendientes.
+     */
+    public void marcarComoGuardado() {
+        this.modificado = false;
+    }
+    
+    /**
+     * Restaura el equipo desde una partida serializada. Se considera
+     * modificado porque no proviene del archivo de equipos.
+     */
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        entrada.defaultReadObject();
+        this.modificado = true;
+    }
+    
     /**
      * Busca un jugador por nombre en el equipo.
      * 
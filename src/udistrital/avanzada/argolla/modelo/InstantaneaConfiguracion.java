@@ -0,0 +1,178 @@
+package udistrital.avanzada.argolla.modelo;
+
+/**
+ * Copia inmutable y válida de la configuración del juego. Se publica para
+ * que la lean varios hilos sin sincronización: nadie puede cambiarla, así
+ * que un cambio de configuración consiste en publicar otra instancia.
+ *
+ * {@link ConfiguracionJuego} sigue siendo la versión editable, por ejemplo
+ * en el diálogo de configuración; {@link #aConfiguracion()} devuelve una
+ * copia editable de esta instantánea.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public final class InstantaneaConfiguracion {
+
+    /** Número máximo de jugadores por equipo */
+    private final int maxJugadoresPorEquipo;
+
+    /** Número máximo de equipos por partida */
+    private final int maxEquiposPorPartida;
+
+    /** Número máximo de rondas por partida */
+    private final int maxRondasPorPartida;
+
+    /** Puntos necesarios para ganar una partida */
+    private final int puntosParaGanar;
+
+    /** Puntos otorgados por acierto */
+    private final int puntosPorAcierto;
+
+    /** Puntos otorgados por intento (bonificación) */
+    private final int puntosPorIntento;
+
+    /** Tiempo límite por ronda en segundos */
+    private final int tiempoLimitePorRonda;
+
+    /** Distancia de la argolla al poste en metros */
+    private final double distanciaArgolla;
+
+    /** Dificultad del juego (1-5) */
+    private final int dificultad;
+
+    /** Sonido habilitado */
+    private final boolean sonidoHabilitado;
+
+    /** Efectos visuales habilitados */
+    private final boolean efectosVisualesHabilitados;
+
+    /** Registros por archivo en la caché de datos guardados (0 la deshabilita) */
+    private final int tamanoCacheRegistros;
+
+    /** Milisegundos que un guardado en segundo plano puede esperar antes de escribirse */
+    private final int latenciaMaximaEscritura;
+
+    /**
+     * Constructor que copia una configuración válida.
+     *
+     * @param configuracion Configuración a copiar
+     * @throws IllegalArgumentException Si la configuración es null o no es válida
+     */
+    public InstantaneaConfiguracion(ConfiguracionJuego configuracion) {
+        if (configuracion == null || !configuracion.esValida()) {
+            throw new IllegalArgumentException("Configuración inválida: " + configuracion);
+        }
+        this.maxJugadoresPorEquipo = configuracion.getMaxJugadoresPorEquipo();
+        this.maxEquiposPorPartida = configuracion.getMaxEquiposPorPartida();
+        this.maxRondasPorPartida = configuracion.getMaxRondasPorPartida();
+        this.puntosParaGanar = configuracion.getPuntosParaGanar();
+        this.puntosPorAcierto = configuracion.getPuntosPorAcierto();
+        this.puntosPorIntento = configuracion.getPuntosPorIntento();
+        this.tiempoLimitePorRonda = configuracion.getTiempoLimitePorRonda();
+        this.distanciaArgolla = configuracion.getDistanciaArgolla();
+        this.dificultad = configuracion.getDificultad();
+        this.sonidoHabilitado = configuracion.isSonidoHabilitado();
+        this.efectosVisualesHabilitados = configuracion.isEfectosVisualesHabilitados();
+        this.tamanoCacheRegistros = configuracion.getTamanoCacheRegistros();
+        this.latenciaMaximaEscritura = configuracion.getLatenciaMaximaEscritura();
+    }
+
+    public int getMaxJugadoresPorEquipo() {
+        return maxJugadoresPorEquipo;
+    }
+
+    public int getMaxEquiposPorPartida() {
+        return maxEquiposPorPartida;
+    }
+
+    public int getMaxRondasPorPartida() {
+        return maxRondasPorPartida;
+    }
+
+    public int getPuntosParaGanar() {
+        return puntosParaGanar;
+    }
+
+    public int getPuntosPorAcierto() {
+        return puntosPorAcierto;
+    }
+
+    public int getPuntosPorIntento() {
+        return puntosPorIntento;
+    }
+
+    public int getTiempoLimitePorRonda() {
+        return tiempoLimitePorRonda;
+    }
+
+    public double getDistanciaArgolla() {
+        return distanciaArgolla;
+    }
+
+    public int getDificultad() {
+        return dificultad;
+    }
+
+    public boolean isSonidoHabilitado() {
+        return sonidoHabilitado;
+    }
+
+    public boolean isEfectosVisualesHabilitados() {
+        return efectosVisualesHabilitados;
+    }
+
+    public int getTamanoCacheRegistros() {
+        return tamanoCacheRegistros;
+    }
+
+    public int getLatenciaMaximaEscritura() {
+        return latenciaMaximaEscritura;
+    }
+
+    /**
+     * Obtiene el multiplicador de puntos según la dificultad.
+     *
+     * @return Multiplicador de puntos
+     */
+    public double getMultiplicadorPuntos() {
+        return 1.0 + (dificultad - 1) * 0.2;
+    }
+
+    /**
+     * Crea una copia editable de esta configuración.
+     *
+     * @return Configuración editable con los mismos valores
+     */
+    public ConfiguracionJuego aConfiguracion() {
+        ConfiguracionJuego configuracion = new ConfiguracionJuego();
+        configuracion.setMaxJugadoresPorEquipo(maxJugadoresPorEquipo);
+        configuracion.setMaxEquiposPorPartida(maxEquiposPorPartida);
+        configuracion.setMaxRondasPorPartida(maxRondasPorPartida);
+        configuracion.setPuntosParaGanar(puntosParaGanar);
+        configuracion.setPuntosPorAcierto(puntosPorAcierto);
+        configuracion.setPuntosPorIntento(puntosPorIntento);
+        configuracion.setTiempoLimitePorRonda(tiempoLimitePorRonda);
+        configuracion.setDistanciaArgolla(distanciaArgolla);
+        configuracion.setDificultad(dificultad);
+        configuracion.setSonidoHabilitado(sonidoHabilitado);
+        configuracion.setEfectosVisualesHabilitados(efectosVisualesHabilitados);
+        configuracion.setTamanoCacheRegistros(tamanoCacheRegistros);
+        configuracion.setLatenciaMaximaEscritura(latenciaMaximaEscritura);
+        return configuracion;
+    }
+
+    @Override
+    public String toString() {
+        return "InstantaneaConfiguracion{" +
+                "maxJugadoresPorEquipo=" + maxJugadoresPorEquipo +
+                ", maxEquiposPorPartida=" + maxEquiposPorPartida +
+                ", maxRondasPorPartida=" + maxRondasPorPartida +
+                ", puntosParaGanar=" + puntosParaGanar +
+                ", puntosPorAcierto=" + puntosPorAcierto +
+                ", tiempoLimitePorRonda=" + tiempoLimitePorRonda +
+                ", distanciaArgolla=" + distanciaArgolla +
+                ", dificultad=" + dificultad +
+                '}';
+    }
+}
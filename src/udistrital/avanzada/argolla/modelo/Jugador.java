@@ -1,5 +1,7 @@
 package udistrital.avanzada.argolla.modelo;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /**
@@ -7,6 +9,10 @@ import java.io.Serializable;
  * Esta clase contiene únicamente la lógica de negocio del jugador
  * sin dependencias de la interfaz gráfica.
  * 
+ * El jugador lleva una marca de modificado que se activa con cada cambio,
+ * para que la persistencia escriba solo los jugadores que cambiaron desde
+ * el último guardado.
+ * 
  * @author Sansantax, And_Gar03
  * @version 3.0
  */
@@ -26,6 +32,9 @@ public class Jugador implements Serializable {
     /** Número de aciertos (argollas exitosas) */
     private int aciertos;
     
+    /** Indica si el jugador cambió desde el último guardado */
+    private transient boolean modificado;
+    
     /**
      * Constructor por defecto del jugador.
      */
@@ -34,6 +43,7 @@ public class Jugador implements Serializable {
         this.puntuacion = 0;
         this.intentos = 0;
         this.aciertos = 0;
+        this.modificado = true;
     }
     
     /**
@@ -46,6 +56,7 @@ public class Jugador implements Serializable {
         this.puntuacion = 0;
         this.intentos = 0;
         this.aciertos = 0;
+        this.modificado = true;
     }
     
     /**
@@ -64,6 +75,7 @@ public class Jugador implements Serializable {
      */
     public void setNombre(String nombre) {
         this.nombre = nombre;
+        this.modificado = true;
     }
     
     /**
@@ -82,6 +94,7 @@ public class Jugador implements Serializable {
      */
     public void setPuntuacion(int puntuacion) {
         this.puntuacion = puntuacion;
+        this.modificado = true;
     }
     
     /**
@@ -100,6 +113,7 @@ public class Jugador implements Serializable {
      */
     public void setIntentos(int intentos) {
         this.intentos = intentos;
+        this.modificado = true;
     }
     
     /**
@@ -118,6 +132,7 @@ public class Jugador implements Serializable {
      */
     public void setAciertos(int aciertos) {
         this.aciertos = aciertos;
+        this.modificado = true;
     }
     
     /**
@@ -125,6 +140,7 @@ public class Jugador implements Serializable {
      */
     public void incrementarIntentos() {
         this.intentos++;
+        this.modificado = true;
     }
     
     /**
@@ -132,6 +148,7 @@ public class Jugador implements Serializable {
      */
     public void incrementarAciertos() {
         this.aciertos++;
+        this.modificado = true;
     }
     
     /**
@@ -153,6 +170,7 @@ public class Jugador implements Serializable {
      */
     public void agregarPuntos(int puntos) {
         this.puntuacion += puntos;
+        this.modificado = true;
     }
     
     /**
@@ -162,6 +180,39 @@ public class Jugador implements Serializable {
         this.puntuacion = 0;
         this.intentos = 0;
         this.aciertos = 0;
+        this.modificado = true;
+    }
+    
+    /**
+     * Indica si el jugador cambió desde el último guardado.
+     * 
+     * @return true si tiene cambios sin guardar
+     */
+    public boolean estaModificado() {
+        return modificado;
+    }
+    
+    /**
+     * Marca el jugador como modificado.
+     */
+    public void marcarModificado() {
+        this.modificado = true;
+    }
+    
+    /**
+     * Marca el jugador como guardado, sin cambios pendientes.
+     */
+    public void marcarComoGuardado() {
+        this.modificado = false;
+    }
+    
+    /**
+     * Restaura el jugador desde una partida serializada. Se considera
+     * modificado porque no proviene del archivo de jugadores.
+     */
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        entrada.defaultReadObject();
+        this.modificado = true;
     }
     
     /**
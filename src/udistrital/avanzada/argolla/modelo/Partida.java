@@ -107,7 +107,7 @@ public class Partida implements Serializable {
      * @return Lista de equipos
      */
     public List<Equipo> getEquipos() {
-        return new ArrayList<>(equipos);
+        return new ArrayList<>(listaEquipos());
     }
     
     /**
@@ -234,8 +234,8 @@ public class Partida implements Serializable {
      * @return true si se agregó exitosamente, false si ya existe
      */
     public boolean agregarEquipo(Equipo equipo) {
-        if (equipo != null && !equipos.contains(equipo)) {
-            equipos.add(equipo);
+        if (equipo != null && !listaEquipos().contains(equipo)) {
+            listaEquipos().add(equipo);
             return true;
         }
         return false;
@@ -248,7 +248,7 @@ public class Partida implements Serializable {
      * @return true si se removió exitosamente, false si no existía
      */
     public boolean removerEquipo(Equipo equipo) {
-        return equipos.remove(equipo);
+        return listaEquipos().remove(equipo);
     }
     
     /**
@@ -257,7 +257,18 @@ public class Partida implements Serializable {
      * @return Número de equipos
      */
     public int getNumeroEquipos() {
-        return equipos.size();
+        return listaEquipos().size();
+    }
+    
+    /**
+     * Obtiene la lista interna de equipos, sin copiarla. Las subclases que
+     * cargan los equipos bajo demanda la sobrescriben para cargarlos antes
+     * del primer uso.
+     * 
+     * @return Lista interna de equipos
+     */
+    protected List<Equipo> listaEquipos() {
+        return equipos;
     }
     
     /**
@@ -304,7 +315,7 @@ public class Partida implements Serializable {
             return null;
         }
         
-        return equipos.stream()
+        return listaEquipos().stream()
                 .max((e1, e2) -> Integer.compare(e1.getPuntuacionTotal(), e2.getPuntuacionTotal()))
                 .orElse(null);
     }
@@ -333,7 +344,7 @@ public class Partida implements Serializable {
      * @return true si se puede iniciar, false en caso contrario
      */
     public boolean sePuedeIniciar() {
-        return estado == EstadoPartida.PREPARACION && equipos.size() >= 2;
+        return estado == EstadoPartida.PREPARACION && getNumeroEquipos() >= 2;
     }
     
     /**
@@ -353,7 +364,7 @@ public class Partida implements Serializable {
         return "Partida{" +
                 "id='" + id + '\'' +
                 ", estado=" + estado +
-                ", numeroEquipos=" + equipos.size() +
+                ", numeroEquipos=" + getNumeroEquipos() +
                 ", rondaActual=" + rondaActual +
                 ", maxRondas=" + maxRondas +
                 '}';
@@ -362,7 +373,7 @@ public class Partida implements Serializable {
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
+        if (!(obj instanceof Partida)) return false;
         
         Partida partida = (Partida) obj;
         return id != null ? id.equals(partida.id) : partida.id == null;
@@ -0,0 +1,183 @@
+package udistrital.avanzada.argolla.modelo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Partida guardada de la que solo se leyó la cabecera: id, estado, fechas,
+ * rondas y el nombre y la puntuación total de cada equipo. Los equipos y
+ * jugadores se cargan la primera vez que se usan, así que consultar el
+ * estado, las fechas, los nombres de los equipos o el ganador no los carga.
+ *
+ * Los equipos se leen de la versión guardada más reciente de la partida.
+ * Si no se pueden leer se lanza {@link UncheckedIOException} en lugar de
+ * continuar con la partida sin equipos, para que nunca se guarde así.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class PartidaDiferida extends Partida {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Interfaz funcional que lee los equipos completos de una partida guardada.
+     */
+    @FunctionalInterface
+    public interface CargadorEquipos {
+
+        /**
+         * Lee los equipos de la partida.
+         *
+         * @return Equipos con sus jugadores
+         * @throws IOException Si hay error de E/S o los datos están dañados
+         */
+        List<Equipo> cargar() throws IOException;
+    }
+
+    /** Nombres de los equipos según la cabecera */
+    private ArrayList<String> nombresEquipos;
+
+    /** Puntuación total de cada equipo según la cabecera */
+    private int[] puntuacionesEquipos;
+
+    /** Lector de los equipos */
+    private transient CargadorEquipos cargador;
+
+    /** Indica si los equipos ya se cargaron */
+    private boolean cargada;
+
+    /**
+     * Constructor de una partida con su cabecera vacía.
+     */
+    public PartidaDiferida() {
+        this.nombresEquipos = new ArrayList<>();
+        this.puntuacionesEquipos = new int[0];
+    }
+
+    /**
+     * Establece los equipos según la cabecera.
+     *
+     * @param nombresEquipos Nombres de los equipos
+     * @param puntuacionesEquipos Puntuación total de cada equipo, en el mismo orden
+     */
+    public void setCabeceraEquipos(List<String> nombresEquipos, int[] puntuacionesEquipos) {
+        this.nombresEquipos = new ArrayList<>(nombresEquipos);
+        this.puntuacionesEquipos = puntuacionesEquipos.clone();
+    }
+
+    /**
+     * Actualiza la puntuación total de cada equipo de la cabecera, por
+     * ejemplo al aplicar un delta.
+     *
+     * @param puntuacionesEquipos Puntuación total de cada equipo
+     */
+    public void setPuntuacionesEquipos(int[] puntuacionesEquipos) {
+        this.puntuacionesEquipos = puntuacionesEquipos.clone();
+    }
+
+    /**
+     * Establece el lector de los equipos.
+     *
+     * @param cargador Lector de los equipos
+     */
+    public void setCargador(CargadorEquipos cargador) {
+        this.cargador = cargador;
+    }
+
+    /**
+     * Indica si los equipos ya se cargaron.
+     *
+     * @return true si los equipos están en memoria
+     */
+    public synchronized boolean estaCargada() {
+        return cargada;
+    }
+
+    /**
+     * Obtiene los nombres de los equipos sin cargarlos.
+     *
+     * @return Nombres de los equipos
+     */
+    public List<String> getNombresEquipos() {
+        if (estaCargada()) {
+            List<String> nombres = new ArrayList<>();
+            for (Equipo equipo : super.listaEquipos()) {
+                nombres.add(equipo.getNombre());
+            }
+            return nombres;
+        }
+        return Collections.unmodifiableList(nombresEquipos);
+    }
+
+    /**
+     * Obtiene el nombre del equipo ganador sin cargar los equipos, con el
+     * mismo criterio que {@link #getEquipoGanador()}.
+     *
+     * @return Nombre del equipo ganador, null si no hay ganador aún
+     */
+    public String getNombreGanador() {
+        if (estaCargada()) {
+            Equipo ganador = getEquipoGanador();
+            return ganador != null ? ganador.getNombre() : null;
+        }
+        if (getEstado() != EstadoPartida.FINALIZADA || nombresEquipos.isEmpty()) {
+            return null;
+        }
+
+        int ganador = 0;
+        for (int i = 1; i < puntuacionesEquipos.length; i++) {
+            if (puntuacionesEquipos[i] > puntuacionesEquipos[ganador]) {
+                ganador = i;
+            }
+        }
+        return nombresEquipos.get(ganador);
+    }
+
+    @Override
+    public int getNumeroEquipos() {
+        return estaCargada() ? super.getNumeroEquipos() : nombresEquipos.size();
+    }
+
+    @Override
+    public synchronized void setEquipos(List<Equipo> equipos) {
+        super.setEquipos(equipos);
+        cargada = true;
+        cargador = null;
+    }
+
+    /**
+     * Carga los equipos antes de devolver la lista interna, la primera vez.
+     *
+     * @return Lista interna de equipos
+     * @throws UncheckedIOException Si los equipos no se pueden leer
+     * @throws IllegalStateException Si no hay lector de equipos
+     */
+    @Override
+    protected synchronized List<Equipo> listaEquipos() {
+        if (!cargada) {
+            if (cargador == null) {
+                throw new IllegalStateException("La partida " + getId() + " no tiene lector de equipos");
+            }
+            try {
+                setEquipos(cargador.cargar());
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudieron cargar los equipos de la partida " + getId(), e);
+            }
+        }
+        return super.listaEquipos();
+    }
+
+    /**
+     * Carga los equipos antes de serializar, porque el lector no se serializa.
+     *
+     * @return Esta partida, con los equipos cargados
+     */
+    private Object writeReplace() {
+        listaEquipos();
+        return this;
+    }
+}
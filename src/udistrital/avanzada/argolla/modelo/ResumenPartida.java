@@ -0,0 +1,170 @@
+package udistrital.avanzada.argolla.modelo;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumen inmutable de una partida guardada: los datos necesarios para
+ * listarla sin cargar sus equipos y jugadores.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public final class ResumenPartida {
+
+    /** Formato de fecha para mostrar el resumen */
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    /** Identificador de la partida */
+    private final String id;
+
+    /** Estado de la partida al guardarse */
+    private final Partida.EstadoPartida estado;
+
+    /** Fecha de inicio, null si no ha iniciado */
+    private final LocalDateTime fechaInicio;
+
+    /** Fecha de fin, null si no ha terminado */
+    private final LocalDateTime fechaFin;
+
+    /** Nombres de los equipos participantes */
+    private final List<String> nombresEquipos;
+
+    /** Nombre del equipo ganador, null si no hay */
+    private final String ganador;
+
+    /** Ronda actual */
+    private final int rondaActual;
+
+    /** Número máximo de rondas */
+    private final int maxRondas;
+
+    /**
+     * Constructor con todos los datos del resumen.
+     *
+     * @param id Identificador de la partida
+     * @param estado Estado de la partida
+     * @param fechaInicio Fecha de inicio, null si no ha iniciado
+     * @param fechaFin Fecha de fin, null si no ha terminado
+     * @param nombresEquipos Nombres de los equipos participantes
+     * @param ganador Nombre del equipo ganador, null si no hay
+     * @param rondaActual Ronda actual
+     * @param maxRondas Número máximo de rondas
+     */
+    public ResumenPartida(String id, Partida.EstadoPartida estado, LocalDateTime fechaInicio,
+                          LocalDateTime fechaFin, List<String> nombresEquipos, String ganador,
+                          int rondaActual, int maxRondas) {
+        this.id = id;
+        this.estado = estado;
+        this.fechaInicio = fechaInicio;
+        this.fechaFin = fechaFin;
+        this.nombresEquipos = Collections.unmodifiableList(new ArrayList<>(nombresEquipos));
+        this.ganador = ganador;
+        this.rondaActual = rondaActual;
+        this.maxRondas = maxRondas;
+    }
+
+    /**
+     * Constructor que resume una partida. Si es una {@link PartidaDiferida}
+     * se resume desde su cabecera, sin cargar sus equipos.
+     *
+     * @param partida Partida a resumir
+     */
+    public ResumenPartida(Partida partida) {
+        this.id = partida.getId();
+        this.estado = partida.getEstado();
+        this.fechaInicio = partida.getFechaInicio();
+        this.fechaFin = partida.getFechaFin();
+        if (partida instanceof PartidaDiferida diferida) {
+            this.nombresEquipos = Collections.unmodifiableList(new ArrayList<>(diferida.getNombresEquipos()));
+            this.ganador = diferida.getNombreGanador();
+        } else {
+            List<String> nombres = new ArrayList<>();
+            for (Equipo equipo : partida.getEquipos()) {
+                nombres.add(equipo.getNombre());
+            }
+            this.nombresEquipos = Collections.unmodifiableList(nombres);
+            Equipo equipoGanador = partida.getEquipoGanador();
+            this.ganador = equipoGanador != null ? equipoGanador.getNombre() : null;
+        }
+        this.rondaActual = partida.getRondaActual();
+        this.maxRondas = partida.getMaxRondas();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Partida.EstadoPartida getEstado() {
+        return estado;
+    }
+
+    public LocalDateTime getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public LocalDateTime getFechaFin() {
+        return fechaFin;
+    }
+
+    public List<String> getNombresEquipos() {
+        return nombresEquipos;
+    }
+
+    public String getGanador() {
+        return ganador;
+    }
+
+    public int getRondaActual() {
+        return rondaActual;
+    }
+
+    public int getMaxRondas() {
+        return maxRondas;
+    }
+
+    /**
+     * Describe la partida en una línea para mostrarla en una lista.
+     *
+     * @return Descripción de la partida
+     */
+    public String getDescripcion() {
+        StringBuilder descripcion = new StringBuilder();
+        descripcion.append(fechaInicio != null ? fechaInicio.format(FORMATO_FECHA) : "Sin iniciar")
+                   .append(" - ").append(String.join(" vs ", nombresEquipos))
+                   .append(" - ").append(estado)
+                   .append(" (ronda ").append(rondaActual).append("/").append(maxRondas).append(")");
+        if (ganador != null) {
+            descripcion.append(" - Ganador: ").append(ganador);
+        }
+        return descripcion.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "ResumenPartida{" +
+                "id='" + id + '\'' +
+                ", estado=" + estado +
+                ", equipos=" + nombresEquipos +
+                ", ganador='" + ganador + '\'' +
+                ", rondaActual=" + rondaActual +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        ResumenPartida resumen = (ResumenPartida) obj;
+        return id != null ? id.equals(resumen.id) : resumen.id == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+}
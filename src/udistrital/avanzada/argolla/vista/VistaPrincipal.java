@@ -2,15 +2,19 @@ package udistrital.avanzada.argolla.vista;
 
 import udistrital.avanzada.argolla.control.IControladorJuego;
 import udistrital.avanzada.argolla.control.GameManager;
+import udistrital.avanzada.argolla.control.OperacionesAsincronas;
 import udistrital.avanzada.argolla.modelo.Equipo;
 import udistrital.avanzada.argolla.modelo.Jugador;
 import udistrital.avanzada.argolla.modelo.Partida;
+import udistrital.avanzada.argolla.modelo.ResumenPartida;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Vista principal del juego de la argolla.
@@ -22,6 +26,12 @@ import java.util.List;
  */
 public class VistaPrincipal extends JFrame {
     
+    /** Partidas guardadas que se muestran por página al cargar */
+    private static final int PARTIDAS_POR_PAGINA = 50;
+    
+    /** Opción para ver la siguiente página de partidas guardadas */
+    private static final String OPCION_MAS_PARTIDAS = "Más partidas...";
+    
     /** Controlador del juego (inyectado por dependencias) */
     private IControladorJuego controlador;
     
@@ -47,6 +57,12 @@ public class VistaPrincipal extends JFrame {
     private JButton botonAgregarJugador;
     private JButton botonSimularIntento;
     private JButton botonGuardarDatos;
+    private JButton botonCancelarOperacion;
+    
+    private JProgressBar barraProgreso;
+    
+    /** Operación de guardado o carga en curso, null si no hay o si su hilo ya terminó */
+    private transient CompletableFuture<?> operacionEnCurso;
     
     private JList<Equipo> listaEquipos;
     private JList<Jugador> listaJugadores;
@@ -101,6 +117,13 @@ public class VistaPrincipal extends JFrame {
         botonAgregarJugador = new JButton("Agregar Jugador");
         botonSimularIntento = new JButton("Simular Intento");
         botonGuardarDatos = new JButton("Guardar Datos");
+        botonCancelarOperacion = new JButton("Cancelar");
+        botonCancelarOperacion.setEnabled(false);
+        
+        // Barra de progreso de las operaciones en segundo plano
+        barraProgreso = new JProgressBar();
+        barraProgreso.setStringPainted(true);
+        barraProgreso.setString("Listo");
         
         // Listas
         listaEquipos = new JList<>();
@@ -163,6 +186,11 @@ public class VistaPrincipal extends JFrame {
         panelInferior.add(panelPartida, BorderLayout.NORTH);
         panelInferior.add(panelEstadisticas, BorderLayout.CENTER);
         
+        JPanel panelProgreso = new JPanel(new BorderLayout(5, 5));
+        panelProgreso.add(barraProgreso, BorderLayout.CENTER);
+        panelProgreso.add(botonCancelarOperacion, BorderLayout.EAST);
+        panelInferior.add(panelProgreso, BorderLayout.SOUTH);
+        
         JPanel panelInfo = new JPanel(new FlowLayout());
         panelInfo.add(labelEstadoPartida);
         panelInfo.add(labelRonda);
@@ -217,8 +245,20 @@ public class VistaPrincipal extends JFrame {
         botonGuardarPartida.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                controlador.guardarPartida();
-                actualizarVista();
+                ejecutarConProgreso("Guardando partida...", controlador.guardarPartidaAsincrona(), exito -> {
+                    if (!exito) {
+                        mostrarError("No se pudo guardar la partida.");
+                    }
+                });
+            }
+        });
+        
+        botonCancelarOperacion.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (operacionEnCurso != null) {
+                    operacionEnCurso.cancel(false);
+                }
             }
         });
         
@@ -329,8 +369,8 @@ public class VistaPrincipal extends JFrame {
         botonNuevaPartida.setEnabled(!partidaEnCurso);
         botonIniciarPartida.setEnabled(hayPartida && !partidaEnCurso && !partidaTerminada);
         botonFinalizarPartida.setEnabled(partidaEnCurso);
-        botonGuardarPartida.setEnabled(hayPartida);
-        botonCargarPartida.setEnabled(!partidaEnCurso);
+        botonGuardarPartida.setEnabled(hayPartida && operacionEnCurso == null);
+        botonCargarPartida.setEnabled(!partidaEnCurso && operacionEnCurso == null);
         botonAgregarEquipo.setEnabled(hayPartida && !partidaEnCurso);
         botonAgregarJugador.setEnabled(hayPartida && !partidaEnCurso);
         botonSimularIntento.setEnabled(partidaEnCurso);
@@ -355,28 +395,106 @@ public class VistaPrincipal extends JFrame {
      * Muestra el diálogo para cargar una partida.
      */
     private void mostrarDialogoCargarPartida() {
-        java.util.List<String> ids = controlador.listarPartidasGuardadas();
-        if (ids == null || ids.isEmpty()) {
-            mostrarMensaje("No hay partidas guardadas disponibles.");
-            return;
+        int pagina = 0;
+        ResumenPartida elegida = null;
+        while (elegida == null) {
+            List<ResumenPartida> resumenes = controlador.consultarPartidasGuardadas(pagina, PARTIDAS_POR_PAGINA);
+            if (resumenes == null || resumenes.isEmpty()) {
+                mostrarMensaje(pagina == 0 ? "No hay partidas guardadas disponibles."
+                                           : "No hay más partidas guardadas.");
+                return;
+            }
+            
+            java.util.List<Object> opciones = new java.util.ArrayList<>();
+            for (ResumenPartida resumen : resumenes) {
+                opciones.add(new Object() {
+                    @Override
+                    public String toString() {
+                        return resumen.getDescripcion();
+                    }
+                });
+            }
+            boolean hayMas = resumenes.size() == PARTIDAS_POR_PAGINA;
+            if (hayMas) {
+                opciones.add(OPCION_MAS_PARTIDAS);
+            }
+            
+            Object seleccion = JOptionPane.showInputDialog(
+                this,
+                "Seleccione una partida para cargar:",
+                "Cargar Partida",
+                JOptionPane.PLAIN_MESSAGE,
+                null,
+                opciones.toArray(),
+                opciones.get(0)
+            );
+            if (seleccion == null) {
+                return;
+            }
+            if (hayMas && seleccion == OPCION_MAS_PARTIDAS) {
+                pagina++;
+            } else {
+                elegida = resumenes.get(opciones.indexOf(seleccion));
+            }
         }
-        String seleccion = (String) JOptionPane.showInputDialog(
-            this,
-            "Seleccione una partida para cargar:",
-            "Cargar Partida",
-            JOptionPane.PLAIN_MESSAGE,
-            null,
-            ids.toArray(new String[0]),
-            ids.get(0)
-        );
-        if (seleccion != null && !seleccion.trim().isEmpty()) {
-            if (controlador.cargarPartida(seleccion.trim())) {
-                mostrarMensaje("Partida '" + seleccion + "' cargada exitosamente.");
+        
+        String descripcion = elegida.getDescripcion();
+        ejecutarConProgreso("Cargando partida...", controlador.cargarPartidaAsincrona(elegida.getId()), partida -> {
+            if (partida != null) {
+                mostrarMensaje("Partida '" + descripcion + "' cargada exitosamente.");
             } else {
                 mostrarError("No se pudo cargar la partida seleccionada.");
             }
+        });
+    }
+    
+    /**
+     * Muestra el progreso de una operación en segundo plano y, al terminar,
+     * procesa su resultado en el hilo de la interfaz. Mientras dura, la
+     * operación se puede cancelar y no se permite iniciar otra. Si se
+     * cancela cuando ya estaba escribiendo, tampoco se permite iniciar otra
+     * hasta que su hilo termine.
+     * 
+     * @param <T> Tipo del resultado
+     * @param descripcion Texto a mostrar mientras dura la operación
+     * @param operacion Futuro de la operación
+     * @param alTerminar Acción con el resultado, si la operación no se canceló ni falló
+     */
+    private <T> void ejecutarConProgreso(String descripcion, CompletableFuture<T> operacion,
+                                         Consumer<T> alTerminar) {
+        operacionEnCurso = operacion;
+        barraProgreso.setIndeterminate(true);
+        barraProgreso.setString(descripcion);
+        botonCancelarOperacion.setEnabled(true);
+        actualizarEstadoBotones();
+        
+        long inicio = System.nanoTime();
+        operacion.whenComplete((resultado, error) -> SwingUtilities.invokeLater(() -> {
+            long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+            botonCancelarOperacion.setEnabled(false);
+            if (operacion.isCancelled()) {
+                // El hilo puede seguir escribiendo; los botones se habilitan al terminar
+                barraProgreso.setString("Cancelando...");
+                return;
+            }
+            barraProgreso.setIndeterminate(false);
+            if (error != null) {
+                barraProgreso.setString("Error");
+                mostrarError("Error en la operación: " + error.getMessage());
+            } else {
+                barraProgreso.setString("Listo (" + milisegundos + " ms)");
+                alTerminar.accept(resultado);
+            }
             actualizarVista();
-        }
+        }));
+        OperacionesAsincronas.finalizacion(operacion).whenComplete((nada, error) -> SwingUtilities.invokeLater(() -> {
+            operacionEnCurso = null;
+            if (operacion.isCancelled()) {
+                barraProgreso.setIndeterminate(false);
+                barraProgreso.setString("Operación cancelada");
+            }
+            actualizarVista();
+        }));
     }
     
     /**
@@ -484,16 +602,19 @@ public class VistaPrincipal extends JFrame {
     }
     
     /**
-     * Guarda todos los datos en archivos de acceso aleatorio.
+     * Guarda todos los datos en archivos de acceso aleatorio. La escritura
+     * ocurre en segundo plano y el resultado se muestra al terminar.
      */
     private void guardarDatosCompletos() {
         if (controlador instanceof GameManager) {
             GameManager gameManager = (GameManager) controlador;
-            if (gameManager.guardarDatosCompletos()) {
-                mostrarMensaje("Datos guardados exitosamente en archivos de acceso aleatorio.");
-            } else {
-                mostrarError("Error al guardar los datos. Intente nuevamente.");
-            }
+            gameManager.guardarDatosEnSegundoPlano().thenAccept(exito -> SwingUtilities.invokeLater(() -> {
+                if (exito) {
+                    mostrarMensaje("Datos guardados exitosamente en archivos de acceso aleatorio.");
+                } else {
+                    mostrarError("Error al guardar los datos. Intente nuevamente.");
+                }
+            }));
         } else {
             mostrarError("Error: No se puede acceder al gestor de datos.");
         }
@@ -0,0 +1,656 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para ArchivoAccesoAleatorio.
+ * Prueba la persistencia de equipos y jugadores en archivos de acceso aleatorio
+ * usando un directorio temporal en cada prueba.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ArchivoAccesoAleatorioTest {
+
+    @TempDir
+    Path directorio;
+
+    private ArchivoAccesoAleatorio archivo;
+
+    /**
+     * Configuración antes de cada prueba.
+     */
+    @BeforeEach
+    void setUp() {
+        archivo = new ArchivoAccesoAleatorio(directorio.toString());
+    }
+
+    /**
+     * Limpieza después de cada prueba.
+     */
+    @AfterEach
+    void tearDown() {
+        archivo.cerrar();
+        archivo = null;
+    }
+
+    /**
+     * Prueba guardar y cargar un jugador conservando sus estadísticas.
+     */
+    @Test
+    @Order(1)
+    @DisplayName("Guardar y cargar jugador")
+    void testGuardarYCargarJugador() {
+        // Arrange
+        Jugador jugador = new Jugador("Ana");
+        jugador.setPuntuacion(30);
+        jugador.setAciertos(3);
+        jugador.setIntentos(5);
+
+        // Act
+        boolean resultado = archivo.guardarJugador(jugador, "Rojos");
+        List<Jugador> jugadores = archivo.cargarJugadores();
+
+        // Assert
+        assertTrue(resultado, "El jugador debe guardarse exitosamente");
+        assertEquals(1, jugadores.size(), "Debe haber un jugador guardado");
+        assertEquals(30, jugadores.get(0).getPuntuacion(), "La puntuación debe conservarse");
+        assertEquals(3, jugadores.get(0).getAciertos(), "Los aciertos deben conservarse");
+        assertEquals(5, jugadores.get(0).getIntentos(), "Los intentos deben conservarse");
+    }
+
+    /**
+     * Prueba que los datos se conservan al reabrir los archivos.
+     */
+    @Test
+    @Order(2)
+    @DisplayName("Conservar datos al reabrir")
+    void testConservarDatosAlReabrir() {
+        // Arrange
+        archivo.guardarEquipo(new Equipo("Rojos", "Rojo"));
+        archivo.guardarJugador(new Jugador("Ana"), "Rojos");
+        archivo.cerrar();
+
+        // Act
+        archivo = new ArchivoAccesoAleatorio(directorio.toString());
+
+        // Assert
+        assertEquals(1, archivo.getNumeroEquipos(), "Debe haber un equipo guardado");
+        assertEquals(1, archivo.getNumeroJugadores(), "Debe haber un jugador guardado");
+        assertEquals("Rojo", archivo.buscarEquipo("Rojos").getColor(), "El color debe conservarse");
+    }
+
+    /**
+     * Prueba que guardar un nombre existente actualiza el registro.
+     */
+    @Test
+    @Order(3)
+    @DisplayName("Actualizar jugador existente")
+    void testActualizarJugadorExistente() {
+        // Arrange
+        Jugador jugador = new Jugador("Ana");
+        archivo.guardarJugador(jugador, "Rojos");
+        jugador.setPuntuacion(50);
+
+        // Act
+        archivo.guardarJugador(jugador, "Rojos");
+
+        // Assert
+        assertEquals(1, archivo.getNumeroJugadores(), "No debe duplicarse el jugador");
+        assertEquals(50, archivo.buscarJugador("Ana").getPuntuacion(), "La puntuación debe actualizarse");
+    }
+
+    /**
+     * Prueba buscar un jugador inexistente.
+     */
+    @Test
+    @Order(4)
+    @DisplayName("Buscar jugador inexistente")
+    void testBuscarJugadorInexistente() {
+        // Arrange
+        archivo.guardarJugador(new Jugador("Ana"), "Rojos");
+
+        // Act
+        Jugador jugador = archivo.buscarJugador("Beto");
+
+        // Assert
+        assertNull(jugador, "No debe encontrarse un jugador inexistente");
+    }
+
+    /**
+     * Prueba eliminar un jugador y reutilizar su ranura.
+     */
+    @Test
+    @Order(5)
+    @DisplayName("Eliminar jugador")
+    void testEliminarJugador() {
+        // Arrange
+        archivo.guardarJugador(new Jugador("Ana"), "Rojos");
+        archivo.guardarJugador(new Jugador("Beto"), "Rojos");
+
+        // Act
+        boolean resultado = archivo.eliminarJugador("Ana");
+        archivo.guardarJugador(new Jugador("Carla"), "Rojos");
+
+        // Assert
+        assertTrue(resultado, "El jugador debe eliminarse exitosamente");
+        assertNull(archivo.buscarJugador("Ana"), "El jugador eliminado no debe encontrarse");
+        assertNotNull(archivo.buscarJugador("Carla"), "El jugador nuevo debe encontrarse");
+        assertEquals(2, archivo.getNumeroJugadores(), "Deben quedar dos jugadores");
+    }
+
+    /**
+     * Prueba guardar la plantilla completa por lotes.
+     */
+    @Test
+    @Order(6)
+    @DisplayName("Guardar plantilla completa")
+    void testGuardarTodo() {
+        // Arrange
+        archivo.guardarJugador(new Jugador("Antiguo"), "Viejos");
+        List<Equipo> equipos = new ArrayList<>();
+        Equipo equipo = new Equipo("Rojos", "Rojo");
+        equipo.agregarJugador(new Jugador("Ana"));
+        equipo.agregarJugador(new Jugador("Beto"));
+        equipos.add(equipo);
+
+        // Act
+        boolean resultado = archivo.guardarTodo(equipos, false);
+
+        // Assert
+        assertTrue(resultado, "La plantilla debe guardarse exitosamente");
+        assertEquals(1, archivo.getNumeroEquipos(), "Debe haber un equipo guardado");
+        assertEquals(2, archivo.getNumeroJugadores(), "Debe haber dos jugadores guardados");
+        assertNull(archivo.buscarJugador("Antiguo"), "El contenido anterior debe reemplazarse");
+        assertNotNull(archivo.buscarJugador("Beto"), "Los jugadores nuevos deben encontrarse");
+    }
+
+    /**
+     * Prueba que se rechaza un jugador sin nombre.
+     */
+    @Test
+    @Order(7)
+    @DisplayName("Guardar jugador sin nombre")
+    void testGuardarJugadorSinNombre() {
+        // Act
+        boolean resultado = archivo.guardarJugador(new Jugador("  "), "Rojos");
+
+        // Assert
+        assertFalse(resultado, "No debe guardarse un jugador sin nombre");
+        assertEquals(0, archivo.getNumeroJugadores(), "No debe haber jugadores guardados");
+    }
+
+    /**
+     * Prueba cargar los equipos con sus jugadores asociados.
+     */
+    @Test
+    @Order(8)
+    @DisplayName("Cargar equipos con jugadores")
+    void testCargarEquiposConJugadores() {
+        // Arrange
+        archivo.guardarEquipo(new Equipo("Rojos", "Rojo"));
+        archivo.guardarEquipo(new Equipo("Azules", "Azul"));
+        archivo.guardarJugador(new Jugador("Ana"), "Rojos");
+        archivo.guardarJugador(new Jugador("Beto"), "Azules");
+        archivo.guardarJugador(new Jugador("Carla"), "Rojos");
+        archivo.guardarJugador(new Jugador("Sin Equipo"), "Ninguno");
+        List<Jugador> jugadores = new ArrayList<>();
+
+        // Act
+        List<Equipo> equipos = archivo.cargarEquiposConJugadores(jugadores);
+
+        // Assert
+        assertEquals(2, equipos.size(), "Debe haber dos equipos");
+        assertEquals(2, equipos.get(0).getNumeroJugadores(), "Rojos debe tener dos jugadores");
+        assertNotNull(equipos.get(0).buscarJugadorPorNombre("Carla"), "Carla debe pertenecer a Rojos");
+        assertEquals(1, equipos.get(1).getNumeroJugadores(), "Azules debe tener un jugador");
+        assertEquals(4, jugadores.size(), "Deben cargarse todos los jugadores");
+    }
+
+    /**
+     * Prueba que el índice de equipo a jugadores sigue los cambios de equipo.
+     */
+    @Test
+    @Order(9)
+    @DisplayName("Cargar jugadores de equipo")
+    void testCargarJugadoresDeEquipo() {
+        // Arrange
+        archivo.guardarJugador(new Jugador("Ana"), "Rojos");
+        archivo.guardarJugador(new Jugador("Beto"), "Rojos");
+
+        // Act
+        archivo.guardarJugador(new Jugador("Ana"), "Azules");
+        archivo.eliminarJugador("Beto");
+
+        // Assert
+        assertTrue(archivo.cargarJugadoresDeEquipo("Rojos").isEmpty(), "Rojos no debe tener jugadores");
+        assertEquals(1, archivo.cargarJugadoresDeEquipo("Azules").size(), "Azules debe tener a Ana");
+    }
+
+    /**
+     * Prueba recorrer los jugadores con un flujo perezoso, filtrando y en paralelo.
+     */
+    @Test
+    @Order(10)
+    @DisplayName("Flujo de jugadores")
+    void testFlujoJugadores() {
+        // Arrange
+        for (int i = 0; i < 5000; i++) {
+            Jugador jugador = new Jugador("Jugador " + i);
+            jugador.setPuntuacion(i % 10);
+            archivo.guardarJugador(jugador, "Rojos");
+        }
+
+        // Act
+        long conPuntuacionNueve = archivo.flujoJugadores().filter(j -> j.getPuntuacion() == 9).count();
+        int puntuacionTotal = archivo.flujoJugadores().parallel().mapToInt(Jugador::getPuntuacion).sum();
+        Jugador primero = archivo.flujoJugadores().findFirst().orElse(null);
+
+        // Assert
+        assertEquals(500, conPuntuacionNueve, "Debe haber 500 jugadores con puntuación nueve");
+        assertEquals(22500, puntuacionTotal, "La suma en paralelo debe coincidir");
+        assertEquals("Jugador 0", primero.getNombre(), "El flujo debe respetar el orden de las ranuras");
+    }
+
+    /**
+     * Prueba que las operaciones confirmadas se reproducen desde el diario
+     * cuando la instancia anterior no llegó a cerrarse.
+     */
+    @Test
+    @Order(11)
+    @DisplayName("Reproducir diario sin cierre")
+    void testReproducirDiario() {
+        // Arrange
+        archivo.guardarJugador(new Jugador("Ana"), "Rojos");
+        archivo.guardarJugador(new Jugador("Beto"), "Rojos");
+        archivo.eliminarJugador("Ana");
+        archivo.confirmar();
+
+        // Act
+        ArchivoAccesoAleatorio recuperado = new ArchivoAccesoAleatorio(directorio.toString());
+
+        // Assert
+        assertEquals(1, recuperado.getNumeroJugadores(), "Debe quedar un jugador");
+        assertNull(recuperado.buscarJugador("Ana"), "La eliminación debe conservarse");
+        assertNotNull(recuperado.buscarJugador("Beto"), "El jugador guardado debe conservarse");
+        recuperado.cerrar();
+    }
+
+    /**
+     * Prueba guardar la plantilla de forma incremental.
+     */
+    @Test
+    @Order(12)
+    @DisplayName("Guardar plantilla con diario")
+    void testGuardarPlantilla() {
+        // Arrange
+        archivo.guardarEquipo(new Equipo("Viejos", "Gris"));
+        archivo.guardarJugador(new Jugador("Antiguo"), "Viejos");
+        List<Equipo> equipos = new ArrayList<>();
+        Equipo equipo = new Equipo("Rojos", "Rojo");
+        equipo.agregarJugador(new Jugador("Ana"));
+        equipos.add(equipo);
+
+        // Act
+        boolean resultado = archivo.guardarPlantilla(equipos);
+
+        // Assert
+        assertTrue(resultado, "La plantilla debe guardarse exitosamente");
+        assertEquals(1, archivo.getNumeroEquipos(), "Debe quedar solo el equipo de la plantilla");
+        assertNull(archivo.buscarJugador("Antiguo"), "Los jugadores ausentes deben eliminarse");
+        assertNotNull(archivo.buscarJugador("Ana"), "Los jugadores de la plantilla deben guardarse");
+    }
+
+    /**
+     * Prueba que solo se guardan los cambios y que las marcas se limpian.
+     */
+    @Test
+    @Order(13)
+    @DisplayName("Guardar solo cambios")
+    void testGuardarCambios() {
+        // Arrange
+        List<Equipo> equipos = new ArrayList<>();
+        Equipo equipo = new Equipo("Rojos", "Rojo");
+        Jugador ana = new Jugador("Ana");
+        equipo.agregarJugador(ana);
+        equipo.agregarJugador(new Jugador("Beto"));
+        equipos.add(equipo);
+        archivo.guardarCambios(equipos);
+
+        // Act
+        ana.agregarPuntos(10);
+        boolean modificadoAntes = ana.estaModificado();
+        boolean resultado = archivo.guardarCambios(equipos);
+
+        // Assert
+        assertTrue(modificadoAntes, "Agregar puntos debe marcar al jugador");
+        assertTrue(resultado, "Los cambios deben guardarse exitosamente");
+        assertFalse(ana.estaModificado(), "La marca debe limpiarse al guardar");
+        assertFalse(equipo.estaModificado(), "La marca del equipo debe limpiarse al guardar");
+        assertEquals(10, archivo.buscarJugador("Ana").getPuntuacion(), "La puntuación debe guardarse");
+        assertFalse(archivo.buscarJugador("Beto").estaModificado(), "Los jugadores leídos no deben estar marcados");
+    }
+
+    /**
+     * Prueba compactar el archivo de jugadores tras muchas eliminaciones.
+     */
+    @Test
+    @Order(14)
+    @DisplayName("Compactar archivos")
+    void testCompactar() {
+        // Arrange
+        for (int i = 0; i < 2000; i++) {
+            archivo.guardarJugador(new Jugador("Jugador " + i), i % 2 == 0 ? "Rojos" : "Azules");
+        }
+        for (int i = 0; i < 2000; i++) {
+            if (i % 4 != 0) {
+                archivo.eliminarJugador("Jugador " + i);
+            }
+        }
+
+        // Act
+        boolean resultado = archivo.compactar();
+
+        // Assert
+        assertTrue(resultado, "La compactación debe terminar exitosamente");
+        assertEquals(500, archivo.getNumeroJugadores(), "Deben conservarse los jugadores vigentes");
+        assertEquals(500, archivo.flujoJugadores().count(), "El recorrido solo debe ver jugadores vigentes");
+        assertNotNull(archivo.buscarJugador("Jugador 1996"), "El índice debe reconstruirse");
+        assertNull(archivo.buscarJugador("Jugador 1997"), "Los jugadores eliminados no deben volver");
+        assertEquals(500, archivo.cargarJugadoresDeEquipo("Rojos").size(), "El índice por equipo debe reconstruirse");
+    }
+
+    /**
+     * Prueba que un registro dañado se ponga en cuarentena al abrir los archivos.
+     */
+    @Test
+    @Order(15)
+    @DisplayName("Cuarentena de registros dañados")
+    void testVerificarIntegridad() throws Exception {
+        // Arrange
+        archivo.guardarJugador(new Jugador("Ana"), "Rojos");
+        archivo.guardarJugador(new Jugador("Beto"), "Rojos");
+        archivo.cerrar();
+        // Alterar un byte del contenido de la segunda ranura (cabecera de 64 bytes, ranuras de 128)
+        try (RandomAccessFile datos = new RandomAccessFile(directorio.resolve("jugadores.dat").toFile(), "rw")) {
+            datos.seek(64 + 128 + 10);
+            int valor = datos.read();
+            datos.seek(64 + 128 + 10);
+            datos.write(valor ^ 0xFF);
+        }
+
+        // Act
+        archivo = new ArchivoAccesoAleatorio(directorio.toString());
+
+        // Assert
+        assertEquals(1, archivo.getNumeroJugadores(), "El registro dañado debe retirarse");
+        assertNotNull(archivo.buscarJugador("Ana"), "El registro intacto debe conservarse");
+        assertNull(archivo.buscarJugador("Beto"), "El registro dañado no debe leerse");
+        assertTrue(Files.exists(directorio.resolve("jugadores.dat.cuarentena")), "Debe crearse el archivo de cuarentena");
+        assertEquals(0, archivo.verificarIntegridad(), "No deben quedar registros dañados");
+    }
+
+    /**
+     * Prueba que varios hilos escriban y lean a la vez sin compartir ranuras.
+     */
+    @Test
+    @Order(16)
+    @DisplayName("Escrituras y lecturas concurrentes")
+    void testAccesoConcurrente() throws Exception {
+        // Arrange
+        ExecutorService hilos = Executors.newFixedThreadPool(6);
+        List<Future<Boolean>> tareas = new ArrayList<>();
+
+        // Act
+        for (int h = 0; h < 4; h++) {
+            String prefijo = "Hilo " + h + " - ";
+            tareas.add(hilos.submit(() -> {
+                boolean exito = true;
+                for (int i = 0; i < 500; i++) {
+                    exito &= archivo.guardarJugador(new Jugador(prefijo + i), "Rojos");
+                }
+                return exito;
+            }));
+        }
+        for (int h = 0; h < 2; h++) {
+            tareas.add(hilos.submit(() -> {
+                boolean exito = true;
+                for (int i = 0; i < 500; i++) {
+                    Jugador jugador = archivo.buscarJugador("Hilo 0 - " + i);
+                    exito &= jugador == null || jugador.getNombre().equals("Hilo 0 - " + i);
+                }
+                return exito;
+            }));
+        }
+        boolean exito = true;
+        for (Future<Boolean> tarea : tareas) {
+            exito &= tarea.get();
+        }
+        hilos.shutdown();
+
+        // Assert
+        assertTrue(exito, "Todas las escrituras y lecturas deben ser consistentes");
+        assertEquals(2000, archivo.getNumeroJugadores(), "Cada jugador debe ocupar su propia ranura");
+        assertEquals(2000, archivo.cargarJugadoresDeEquipo("Rojos").size(), "El índice por equipo debe tener a todos");
+    }
+
+    /**
+     * Prueba que la caché de registros atienda lecturas repetidas, desaloje
+     * al llenarse y se invalide al guardar.
+     */
+    @Test
+    @Order(17)
+    @DisplayName("Caché de registros decodificados")
+    void testCacheRegistros() {
+        // Arrange
+        archivo.cerrar();
+        archivo = new ArchivoAccesoAleatorio(directorio.toString(), 2);
+        for (String nombre : new String[] {"Ana", "Beto", "Carla"}) {
+            archivo.guardarJugador(new Jugador(nombre), "Rojos");
+        }
+
+        // Act
+        archivo.buscarJugador("Ana");
+        Jugador ana = archivo.buscarJugador("Ana");
+        archivo.buscarJugador("Beto");
+        archivo.buscarJugador("Carla");
+        ana.agregarPuntos(7);
+        archivo.guardarJugador(ana, "Rojos");
+
+        // Assert
+        assertTrue(archivo.getCacheJugadores().getAciertos() >= 1, "La segunda búsqueda debe atenderse desde memoria");
+        assertTrue(archivo.getCacheJugadores().getDesalojos() >= 1, "Al llenarse la caché debe desalojar registros");
+        assertTrue(archivo.getCacheJugadores().getTamano() <= 2, "La caché no debe superar su capacidad");
+        assertEquals(7, archivo.buscarJugador("Ana").getPuntuacion(), "Guardar debe invalidar el registro en caché");
+    }
+
+    /**
+     * Prueba que la escritura diferida combine los guardados de un mismo
+     * jugador y complete todos sus futuros.
+     */
+    @Test
+    @Order(18)
+    @DisplayName("Escritura diferida con combinación de guardados")
+    void testEscrituraDiferida() throws Exception {
+        // Arrange
+        EscrituraDiferida escritura = new EscrituraDiferida(archivo, 1000);
+        Jugador jugador = new Jugador("Ana");
+        List<CompletableFuture<Boolean>> guardados = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            jugador.agregarPuntos(1);
+            guardados.add(escritura.guardarJugador(jugador, "Rojos"));
+        }
+        boolean vaciado = escritura.vaciar().get();
+        escritura.cerrar();
+
+        // Assert
+        assertTrue(vaciado, "Las solicitudes pendientes deben confirmarse al vaciar");
+        for (CompletableFuture<Boolean> guardado : guardados) {
+            assertTrue(guardado.get(), "Cada futuro debe completarse con el guardado combinado");
+        }
+        assertEquals(9, escritura.getCombinadas(), "Los guardados del mismo jugador deben combinarse");
+        assertEquals(10, archivo.buscarJugador("Ana").getPuntuacion(), "Debe escribirse el último estado");
+        assertFalse(escritura.guardarJugador(jugador, "Rojos").get(), "Tras cerrar no se aceptan solicitudes");
+    }
+
+    /**
+     * Prueba la recuperación cuando la ejecución anterior terminó entre
+     * aplicar un cambio y confirmarlo, con la cabecera del archivo a medio
+     * escribir: la lista de libres apunta a una ranura ocupada.
+     */
+    @Test
+    @Order(19)
+    @DisplayName("Recuperar tras falla entre aplicar y confirmar")
+    void testRecuperarFallaSinConfirmar() throws Exception {
+        // Arrange
+        archivo.guardarJugador(new Jugador("Ana"), "Rojos");
+        archivo.guardarJugador(new Jugador("Beto"), "Rojos");
+        archivo.conDatosSincronizados(() -> true, false);
+        archivo.guardarJugador(new Jugador("Carla"), "Rojos");
+        // Cabeza de la lista de libres (posición 16) apuntando a la ranura de Ana
+        try (RandomAccessFile datos = new RandomAccessFile(directorio.resolve("jugadores.dat").toFile(), "rw")) {
+            datos.seek(16);
+            datos.writeInt(0);
+        }
+
+        // Act
+        ArchivoAccesoAleatorio recuperado = new ArchivoAccesoAleatorio(directorio.toString());
+        boolean guardado = recuperado.guardarJugador(new Jugador("Dani"), "Rojos");
+
+        // Assert
+        assertTrue(guardado, "El jugador debe guardarse tras la recuperación");
+        assertNotNull(recuperado.buscarJugador("Ana"), "No debe sobrescribirse una ranura ocupada");
+        assertNotNull(recuperado.buscarJugador("Beto"), "Los jugadores del punto de control deben conservarse");
+        assertNotNull(recuperado.buscarJugador("Dani"), "El jugador nuevo debe encontrarse");
+        assertEquals(recuperado.cargarJugadores().size(), recuperado.getNumeroJugadores(),
+                     "El conteo debe coincidir con las ranuras ocupadas");
+        recuperado.cerrar();
+    }
+
+    /**
+     * Prueba que los archivos del formato original, con registros de texto
+     * escritos con writeUTF sin cabecera, se migren al abrirlos conservando
+     * los equipos, los jugadores con sus estadísticas y su equipo.
+     */
+    @Test
+    @Order(20)
+    @DisplayName("Migrar archivos del formato original sin cabecera")
+    void testMigrarFormatoSinCabecera() throws Exception {
+        // Arrange
+        archivo.cerrar();
+        escribirFormatoSinCabecera("equipos.dat", 256, "Rojos|Rojo|40|10|4", "", "Azules|Azul|60|12|6");
+        escribirFormatoSinCabecera("jugadores.dat", 128, "Ana|Rojos|30|3|7", "Beto|Rojos|10|1|3", "",
+                                   "Carla|Azules|60|6|12");
+
+        // Act
+        archivo = new ArchivoAccesoAleatorio(directorio.toString());
+        List<Equipo> equipos = archivo.cargarEquipos();
+        List<Jugador> jugadores = archivo.cargarJugadores();
+
+        // Assert
+        assertEquals(2, equipos.size(), "Deben migrarse los equipos sin los registros vacíos");
+        assertEquals("Azul", archivo.buscarEquipo("Azules").getColor(), "Debe conservarse el color");
+        assertEquals(3, jugadores.size(), "Deben migrarse los jugadores sin los registros vacíos");
+        Jugador ana = archivo.buscarJugador("Ana");
+        assertEquals(30, ana.getPuntuacion(), "Debe conservarse la puntuación");
+        assertEquals(3, ana.getAciertos(), "Deben conservarse los aciertos");
+        assertEquals(7, ana.getIntentos(), "Deben conservarse los intentos");
+        assertEquals(2, archivo.cargarJugadoresDeEquipo("Rojos").size(), "Debe conservarse el equipo de cada jugador");
+    }
+
+    /**
+     * Prueba que los archivos con cabecera y registros de texto se migren al
+     * abrirlos, descartando las ranuras libres, y que la migración se
+     * conserve al volver a abrir.
+     */
+    @Test
+    @Order(21)
+    @DisplayName("Migrar archivos con registros de texto")
+    void testMigrarFormatoTexto() throws Exception {
+        // Arrange
+        archivo.cerrar();
+        escribirFormatoTexto("equipos.dat", 256, "Rojos|Rojo|40|10|4", null, "Azules|Azul|60|12|6");
+        escribirFormatoTexto("jugadores.dat", 128, "Ana|Rojos|30|3|7", null, "Carla|Azules|60|6|12");
+
+        // Act
+        archivo = new ArchivoAccesoAleatorio(directorio.toString());
+        int equipos = archivo.cargarEquipos().size();
+        int jugadores = archivo.cargarJugadores().size();
+        archivo.cerrar();
+        archivo = new ArchivoAccesoAleatorio(directorio.toString());
+
+        // Assert
+        assertEquals(2, equipos, "Deben migrarse los equipos sin las ranuras libres");
+        assertEquals(2, jugadores, "Deben migrarse los jugadores sin las ranuras libres");
+        assertEquals(2, archivo.cargarEquipos().size(), "Los equipos migrados deben conservarse al reabrir");
+        Jugador carla = archivo.buscarJugador("Carla");
+        assertNotNull(carla, "Los jugadores migrados deben conservarse al reabrir");
+        assertEquals(60, carla.getPuntuacion(), "Debe conservarse la puntuación");
+        assertEquals(1, archivo.cargarJugadoresDeEquipo("Azules").size(), "Debe conservarse el equipo de cada jugador");
+    }
+
+    /**
+     * Escribe un archivo del formato original: un texto escrito con
+     * writeUTF al inicio de cada registro de tamaño fijo, sin cabecera.
+     *
+     * @param nombre Nombre del archivo
+     * @param tamanoRegistro Tamaño de cada registro
+     * @param registros Registros de texto, vacíos para los eliminados
+     * @throws Exception Si hay error de E/S
+     */
+    private void escribirFormatoSinCabecera(String nombre, int tamanoRegistro, String... registros) throws Exception {
+        Files.deleteIfExists(directorio.resolve(nombre));
+        try (RandomAccessFile datos = new RandomAccessFile(directorio.resolve(nombre).toFile(), "rw")) {
+            for (int i = 0; i < registros.length; i++) {
+                datos.seek((long) i * tamanoRegistro);
+                datos.writeUTF(registros[i]);
+            }
+            datos.setLength((long) registros.length * tamanoRegistro);
+        }
+    }
+
+    /**
+     * Escribe un archivo con cabecera y registros de texto: una marca de
+     * estado seguida de un texto escrito con writeUTF en cada ranura.
+     *
+     * @param nombre Nombre del archivo
+     * @param tamanoRegistro Tamaño de cada ranura
+     * @param registros Registros de texto, null para las ranuras libres
+     * @throws Exception Si hay error de E/S
+     */
+    private void escribirFormatoTexto(String nombre, int tamanoRegistro, String... registros) throws Exception {
+        Files.deleteIfExists(directorio.resolve(nombre));
+        try (RandomAccessFile datos = new RandomAccessFile(directorio.resolve(nombre).toFile(), "rw")) {
+            datos.writeInt(0x41524731);
+            datos.writeInt(1);
+            datos.writeInt(tamanoRegistro);
+            datos.writeInt(registros.length);
+            datos.writeInt(-1);
+            for (int i = 0; i < registros.length; i++) {
+                datos.seek(64 + (long) i * tamanoRegistro);
+                datos.writeByte(registros[i] != null ? 1 : 0);
+                if (registros[i] != null) {
+                    datos.writeUTF(registros[i]);
+                }
+            }
+            datos.setLength(64 + (long) registros.length * tamanoRegistro);
+        }
+    }
+}
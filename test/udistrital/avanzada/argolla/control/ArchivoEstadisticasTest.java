@@ -0,0 +1,252 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para ArchivoEstadisticas.
+ * Prueba las lecturas por rango dentro de un segmento y entre segmentos, la
+ * retención por tamaño y por edad, y la incorporación de los archivos
+ * sueltos anteriores, usando un directorio temporal en cada prueba.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ArchivoEstadisticasTest {
+
+    /** Texto de unos 10 KB para llenar segmentos con pocas entradas */
+    private static final String TEXTO_GRANDE = new String(new char[10 * 1024]).replace('\0', 'x');
+
+    @TempDir
+    Path raiz;
+
+    private Path directorio;
+
+    private ArchivoEstadisticas archivo;
+
+    /**
+     * Configuración antes de cada prueba.
+     */
+    @BeforeEach
+    void setUp() {
+        directorio = raiz.resolve("estadisticas");
+        archivo = ArchivoEstadisticas.abrir(directorio);
+    }
+
+    /**
+     * Limpieza después de cada prueba.
+     */
+    @AfterEach
+    void tearDown() {
+        archivo.cerrar();
+        archivo = null;
+    }
+
+    /**
+     * Prueba que una lectura por rango devuelva solo las entradas dentro
+     * del rango, con ambos extremos incluidos, también tras reabrir.
+     */
+    @Test
+    @Order(1)
+    @DisplayName("Leer por rango")
+    void testLeerPorRango() throws Exception {
+        // Arrange
+        for (int i = 1; i <= 10; i++) {
+            archivo.agregar(i * 1000L, "entrada " + i);
+        }
+
+        // Act
+        List<EntradaEstadisticas> rango = archivo.leer(3000, 6000);
+        List<EntradaEstadisticas> entreMarcas = archivo.leer(3001, 3999);
+        List<EntradaEstadisticas> invertido = archivo.leer(6000, 3000);
+        archivo.cerrar();
+        List<EntradaEstadisticas> reabierto = archivo.leer(9500, Long.MAX_VALUE);
+
+        // Assert
+        assertEquals(Arrays.asList(3000L, 4000L, 5000L, 6000L), marcas(rango), "Deben incluirse ambos extremos");
+        assertEquals("entrada 3", rango.get(0).getContenido(), "El contenido debe conservarse");
+        assertTrue(entreMarcas.isEmpty(), "No debe haber entradas entre dos marcas consecutivas");
+        assertTrue(invertido.isEmpty(), "Un rango invertido debe estar vacío");
+        assertEquals(Arrays.asList(10000L), marcas(reabierto), "El segmento activo debe leerse tras reabrir");
+    }
+
+    /**
+     * Prueba que las marcas sean estrictamente crecientes aunque se pida
+     * una marca anterior a la última.
+     */
+    @Test
+    @Order(2)
+    @DisplayName("Marcas estrictamente crecientes")
+    void testMarcasCrecientes() throws Exception {
+        // Arrange
+        archivo.agregar(5000, "primera");
+
+        // Act
+        long repetida = archivo.agregar(5000, "segunda");
+        long anterior = archivo.agregar(100, "tercera");
+
+        // Assert
+        assertEquals(5001, repetida, "Una marca repetida debe avanzar");
+        assertEquals(5002, anterior, "Una marca anterior debe usar la última más uno");
+        assertEquals(3, archivo.leer(0, Long.MAX_VALUE).size(), "Cada marca debe identificar una entrada");
+    }
+
+    /**
+     * Prueba una lectura por rango que abarca varios segmentos, antes y
+     * después de reabrir con los índices guardados.
+     */
+    @Test
+    @Order(3)
+    @DisplayName("Leer por rango entre segmentos")
+    void testLeerEntreSegmentos() throws Exception {
+        // Arrange
+        long inicio = System.currentTimeMillis();
+        for (int i = 0; i < 250; i++) {
+            archivo.agregar(inicio + i * 10L, i + ":" + TEXTO_GRANDE);
+        }
+
+        // Act
+        int numeroSegmentos = archivo.getNumeroSegmentos();
+        List<EntradaEstadisticas> rango = archivo.leer(inicio + 895, inicio + 1705);
+        archivo.cerrar();
+        List<EntradaEstadisticas> reabierto = archivo.leer(inicio + 895, inicio + 1705);
+
+        // Assert
+        assertTrue(numeroSegmentos >= 3, "Las entradas deben ocupar varios segmentos");
+        assertEquals(81, rango.size(), "Deben leerse las entradas de todos los segmentos del rango");
+        assertEquals(inicio + 900, rango.get(0).getMarcaTiempo(), "La primera entrada debe ser la primera del rango");
+        assertEquals(inicio + 1700, rango.get(80).getMarcaTiempo(), "La última entrada debe ser la última del rango");
+        assertTrue(rango.get(40).getContenido().startsWith("130:"), "El contenido debe corresponder a su marca");
+        assertEquals(marcas(rango), marcas(reabierto), "Los índices guardados deben dar el mismo resultado");
+    }
+
+    /**
+     * Prueba que la retención por tamaño elimine los segmentos más antiguos
+     * y nunca el segmento activo.
+     */
+    @Test
+    @Order(4)
+    @DisplayName("Retención por tamaño")
+    void testRetencionPorTamano() throws Exception {
+        // Arrange
+        long ahora = System.currentTimeMillis();
+        for (int i = 0; i < 250; i++) {
+            archivo.agregar(ahora + i, TEXTO_GRANDE);
+        }
+        int segmentosAntes = archivo.getNumeroSegmentos();
+
+        // Act
+        archivo.setRetencion(ArchivoEstadisticas.TAMANO_MAXIMO_SEGMENTO,
+                             ArchivoEstadisticas.RETENCION_EDAD_PREDETERMINADA);
+        List<EntradaEstadisticas> restantes = archivo.leer(0, Long.MAX_VALUE);
+        archivo.setRetencion(0, ArchivoEstadisticas.RETENCION_EDAD_PREDETERMINADA);
+
+        // Assert
+        assertTrue(segmentosAntes >= 3, "Las entradas deben ocupar varios segmentos");
+        assertFalse(restantes.isEmpty(), "Deben conservarse las entradas recientes");
+        assertTrue(restantes.size() < 250, "Deben eliminarse las entradas más antiguas");
+        assertEquals(ahora + 249, restantes.get(restantes.size() - 1).getMarcaTiempo(),
+                     "Debe conservarse la última entrada");
+        assertEquals(1, archivo.getNumeroSegmentos(), "El segmento activo no debe eliminarse");
+        assertTrue(archivo.getTamano() <= ArchivoEstadisticas.TAMANO_MAXIMO_SEGMENTO,
+                   "El tamaño debe ser el del segmento activo");
+    }
+
+    /**
+     * Prueba que la retención por edad elimine los segmentos cuya última
+     * entrada es más antigua que la edad máxima.
+     */
+    @Test
+    @Order(5)
+    @DisplayName("Retención por edad")
+    void testRetencionPorEdad() throws Exception {
+        // Arrange
+        long ahora = System.currentTimeMillis();
+        long haceUnMes = ahora - 30L * 24 * 60 * 60 * 1000;
+        for (int i = 0; i < 150; i++) {
+            archivo.agregar(haceUnMes + i, TEXTO_GRANDE);
+        }
+        for (int i = 0; i < 150; i++) {
+            archivo.agregar(ahora + i, TEXTO_GRANDE);
+        }
+        int antiguasAntes = archivo.leer(0, haceUnMes + 1000).size();
+
+        // Act
+        archivo.setRetencion(ArchivoEstadisticas.RETENCION_BYTES_PREDETERMINADA, 24L * 60 * 60 * 1000);
+        List<EntradaEstadisticas> antiguas = archivo.leer(0, haceUnMes + 1000);
+        List<EntradaEstadisticas> recientes = archivo.leer(ahora, Long.MAX_VALUE);
+
+        // Assert
+        assertEquals(150, antiguasAntes, "La retención predeterminada debe conservar las entradas de un mes");
+        assertTrue(antiguas.size() < 150, "Los segmentos antiguos deben eliminarse");
+        assertEquals(150, recientes.size(), "Las entradas recientes deben conservarse");
+    }
+
+    /**
+     * Prueba que los archivos sueltos anteriores se incorporen al abrir y
+     * se eliminen, y que si sus archivos quedan tras una migración
+     * interrumpida no se incorporen de nuevo.
+     */
+    @Test
+    @Order(6)
+    @DisplayName("Incorporar archivos sueltos sin duplicar")
+    void testIncorporarSueltos() throws Exception {
+        // Arrange
+        Files.createDirectories(directorio);
+        crearSueltos(1000, 2000, 3000);
+
+        // Act
+        List<EntradaEstadisticas> incorporadas = archivo.leer(0, Long.MAX_VALUE);
+        boolean quedanSueltos = Files.exists(directorio.resolve(ArchivoEstadisticas.nombreSuelto(1000)));
+        archivo.cerrar();
+        // Migración interrumpida antes de eliminar los archivos
+        crearSueltos(1000, 2000, 3000);
+        List<EntradaEstadisticas> reabiertas = archivo.leer(0, Long.MAX_VALUE);
+
+        // Assert
+        assertEquals(Arrays.asList(1000L, 2000L, 3000L), marcas(incorporadas), "Deben incorporarse en orden");
+        assertEquals("sueltas 2000", incorporadas.get(1).getContenido(), "El contenido debe conservarse");
+        assertFalse(quedanSueltos, "Los archivos sueltos deben eliminarse");
+        assertEquals(marcas(incorporadas), marcas(reabiertas), "No deben incorporarse de nuevo");
+        assertFalse(Files.exists(directorio.resolve(ArchivoEstadisticas.nombreSuelto(3000))),
+                    "Los archivos ya incorporados deben eliminarse");
+    }
+
+    /**
+     * Crea archivos sueltos de estadísticas como los de versiones anteriores.
+     *
+     * @param marcasSueltas Marcas de los archivos
+     * @throws Exception Si hay error de E/S
+     */
+    private void crearSueltos(long... marcasSueltas) throws Exception {
+        for (long marca : marcasSueltas) {
+            Files.write(directorio.resolve(ArchivoEstadisticas.nombreSuelto(marca)),
+                        ("sueltas " + marca).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Obtiene las marcas de una lista de entradas.
+     *
+     * @param entradas Entradas
+     * @return Marcas en el mismo orden
+     */
+    private static List<Long> marcas(List<EntradaEstadisticas> entradas) {
+        List<Long> marcas = new ArrayList<>();
+        for (EntradaEstadisticas entrada : entradas) {
+            marcas.add(entrada.getMarcaTiempo());
+        }
+        return marcas;
+    }
+}
@@ -0,0 +1,379 @@
+package udistrital.avanzada.argolla.control;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para ArchivoPartidas.
+ * Prueba la reapertura del registro de segmentos con y sin cierre, la
+ * recuperación del índice y del final del segmento activo, la compactación
+ * y la incorporación de partidas sueltas, usando un directorio temporal en
+ * cada prueba.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ArchivoPartidasTest {
+
+    @TempDir
+    Path raiz;
+
+    private Path directorio;
+
+    private ArchivoPartidas archivo;
+
+    /**
+     * Configuración antes de cada prueba.
+     */
+    @BeforeEach
+    void setUp() {
+        directorio = raiz.resolve("partidas");
+        archivo = ArchivoPartidas.abrir(directorio);
+    }
+
+    /**
+     * Limpieza después de cada prueba.
+     */
+    @AfterEach
+    void tearDown() {
+        archivo.cerrar();
+        archivo = null;
+    }
+
+    /**
+     * Prueba que las partidas, sus deltas y el orden de guardado se
+     * conserven al volver a abrir tras cerrar.
+     */
+    @Test
+    @Order(1)
+    @DisplayName("Reabrir tras cerrar")
+    void testReabrirTrasCerrar() throws Exception {
+        // Arrange
+        archivo.guardar("a", datos("partida a"));
+        archivo.guardar("b", datos("partida b"));
+        archivo.guardarDelta("a", datos("delta a"));
+
+        // Act
+        archivo.cerrar();
+        List<String> ids = archivo.getIds();
+
+        // Assert
+        assertTrue(Files.exists(directorio.resolve("partidas.idx")), "Al cerrar debe guardarse el índice");
+        assertEquals(Arrays.asList("a", "b"), ids, "Debe conservarse el orden de guardado");
+        assertArrayEquals(datos("partida a"), archivo.leer("a"), "Los datos deben conservarse");
+        assertArrayEquals(datos("delta a"), archivo.leerDelta("a"), "El delta debe conservarse");
+        assertNull(archivo.leerDelta("b"), "Una partida sin delta no debe tener uno");
+    }
+
+    /**
+     * Prueba abrir una copia del directorio tomada sin cerrar, como tras
+     * una falla: el índice guardado no cubre las últimas entradas, que deben
+     * recuperarse recorriendo el segmento activo.
+     */
+    @Test
+    @Order(2)
+    @DisplayName("Reabrir sin cerrar")
+    void testReabrirSinCerrar() throws Exception {
+        // Arrange
+        archivo.guardar("a", datos("partida a"));
+        archivo.guardar("b", datos("partida b"));
+        archivo.cerrar();
+        archivo.guardar("a", datos("partida a v2"));
+        archivo.eliminar("b");
+        archivo.guardar("c", datos("partida c"));
+        Path copia = raiz.resolve("copia");
+        copiarDirectorio(directorio, copia);
+
+        // Act
+        ArchivoPartidas recuperado = ArchivoPartidas.abrir(copia);
+
+        // Assert
+        try {
+            assertEquals(Arrays.asList("a", "c"), recuperado.getIds(), "Deben recuperarse las entradas sin índice");
+            assertArrayEquals(datos("partida a v2"), recuperado.leer("a"), "Debe leerse la última versión");
+            assertNull(recuperado.leer("b"), "La lápida debe aplicarse");
+            assertArrayEquals(datos("partida c"), recuperado.leer("c"), "La partida nueva debe leerse");
+        } finally {
+            recuperado.cerrar();
+        }
+    }
+
+    /**
+     * Prueba que el índice se reconstruya desde los segmentos si falta.
+     */
+    @Test
+    @Order(3)
+    @DisplayName("Reconstruir índice eliminado")
+    void testIndiceEliminado() throws Exception {
+        // Arrange
+        archivo.guardar("a", datos("partida a"));
+        archivo.guardar("b", datos("partida b"));
+        archivo.eliminar("a");
+        archivo.cerrar();
+        Files.delete(directorio.resolve("partidas.idx"));
+
+        // Act
+        List<String> ids = archivo.getIds();
+
+        // Assert
+        assertEquals(Arrays.asList("b"), ids, "El índice debe reconstruirse sin la partida eliminada");
+        assertArrayEquals(datos("partida b"), archivo.leer("b"), "Los datos deben leerse tras reconstruir");
+    }
+
+    /**
+     * Prueba que un índice dañado se descarte y se reconstruya desde los
+     * segmentos en lugar de apuntar a posiciones inválidas.
+     */
+    @Test
+    @Order(4)
+    @DisplayName("Reconstruir índice dañado")
+    void testIndiceDanado() throws Exception {
+        // Arrange
+        archivo.guardar("a", datos("partida a"));
+        archivo.guardar("b", datos("partida b"));
+        archivo.cerrar();
+        Path indice = directorio.resolve("partidas.idx");
+        byte[] contenido = Files.readAllBytes(indice);
+        // Posición cubierta (bytes 12 a 19) más allá del final del segmento
+        Arrays.fill(contenido, 12, 20, (byte) 0x7F);
+        Files.write(indice, contenido);
+
+        // Act
+        List<String> ids = archivo.getIds();
+
+        // Assert
+        assertEquals(Arrays.asList("a", "b"), ids, "El índice debe reconstruirse desde los segmentos");
+        assertArrayEquals(datos("partida a"), archivo.leer("a"), "Los datos deben leerse tras reconstruir");
+
+        // Arrange
+        archivo.cerrar();
+        Files.write(indice, datos("basura"));
+
+        // Act
+        ids = archivo.getIds();
+
+        // Assert
+        assertEquals(Arrays.asList("a", "b"), ids, "Un índice ilegible debe reconstruirse");
+    }
+
+    /**
+     * Prueba que una entrada incompleta al final del segmento activo se
+     * descarte y que las partidas guardadas después se lean tras reabrir.
+     */
+    @Test
+    @Order(5)
+    @DisplayName("Descartar final incompleto del segmento")
+    void testFinalIncompleto() throws Exception {
+        // Arrange
+        archivo.guardar("a", datos("partida a"));
+        archivo.cerrar();
+        Path segmento = unicoSegmento();
+        // Tipo de partida y longitud del id, sin el resto de la entrada
+        Files.write(segmento, new byte[] {1, 0, 5, 'x', 'y'}, StandardOpenOption.APPEND);
+
+        // Act
+        List<String> ids = archivo.getIds();
+        archivo.guardar("b", datos("partida b"));
+        archivo.cerrar();
+
+        // Assert
+        assertEquals(Arrays.asList("a"), ids, "La entrada incompleta debe descartarse");
+        assertEquals(Arrays.asList("a", "b"), archivo.getIds(), "La partida guardada tras la falla debe conservarse");
+        assertArrayEquals(datos("partida a"), archivo.leer("a"), "Los datos anteriores deben conservarse");
+        assertArrayEquals(datos("partida b"), archivo.leer("b"), "Los datos nuevos deben leerse");
+    }
+
+    /**
+     * Prueba que compactar descarte las versiones sobrescritas, las partidas
+     * eliminadas y las lápidas, conservando las partidas vigentes y sus deltas.
+     */
+    @Test
+    @Order(6)
+    @DisplayName("Compactar con sobrescrituras y eliminaciones")
+    void testCompactar() throws Exception {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            archivo.guardar("a", datos("partida a v" + i));
+        }
+        archivo.guardar("b", datos("partida b"));
+        archivo.guardar("c", datos("partida c"));
+        archivo.guardarDelta("c", datos("delta c"));
+        archivo.eliminar("b");
+        long tamanoAntes = tamanoSegmentos();
+
+        // Act
+        archivo.compactar();
+
+        // Assert
+        assertTrue(tamanoSegmentos() < tamanoAntes, "Compactar debe liberar espacio");
+        assertEquals(1, archivo.getNumeroSegmentos(), "Los segmentos compactados deben borrarse");
+        assertEquals(Arrays.asList("a", "c"), archivo.getIds(), "Deben quedar solo las partidas vigentes");
+        assertArrayEquals(datos("partida a v4"), archivo.leer("a"), "Debe conservarse la última versión");
+        assertArrayEquals(datos("delta c"), archivo.leerDelta("c"), "El delta debe conservarse");
+
+        // Act
+        archivo.cerrar();
+
+        // Assert
+        assertEquals(Arrays.asList("a", "c"), archivo.getIds(), "La compactación debe conservarse al reabrir");
+        assertNull(archivo.leer("b"), "La partida eliminada no debe reaparecer");
+        assertArrayEquals(datos("partida c"), archivo.leer("c"), "Los datos deben leerse tras reabrir");
+    }
+
+    /**
+     * Prueba que al abrir se incorporen las partidas guardadas como archivos
+     * sueltos, en más de un lote, y que sus archivos se eliminen.
+     */
+    @Test
+    @Order(7)
+    @DisplayName("Incorporar partidas sueltas")
+    void testIncorporarSueltas() throws Exception {
+        // Arrange
+        Path sueltas = raiz.resolve("sueltas");
+        Files.createDirectories(sueltas);
+        List<String> esperados = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            String id = String.format("s%03d", i);
+            esperados.add(id);
+            Files.write(sueltas.resolve("partida_" + id + ".dat"), datos("partida " + id));
+        }
+        ArchivoPartidas incorporado = ArchivoPartidas.abrir(sueltas);
+
+        try {
+            // Act
+            List<String> ids = new ArrayList<>(incorporado.getIds());
+            Collections.sort(ids);
+
+            // Assert
+            assertEquals(esperados, ids, "Deben incorporarse todas las partidas sueltas");
+            for (String id : esperados) {
+                assertArrayEquals(datos("partida " + id), incorporado.leer(id), "Los datos deben conservarse: " + id);
+            }
+            assertEquals(0, contarSueltas(sueltas), "Los archivos sueltos deben eliminarse");
+
+            // Act
+            incorporado.cerrar();
+
+            // Assert
+            assertEquals(600, incorporado.getIds().size(), "Las partidas incorporadas deben conservarse al reabrir");
+            assertArrayEquals(datos("partida s599"), incorporado.leer("s599"), "Los datos deben leerse tras reabrir");
+        } finally {
+            incorporado.cerrar();
+        }
+    }
+
+    /**
+     * Prueba que una partida suelta que ya está en el índice, como tras una
+     * incorporación interrumpida antes de eliminar los archivos, no se
+     * duplique ni reemplace la versión guardada.
+     */
+    @Test
+    @Order(8)
+    @DisplayName("Incorporar sueltas tras una incorporación interrumpida")
+    void testIncorporarSueltasInterrumpido() throws Exception {
+        // Arrange
+        archivo.guardar("a", datos("partida a v2"));
+        archivo.cerrar();
+        Files.write(directorio.resolve("partida_a.dat"), datos("partida a"));
+        Files.write(directorio.resolve("partida_b.dat"), datos("partida b"));
+
+        // Act
+        List<String> ids = archivo.getIds();
+
+        // Assert
+        assertEquals(Arrays.asList("a", "b"), ids, "La partida ya incorporada no debe duplicarse");
+        assertArrayEquals(datos("partida a v2"), archivo.leer("a"), "Debe conservarse la versión del índice");
+        assertArrayEquals(datos("partida b"), archivo.leer("b"), "Debe incorporarse la partida que faltaba");
+        assertEquals(0, contarSueltas(directorio), "Los archivos sueltos deben eliminarse");
+    }
+
+    /**
+     * Convierte un texto en los datos de una partida.
+     *
+     * @param texto Texto
+     * @return Bytes UTF-8 del texto
+     */
+    private static byte[] datos(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copia los archivos de un directorio a otro nuevo.
+     *
+     * @param origen Directorio de origen
+     * @param destino Directorio de destino
+     * @throws Exception Si hay error de E/S
+     */
+    private static void copiarDirectorio(Path origen, Path destino) throws Exception {
+        Files.createDirectories(destino);
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(origen)) {
+            for (Path archivo : archivos) {
+                Files.copy(archivo, destino.resolve(archivo.getFileName()));
+            }
+        }
+    }
+
+    /**
+     * Cuenta los archivos de partidas sueltas de un directorio.
+     *
+     * @param directorio Directorio de partidas
+     * @return Número de archivos sueltos
+     * @throws Exception Si hay error de E/S
+     */
+    private static int contarSueltas(Path directorio) throws Exception {
+        int sueltas = 0;
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "partida_*.dat")) {
+            for (Path archivo : archivos) {
+                sueltas++;
+            }
+        }
+        return sueltas;
+    }
+
+    /**
+     * Obtiene el único segmento del directorio.
+     *
+     * @return Ruta del segmento
+     * @throws Exception Si hay error de E/S o no hay exactamente un segmento
+     */
+    private Path unicoSegmento() throws Exception {
+        Path segmento = null;
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "segmento_*.log")) {
+            for (Path archivo : archivos) {
+                assertNull(segmento, "Debe haber un solo segmento");
+                segmento = archivo;
+            }
+        }
+        assertNotNull(segmento, "Debe haber un segmento");
+        return segmento;
+    }
+
+    /**
+     * Suma el tamaño de los segmentos del directorio.
+     *
+     * @return Tamaño en bytes
+     * @throws Exception Si hay error de E/S
+     */
+    private long tamanoSegmentos() throws Exception {
+        long total = 0;
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "segmento_*.log")) {
+            for (Path archivo : archivos) {
+                total += Files.size(archivo);
+            }
+        }
+        return total;
+    }
+}
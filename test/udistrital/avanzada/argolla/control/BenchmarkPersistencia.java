@@ -0,0 +1,469 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Clase para medir el rendimiento de la capa de persistencia.
+ * Se ejecuta como programa independiente, igual que TestRunner,
+ * y trabaja sobre un directorio temporal para no tocar los datos reales.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+public class BenchmarkPersistencia {
+
+    /** Número total de jugadores a guardar */
+    private static final int TOTAL_JUGADORES = 100_000;
+
+    /** Tamaño de cada tramo medido */
+    private static final int TAMANO_TRAMO = 10_000;
+
+    /**
+     * Ejecuta todas las mediciones.
+     */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        System.out.println("=== BENCHMARK DE PERSISTENCIA ===");
+
+        medirGuardadoJugadores();
+        medirGuardadoPorLotes();
+        medirCodificacionPartidas();
+        medirGuardadoIncremental();
+        medirCargaCabeceras();
+        medirRegistroEstadisticas();
+        medirPaqueteDatos();
+        medirMigracionSueltas();
+    }
+
+    /**
+     * Guarda TOTAL_JUGADORES jugadores uno a uno e imprime el tiempo de cada
+     * tramo. Con asignación O(1) de ranuras el tiempo por tramo debe mantenerse
+     * aproximadamente constante, es decir, el costo total crece linealmente.
+     */
+    private static void medirGuardadoJugadores() throws IOException {
+        System.out.println("\n--- Guardado de " + TOTAL_JUGADORES + " jugadores ---");
+
+        Path directorio = Files.createTempDirectory("argolla-bench");
+        try {
+            ArchivoAccesoAleatorio archivo = new ArchivoAccesoAleatorio(directorio.toString());
+            long inicioTotal = System.nanoTime();
+
+            for (int tramo = 0; tramo < TOTAL_JUGADORES / TAMANO_TRAMO; tramo++) {
+                long inicio = System.nanoTime();
+                for (int i = 0; i < TAMANO_TRAMO; i++) {
+                    Jugador jugador = new Jugador("Jugador " + (tramo * TAMANO_TRAMO + i));
+                    jugador.setPuntuacion(i);
+                    archivo.guardarJugador(jugador, "Equipo " + (i % 100));
+                }
+                long transcurrido = System.nanoTime() - inicio;
+                System.out.println(String.format("Jugadores %6d-%6d: %8.1f ms (%.2f us/jugador)",
+                    tramo * TAMANO_TRAMO, (tramo + 1) * TAMANO_TRAMO - 1,
+                    transcurrido / 1e6, transcurrido / 1e3 / TAMANO_TRAMO));
+            }
+
+            long total = System.nanoTime() - inicioTotal;
+            System.out.println(String.format("Total: %.1f ms", total / 1e6));
+            System.out.println("Jugadores guardados: " + archivo.getNumeroJugadores());
+            archivo.cerrar();
+        } finally {
+            eliminarDirectorio(directorio);
+        }
+    }
+
+    /**
+     * Compara el guardado de una plantilla completa registro por registro
+     * contra el guardado por lotes de {@link ArchivoAccesoAleatorio#guardarTodo}.
+     */
+    private static void medirGuardadoPorLotes() throws IOException {
+        int numeroEquipos = 1_000;
+        int jugadoresPorEquipo = 4;
+        System.out.println("\n--- Guardado de " + numeroEquipos + " equipos con "
+            + jugadoresPorEquipo + " jugadores cada uno ---");
+
+        List<Equipo> equipos = new ArrayList<>();
+        for (int i = 0; i < numeroEquipos; i++) {
+            Equipo equipo = new Equipo("Equipo " + i, "Azul");
+            for (int j = 0; j < jugadoresPorEquipo; j++) {
+                equipo.agregarJugador(new Jugador("Jugador " + i + "-" + j));
+            }
+            equipos.add(equipo);
+        }
+
+        Path directorio = Files.createTempDirectory("argolla-bench");
+        try {
+            ArchivoAccesoAleatorio archivo = new ArchivoAccesoAleatorio(directorio.toString());
+
+            long inicio = System.nanoTime();
+            archivo.limpiarDatos();
+            for (Equipo equipo : equipos) {
+                archivo.guardarEquipo(equipo);
+                for (Jugador jugador : equipo.getJugadores()) {
+                    archivo.guardarJugador(jugador, equipo.getNombre());
+                }
+            }
+            archivo.cerrar();
+            System.out.println(String.format("Registro por registro: %8.1f ms", (System.nanoTime() - inicio) / 1e6));
+
+            inicio = System.nanoTime();
+            archivo.guardarTodo(equipos, true);
+            System.out.println(String.format("Por lotes (con force): %8.1f ms", (System.nanoTime() - inicio) / 1e6));
+            
+            inicio = System.nanoTime();
+            archivo.guardarPlantilla(equipos);
+            System.out.println(String.format("Plantilla con diario:  %8.1f ms", (System.nanoTime() - inicio) / 1e6));
+            
+            equipos.get(0).getJugadores().get(0).agregarPuntos(1);
+            equipos.get(numeroEquipos / 2).getJugadores().get(1).incrementarIntentos();
+            equipos.get(numeroEquipos - 1).getJugadores().get(2).incrementarAciertos();
+            inicio = System.nanoTime();
+            archivo.guardarCambios(equipos);
+            System.out.println(String.format("Solo 3 modificados:    %8.1f ms", (System.nanoTime() - inicio) / 1e6));
+            System.out.println("Jugadores guardados: " + archivo.getNumeroJugadores());
+            archivo.cerrar();
+        } finally {
+            eliminarDirectorio(directorio);
+        }
+    }
+
+    /**
+     * Compara el tamaño y el tiempo de codificar y decodificar partidas con
+     * serialización de Java contra {@link CodificadorPartidas}. Cada formato
+     * se mide dos veces y se imprime la segunda, ya con el código compilado.
+     */
+    private static void medirCodificacionPartidas() throws IOException, ClassNotFoundException {
+        int numeroPartidas = 10_000;
+        System.out.println("\n--- Codificación de " + numeroPartidas + " partidas ---");
+
+        List<Partida> partidas = new ArrayList<>();
+        for (int i = 0; i < numeroPartidas; i++) {
+            Partida partida = new Partida("partida-" + i, 10, 100);
+            for (int e = 0; e < 2; e++) {
+                Equipo equipo = new Equipo("Equipo " + i + "-" + e, e == 0 ? "Azul" : "Rojo");
+                for (int j = 0; j < 4; j++) {
+                    Jugador jugador = new Jugador("Jugador " + i + "-" + e + "-" + j);
+                    jugador.setPuntuacion(j * 10);
+                    jugador.setIntentos(j + 5);
+                    jugador.setAciertos(j);
+                    equipo.agregarJugador(jugador);
+                }
+                partida.agregarEquipo(equipo);
+            }
+            partida.iniciarPartida();
+            partida.avanzarRonda();
+            partida.finalizarPartida();
+            partidas.add(partida);
+        }
+
+        CodificadorPartidas codificador = new CodificadorPartidas();
+        for (int pasada = 0; pasada < 2; pasada++) {
+            long bytesSerializados = 0;
+            long inicio = System.nanoTime();
+            List<byte[]> serializadas = new ArrayList<>();
+            for (Partida partida : partidas) {
+                ByteArrayOutputStream salida = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(salida)) {
+                    oos.writeObject(partida);
+                }
+                serializadas.add(salida.toByteArray());
+                bytesSerializados += salida.size();
+            }
+            long codificarSerializacion = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            for (byte[] datos : serializadas) {
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(datos))) {
+                    ois.readObject();
+                }
+            }
+            long decodificarSerializacion = System.nanoTime() - inicio;
+
+            long bytesBinarios = 0;
+            inicio = System.nanoTime();
+            List<byte[]> binarias = new ArrayList<>();
+            for (Partida partida : partidas) {
+                byte[] datos = codificador.codificar(partida);
+                binarias.add(datos);
+                bytesBinarios += datos.length;
+            }
+            long codificarBinario = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            for (byte[] datos : binarias) {
+                codificador.decodificar(datos);
+            }
+            long decodificarBinario = System.nanoTime() - inicio;
+
+            if (pasada == 1) {
+                System.out.println(String.format("Serialización: %8d bytes (%4d/partida), codificar %7.1f ms, decodificar %7.1f ms",
+                    bytesSerializados, bytesSerializados / numeroPartidas,
+                    codificarSerializacion / 1e6, decodificarSerializacion / 1e6));
+                System.out.println(String.format("Binario:       %8d bytes (%4d/partida), codificar %7.1f ms, decodificar %7.1f ms",
+                    bytesBinarios, bytesBinarios / numeroPartidas,
+                    codificarBinario / 1e6, decodificarBinario / 1e6));
+            }
+        }
+    }
+
+    /**
+     * Guarda una partida larga después de cada intento, como un autoguardado,
+     * escribiendo siempre la partida completa y luego escribiendo deltas
+     * contra la última instantánea, con la misma regla que
+     * {@link PersistenciaManager#guardarPartida(Partida)}. Imprime los bytes
+     * agregados al archivo de partidas y el tiempo de cada estrategia.
+     */
+    private static void medirGuardadoIncremental() throws IOException {
+        int numeroIntentos = 5_000;
+        System.out.println("\n--- Autoguardado de una partida durante " + numeroIntentos + " intentos ---");
+
+        CodificadorPartidas codificador = new CodificadorPartidas();
+        for (boolean conDeltas : new boolean[] {false, true}) {
+            Partida partida = new Partida("larga", 1_000, 100_000);
+            for (int e = 0; e < 8; e++) {
+                Equipo equipo = new Equipo("Equipo " + e, "Color " + e);
+                for (int j = 0; j < 6; j++) {
+                    equipo.agregarJugador(new Jugador("Jugador " + e + "-" + j));
+                }
+                partida.agregarEquipo(equipo);
+            }
+            partida.iniciarPartida();
+
+            Path directorio = Files.createTempDirectory("argolla-bench-deltas");
+            ArchivoPartidas archivo = ArchivoPartidas.abrir(directorio);
+            try {
+                long bytes = 0;
+                Partida base = null;
+                int tamanoBase = 0;
+                long inicio = System.nanoTime();
+                for (int i = 0; i < numeroIntentos; i++) {
+                    List<Jugador> jugadores = partida.getEquipos().get(i % 8).getJugadores();
+                    Jugador jugador = jugadores.get((i / 8) % 6);
+                    jugador.incrementarIntentos();
+                    if (i % 3 == 0) {
+                        jugador.incrementarAciertos();
+                        jugador.agregarPuntos(5);
+                    }
+
+                    byte[] delta = conDeltas && base != null ? codificador.codificarDelta(base, partida) : null;
+                    if (delta != null && delta.length * 2 <= tamanoBase) {
+                        archivo.guardarDelta(partida.getId(), delta);
+                        bytes += delta.length;
+                    } else {
+                        byte[] datos = codificador.codificar(partida);
+                        archivo.guardar(partida.getId(), datos);
+                        bytes += datos.length;
+                        base = codificador.decodificar(datos);
+                        tamanoBase = datos.length;
+                    }
+                }
+                long tiempo = System.nanoTime() - inicio;
+
+                System.out.println(String.format("%-18s %9d bytes (%4d/guardado), %7.1f ms (%5.1f us/guardado)",
+                    conDeltas ? "Instantánea+delta:" : "Partida completa:",
+                    bytes, bytes / numeroIntentos, tiempo / 1e6, tiempo / 1e3 / numeroIntentos));
+            } finally {
+                archivo.cerrar();
+                eliminarDirectorio(directorio);
+            }
+        }
+    }
+
+    /**
+     * Guarda partidas de 8 equipos con 6 jugadores y compara leer y
+     * decodificar cada una completa con leer solo su cabecera, como al
+     * listar o filtrar partidas guardadas.
+     */
+    private static void medirCargaCabeceras() throws IOException {
+        int numeroPartidas = 2_000;
+        System.out.println("\n--- Lectura de " + numeroPartidas + " partidas guardadas ---");
+
+        CodificadorPartidas codificador = new CodificadorPartidas();
+        Path directorio = Files.createTempDirectory("argolla-bench-cabeceras");
+        ArchivoPartidas archivo = ArchivoPartidas.abrir(directorio);
+        try {
+            for (int i = 0; i < numeroPartidas; i++) {
+                Partida partida = new Partida("partida-" + i, 10, 100);
+                for (int e = 0; e < 8; e++) {
+                    Equipo equipo = new Equipo("Equipo " + e, "Color " + e);
+                    for (int j = 0; j < 6; j++) {
+                        equipo.agregarJugador(new Jugador("Jugador " + e + "-" + j));
+                    }
+                    partida.agregarEquipo(equipo);
+                }
+                partida.iniciarPartida();
+                archivo.guardar(partida.getId(), codificador.codificar(partida));
+            }
+
+            // La primera vuelta de cada lectura solo calienta el JIT
+            int calentado = 0;
+            for (boolean soloCabecera : new boolean[] {false, true, false, true}) {
+                long bytes = 0;
+                long inicio = System.nanoTime();
+                for (int i = 0; i < numeroPartidas; i++) {
+                    String id = "partida-" + i;
+                    if (soloCabecera) {
+                        byte[] cabecera = archivo.leerInicio(id, CodificadorPartidas.TAMANO_LECTURA_CABECERA);
+                        bytes += cabecera.length;
+                        codificador.decodificarCabecera(cabecera).getEstado();
+                    } else {
+                        byte[] datos = archivo.leer(id);
+                        bytes += datos.length;
+                        codificador.decodificar(datos).getEstado();
+                    }
+                }
+                long tiempo = System.nanoTime() - inicio;
+                if (calentado++ < 2) {
+                    continue;
+                }
+                System.out.println(String.format("%-18s %4d bytes/partida, %7.1f ms (%5.1f us/partida)",
+                    soloCabecera ? "Solo cabecera:" : "Partida completa:",
+                    bytes / numeroPartidas, tiempo / 1e6, tiempo / 1e3 / numeroPartidas));
+            }
+        } finally {
+            archivo.cerrar();
+            eliminarDirectorio(directorio);
+        }
+    }
+
+    /**
+     * Agrega TOTAL_JUGADORES entradas al registro de estadísticas e imprime
+     * el tiempo de cada tramo, que debe mantenerse constante aunque el
+     * registro crezca. Luego mide consultas de rangos cortos repartidos por
+     * todo el registro.
+     */
+    private static void medirRegistroEstadisticas() throws IOException {
+        System.out.println("\n--- Registro de " + TOTAL_JUGADORES + " estadísticas ---");
+
+        Path directorio = Files.createTempDirectory("argolla-bench-estadisticas");
+        ArchivoEstadisticas archivo = ArchivoEstadisticas.abrir(directorio);
+        try {
+            String estadisticas = "=== ESTADÍSTICAS DE LA PARTIDA ===\n".repeat(8);
+            long base = System.currentTimeMillis() - TOTAL_JUGADORES;
+            for (int tramo = 0; tramo < TOTAL_JUGADORES / TAMANO_TRAMO; tramo++) {
+                long inicio = System.nanoTime();
+                for (int i = 0; i < TAMANO_TRAMO; i++) {
+                    archivo.agregar(base + (long) tramo * TAMANO_TRAMO + i, estadisticas);
+                }
+                long tiempo = System.nanoTime() - inicio;
+                System.out.println(String.format("Entradas %6d-%6d: %7.1f ms",
+                    tramo * TAMANO_TRAMO, (tramo + 1) * TAMANO_TRAMO - 1, tiempo / 1e6));
+            }
+
+            int consultas = 1_000;
+            int encontradas = 0;
+            long inicio = System.nanoTime();
+            for (int i = 0; i < consultas; i++) {
+                long desde = base + (long) i * (TOTAL_JUGADORES / consultas);
+                encontradas += archivo.leer(desde, desde + 9).size();
+            }
+            long tiempo = System.nanoTime() - inicio;
+            System.out.println(String.format("%d segmentos; %d consultas de 10 ms: %d entradas, %.1f us/consulta",
+                archivo.getNumeroSegmentos(), consultas, encontradas, tiempo / 1e3 / consultas));
+        } finally {
+            archivo.cerrar();
+            eliminarDirectorio(directorio);
+        }
+    }
+
+    /**
+     * Exporta a un paquete un directorio con segmentos grandes y muchos
+     * archivos pequeños, lo importa en otro directorio e imprime el
+     * rendimiento de cada paso.
+     */
+    private static void medirPaqueteDatos() throws IOException {
+        System.out.println("\n--- Exportación e importación de un paquete de datos ---");
+
+        Path origen = Files.createTempDirectory("argolla-bench-paquete");
+        Path paquete = Files.createTempFile("argolla-bench", ".argb");
+        Path destino = origen.resolveSibling(origen.getFileName() + "-restaurado");
+        try {
+            byte[] segmento = new byte[8 * 1024 * 1024];
+            new java.util.Random(1).nextBytes(segmento);
+            Files.createDirectories(origen.resolve("partidas"));
+            for (int i = 0; i < 8; i++) {
+                Files.write(origen.resolve("partidas").resolve("segmento_" + i + ".log"), segmento);
+            }
+            Files.createDirectories(origen.resolve("estadisticas"));
+            for (int i = 0; i < 500; i++) {
+                Files.write(origen.resolve("estadisticas").resolve("segmento_" + i + ".idx"),
+                            java.util.Arrays.copyOf(segmento, 4096));
+            }
+
+            PaqueteDatos paqueteDatos = new PaqueteDatos();
+            long inicio = System.nanoTime();
+            long bytes = paqueteDatos.exportar(origen, paquete);
+            long tiempo = System.nanoTime() - inicio;
+            System.out.println(String.format("Exportar: %5.1f MB en %7.1f ms (%6.1f MB/s)",
+                bytes / 1e6, tiempo / 1e6, bytes / 1e6 / (tiempo / 1e9)));
+
+            inicio = System.nanoTime();
+            int archivos = paqueteDatos.importar(paquete, destino);
+            tiempo = System.nanoTime() - inicio;
+            System.out.println(String.format("Importar: %d archivos en %7.1f ms (%6.1f MB/s)",
+                archivos, tiempo / 1e6, bytes / 1e6 / (tiempo / 1e9)));
+        } finally {
+            Files.deleteIfExists(paquete);
+            eliminarDirectorio(origen);
+            if (Files.exists(destino)) {
+                eliminarDirectorio(destino);
+            }
+        }
+    }
+
+    /**
+     * Crea partidas guardadas como archivos sueltos, con el formato anterior
+     * al archivo de segmentos, y mide cuánto tarda abrir el archivo de
+     * partidas, que las incorpora y elimina sus archivos.
+     */
+    private static void medirMigracionSueltas() throws IOException {
+        int numeroPartidas = 10_000;
+        System.out.println("\n--- Migración de " + numeroPartidas + " partidas en archivos sueltos ---");
+
+        CodificadorPartidas codificador = new CodificadorPartidas();
+        Path directorio = Files.createTempDirectory("argolla-bench-sueltas");
+        ArchivoPartidas archivo = null;
+        try {
+            for (int i = 0; i < numeroPartidas; i++) {
+                Partida partida = new Partida(java.util.UUID.randomUUID().toString(), 10, 100);
+                Equipo equipo = new Equipo("Equipo " + i, "Azul");
+                equipo.agregarJugador(new Jugador("Jugador " + i));
+                partida.agregarEquipo(equipo);
+                Files.write(directorio.resolve("partida_" + partida.getId() + ".dat"), codificador.codificar(partida));
+            }
+
+            long inicio = System.nanoTime();
+            archivo = ArchivoPartidas.abrir(directorio);
+            int incorporadas = archivo.getIds().size();
+            long tiempo = System.nanoTime() - inicio;
+            System.out.println(String.format("%d partidas incorporadas en %d segmentos: %7.1f ms (%5.1f us/partida)",
+                incorporadas, archivo.getNumeroSegmentos(), tiempo / 1e6, tiempo / 1e3 / numeroPartidas));
+        } finally {
+            if (archivo != null) {
+                archivo.cerrar();
+            }
+            eliminarDirectorio(directorio);
+        }
+    }
+
+    /**
+     * Elimina recursivamente un directorio temporal.
+     *
+     * @param directorio Directorio a eliminar
+     */
+    private static void eliminarDirectorio(Path directorio) throws IOException {
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            rutas.sorted(Comparator.reverseOrder())
+                 .forEach(ruta -> ruta.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para CatalogoPartidas.
+ * Prueba el registro, las consultas ordenadas y paginadas, la sincronización
+ * con las partidas guardadas y la detección de cambios hechos por otro
+ * proceso, usando un directorio temporal en cada prueba.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class CatalogoPartidasTest {
+
+    @TempDir
+    Path raiz;
+
+    private Path directorio;
+
+    private CatalogoPartidas catalogo;
+
+    /**
+     * Configuración antes de cada prueba.
+     */
+    @BeforeEach
+    void setUp() {
+        directorio = raiz.resolve("partidas");
+        catalogo = CatalogoPartidas.abrir(directorio);
+    }
+
+    /**
+     * Limpieza después de cada prueba.
+     */
+    @AfterEach
+    void tearDown() {
+        catalogo.cerrar();
+        catalogo = null;
+    }
+
+    /**
+     * Prueba que los resúmenes registrados, reemplazados y quitados se
+     * conserven al volver a abrir el catálogo.
+     */
+    @Test
+    @Order(1)
+    @DisplayName("Registrar, reemplazar y quitar con reapertura")
+    void testRegistrarYReabrir() throws Exception {
+        // Arrange
+        catalogo.registrar(resumen("a", 1, 2));
+        catalogo.registrar(resumen("b", 2, 3));
+        catalogo.registrar(resumen("a", 1, 5));
+        catalogo.quitar("b");
+
+        // Act
+        catalogo.cerrar();
+        int numero = catalogo.contar();
+        ResumenPartida a = catalogo.obtener("a");
+
+        // Assert
+        assertEquals(1, numero, "Debe quedar solo la partida no quitada");
+        assertNull(catalogo.obtener("b"), "La partida quitada no debe reaparecer");
+        assertEquals(5, a.getRondaActual(), "Debe conservarse el último resumen registrado");
+        assertEquals(Arrays.asList("Rojos", "Azules"), a.getNombresEquipos(), "Deben conservarse los equipos");
+        assertEquals(Partida.EstadoPartida.EN_CURSO, a.getEstado(), "Debe conservarse el estado");
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0), a.getFechaInicio(), "Debe conservarse la fecha");
+    }
+
+    /**
+     * Prueba el orden de las consultas, con los valores ausentes al final,
+     * el desempate por id y la paginación.
+     */
+    @Test
+    @Order(2)
+    @DisplayName("Consultar ordenado y paginado")
+    void testConsultarOrdenado() throws Exception {
+        // Arrange
+        catalogo.registrar(resumen("c", 3, 1));
+        catalogo.registrar(resumen("a", 1, 1));
+        catalogo.registrar(resumen("b", 2, 1));
+        catalogo.registrar(resumen("d", 0, 1));
+        catalogo.registrar(resumen("e", 2, 1));
+
+        // Act
+        List<ResumenPartida> recientes = catalogo.consultar(CatalogoPartidas.Orden.FECHA_INICIO, true, 0, 10);
+        List<ResumenPartida> antiguas = catalogo.consultar(CatalogoPartidas.Orden.FECHA_INICIO, false, 0, 10);
+        List<ResumenPartida> segunda = catalogo.consultar(CatalogoPartidas.Orden.ID, false, 1, 2);
+        List<ResumenPartida> vacia = catalogo.consultar(CatalogoPartidas.Orden.ID, false, 3, 2);
+
+        // Assert
+        assertEquals(Arrays.asList("c", "b", "e", "a", "d"), ids(recientes),
+                     "Orden descendente con desempate por id y fechas ausentes al final");
+        assertEquals(Arrays.asList("a", "b", "e", "c", "d"), ids(antiguas),
+                     "Orden ascendente con fechas ausentes al final");
+        assertEquals(Arrays.asList("c", "d"), ids(segunda), "La segunda página debe tener los siguientes resúmenes");
+        assertTrue(vacia.isEmpty(), "Una página fuera de rango debe estar vacía");
+    }
+
+    /**
+     * Prueba que una consulta ordenada refleje los cambios posteriores.
+     */
+    @Test
+    @Order(3)
+    @DisplayName("Consultar tras un cambio")
+    void testConsultarTrasCambio() throws Exception {
+        // Arrange
+        catalogo.registrar(resumen("a", 1, 1));
+        catalogo.registrar(resumen("b", 2, 1));
+        catalogo.consultar(CatalogoPartidas.Orden.ID, false, 0, 10);
+
+        // Act
+        catalogo.quitar("a");
+        catalogo.registrar(resumen("c", 3, 1));
+        List<ResumenPartida> lista = catalogo.consultar(CatalogoPartidas.Orden.ID, false, 0, 10);
+
+        // Assert
+        assertEquals(Arrays.asList("b", "c"), ids(lista), "El orden guardado debe descartarse con cada cambio");
+    }
+
+    /**
+     * Prueba que sincronizar registre las partidas que faltan, quite las
+     * que ya no existen y solo se haga la primera vez.
+     */
+    @Test
+    @Order(4)
+    @DisplayName("Sincronizar con las partidas guardadas")
+    void testSincronizar() throws Exception {
+        // Arrange
+        catalogo.registrar(resumen("vieja", 1, 1));
+        catalogo.registrar(resumen("a", 1, 1));
+        List<String> resumidas = new ArrayList<>();
+
+        // Act
+        catalogo.sincronizar(Arrays.asList("a", "b", "ilegible"), id -> {
+            resumidas.add(id);
+            return id.equals("ilegible") ? null : resumen(id, 2, 1);
+        });
+        catalogo.sincronizar(Arrays.asList("otra"), id -> {
+            resumidas.add(id);
+            return resumen(id, 2, 1);
+        });
+
+        // Assert
+        assertEquals(Arrays.asList("b", "ilegible"), resumidas, "Solo deben resumirse las partidas que faltan, una vez");
+        assertNull(catalogo.obtener("vieja"), "Debe quitarse la partida que ya no existe");
+        assertNotNull(catalogo.obtener("b"), "Debe registrarse la partida que faltaba");
+        assertEquals(2, catalogo.contar(), "Las partidas que no se pueden resumir no se registran");
+    }
+
+    /**
+     * Prueba que al abrir se reescriba el archivo si la mayoría de sus
+     * entradas ya no están vigentes.
+     */
+    @Test
+    @Order(5)
+    @DisplayName("Reescribir catálogo con entradas obsoletas")
+    void testReescribir() throws Exception {
+        // Arrange
+        for (int i = 0; i < 20; i++) {
+            catalogo.registrar(resumen("a", 1, i));
+        }
+        catalogo.cerrar();
+        Path archivo = directorio.resolve(CatalogoPartidas.ARCHIVO_CATALOGO);
+        long tamanoAntes = Files.size(archivo);
+
+        // Act
+        int numero = catalogo.contar();
+
+        // Assert
+        assertEquals(1, numero, "Debe quedar una partida");
+        assertTrue(Files.size(archivo) * 10 < tamanoAntes, "El archivo debe reescribirse sin entradas obsoletas");
+        assertEquals(19, catalogo.obtener("a").getRondaActual(), "Debe conservarse el último resumen");
+    }
+
+    /**
+     * Prueba que el catálogo se vuelva a cargar cuando otro proceso
+     * reemplaza su archivo.
+     */
+    @Test
+    @Order(6)
+    @DisplayName("Detectar archivo reemplazado por otro proceso")
+    void testDetectarReemplazo() throws Exception {
+        // Arrange
+        catalogo.registrar(resumen("a", 1, 1));
+        Path otroDirectorio = raiz.resolve("otro");
+        CatalogoPartidas otro = CatalogoPartidas.abrir(otroDirectorio);
+        otro.registrar(resumen("x", 1, 1));
+        otro.registrar(resumen("y", 2, 1));
+        otro.cerrar();
+
+        // Act
+        Files.move(otroDirectorio.resolve(CatalogoPartidas.ARCHIVO_CATALOGO),
+                   directorio.resolve(CatalogoPartidas.ARCHIVO_CATALOGO),
+                   StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        long limite = System.currentTimeMillis() + 10000;
+        while (catalogo.obtener("a") != null && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+
+        // Assert
+        assertNull(catalogo.obtener("a"), "Debe cargarse el archivo nuevo");
+        assertEquals(2, catalogo.contar(), "Deben leerse las partidas del archivo nuevo");
+        assertNotNull(catalogo.obtener("y"), "Deben leerse las partidas del archivo nuevo");
+    }
+
+    /**
+     * Crea el resumen de una partida en curso con dos equipos.
+     *
+     * @param id Id de la partida
+     * @param dia Día de enero de 2024 en que inició, o 0 si no ha iniciado
+     * @param ronda Ronda actual
+     * @return Resumen de prueba
+     */
+    private static ResumenPartida resumen(String id, int dia, int ronda) {
+        LocalDateTime inicio = dia == 0 ? null : LocalDateTime.of(2024, 1, dia, 12, 0);
+        return new ResumenPartida(id, Partida.EstadoPartida.EN_CURSO, inicio, null,
+                                  Arrays.asList("Rojos", "Azules"), null, ronda, 10);
+    }
+
+    /**
+     * Obtiene los ids de una lista de resúmenes.
+     *
+     * @param resumenes Resúmenes
+     * @return Ids en el mismo orden
+     */
+    private static List<String> ids(List<ResumenPartida> resumenes) {
+        List<String> ids = new ArrayList<>();
+        for (ResumenPartida resumen : resumenes) {
+            ids.add(resumen.getId());
+        }
+        return ids;
+    }
+}
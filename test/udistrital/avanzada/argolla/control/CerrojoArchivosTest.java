@@ -0,0 +1,157 @@
+package udistrital.avanzada.argolla.control;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para CerrojoArchivos.
+ * Prueba que dos instancias del mismo proceso sobre el mismo archivo de
+ * bloqueo se excluyan al escribir, y que la instancia que espera no consuma
+ * procesador, usando un directorio temporal en cada prueba.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class CerrojoArchivosTest {
+
+    /** Tiempo que la primera instancia retiene la escritura en milisegundos */
+    private static final long RETENCION = 500;
+
+    @TempDir
+    Path raiz;
+
+    private CerrojoArchivos primero;
+
+    private CerrojoArchivos segundo;
+
+    /**
+     * Configuración antes de cada prueba.
+     */
+    @BeforeEach
+    void setUp() {
+        String ruta = raiz.resolve("bloqueo.lck").toString();
+        primero = new CerrojoArchivos(ruta, cambiosExternos -> { });
+        segundo = new CerrojoArchivos(ruta, cambiosExternos -> { });
+    }
+
+    /**
+     * Limpieza después de cada prueba.
+     */
+    @AfterEach
+    void tearDown() {
+        primero.cerrar();
+        segundo.cerrar();
+        primero = null;
+        segundo = null;
+    }
+
+    /**
+     * Prueba que las escrituras de dos instancias sobre el mismo archivo
+     * nunca se ejecuten a la vez.
+     */
+    @Test
+    @Order(1)
+    @DisplayName("Excluir escrituras de instancias con el mismo archivo")
+    void testExcluirEscrituras() throws Exception {
+        // Arrange
+        AtomicInteger activos = new AtomicInteger();
+        AtomicInteger cruces = new AtomicInteger();
+        int[] contador = new int[1];
+        CerrojoArchivos.Operacion<Void> incremento = () -> {
+            if (activos.incrementAndGet() > 1) {
+                cruces.incrementAndGet();
+            }
+            contador[0]++;
+            activos.decrementAndGet();
+            return null;
+        };
+
+        // Act
+        Thread otro = new Thread(() -> repetir(segundo, incremento));
+        otro.start();
+        repetir(primero, incremento);
+        otro.join();
+
+        // Assert
+        assertEquals(0, cruces.get(), "Las escrituras no deben cruzarse");
+        assertEquals(4000, contador[0], "No debe perderse ningún incremento");
+    }
+
+    /**
+     * Prueba que la instancia que espera la región de escritura de otra
+     * instancia del proceso quede bloqueada sin consumir procesador.
+     */
+    @Test
+    @Order(2)
+    @DisplayName("Esperar la región sin consumir procesador")
+    void testEsperarSinConsumir() throws Exception {
+        // Arrange
+        ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(hilos.isCurrentThreadCpuTimeSupported(), "Se requiere medir el tiempo de procesador");
+        CountDownLatch tomado = new CountDownLatch(1);
+        AtomicLong consumido = new AtomicLong(-1);
+        Thread retenedor = new Thread(() -> {
+            try {
+                primero.escribir(() -> {
+                    tomado.countDown();
+                    try {
+                        Thread.sleep(RETENCION);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                tomado.countDown();
+            }
+        });
+        retenedor.start();
+        assertTrue(tomado.await(10, TimeUnit.SECONDS), "La primera instancia debe tomar la escritura");
+
+        // Act
+        Thread esperando = new Thread(() -> {
+            long inicio = hilos.getCurrentThreadCpuTime();
+            try {
+                segundo.escribir(() -> null);
+                consumido.set(hilos.getCurrentThreadCpuTime() - inicio);
+            } catch (Exception e) {
+                consumido.set(-1);
+            }
+        });
+        esperando.start();
+        esperando.join();
+        retenedor.join();
+
+        // Assert
+        assertTrue(consumido.get() >= 0, "La segunda instancia debe escribir al liberarse la región");
+        assertTrue(consumido.get() < TimeUnit.MILLISECONDS.toNanos(RETENCION / 2),
+                   "La espera no debe consumir procesador: " + consumido.get() + " ns");
+    }
+
+    /**
+     * Ejecuta una escritura muchas veces con un cerrojo.
+     *
+     * @param cerrojo Cerrojo a usar
+     * @param escritura Escritura a ejecutar
+     */
+    private static void repetir(CerrojoArchivos cerrojo, CerrojoArchivos.Operacion<Void> escritura) {
+        try {
+            for (int i = 0; i < 2000; i++) {
+                cerrojo.escribir(escritura);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para CodificadorPartidas.
+ * Prueba la codificación y decodificación de partidas completas, de su
+ * cabecera y de sus deltas, y el rechazo de datos dañados o incompletos.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class CodificadorPartidasTest {
+
+    private CodificadorPartidas codificador;
+
+    private Partida partida;
+
+    /**
+     * Configuración antes de cada prueba.
+     */
+    @BeforeEach
+    void setUp() {
+        codificador = new CodificadorPartidas();
+        partida = crearPartida();
+    }
+
+    /**
+     * Limpieza después de cada prueba.
+     */
+    @AfterEach
+    void tearDown() {
+        codificador = null;
+        partida = null;
+    }
+
+    /**
+     * Prueba que decodificar una partida codificada conserve su estado,
+     * fechas, equipos y estadísticas de jugadores.
+     */
+    @Test
+    @Order(1)
+    @DisplayName("Codificar y decodificar partida")
+    void testIdaYVuelta() throws Exception {
+        // Arrange
+        byte[] datos = codificador.codificar(partida);
+
+        // Act
+        Partida decodificada = codificador.decodificar(datos);
+
+        // Assert
+        assertTrue(CodificadorPartidas.esFormatoBinario(datos), "Los datos deben tener el número mágico");
+        assertEquals("p1", decodificada.getId(), "El id debe conservarse");
+        assertEquals(Partida.EstadoPartida.EN_CURSO, decodificada.getEstado(), "El estado debe conservarse");
+        assertEquals(partida.getFechaInicio(), decodificada.getFechaInicio(), "La fecha de inicio debe conservarse");
+        assertNull(decodificada.getFechaFin(), "Una fecha ausente debe seguir ausente");
+        assertEquals(8, decodificada.getMaxRondas(), "El máximo de rondas debe conservarse");
+        assertEquals(3, decodificada.getRondaActual(), "La ronda actual debe conservarse");
+        assertEquals(50, decodificada.getPuntosParaGanar(), "Los puntos para ganar deben conservarse");
+        List<Equipo> equipos = decodificada.getEquipos();
+        assertEquals(2, equipos.size(), "Deben conservarse los equipos");
+        assertEquals("Rojos", equipos.get(0).getNombre(), "El orden de los equipos debe conservarse");
+        assertEquals("Azul", equipos.get(1).getColor(), "El color debe conservarse");
+        Jugador ana = equipos.get(0).getJugadores().get(0);
+        assertEquals("Ana", ana.getNombre(), "El orden de los jugadores debe conservarse");
+        assertEquals(30, ana.getPuntuacion(), "La puntuación debe conservarse");
+        assertEquals(3, ana.getAciertos(), "Los aciertos deben conservarse");
+        assertEquals(7, ana.getIntentos(), "Los intentos deben conservarse");
+    }
+
+    /**
+     * Prueba que la cabecera se decodifique solo con los primeros bytes,
+     * con los nombres y puntuaciones de los equipos.
+     */
+    @Test
+    @Order(2)
+    @DisplayName("Decodificar solo la cabecera")
+    void testDecodificarCabecera() throws Exception {
+        // Arrange
+        partida.finalizarPartida();
+        byte[] datos = codificador.codificar(partida);
+        int longitud = codificador.longitudCabecera(datos);
+        byte[] inicio = Arrays.copyOf(datos, longitud);
+
+        // Act
+        PartidaDiferida cabecera = codificador.decodificarCabecera(inicio);
+
+        // Assert
+        assertTrue(longitud < datos.length, "La cabecera no debe incluir los jugadores");
+        assertFalse(cabecera.estaCargada(), "Los equipos no deben cargarse");
+        assertEquals("p1", cabecera.getId(), "El id debe leerse de la cabecera");
+        assertEquals(Arrays.asList("Rojos", "Azules"), cabecera.getNombresEquipos(), "Deben leerse los nombres");
+        assertEquals("Azules", cabecera.getNombreGanador(), "El ganador debe calcularse con las puntuaciones");
+    }
+
+    /**
+     * Prueba que se rechacen datos que no comienzan con el número mágico.
+     */
+    @Test
+    @Order(3)
+    @DisplayName("Rechazar datos sin número mágico")
+    void testRechazarSinMagico() {
+        // Arrange
+        byte[] datos = codificador.codificar(partida);
+        datos[0] = (byte) (datos[0] ^ 0xFF);
+
+        // Act & Assert
+        assertFalse(CodificadorPartidas.esFormatoBinario(datos), "No debe reconocerse el formato");
+        assertThrows(IOException.class, () -> codificador.decodificar(datos), "Debe rechazarse la partida");
+    }
+
+    /**
+     * Prueba que se rechace una versión del formato desconocida.
+     */
+    @Test
+    @Order(4)
+    @DisplayName("Rechazar versión no soportada")
+    void testRechazarVersion() {
+        // Arrange
+        byte[] datos = codificador.codificar(partida);
+        datos[4] = (byte) (CodificadorPartidas.VERSION_FORMATO + 1);
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> codificador.decodificar(datos), "Debe rechazarse la versión");
+    }
+
+    /**
+     * Prueba que una partida truncada en cualquier punto se rechace con
+     * IOException y no con otra excepción.
+     */
+    @Test
+    @Order(5)
+    @DisplayName("Rechazar partida incompleta")
+    void testRechazarIncompleta() {
+        // Arrange
+        byte[] datos = codificador.codificar(partida);
+
+        // Act & Assert
+        for (int longitud = 5; longitud < datos.length; longitud++) {
+            byte[] truncados = Arrays.copyOf(datos, longitud);
+            assertThrows(IOException.class, () -> codificador.decodificar(truncados),
+                         "Debe rechazarse la partida truncada a " + longitud + " bytes");
+        }
+    }
+
+    /**
+     * Prueba que un byte alterado en la cabecera se detecte con su CRC.
+     */
+    @Test
+    @Order(6)
+    @DisplayName("Detectar cabecera dañada")
+    void testDetectarCabeceraDanada() throws Exception {
+        // Arrange
+        byte[] datos = codificador.codificar(partida);
+        byte[] inicio = Arrays.copyOf(datos, codificador.longitudCabecera(datos));
+        // Primer carácter del id, después del mágico, la versión, la longitud y el prefijo del texto
+        inicio[7] ^= 0x01;
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> codificador.decodificarCabecera(inicio),
+                     "Debe detectarse la cabecera dañada");
+    }
+
+    /**
+     * Prueba que aplicar un delta sobre la instantánea reproduzca la
+     * partida actual, y que el delta solo lleve los jugadores que cambiaron.
+     */
+    @Test
+    @Order(7)
+    @DisplayName("Codificar y aplicar delta")
+    void testAplicarDelta() throws Exception {
+        // Arrange
+        byte[] instantanea = codificador.codificar(partida);
+        Partida base = codificador.decodificar(instantanea);
+        Jugador ana = partida.getEquipos().get(0).getJugadores().get(0);
+        ana.setPuntuacion(45);
+        ana.setAciertos(4);
+        ana.setIntentos(8);
+        partida.setRondaActual(4);
+
+        // Act
+        byte[] delta = codificador.codificarDelta(base, partida);
+        Partida cargada = codificador.decodificar(instantanea);
+        codificador.aplicarDelta(cargada, delta);
+
+        // Assert
+        assertNotNull(delta, "Con los mismos equipos y jugadores debe haber delta");
+        assertTrue(delta.length < instantanea.length / 2, "El delta debe ser mucho menor que la instantánea");
+        assertEquals(4, cargada.getRondaActual(), "La ronda debe actualizarse");
+        Jugador anaCargada = cargada.getEquipos().get(0).getJugadores().get(0);
+        assertEquals(45, anaCargada.getPuntuacion(), "La puntuación debe actualizarse");
+        assertEquals(4, anaCargada.getAciertos(), "Los aciertos deben actualizarse");
+        assertEquals(8, anaCargada.getIntentos(), "Los intentos deben actualizarse");
+        assertEquals(10, cargada.getEquipos().get(0).getJugadores().get(1).getPuntuacion(),
+                     "Los jugadores sin cambios deben conservarse");
+    }
+
+    /**
+     * Prueba que no haya delta si cambian los equipos o jugadores.
+     */
+    @Test
+    @Order(8)
+    @DisplayName("Sin delta si cambia la plantilla")
+    void testDeltaConPlantillaDistinta() throws Exception {
+        // Arrange
+        Partida base = codificador.decodificar(codificador.codificar(partida));
+        Partida renombrada = codificador.decodificar(codificador.codificar(partida));
+        renombrada.getEquipos().get(1).setNombre("Verdes");
+
+        // Act
+        partida.getEquipos().get(0).agregarJugador(new Jugador("Eva"));
+        byte[] conJugadorNuevo = codificador.codificarDelta(base, partida);
+        byte[] conEquipoRenombrado = codificador.codificarDelta(base, renombrada);
+
+        // Assert
+        assertNull(conJugadorNuevo, "Un jugador nuevo requiere instantánea");
+        assertNull(conEquipoRenombrado, "Un equipo distinto requiere instantánea");
+    }
+
+    /**
+     * Prueba que el delta actualice las puntuaciones de una cabecera sin
+     * cargar los jugadores.
+     */
+    @Test
+    @Order(9)
+    @DisplayName("Aplicar delta a la cabecera")
+    void testAplicarDeltaCabecera() throws Exception {
+        // Arrange
+        byte[] instantanea = codificador.codificar(partida);
+        Partida base = codificador.decodificar(instantanea);
+        partida.getEquipos().get(0).getJugadores().get(1).setPuntuacion(60);
+        partida.finalizarPartida();
+        byte[] delta = codificador.codificarDelta(base, partida);
+        PartidaDiferida cabecera = codificador.decodificarCabecera(
+                Arrays.copyOf(instantanea, codificador.longitudCabecera(instantanea)));
+
+        // Act
+        boolean aplicado = codificador.aplicarDeltaCabecera(cabecera, delta);
+
+        // Assert
+        assertTrue(aplicado, "El delta actual debe aplicarse a la cabecera");
+        assertFalse(cabecera.estaCargada(), "No deben cargarse los equipos");
+        assertEquals(Partida.EstadoPartida.FINALIZADA, cabecera.getEstado(), "El estado debe actualizarse");
+        assertEquals("Rojos", cabecera.getNombreGanador(), "El ganador debe calcularse con las puntuaciones nuevas");
+    }
+
+    /**
+     * Prueba que se rechace un delta incompleto o que no corresponde a la
+     * instantánea.
+     */
+    @Test
+    @Order(10)
+    @DisplayName("Rechazar delta dañado")
+    void testRechazarDeltaDanado() throws Exception {
+        // Arrange
+        Partida base = codificador.decodificar(codificador.codificar(partida));
+        partida.getEquipos().get(1).getJugadores().get(1).setPuntuacion(99);
+        byte[] delta = codificador.codificarDelta(base, partida);
+        Partida unEquipo = new Partida("p1", 8, 50);
+        unEquipo.agregarEquipo(base.getEquipos().get(0));
+
+        // Act & Assert
+        for (int longitud = 0; longitud < delta.length; longitud++) {
+            byte[] truncado = Arrays.copyOf(delta, longitud);
+            assertThrows(IOException.class, () -> codificador.aplicarDelta(base, truncado),
+                         "Debe rechazarse el delta truncado a " + longitud + " bytes");
+        }
+        assertThrows(IOException.class, () -> codificador.aplicarDelta(unEquipo, delta),
+                     "Debe rechazarse un delta de otro equipo");
+        assertThrows(IOException.class, () -> codificador.aplicarDelta(base, codificador.codificar(partida)),
+                     "Una partida completa no es un delta");
+    }
+
+    /**
+     * Crea una partida en curso con dos equipos de dos jugadores.
+     *
+     * @return Partida de prueba
+     */
+    static Partida crearPartida() {
+        Partida partida = new Partida("p1", 8, 50);
+        Equipo rojos = new Equipo("Rojos", "Rojo");
+        rojos.agregarJugador(crearJugador("Ana", 30, 3, 7));
+        rojos.agregarJugador(crearJugador("Beto", 10, 1, 7));
+        Equipo azules = new Equipo("Azules", "Azul");
+        azules.agregarJugador(crearJugador("Carla", 40, 4, 6));
+        azules.agregarJugador(crearJugador("Dani", 20, 2, 6));
+        partida.agregarEquipo(rojos);
+        partida.agregarEquipo(azules);
+        partida.setEstado(Partida.EstadoPartida.EN_CURSO);
+        partida.setFechaInicio(LocalDateTime.of(2024, 5, 1, 10, 30, 15));
+        partida.setRondaActual(3);
+        return partida;
+    }
+
+    /**
+     * Crea un jugador con estadísticas.
+     *
+     * @param nombre Nombre del jugador
+     * @param puntuacion Puntuación
+     * @param aciertos Aciertos
+     * @param intentos Intentos
+     * @return Jugador de prueba
+     */
+    private static Jugador crearJugador(String nombre, int puntuacion, int aciertos, int intentos) {
+        Jugador jugador = new Jugador(nombre);
+        jugador.setPuntuacion(puntuacion);
+        jugador.setAciertos(aciertos);
+        jugador.setIntentos(intentos);
+        return jugador;
+    }
+}
@@ -0,0 +1,268 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para FuenteConfiguracion.
+ * Prueba la lectura única del archivo, su recarga cuando cambia, que un
+ * archivo inválido no reemplace la configuración publicada, y la
+ * publicación y el guardado explícitos, incluso mientras la vigilancia lee
+ * el archivo, usando un directorio temporal en cada prueba.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class FuenteConfiguracionTest {
+
+    /** Tiempo máximo de espera de una recarga en milisegundos */
+    private static final long ESPERA_MAXIMA = 10000;
+
+    @TempDir
+    Path raiz;
+
+    private Path archivo;
+
+    private FuenteConfiguracion fuente;
+
+    /**
+     * Configuración antes de cada prueba.
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        archivo = raiz.resolve("config").resolve("configuracion.properties");
+        Files.createDirectories(archivo.getParent());
+        escribirArchivo("puntosParaGanar=70\nmaxRondasPorPartida=5\n");
+        fuente = FuenteConfiguracion.abrir(archivo);
+    }
+
+    /**
+     * Limpieza después de cada prueba.
+     */
+    @AfterEach
+    void tearDown() {
+        fuente.cerrar();
+        fuente = null;
+    }
+
+    /**
+     * Prueba que el archivo se lea una sola vez y que las propiedades que
+     * faltan tomen su valor predeterminado.
+     */
+    @Test
+    @Order(1)
+    @DisplayName("Leer el archivo una sola vez")
+    void testLeerUnaVez() {
+        // Arrange
+        InstantaneaConfiguracion primera = fuente.getActual();
+
+        // Act
+        InstantaneaConfiguracion segunda = fuente.getActual();
+
+        // Assert
+        assertEquals(70, primera.getPuntosParaGanar(), "Debe leerse el valor del archivo");
+        assertEquals(5, primera.getMaxRondasPorPartida(), "Debe leerse el valor del archivo");
+        assertEquals(10, primera.getPuntosPorAcierto(), "Las propiedades ausentes toman su valor predeterminado");
+        assertSame(primera, segunda, "Sin cambios debe devolverse la misma instantánea");
+        assertEquals(1, fuente.getLecturas(), "El archivo debe leerse una sola vez");
+    }
+
+    /**
+     * Prueba que un cambio del archivo se publique sin volver a abrir la fuente.
+     */
+    @Test
+    @Order(2)
+    @DisplayName("Recargar cuando cambia el archivo")
+    void testRecargar() throws Exception {
+        // Arrange
+        InstantaneaConfiguracion anterior = fuente.getActual();
+
+        // Act
+        escribirArchivo("puntosParaGanar=90\nmaxRondasPorPartida=5\n");
+        boolean recargada = esperar(() -> fuente.getActual().getPuntosParaGanar() == 90);
+
+        // Assert
+        assertTrue(recargada, "Debe publicarse la configuración nueva");
+        assertEquals(70, anterior.getPuntosParaGanar(), "La instantánea anterior no debe cambiar");
+    }
+
+    /**
+     * Prueba que un archivo modificado con valores inválidos no reemplace la
+     * configuración publicada, y que el siguiente archivo válido sí lo haga.
+     */
+    @Test
+    @Order(3)
+    @DisplayName("Conservar configuración si el archivo no es válido")
+    void testArchivoInvalido() throws Exception {
+        // Arrange
+        fuente.getActual();
+        int lecturas = fuente.getLecturas();
+
+        // Act
+        escribirArchivo("puntosParaGanar=muchos\n");
+        boolean leido = esperar(() -> fuente.getLecturas() > lecturas);
+        int puntosTrasInvalido = fuente.getActual().getPuntosParaGanar();
+        escribirArchivo("puntosParaGanar=80\n");
+        boolean recargada = esperar(() -> fuente.getActual().getPuntosParaGanar() == 80);
+
+        // Assert
+        assertTrue(leido, "El archivo modificado debe leerse");
+        assertEquals(70, puntosTrasInvalido, "Debe conservarse la configuración publicada");
+        assertTrue(recargada, "Un archivo válido posterior debe publicarse");
+    }
+
+    /**
+     * Prueba que publicar reemplace la configuración sin tocar el archivo,
+     * y que guardar la escriba y la publique.
+     */
+    @Test
+    @Order(4)
+    @DisplayName("Publicar y guardar configuración")
+    void testPublicarYGuardar() throws Exception {
+        // Arrange
+        ConfiguracionJuego configuracion = new ConfiguracionJuego();
+        configuracion.setPuntosParaGanar(120);
+
+        // Act
+        fuente.publicar(new InstantaneaConfiguracion(configuracion));
+        int publicada = fuente.getActual().getPuntosParaGanar();
+        String contenidoTrasPublicar = new String(Files.readAllBytes(archivo), StandardCharsets.UTF_8);
+        configuracion.setPuntosParaGanar(150);
+        fuente.guardar(configuracion);
+        // La vigilancia también lee el archivo guardado; debe publicar el mismo valor
+        boolean guardada = esperar(() -> fuente.getActual().getPuntosParaGanar() == 150);
+
+        // Assert
+        assertEquals(120, publicada, "Debe publicarse la configuración");
+        assertTrue(contenidoTrasPublicar.contains("puntosParaGanar=70"), "Publicar no debe tocar el archivo");
+        assertTrue(guardada, "Guardar debe publicar la configuración");
+        assertTrue(new String(Files.readAllBytes(archivo), StandardCharsets.UTF_8).contains("puntosParaGanar=150"),
+                   "Guardar debe escribir el archivo");
+    }
+
+    /**
+     * Prueba que sin archivo se use la configuración predeterminada y que
+     * se publique cuando el archivo se crea.
+     */
+    @Test
+    @Order(5)
+    @DisplayName("Crear el archivo después de abrir")
+    void testArchivoCreadoDespues() throws Exception {
+        // Arrange
+        FuenteConfiguracion sinArchivo = FuenteConfiguracion.abrir(raiz.resolve("otra").resolve("configuracion.properties"));
+        Files.createDirectories(raiz.resolve("otra"));
+
+        try {
+            // Act
+            int predeterminados = sinArchivo.getActual().getPuntosParaGanar();
+            Files.move(escribirTemporal("puntosParaGanar=60\n"),
+                       raiz.resolve("otra").resolve("configuracion.properties"), StandardCopyOption.ATOMIC_MOVE);
+            boolean recargada = esperar(() -> sinArchivo.getActual().getPuntosParaGanar() == 60);
+
+            // Assert
+            assertEquals(100, predeterminados, "Sin archivo debe usarse la configuración predeterminada");
+            assertTrue(recargada, "El archivo creado debe publicarse");
+        } finally {
+            sinArchivo.cerrar();
+        }
+    }
+
+    /**
+     * Prueba que guardar varias veces mientras la vigilancia está activa
+     * nunca publique la configuración predeterminada, como ocurriría si la
+     * vigilancia leyera el archivo a medio escribir.
+     */
+    @Test
+    @Order(6)
+    @DisplayName("Guardar repetidamente sin publicar valores predeterminados")
+    void testGuardarRepetidamente() throws Exception {
+        // Arrange
+        fuente.getActual();
+        AtomicBoolean terminado = new AtomicBoolean(false);
+        AtomicInteger revertidas = new AtomicInteger();
+        Thread observador = new Thread(() -> {
+            while (!terminado.get()) {
+                InstantaneaConfiguracion actual = fuente.getActual();
+                if (actual.getPuntosParaGanar() == 100 || actual.getMaxRondasPorPartida() == 10) {
+                    revertidas.incrementAndGet();
+                }
+            }
+        });
+        observador.start();
+        ConfiguracionJuego configuracion = new ConfiguracionJuego();
+        configuracion.setMaxRondasPorPartida(5);
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            configuracion.setPuntosParaGanar(101 + i);
+            fuente.guardar(configuracion);
+            Thread.sleep(1);
+        }
+        boolean ultima = esperar(() -> fuente.getActual().getPuntosParaGanar() == 300);
+        Thread.sleep(200);
+        terminado.set(true);
+        observador.join();
+
+        // Assert
+        assertEquals(0, revertidas.get(), "Nunca deben publicarse los valores predeterminados");
+        assertTrue(ultima, "Debe quedar publicada la última configuración guardada");
+        assertEquals(300, fuente.getActual().getPuntosParaGanar(), "La vigilancia no debe publicar una anterior");
+        assertFalse(Files.exists(archivo.resolveSibling("configuracion.properties.tmp")),
+                    "No debe quedar el archivo temporal");
+    }
+
+    /**
+     * Reemplaza el archivo de configuración de forma atómica, para que la
+     * vigilancia nunca lea un archivo escrito a medias.
+     *
+     * @param contenido Contenido del archivo
+     * @throws Exception Si hay error de E/S
+     */
+    private void escribirArchivo(String contenido) throws Exception {
+        Files.move(escribirTemporal(contenido), archivo,
+                   StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Escribe un archivo temporal fuera de los directorios vigilados.
+     *
+     * @param contenido Contenido del archivo
+     * @return Ruta del archivo temporal
+     * @throws Exception Si hay error de E/S
+     */
+    private Path escribirTemporal(String contenido) throws Exception {
+        Path temporal = Files.createTempFile(raiz, "configuracion", ".tmp");
+        Files.write(temporal, contenido.getBytes(StandardCharsets.ISO_8859_1));
+        return temporal;
+    }
+
+    /**
+     * Espera a que se cumpla una condición.
+     *
+     * @param condicion Condición a esperar
+     * @return true si se cumplió antes de {@link #ESPERA_MAXIMA}
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    private static boolean esperar(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_MAXIMA;
+        while (!condicion.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) {
+                return false;
+            }
+            Thread.sleep(20);
+        }
+        return true;
+    }
+}
@@ -4,6 +4,7 @@ import udistrital.avanzada.argolla.modelo.Equipo;
 import udistrital.avanzada.argolla.modelo.Jugador;
 import org.junit.jupiter.api.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -389,4 +390,26 @@ public class GestorEquiposTest {
         assertEquals(2, equipos.get(0).getNumeroJugadores(), "El primer equipo debe tener dos jugadores");
         assertEquals(0, equipos.get(1).getNumeroJugadores(), "El segundo equipo no debe tener jugadores");
     }
+    
+    /**
+     * Prueba agregar varios equipos de una vez omitiendo repetidos y nulos.
+     */
+    @Test
+    @Order(19)
+    @DisplayName("Agregar varios equipos")
+    void testAgregarEquipos() {
+        // Arrange
+        gestorEquipos.agregarEquipo(equipoTest1);
+        List<Equipo> nuevos = new ArrayList<>();
+        nuevos.add(equipoTest1);
+        nuevos.add(null);
+        nuevos.add(equipoTest2);
+        
+        // Act
+        int agregados = gestorEquipos.agregarEquipos(nuevos);
+        
+        // Assert
+        assertEquals(1, agregados, "Solo debe agregarse el equipo nuevo");
+        assertEquals(2, gestorEquipos.getNumeroEquipos(), "Debe haber dos equipos");
+    }
 }
\ No newline at end of file
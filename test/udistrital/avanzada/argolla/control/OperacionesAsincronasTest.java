@@ -0,0 +1,201 @@
+package udistrital.avanzada.argolla.control;
+
+import org.junit.jupiter.api.*;
+
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para OperacionesAsincronas.
+ * Prueba la cancelación antes de empezar y durante la ejecución, la espera
+ * del hilo de una operación cancelada y los tiempos y cancelaciones
+ * acumulados.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class OperacionesAsincronasTest {
+
+    /** Segundos máximos de espera de una operación */
+    private static final long ESPERA_MAXIMA = 10;
+
+    private OperacionesAsincronas operaciones;
+
+    private CountDownLatch empezo;
+
+    private CountDownLatch liberar;
+
+    /**
+     * Configuración antes de cada prueba.
+     */
+    @BeforeEach
+    void setUp() {
+        operaciones = new OperacionesAsincronas();
+        empezo = new CountDownLatch(1);
+        liberar = new CountDownLatch(1);
+    }
+
+    /**
+     * Limpieza después de cada prueba.
+     */
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        operaciones.cerrar();
+        operaciones = null;
+    }
+
+    /**
+     * Prueba que una operación cancelada antes de empezar no se ejecute.
+     */
+    @Test
+    @Order(1)
+    @DisplayName("Cancelar antes de empezar")
+    void testCancelarAntesDeEmpezar() throws Exception {
+        // Arrange
+        ExecutorService unico = Executors.newSingleThreadExecutor();
+        OperacionesAsincronas enCola = new OperacionesAsincronas(unico);
+        unico.execute(this::retener);
+        AtomicBoolean ejecutada = new AtomicBoolean(false);
+        AtomicBoolean aplicada = new AtomicBoolean(false);
+        CompletableFuture<Boolean> operacion = enCola.ejecutar("guardar", () -> ejecutada.getAndSet(true),
+                                                               valor -> aplicada.set(true));
+
+        try {
+            // Act
+            boolean cancelada = operacion.cancel(true);
+            liberar.countDown();
+            OperacionesAsincronas.finalizacion(operacion).get(ESPERA_MAXIMA, TimeUnit.SECONDS);
+
+            // Assert
+            assertTrue(cancelada, "Debe poder cancelarse antes de empezar");
+            assertTrue(operacion.isCancelled(), "La operación debe quedar cancelada");
+            assertFalse(ejecutada.get(), "La tarea no debe ejecutarse");
+            assertFalse(aplicada.get(), "La acción de término no debe ejecutarse");
+            assertFalse(enCola.getTiempos().containsKey("guardar"), "No debe medirse una tarea que no corrió");
+            assertEquals(1, enCola.getCanceladas(), "Debe contarse la cancelación");
+        } finally {
+            enCola.cerrar();
+        }
+    }
+
+    /**
+     * Prueba que cancelar una operación en curso la deje terminar pero
+     * descarte su resultado sin ejecutar la acción de término.
+     */
+    @Test
+    @Order(2)
+    @DisplayName("Cancelar durante la ejecución")
+    void testCancelarDuranteEjecucion() throws Exception {
+        // Arrange
+        AtomicBoolean terminada = new AtomicBoolean(false);
+        AtomicBoolean aplicada = new AtomicBoolean(false);
+        CompletableFuture<Boolean> operacion = operaciones.ejecutar("guardar", () -> {
+            retener();
+            terminada.set(true);
+            return true;
+        }, valor -> aplicada.set(true));
+        assertTrue(empezo.await(ESPERA_MAXIMA, TimeUnit.SECONDS), "La tarea debe empezar");
+
+        // Act
+        boolean cancelada = operacion.cancel(true);
+        liberar.countDown();
+        OperacionesAsincronas.finalizacion(operacion).get(ESPERA_MAXIMA, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(cancelada, "Debe poder cancelarse mientras corre");
+        assertTrue(operacion.isCancelled(), "La operación debe quedar cancelada");
+        assertTrue(terminada.get(), "La tarea no se interrumpe");
+        assertFalse(aplicada.get(), "La acción de término no debe ejecutarse");
+        assertEquals(1, operaciones.getCanceladas(), "Debe contarse la cancelación");
+    }
+
+    /**
+     * Prueba que la finalización de una operación cancelada espere a que
+     * su hilo termine de correr.
+     */
+    @Test
+    @Order(3)
+    @DisplayName("Esperar la finalización de una operación cancelada")
+    void testFinalizacionEsperaHilo() throws Exception {
+        // Arrange
+        AtomicBoolean terminada = new AtomicBoolean(false);
+        CompletableFuture<Boolean> operacion = operaciones.ejecutar("guardar", () -> {
+            retener();
+            terminada.set(true);
+            return true;
+        });
+        assertTrue(empezo.await(ESPERA_MAXIMA, TimeUnit.SECONDS), "La tarea debe empezar");
+        operacion.cancel(true);
+
+        // Act
+        CompletableFuture<Void> finalizacion = OperacionesAsincronas.finalizacion(operacion);
+        boolean finalizadaAntes = finalizacion.isDone();
+        liberar.countDown();
+        finalizacion.get(ESPERA_MAXIMA, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(operacion.isDone(), "El futuro de la operación se completa al cancelar");
+        assertFalse(finalizadaAntes, "La finalización debe esperar a la tarea en curso");
+        assertTrue(terminada.get(), "La finalización se completa después de la tarea");
+    }
+
+    /**
+     * Prueba que los tiempos se acumulen por nombre de operación y que se
+     * cuenten solo las operaciones canceladas.
+     */
+    @Test
+    @Order(4)
+    @DisplayName("Acumular tiempos y cancelaciones")
+    void testTiemposYCanceladas() throws Exception {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            operaciones.ejecutar("guardar", () -> {
+                Thread.sleep(5);
+                return true;
+            }).get(ESPERA_MAXIMA, TimeUnit.SECONDS);
+        }
+        operaciones.ejecutar("cargar", () -> null).get(ESPERA_MAXIMA, TimeUnit.SECONDS);
+        CompletableFuture<Boolean> cancelada = operaciones.ejecutar("cancelar", () -> {
+            retener();
+            return true;
+        });
+        assertTrue(empezo.await(ESPERA_MAXIMA, TimeUnit.SECONDS), "La tarea debe empezar");
+        cancelada.cancel(true);
+        liberar.countDown();
+        OperacionesAsincronas.finalizacion(cancelada).get(ESPERA_MAXIMA, TimeUnit.SECONDS);
+
+        // Act
+        Map<String, LongSummaryStatistics> tiempos = operaciones.getTiempos();
+        tiempos.get("guardar").accept(0);
+
+        // Assert
+        assertEquals(3, operaciones.getTiempos().get("guardar").getCount(), "Debe devolverse una copia de los tiempos");
+        assertTrue(operaciones.getTiempos().get("guardar").getMin() >= TimeUnit.MILLISECONDS.toNanos(5),
+                   "Debe medirse la duración de cada guardado");
+        assertEquals(1, tiempos.get("cargar").getCount(), "Deben contarse las cargas");
+        assertEquals(1, tiempos.get("cancelar").getCount(), "Una tarea cancelada que corrió también se mide");
+        assertEquals(1, operaciones.getCanceladas(), "Solo debe contarse la operación cancelada");
+    }
+
+    /**
+     * Avisa que la tarea empezó y espera hasta que la prueba la libere.
+     */
+    private void retener() {
+        empezo.countDown();
+        try {
+            liberar.await(ESPERA_MAXIMA, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package udistrital.avanzada.argolla.control;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para PaqueteDatos.
+ * Prueba la exportación y restauración de un directorio de datos, desde un
+ * archivo y desde un canal, y el rechazo de paquetes incompletos, dañados o
+ * con rutas fuera del destino, usando un directorio temporal en cada prueba.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class PaqueteDatosTest {
+
+    @TempDir
+    Path raiz;
+
+    private Path datos;
+
+    private Path paquete;
+
+    private Path destino;
+
+    private PaqueteDatos paqueteDatos;
+
+    /**
+     * Configuración antes de cada prueba: crea un directorio de datos con
+     * archivos en la raíz y en un subdirectorio.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        datos = raiz.resolve("data");
+        paquete = raiz.resolve("respaldo.argb");
+        destino = raiz.resolve("restaurado");
+        paqueteDatos = new PaqueteDatos();
+        Files.createDirectories(datos.resolve("partidas"));
+        Files.write(datos.resolve("equipos.dat"), bytes("equipos"));
+        Files.write(datos.resolve("jugadores.dat"), new byte[100000]);
+        Files.write(datos.resolve("partidas").resolve("segmento_000001.log"), bytes("partidas"));
+        Files.write(datos.resolve("vacio.txt"), new byte[0]);
+        Files.write(datos.resolve("bloqueo.lck"), bytes("bloqueo"));
+        Files.write(datos.resolve("escritura.tmp"), bytes("temporal"));
+    }
+
+    /**
+     * Limpieza después de cada prueba.
+     */
+    @AfterEach
+    void tearDown() {
+        paqueteDatos = null;
+    }
+
+    /**
+     * Prueba que exportar y restaurar reproduzca todos los archivos salvo
+     * el de bloqueo y los temporales.
+     */
+    @Test
+    @Order(1)
+    @DisplayName("Exportar y restaurar directorio")
+    void testExportarYRestaurar() throws Exception {
+        // Arrange
+        long escritos = paqueteDatos.exportar(datos, paquete);
+
+        // Act
+        int restaurados = paqueteDatos.importar(paquete, destino);
+
+        // Assert
+        assertEquals(Files.size(paquete), escritos, "Debe informarse el tamaño del paquete");
+        assertEquals(4, restaurados, "Deben restaurarse los archivos de datos");
+        assertArrayEquals(bytes("equipos"), Files.readAllBytes(destino.resolve("equipos.dat")),
+                          "El contenido debe conservarse");
+        assertArrayEquals(new byte[100000], Files.readAllBytes(destino.resolve("jugadores.dat")),
+                          "El contenido debe conservarse");
+        assertArrayEquals(bytes("partidas"),
+                          Files.readAllBytes(destino.resolve("partidas").resolve("segmento_000001.log")),
+                          "Los subdirectorios deben restaurarse");
+        assertEquals(0, Files.size(destino.resolve("vacio.txt")), "Los archivos vacíos deben restaurarse");
+        assertFalse(Files.exists(destino.resolve("bloqueo.lck")), "El archivo de bloqueo no se exporta");
+        assertFalse(Files.exists(destino.resolve("escritura.tmp")), "Los temporales no se exportan");
+        assertFalse(Files.exists(raiz.resolve("restaurado.restaurando")), "No debe quedar el directorio temporal");
+    }
+
+    /**
+     * Prueba restaurar un paquete leído en orden desde un canal que no es
+     * un archivo.
+     */
+    @Test
+    @Order(2)
+    @DisplayName("Restaurar desde un canal")
+    void testRestaurarDesdeCanal() throws Exception {
+        // Arrange
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        paqueteDatos.exportar(datos, Channels.newChannel(salida));
+
+        // Act
+        int restaurados = paqueteDatos.importar(
+                Channels.newChannel(new ByteArrayInputStream(salida.toByteArray())), destino);
+
+        // Assert
+        assertEquals(4, restaurados, "Deben restaurarse los archivos de datos");
+        assertArrayEquals(bytes("partidas"),
+                          Files.readAllBytes(destino.resolve("partidas").resolve("segmento_000001.log")),
+                          "El contenido debe conservarse");
+    }
+
+    /**
+     * Prueba que no se restaure sobre un directorio con archivos.
+     */
+    @Test
+    @Order(3)
+    @DisplayName("Rechazar destino no vacío")
+    void testRechazarDestinoNoVacio() throws Exception {
+        // Arrange
+        paqueteDatos.exportar(datos, paquete);
+        Files.createDirectories(destino);
+        Files.write(destino.resolve("existente.dat"), bytes("existente"));
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> paqueteDatos.importar(paquete, destino),
+                     "Debe rechazarse el destino no vacío");
+        assertArrayEquals(bytes("existente"), Files.readAllBytes(destino.resolve("existente.dat")),
+                          "El destino no debe tocarse");
+        assertFalse(Files.exists(destino.resolve("equipos.dat")), "No deben restaurarse archivos");
+    }
+
+    /**
+     * Prueba que se rechacen rutas del manifiesto que saldrían del destino,
+     * sin escribir nada fuera de él.
+     */
+    @Test
+    @Order(4)
+    @DisplayName("Rechazar rutas fuera del destino")
+    void testRechazarRutasFuera() throws Exception {
+        for (String ruta : Arrays.asList("../fuera.txt", "sub/../../fuera.txt", "/fuera.txt", "./fuera.txt")) {
+            // Arrange
+            byte[] contenido = bytes("intruso");
+            byte[] malicioso = construirPaquete(ruta, contenido);
+
+            // Act & Assert
+            assertThrows(IOException.class,
+                         () -> paqueteDatos.importar(Channels.newChannel(new ByteArrayInputStream(malicioso)), destino),
+                         "Debe rechazarse la ruta " + ruta);
+            assertFalse(Files.exists(raiz.resolve("fuera.txt")), "No debe escribirse fuera del destino: " + ruta);
+            assertFalse(Files.exists(destino), "El destino no debe crearse: " + ruta);
+            assertFalse(Files.exists(raiz.resolve("restaurado.restaurando")), "No debe quedar el directorio temporal");
+        }
+    }
+
+    /**
+     * Prueba que un paquete truncado en la cabecera, el manifiesto o el
+     * contenido se rechace sin crear el destino.
+     */
+    @Test
+    @Order(5)
+    @DisplayName("Rechazar paquete incompleto")
+    void testRechazarIncompleto() throws Exception {
+        // Arrange
+        paqueteDatos.exportar(datos, paquete);
+        byte[] completo = Files.readAllBytes(paquete);
+
+        for (int longitud : new int[] {0, 6, 20, completo.length / 2, completo.length - 1}) {
+            byte[] truncado = Arrays.copyOf(completo, longitud);
+
+            // Act & Assert
+            assertThrows(IOException.class,
+                         () -> paqueteDatos.importar(Channels.newChannel(new ByteArrayInputStream(truncado)), destino),
+                         "Debe rechazarse el paquete truncado a " + longitud + " bytes");
+            assertFalse(Files.exists(destino), "El destino no debe crearse");
+            assertFalse(Files.exists(raiz.resolve("restaurado.restaurando")), "No debe quedar el directorio temporal");
+        }
+    }
+
+    /**
+     * Prueba que un byte alterado en el contenido de un archivo se detecte
+     * con su CRC.
+     */
+    @Test
+    @Order(6)
+    @DisplayName("Detectar contenido dañado")
+    void testDetectarContenidoDanado() throws Exception {
+        // Arrange
+        paqueteDatos.exportar(datos, paquete);
+        byte[] danado = Files.readAllBytes(paquete);
+        danado[danado.length - 1] ^= 0x01;
+        Files.write(paquete, danado);
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> paqueteDatos.importar(paquete, destino),
+                     "Debe detectarse el contenido dañado");
+        assertFalse(Files.exists(destino), "El destino no debe crearse");
+    }
+
+    /**
+     * Construye un paquete con un solo archivo y una ruta arbitraria.
+     *
+     * @param ruta Ruta del archivo en el manifiesto
+     * @param contenido Contenido del archivo
+     * @return Bytes del paquete
+     * @throws IOException Si hay error al codificar
+     */
+    private static byte[] construirPaquete(String ruta, byte[] contenido) throws IOException {
+        ByteArrayOutputStream manifiesto = new ByteArrayOutputStream();
+        try (DataOutputStream salida = new DataOutputStream(manifiesto)) {
+            byte[] nombre = bytes(ruta);
+            salida.writeInt(1);
+            salida.writeShort(nombre.length);
+            salida.write(nombre);
+            salida.writeLong(contenido.length);
+            salida.writeInt(crc(contenido));
+        }
+
+        ByteArrayOutputStream paquete = new ByteArrayOutputStream();
+        try (DataOutputStream salida = new DataOutputStream(paquete)) {
+            salida.writeInt(0x41524742);
+            salida.writeInt(PaqueteDatos.VERSION_FORMATO);
+            salida.writeInt(manifiesto.size());
+            salida.write(manifiesto.toByteArray());
+            salida.writeInt(crc(manifiesto.toByteArray()));
+            salida.write(contenido);
+        }
+        return paquete.toByteArray();
+    }
+
+    /**
+     * Calcula el CRC32C de un arreglo.
+     *
+     * @param datos Bytes
+     * @return CRC calculado
+     */
+    private static int crc(byte[] datos) {
+        CRC32C crc = new CRC32C();
+        crc.update(datos);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Convierte un texto a bytes UTF-8.
+     *
+     * @param texto Texto
+     * @return Bytes del texto
+     */
+    private static byte[] bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,166 @@
+package udistrital.avanzada.argolla.control;
+
+import udistrital.avanzada.argolla.modelo.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clase de pruebas unitarias para PersistenciaManager.
+ * Prueba la carga diferida de partidas: la lectura de la cabecera sin los
+ * equipos, su carga al usarlos con el delta más reciente, el error cuando
+ * ya no se pueden leer y la serialización, usando un directorio temporal de
+ * datos en cada prueba.
+ *
+ * @author Sansantax, And_Gar03
+ * @version 3.0
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class PersistenciaManagerTest {
+
+    @TempDir
+    Path raiz;
+
+    private PersistenciaManager persistencia;
+
+    private Partida partida;
+
+    /**
+     * Configuración antes de cada prueba.
+     */
+    @BeforeEach
+    void setUp() {
+        persistencia = new PersistenciaManager(raiz);
+        partida = CodificadorPartidasTest.crearPartida();
+    }
+
+    /**
+     * Limpieza después de cada prueba.
+     */
+    @AfterEach
+    void tearDown() {
+        persistencia.cerrar();
+        persistencia = null;
+    }
+
+    /**
+     * Prueba que la partida diferida tenga la cabecera sin cargar los
+     * equipos, y que el primer uso de los equipos los cargue con sus
+     * jugadores.
+     */
+    @Test
+    @Order(1)
+    @DisplayName("Cargar equipos al usarlos por primera vez")
+    void testCargarEquiposAlUsar() {
+        // Arrange
+        assertTrue(persistencia.guardarPartida(partida), "La partida debe guardarse");
+        PartidaDiferida diferida = (PartidaDiferida) persistencia.cargarPartidaDiferida("p1");
+
+        // Act
+        boolean cargadaAntes = diferida.estaCargada();
+        List<String> nombres = diferida.getNombresEquipos();
+        boolean cargadaTrasNombres = diferida.estaCargada();
+        List<Equipo> equipos = diferida.getEquipos();
+
+        // Assert
+        assertFalse(cargadaAntes, "Los equipos no deben cargarse al leer la cabecera");
+        assertEquals(Arrays.asList("Rojos", "Azules"), nombres, "Los nombres deben venir de la cabecera");
+        assertFalse(cargadaTrasNombres, "Consultar los nombres no debe cargar los equipos");
+        assertEquals(3, diferida.getRondaActual(), "La ronda debe venir de la cabecera");
+        assertTrue(diferida.estaCargada(), "El primer uso debe cargar los equipos");
+        assertEquals(2, equipos.size(), "Deben cargarse los dos equipos");
+        Jugador ana = equipos.get(0).buscarJugadorPorNombre("Ana");
+        assertNotNull(ana, "Deben cargarse los jugadores");
+        assertEquals(30, ana.getPuntuacion(), "Deben cargarse las estadísticas de los jugadores");
+        assertEquals("Azul", equipos.get(1).getColor(), "Deben cargarse los colores");
+        assertEquals(2, equipos.get(1).getNumeroJugadores(), "Deben cargarse todos los jugadores");
+    }
+
+    /**
+     * Prueba que un delta guardado después de cargar la cabecera se aplique
+     * al cargar los equipos, y que una cabecera cargada después ya lo incluya.
+     */
+    @Test
+    @Order(2)
+    @DisplayName("Aplicar el delta más reciente al cargar los equipos")
+    void testAplicarDeltaPosterior() throws Exception {
+        // Arrange
+        assertTrue(persistencia.guardarPartida(partida), "La partida debe guardarse");
+        PartidaDiferida diferida = (PartidaDiferida) persistencia.cargarPartidaDiferida("p1");
+        partida.getEquipos().get(0).buscarJugadorPorNombre("Ana").setPuntuacion(45);
+        partida.setRondaActual(4);
+        assertTrue(persistencia.guardarPartida(partida), "El cambio debe guardarse");
+
+        // Act
+        Jugador ana = diferida.getEquipos().get(0).buscarJugadorPorNombre("Ana");
+        PartidaDiferida posterior = (PartidaDiferida) persistencia.cargarPartidaDiferida("p1");
+
+        // Assert
+        assertNotNull(ArchivoPartidas.abrir(raiz.resolve("partidas")).leerDelta("p1"),
+                      "El cambio debe guardarse como delta");
+        assertEquals(45, ana.getPuntuacion(), "Los equipos deben cargarse con el delta");
+        assertEquals(4, posterior.getRondaActual(), "La cabecera debe incluir el delta");
+        assertFalse(posterior.estaCargada(), "Aplicar el delta a la cabecera no debe cargar los equipos");
+        assertEquals(45, posterior.getEquipos().get(0).buscarJugadorPorNombre("Ana").getPuntuacion(),
+                     "Los equipos deben cargarse con el delta");
+    }
+
+    /**
+     * Prueba que si la partida ya no se puede leer al usar los equipos se
+     * lance un error en lugar de continuar sin equipos.
+     */
+    @Test
+    @Order(3)
+    @DisplayName("Fallar si los equipos no se pueden cargar")
+    void testFallarCarga() {
+        // Arrange
+        assertTrue(persistencia.guardarPartida(partida), "La partida debe guardarse");
+        PartidaDiferida diferida = (PartidaDiferida) persistencia.cargarPartidaDiferida("p1");
+        assertTrue(persistencia.eliminarPartida("p1"), "La partida debe eliminarse");
+
+        // Act & Assert
+        assertThrows(UncheckedIOException.class, diferida::getEquipos, "Debe fallar la carga de los equipos");
+        assertFalse(diferida.estaCargada(), "La partida no debe quedar cargada sin equipos");
+        assertEquals(2, diferida.getNumeroEquipos(), "La cabecera debe conservarse");
+    }
+
+    /**
+     * Prueba que serializar una partida diferida cargue antes sus equipos,
+     * porque el lector de equipos no se serializa.
+     */
+    @Test
+    @Order(4)
+    @DisplayName("Serializar una partida diferida")
+    void testSerializar() throws Exception {
+        // Arrange
+        assertTrue(persistencia.guardarPartida(partida), "La partida debe guardarse");
+        PartidaDiferida diferida = (PartidaDiferida) persistencia.cargarPartidaDiferida("p1");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        // Act
+        try (ObjectOutputStream salida = new ObjectOutputStream(bytes)) {
+            salida.writeObject(diferida);
+        }
+        Partida leida;
+        try (ObjectInputStream entrada = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            leida = (Partida) entrada.readObject();
+        }
+
+        // Assert
+        assertTrue(diferida.estaCargada(), "Serializar debe cargar los equipos");
+        assertEquals("p1", leida.getId(), "Debe conservarse el id");
+        assertEquals(2, leida.getEquipos().size(), "Deben serializarse los equipos");
+        assertEquals(40, leida.getEquipos().get(1).buscarJugadorPorNombre("Carla").getPuntuacion(),
+                     "Deben serializarse los jugadores");
+    }
+}